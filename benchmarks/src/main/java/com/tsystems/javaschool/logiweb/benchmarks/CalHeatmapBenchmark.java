@@ -0,0 +1,48 @@
+package com.tsystems.javaschool.logiweb.benchmarks;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tsystems.javaschool.logiweb.utils.DateUtils;
+
+/**
+ * Conversion of shift interval to cal-heatmap data, done for every shift of
+ * driver on driver page.
+ *
+ * @author Andrey Baliushin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CalHeatmapBenchmark {
+
+    /**
+     * Length of shift: usual shift, long shift and whole month of shifts.
+     */
+    @Param({ "8", "24", "720" })
+    private int hours;
+
+    private Date start;
+    private Date end;
+
+    @Setup
+    public void createInterval() {
+        end = new Date(1435708800000L); // 2015-07-01
+        start = new Date(end.getTime() - hours * 3600 * 1000L - 17 * 60 * 1000L);
+    }
+
+    @Benchmark
+    public Map<String, Integer> convertInterval() {
+        return DateUtils.convertIntervalToCalHeatmapFormat(start, end);
+    }
+}
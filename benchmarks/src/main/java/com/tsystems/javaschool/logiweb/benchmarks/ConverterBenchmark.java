@@ -0,0 +1,63 @@
+package com.tsystems.javaschool.logiweb.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
+import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.Truck;
+import com.tsystems.javaschool.logiweb.model.DriverModel;
+import com.tsystems.javaschool.logiweb.model.OrderModel;
+import com.tsystems.javaschool.logiweb.model.TruckModel;
+import com.tsystems.javaschool.logiweb.model.ext.ModelToEntityConverter;
+
+/**
+ * Conversion of entity graphs to models, as done by list pages of orders,
+ * trucks and drivers.
+ *
+ * @author Andrey Baliushin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConverterBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    private int orders;
+
+    private Set<DeliveryOrder> orderEntities;
+    private Set<Truck> truckEntities;
+    private Set<Driver> driverEntities;
+
+    @Setup
+    public void createData() {
+        SyntheticData data = new SyntheticData(42);
+        orderEntities = data.ordersWithTrucksAndCrews(orders, data.cities(200));
+        truckEntities = SyntheticData.trucksOf(orderEntities);
+        driverEntities = SyntheticData.driversOf(orderEntities);
+    }
+
+    @Benchmark
+    public Set<OrderModel> convertOrders() {
+        return ModelToEntityConverter.convertOrdersToModels(orderEntities);
+    }
+
+    @Benchmark
+    public Set<TruckModel> convertTrucks() {
+        return ModelToEntityConverter.convertTrucksToModels(truckEntities);
+    }
+
+    @Benchmark
+    public Set<DriverModel> convertDrivers() {
+        return ModelToEntityConverter.convertDriversToModels(driverEntities);
+    }
+}
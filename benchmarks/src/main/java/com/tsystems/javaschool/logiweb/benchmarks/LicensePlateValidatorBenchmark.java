@@ -0,0 +1,47 @@
+package com.tsystems.javaschool.logiweb.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tsystems.javaschool.logiweb.service.validators.LicensePlateValidator;
+import com.tsystems.javaschool.logiweb.service.validators.LicensePlateValidatorImpl;
+
+/**
+ * Validation of licence plates entered on truck form and in truck import.
+ *
+ * @author Andrey Baliushin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LicensePlateValidatorBenchmark {
+
+    private static final int PLATES = 1024;
+
+    private final LicensePlateValidator validator = new LicensePlateValidatorImpl();
+    private List<String> plates;
+    private int next;
+
+    @Setup
+    public void createPlates() {
+        plates = new SyntheticData(42).licencePlates(PLATES);
+    }
+
+    /**
+     * One plate per call, plates are taken in turn (mix of valid and invalid
+     * ones).
+     */
+    @Benchmark
+    public boolean validatePlate() {
+        next = (next + 1) & (PLATES - 1);
+        return validator.validateLicensePlate(plates.get(next));
+    }
+}
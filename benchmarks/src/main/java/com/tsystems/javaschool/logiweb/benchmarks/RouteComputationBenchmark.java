@@ -0,0 +1,108 @@
+package com.tsystems.javaschool.logiweb.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.tsystems.javaschool.logiweb.dao.projections.RoadRow;
+import com.tsystems.javaschool.logiweb.service.ext.DistanceMatrix;
+import com.tsystems.javaschool.logiweb.service.ext.PickupDeliveryOptimizer;
+import com.tsystems.javaschool.logiweb.service.ext.RoadGraph;
+
+/**
+ * Computations behind RouteService: building of road graph and distance
+ * matrix after change of roads, shortest distances from one city and
+ * ordering of pickup and delivery stops of one order.
+ *
+ * @author Andrey Baliushin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RouteComputationBenchmark {
+
+    private static final int ROADS_PER_CITY = 4;
+    private static final float AVERAGE_SPEED = 60f;
+
+    @Param({ "50", "200", "1000" })
+    private int cities;
+
+    /**
+     * Cargoes of optimized order (two stops per cargo).
+     */
+    @Param({ "3", "10" })
+    private int cargoes;
+
+    private List<RoadRow> roads;
+    private RoadGraph graph;
+
+    private float[] legDistances;
+    private int[] pickupOf;
+    private float[] loadChange;
+
+    /**
+     * Whole time budget is not used for orders of this size, search stops
+     * after several perturbations without improvement.
+     */
+    private final PickupDeliveryOptimizer optimizer = new PickupDeliveryOptimizer(1000);
+
+    @Setup
+    public void createData() {
+        roads = new SyntheticData(42).roads(cities, ROADS_PER_CITY);
+        graph = new RoadGraph(roads);
+        DistanceMatrix matrix = DistanceMatrix.build(graph, AVERAGE_SPEED);
+
+        Random random = new Random(42);
+        int stops = cargoes * 2;
+        int[] stopCities = new int[stops + 1];
+        stopCities[0] = 1 + random.nextInt(cities);
+        pickupOf = new int[stops];
+        loadChange = new float[stops];
+        for (int i = 0; i < cargoes; i++) {
+            float weight = 100 + random.nextInt(5000);
+            stopCities[2 * i + 1] = 1 + random.nextInt(cities);
+            stopCities[2 * i + 2] = 1 + random.nextInt(cities);
+            pickupOf[2 * i] = PickupDeliveryOptimizer.NO_PICKUP;
+            pickupOf[2 * i + 1] = 2 * i;
+            loadChange[2 * i] = weight;
+            loadChange[2 * i + 1] = -weight;
+        }
+        legDistances = new float[(stops + 1) * (stops + 1)];
+        for (int i = 0; i <= stops; i++) {
+            for (int j = 0; j <= stops; j++) {
+                legDistances[i * (stops + 1) + j] = matrix.getDistance(
+                        stopCities[i], stopCities[j]);
+            }
+        }
+    }
+
+    @Benchmark
+    public RoadGraph buildRoadGraph() {
+        return new RoadGraph(roads);
+    }
+
+    @Benchmark
+    public DistanceMatrix buildDistanceMatrix() {
+        return DistanceMatrix.build(graph, AVERAGE_SPEED);
+    }
+
+    @Benchmark
+    public float[] shortestDistancesFromOneCity() {
+        return graph.shortestDistancesFrom(1);
+    }
+
+    @Benchmark
+    public int[] optimizeStopsOfOrder() {
+        return optimizer.optimize(legDistances, pickupOf, loadChange, 0,
+                Float.POSITIVE_INFINITY, 42);
+    }
+}
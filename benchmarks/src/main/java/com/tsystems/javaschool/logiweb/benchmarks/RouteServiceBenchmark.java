@@ -0,0 +1,171 @@
+package com.tsystems.javaschool.logiweb.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import com.tsystems.javaschool.logiweb.dao.CityDao;
+import com.tsystems.javaschool.logiweb.dao.DeliveryOrderDao;
+import com.tsystems.javaschool.logiweb.dao.RoadDao;
+import com.tsystems.javaschool.logiweb.dao.projections.RoadRow;
+import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
+import com.tsystems.javaschool.logiweb.service.impl.CityServiceImpl;
+import com.tsystems.javaschool.logiweb.service.impl.RouteServiceImpl;
+
+/**
+ * Routes of orders built by {@link RouteServiceImpl}: one order (order page,
+ * driver info) and many orders at once (planning). DAOs are stubs that
+ * return prepared entities, so service computation is measured without DB.
+ * <p>
+ * Routes are evicted from cache before each call, otherwise only cache
+ * lookups would be measured. Service is measured both with distance matrix
+ * ready and while it is not built yet (Dijkstra on road graph).
+ *
+ * @author Andrey Baliushin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RouteServiceBenchmark {
+
+    private static final int ROADS_PER_CITY = 4;
+    private static final int PLANNING_THREADS = 4;
+
+    @Param({ "200", "1000" })
+    private int cities;
+
+    /**
+     * Orders requested at once (1-6 cargoes each).
+     */
+    @Param({ "10", "100" })
+    private int orders;
+
+    @Param({ "true", "false" })
+    private boolean distanceMatrixReady;
+
+    private ExecutorService routePlanningExecutor;
+    private RouteServiceImpl routeService;
+
+    private List<Integer> orderIds;
+    private int nextOrder;
+
+    @Setup
+    public void createData() throws LogiwebServiceException {
+        SyntheticData data = new SyntheticData(42);
+        List<City> cityList = data.cities(cities);
+        final Set<City> citySet = new HashSet<City>(cityList);
+        final List<RoadRow> roads = data.roads(cities, ROADS_PER_CITY);
+        final Map<Integer, DeliveryOrder> ordersById = new HashMap<Integer, DeliveryOrder>();
+        for (DeliveryOrder order : data.ordersWithTrucksAndCrews(orders, cityList)) {
+            ordersById.put(order.getId(), order);
+        }
+        orderIds = new ArrayList<Integer>(ordersById.keySet());
+
+        DeliveryOrderDao orderDao = stub(DeliveryOrderDao.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("find".equals(method.getName())) {
+                    return ordersById.get(args[0]);
+                }
+                if ("findByIds".equals(method.getName())) {
+                    Set<DeliveryOrder> found = new HashSet<DeliveryOrder>();
+                    for (Object id : (Collection<?>) args[0]) {
+                        found.add(ordersById.get(id));
+                    }
+                    return found;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        RoadDao roadDao = stub(RoadDao.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("findAllRows".equals(method.getName())) {
+                    return roads;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        CityDao cityDao = stub(CityDao.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("findAll".equals(method.getName())) {
+                    return citySet;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        // without matrix build task is dropped, as if it is still running
+        Executor routeTablesExecutor = distanceMatrixReady ? new SyncTaskExecutor()
+                : new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                    }
+                };
+        // some synthetic orders overload their trucks, warning would be
+        // written on every call
+        Logger.getLogger(RouteServiceImpl.class).setLevel(Level.ERROR);
+
+        routePlanningExecutor = Executors.newFixedThreadPool(PLANNING_THREADS);
+        routeService = new RouteServiceImpl(orderDao, roadDao,
+                new CityServiceImpl(cityDao), routeTablesExecutor,
+                routePlanningExecutor);
+        routeService.reloadRoadGraph();
+    }
+
+    @TearDown
+    public void stopExecutor() {
+        routePlanningExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public RouteInformation routeForOrder() throws LogiwebServiceException {
+        int orderId = orderIds.get(nextOrder);
+        nextOrder = (nextOrder + 1) % orderIds.size();
+        routeService.evictRouteInformation(orderId);
+        return routeService.getRouteInformationForOrder(orderId);
+    }
+
+    @Benchmark
+    public Map<Integer, RouteInformation> routesForOrders()
+            throws LogiwebServiceException {
+        for (Integer orderId : orderIds) {
+            routeService.evictRouteInformation(orderId);
+        }
+        return routeService.getRouteInformationForOrders(orderIds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T stub(Class<T> dao, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { dao }, handler);
+    }
+}
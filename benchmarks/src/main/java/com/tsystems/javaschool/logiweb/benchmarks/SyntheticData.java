@@ -0,0 +1,253 @@
+package com.tsystems.javaschool.logiweb.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.tsystems.javaschool.logiweb.dao.projections.RoadRow;
+import com.tsystems.javaschool.logiweb.entities.Cargo;
+import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
+import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.DriverMonthlyHours;
+import com.tsystems.javaschool.logiweb.entities.Truck;
+import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
+import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
+
+/**
+ * Deterministic synthetic datasets shaped like production data: orders with
+ * 1-6 cargoes between random cities, trucks with crews of 1-3 drivers,
+ * working hours ledger of this month and road network where every city is
+ * connected to a few nearest cities.
+ * <p>
+ * Same seed always gives same data, so results of different commits are
+ * comparable.
+ *
+ * @author Andrey Baliushin
+ */
+public final class SyntheticData {
+
+    private static final DriverStatus[] DRIVER_STATUSES = DriverStatus.values();
+    private static final CargoStatus[] CARGO_STATUSES = CargoStatus.values();
+
+    private final Random random;
+    private int nextId = 1;
+
+    public SyntheticData(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param count
+     * @return cities with ids 1..count
+     */
+    public List<City> cities(int count) {
+        List<City> cities = new ArrayList<City>(count);
+        for (int i = 1; i <= count; i++) {
+            City city = new City();
+            city.setId(i);
+            city.setName("City " + i);
+            cities.add(city);
+        }
+        return cities;
+    }
+
+    /**
+     * Orders with trucks and crews. Every order has its own truck, trucks
+     * and drivers reference their order and each other like entities loaded
+     * with full graph.
+     *
+     * @param count
+     * @param cities
+     * @return orders
+     */
+    public Set<DeliveryOrder> ordersWithTrucksAndCrews(int count, List<City> cities) {
+        Set<DeliveryOrder> orders = new HashSet<DeliveryOrder>();
+        for (int i = 0; i < count; i++) {
+            DeliveryOrder order = new DeliveryOrder();
+            order.setId(nextId++);
+            order.setStatus(OrderStatus.READY_TO_GO);
+
+            Set<Cargo> cargoes = new HashSet<Cargo>();
+            int cargoCount = 1 + random.nextInt(6);
+            for (int j = 0; j < cargoCount; j++) {
+                Cargo cargo = new Cargo();
+                cargo.setId(nextId++);
+                cargo.setTitle("Cargo " + cargo.getId());
+                cargo.setWeight(100f + random.nextInt(5000));
+                cargo.setStatus(CARGO_STATUSES[random.nextInt(CARGO_STATUSES.length)]);
+                cargo.setOriginCity(randomCity(cities));
+                cargo.setDestinationCity(randomCity(cities));
+                cargo.setOrderForThisCargo(order);
+                cargoes.add(cargo);
+            }
+            order.setAssignedCargoes(cargoes);
+
+            Truck truck = truck(cities);
+            truck.setAssignedDeliveryOrder(order);
+            order.setAssignedTruck(truck);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    /**
+     * @param orders
+     * @return trucks assigned to orders
+     */
+    public static Set<Truck> trucksOf(Set<DeliveryOrder> orders) {
+        Set<Truck> trucks = new HashSet<Truck>();
+        for (DeliveryOrder order : orders) {
+            trucks.add(order.getAssignedTruck());
+        }
+        return trucks;
+    }
+
+    /**
+     * @param orders
+     * @return drivers of trucks assigned to orders
+     */
+    public static Set<Driver> driversOf(Set<DeliveryOrder> orders) {
+        Set<Driver> drivers = new HashSet<Driver>();
+        for (DeliveryOrder order : orders) {
+            drivers.addAll(order.getAssignedTruck().getDrivers());
+        }
+        return drivers;
+    }
+
+    /**
+     * Ledger records of this month. Every third driver is on shift now.
+     *
+     * @param driverIds
+     * @param month
+     *            first date of month
+     * @return one record per driver
+     */
+    public Set<DriverMonthlyHours> ledger(List<Integer> driverIds, Date month) {
+        Set<DriverMonthlyHours> ledger = new HashSet<DriverMonthlyHours>();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < driverIds.size(); i++) {
+            DriverMonthlyHours record = new DriverMonthlyHours();
+            record.setId(nextId++);
+            record.setDriverId(driverIds.get(i));
+            record.setMonth(month);
+            record.setFinishedShiftsHours(random.nextInt(170) + random.nextFloat());
+            if (i % 3 == 0) {
+                record.setOpenShiftBeggined(new Date(now - random.nextInt(12 * 3600) * 1000L));
+            }
+            ledger.add(record);
+        }
+        return ledger;
+    }
+
+    /**
+     * Road network: cities on a plane, every city is connected to its
+     * {@code roadsPerCity} nearest cities.
+     *
+     * @param cityCount
+     * @param roadsPerCity
+     * @return roads
+     */
+    public List<RoadRow> roads(int cityCount, int roadsPerCity) {
+        float[] x = new float[cityCount];
+        float[] y = new float[cityCount];
+        for (int i = 0; i < cityCount; i++) {
+            x[i] = random.nextFloat() * 2000;
+            y[i] = random.nextFloat() * 2000;
+        }
+
+        List<RoadRow> roads = new ArrayList<RoadRow>();
+        for (int i = 0; i < cityCount; i++) {
+            boolean[] connected = new boolean[cityCount];
+            connected[i] = true;
+            for (int r = 0; r < roadsPerCity && r < cityCount - 1; r++) {
+                int nearest = -1;
+                float nearestDistance = Float.MAX_VALUE;
+                for (int j = 0; j < cityCount; j++) {
+                    float distance = distance(x, y, i, j);
+                    if (!connected[j] && distance < nearestDistance) {
+                        nearest = j;
+                        nearestDistance = distance;
+                    }
+                }
+                connected[nearest] = true;
+                roads.add(new RoadRow(i + 1, nearest + 1, nearestDistance));
+            }
+        }
+        return roads;
+    }
+
+    /**
+     * Licence plates like ones entered by managers: mostly valid, some with
+     * wrong length, wrong number of letters or wrong characters.
+     *
+     * @param count
+     * @return plates
+     */
+    public List<String> licencePlates(int count) {
+        String letters = "ABCEHKMOPTXYАВЕКМНОРСТУХ";
+        List<String> plates = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder plate = new StringBuilder();
+            plate.append(letters.charAt(random.nextInt(letters.length())));
+            plate.append(letters.charAt(random.nextInt(letters.length())));
+            plate.append(10000 + random.nextInt(90000));
+            switch (random.nextInt(8)) {
+            case 0:
+                plate.deleteCharAt(plate.length() - 1);
+                break;
+            case 1:
+                plate.setCharAt(3, letters.charAt(random.nextInt(letters.length())));
+                break;
+            case 2:
+                plate.setCharAt(4, '-');
+                break;
+            default:
+                break;
+            }
+            plates.add(plate.toString());
+        }
+        return plates;
+    }
+
+    private Truck truck(List<City> cities) {
+        Truck truck = new Truck();
+        truck.setId(nextId++);
+        truck.setLicencePlate("AB" + (10000 + truck.getId() % 90000));
+        truck.setCrewSize(1 + random.nextInt(3));
+        truck.setCargoCapacity(5000f + random.nextInt(20000));
+        truck.setStatus(TruckStatus.OK);
+        City city = randomCity(cities);
+        truck.setCurrentCity(city);
+
+        Set<Driver> drivers = new HashSet<Driver>();
+        for (int k = 0; k < truck.getCrewSize(); k++) {
+            Driver driver = new Driver();
+            driver.setId(nextId++);
+            driver.setEmployeeId(driver.getId());
+            driver.setName("Name" + driver.getId());
+            driver.setSurname("Surname" + driver.getId());
+            driver.setStatus(DRIVER_STATUSES[random.nextInt(DRIVER_STATUSES.length)]);
+            driver.setCurrentCity(city);
+            driver.setCurrentTruck(truck);
+            drivers.add(driver);
+        }
+        truck.setDrivers(drivers);
+        return truck;
+    }
+
+    private City randomCity(List<City> cities) {
+        return cities.get(random.nextInt(cities.size()));
+    }
+
+    private static float distance(float[] x, float[] y, int i, int j) {
+        float dx = x[i] - x[j];
+        float dy = y[i] - y[j];
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,130 @@
+package com.tsystems.javaschool.logiweb.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tsystems.javaschool.logiweb.benchmarks.dataset.DatasetGenerator;
+import com.tsystems.javaschool.logiweb.dao.DriverDao;
+import com.tsystems.javaschool.logiweb.dao.DriverMonthlyHoursDao;
+import com.tsystems.javaschool.logiweb.dao.DriverShiftJournaDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.impl.DriverServiceImpl;
+
+/**
+ * Aggregation of working hours of this month for many drivers (driver list,
+ * crew suggestions, planning) on dataset made by {@link DatasetGenerator}.
+ * Both ways are measured: sum over shift journal in DB and reading of
+ * working hours ledger by {@link DriverServiceImpl}.
+ * <p>
+ * Generate dataset first and pass same {@code -Ddataset.url} to benchmark
+ * JVM if it is not default ({@code -jvmArgsAppend -Ddataset.url=...}).
+ * Drivers are picked at random with fixed seed, every call is a separate
+ * read-only transaction.
+ *
+ * @author Andrey Baliushin
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorkingHoursBenchmark {
+
+    private static final String CONTEXT = "classpath:benchmark-context-dataset.xml";
+
+    @Param({ "10", "100", "1000" })
+    private int drivers;
+
+    private ClassPathXmlApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private DriverShiftJournaDao shiftJournalDao;
+    private DriverServiceImpl driverService;
+
+    private List<Integer> driverIds;
+
+    @Setup
+    public void connectToDataset() {
+        context = new ClassPathXmlApplicationContext(CONTEXT);
+        transactionTemplate = new TransactionTemplate(
+                context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+        shiftJournalDao = context.getBean(DriverShiftJournaDao.class);
+        driverService = new DriverServiceImpl(null, null, shiftJournalDao,
+                context.getBean(DriverMonthlyHoursDao.class), null, null, null);
+
+        // generator gives drivers ids 1..N
+        final DriverDao driverDao = context.getBean(DriverDao.class);
+        long driversInDataset = transactionTemplate.execute(new TransactionCallback<Long>() {
+            @Override
+            public Long doInTransaction(TransactionStatus status) {
+                try {
+                    return driverDao.countFiltered(new HashMap<String, Object>());
+                } catch (DaoException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        if (driversInDataset < drivers) {
+            throw new IllegalStateException("Dataset has only "
+                    + driversInDataset + " drivers.");
+        }
+        List<Integer> allIds = new ArrayList<Integer>((int) driversInDataset);
+        for (int id = 1; id <= driversInDataset; id++) {
+            allIds.add(id);
+        }
+        Collections.shuffle(allIds, new Random(42));
+        driverIds = new ArrayList<Integer>(allIds.subList(0, drivers));
+    }
+
+    @TearDown
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<Integer, Float> sumShiftJournal() {
+        return transactionTemplate.execute(new TransactionCallback<Map<Integer, Float>>() {
+            @Override
+            public Map<Integer, Float> doInTransaction(TransactionStatus status) {
+                try {
+                    return shiftJournalDao.sumWorkingHoursForThisMonth(driverIds);
+                } catch (DaoException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    public Map<Integer, Float> readWorkingHoursLedger() {
+        return transactionTemplate.execute(new TransactionCallback<Map<Integer, Float>>() {
+            @Override
+            public Map<Integer, Float> doInTransaction(TransactionStatus status) {
+                try {
+                    return driverService.calculateWorkingHoursForDrivers(driverIds);
+                } catch (LogiwebServiceException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.tsystems.javaschool.logiweb.benchmarks.dataset;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Insert statement that sends rows in JDBC batches and commits every
+ * {@link #ROWS_PER_TRANSACTION} rows, so neither statement nor undo log grow
+ * with table size.
+ *
+ * @author Andrey Baliushin
+ */
+final class BatchInsert implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(BatchInsert.class);
+
+    private static final int ROWS_PER_TRANSACTION = 100000;
+
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final String table;
+    private final int batchSize;
+
+    private int rowsInBatch;
+    private long rows;
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * @param connection
+     *            connection with auto-commit turned off
+     * @param table
+     * @param columns
+     * @param batchSize
+     * @throws SQLException
+     */
+    BatchInsert(Connection connection, String table, String[] columns,
+            int batchSize) throws SQLException {
+        this.connection = connection;
+        this.table = table;
+        this.batchSize = batchSize;
+
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (");
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+                values.append(", ");
+            }
+            sql.append(columns[i]);
+            values.append('?');
+        }
+        sql.append(") VALUES (").append(values).append(')');
+        this.statement = connection.prepareStatement(sql.toString());
+    }
+
+    /**
+     * @return statement to set parameters of next row
+     */
+    PreparedStatement row() {
+        return statement;
+    }
+
+    /**
+     * Add row with parameters set to {@link #row()}.
+     *
+     * @throws SQLException
+     */
+    void add() throws SQLException {
+        statement.addBatch();
+        rows++;
+        if (++rowsInBatch == batchSize) {
+            flush();
+        }
+        if (rows % ROWS_PER_TRANSACTION == 0) {
+            connection.commit();
+            LOG.info(table + ": " + rows + " rows");
+        }
+    }
+
+    private void flush() throws SQLException {
+        if (rowsInBatch > 0) {
+            statement.executeBatch();
+            rowsInBatch = 0;
+        }
+    }
+
+    /**
+     * Send rest of rows and commit.
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+            connection.commit();
+        } finally {
+            statement.close();
+        }
+        LOG.info(table + ": " + rows + " rows inserted in "
+                + (System.nanoTime() - startNanos) / 1000000 + " ms");
+    }
+}
@@ -0,0 +1,57 @@
+package com.tsystems.javaschool.logiweb.benchmarks.dataset;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Picks city ids with Zipf distribution: city with id 1 is the biggest hub,
+ * city with id N gets 1/N^skew of its traffic.
+ *
+ * @author Andrey Baliushin
+ */
+final class CitySkew {
+
+    private final double[] cumulativeWeights;
+
+    /**
+     * @param cities
+     *            number of cities (ids 1..cities)
+     * @param skew
+     *            exponent, 0 gives uniform distribution
+     */
+    CitySkew(int cities, double skew) {
+        cumulativeWeights = new double[cities];
+        double total = 0;
+        for (int i = 0; i < cities; i++) {
+            total += 1.0 / Math.pow(i + 1, skew);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * @param random
+     * @return city id
+     */
+    int next(Random random) {
+        double point = random.nextDouble()
+                * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, point);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, cumulativeWeights.length - 1) + 1;
+    }
+
+    /**
+     * @param random
+     * @param otherThan
+     * @return city id that differs from given one
+     */
+    int nextOtherThan(Random random, int otherThan) {
+        int city;
+        do {
+            city = next(random);
+        } while (city == otherThan);
+        return city;
+    }
+}
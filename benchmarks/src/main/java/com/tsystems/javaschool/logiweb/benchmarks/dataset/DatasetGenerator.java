@@ -0,0 +1,502 @@
+package com.tsystems.javaschool.logiweb.benchmarks.dataset;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.apache.log4j.Logger;
+
+import com.tsystems.javaschool.logiweb.benchmarks.SyntheticData;
+import com.tsystems.javaschool.logiweb.dao.projections.RoadRow;
+import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
+import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
+import com.tsystems.javaschool.logiweb.utils.DateUtils;
+
+/**
+ * Fills embedded H2 database with production-shaped data, so queries of
+ * persistence layer can be benchmarked, load tested and their plans checked
+ * on realistic volumes.
+ * <p>
+ * Schema is created by Hibernate from entities (same as in tests), rows are
+ * loaded with batched JDBC inserts. Data is consistent with business rules:
+ * <ul>
+ * <li>trucks, drivers and cargo cities follow Zipf distribution (see
+ * {@link DatasetSettings#getCitySkew()});</li>
+ * <li>most orders are delivered, busy trucks carry READY_TO_GO orders and
+ * have full crew on shift, most recent orders are NOT_READY;</li>
+ * <li>drivers work day or night shifts of 4-12 hours in 4-6 day runs with 1-2
+ * days off, crew of busy trucks has unfinished shift;</li>
+ * <li>working hours ledger of this month matches shift journal.</li>
+ * </ul>
+ * Run with
+ * {@code mvn -P benchmarks -pl benchmarks exec:java -Ddataset.scale=0.1}
+ * or {@code java -cp benchmarks/target/benchmarks.jar} with this class as
+ * main class. Settings are described in {@link DatasetSettings}.
+ *
+ * @author Andrey Baliushin
+ */
+public final class DatasetGenerator {
+
+    private static final Logger LOG = Logger.getLogger(DatasetGenerator.class);
+
+    private static final long HOUR = 3600L * 1000;
+    private static final long DAY = 24 * HOUR;
+
+    private static final int MIN_SHIFT_HOURS = 4;
+    private static final int MAX_SHIFT_HOURS = 12;
+
+    private static final String[] NAMES = { "Ivan", "Petr", "Sergey",
+            "Andrey", "Alexey", "Dmitry", "Nikolay", "Mikhail", "Oleg",
+            "Pavel", "Anna", "Elena", "Olga", "Maria" };
+    private static final String[] SURNAMES = { "Ivanov", "Petrov", "Sidorov",
+            "Smirnov", "Kuznetsov", "Popov", "Sokolov", "Lebedev", "Kozlov",
+            "Novikov", "Morozov", "Volkov", "Fedorov", "Orlov" };
+    private static final String PLATE_LETTERS = "ABCEHKMOPTXY";
+
+    private final DatasetSettings settings;
+    private final Random random;
+    private final CitySkew citySkew;
+    private final long now = System.currentTimeMillis();
+
+    /* Plan of trucks and crews, index is id */
+    private int[] truckCity;
+    private int[] truckCrewSize;
+    private float[] truckCapacity;
+    private boolean[] truckFaulty;
+    private int[] truckOrder;
+    private int[] driverTruck;
+
+    /* Orders with ids above are NOT_READY, above that READY_TO_GO */
+    private int lastDeliveredOrder;
+    private int lastNotReadyOrder;
+    private final Map<Integer, Integer> truckOfActiveOrder = new HashMap<Integer, Integer>();
+
+    public DatasetGenerator(DatasetSettings settings) {
+        this.settings = settings;
+        this.random = new Random(settings.getSeed());
+        this.citySkew = new CitySkew(settings.getCities(),
+                settings.getCitySkew());
+    }
+
+    public static void main(String[] args) throws SQLException {
+        new DatasetGenerator(DatasetSettings.fromSystemProperties()).generate();
+    }
+
+    /**
+     * Recreate schema and load dataset.
+     *
+     * @throws SQLException
+     */
+    public void generate() throws SQLException {
+        LOG.info("Generating dataset: " + settings);
+        long start = System.nanoTime();
+
+        createSchema();
+        planTrucksAndCrews();
+
+        try (Connection connection = DriverManager.getConnection(
+                settings.getJdbcUrl(), "sa", "")) {
+            connection.setAutoCommit(false);
+            insertCitiesAndRoads(connection);
+            insertOrders(connection);
+            insertTrucks(connection);
+            insertDrivers(connection);
+            insertCargoes(connection);
+            insertShiftsAndLedger(connection);
+
+            // Fresh selectivity statistics for query planner
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+            connection.commit();
+        }
+
+        LOG.info("Dataset generated in "
+                + (System.nanoTime() - start) / 1000000000 + " s");
+    }
+
+    /**
+     * Drop and create tables with Hibernate, exactly as in tests.
+     */
+    private void createSchema() {
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put("javax.persistence.jdbc.driver", "org.h2.Driver");
+        properties.put("javax.persistence.jdbc.url", settings.getJdbcUrl());
+        properties.put("javax.persistence.jdbc.user", "sa");
+        properties.put("javax.persistence.jdbc.password", "");
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.hbm2ddl.auto", "create");
+        properties.put("hibernate.cache.use_second_level_cache", "false");
+        properties.put("hibernate.cache.use_query_cache", "false");
+
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory(
+                "logiweb", properties);
+        emf.close();
+    }
+
+    private void planTrucksAndCrews() {
+        int trucks = settings.getTrucks();
+        int drivers = settings.getDrivers();
+        int orders = settings.getOrders();
+
+        truckCity = new int[trucks + 1];
+        truckCrewSize = new int[trucks + 1];
+        truckCapacity = new float[trucks + 1];
+        truckFaulty = new boolean[trucks + 1];
+        truckOrder = new int[trucks + 1];
+        driverTruck = new int[drivers + 1];
+
+        int[] driverSlots = shuffledIds(drivers);
+        int nextDriverSlot = 0;
+        int busyTrucks = 0;
+        for (int truck = 1; truck <= trucks; truck++) {
+            truckCity[truck] = citySkew.next(random);
+            truckCrewSize[truck] = 1 + random.nextInt(3);
+            truckCapacity[truck] = 5000f + 1000f * random.nextInt(21);
+
+            truckFaulty[truck] = random.nextInt(10) == 0;
+            if (!truckFaulty[truck] && busyTrucks < orders
+                    && random.nextDouble() < settings.getBusyTrucksShare()
+                    && nextDriverSlot + truckCrewSize[truck] <= drivers) {
+                busyTrucks++;
+                truckOrder[truck] = -1;
+                for (int i = 0; i < truckCrewSize[truck]; i++) {
+                    driverTruck[driverSlots[nextDriverSlot++]] = truck;
+                }
+            }
+        }
+
+        lastNotReadyOrder = orders - busyTrucks;
+        lastDeliveredOrder = Math.max(0, lastNotReadyOrder - orders / 100);
+        int nextActiveOrder = lastNotReadyOrder + 1;
+        for (int truck = 1; truck <= trucks; truck++) {
+            if (truckOrder[truck] == -1) {
+                truckOrder[truck] = nextActiveOrder;
+                truckOfActiveOrder.put(nextActiveOrder, truck);
+                nextActiveOrder++;
+            }
+        }
+        LOG.info("Busy trucks: " + busyTrucks + ", drivers on shift: "
+                + nextDriverSlot);
+    }
+
+    private void insertCitiesAndRoads(Connection connection) throws SQLException {
+        try (BatchInsert cities = new BatchInsert(connection, "cities",
+                new String[] { "city_id", "city_name" },
+                settings.getBatchSize())) {
+            for (int city = 1; city <= settings.getCities(); city++) {
+                cities.row().setInt(1, city);
+                cities.row().setString(2, "City " + city);
+                cities.add();
+            }
+        }
+
+        try (BatchInsert roads = new BatchInsert(connection, "roads", new String[] {
+                "road_id", "road_from_city_FK", "road_to_city_FK",
+                "road_distance" }, settings.getBatchSize())) {
+            int id = 1;
+            for (RoadRow road : new SyntheticData(settings.getSeed()).roads(
+                    settings.getCities(), settings.getRoadsPerCity())) {
+                roads.row().setInt(1, id++);
+                roads.row().setInt(2, road.getFromCityId());
+                roads.row().setInt(3, road.getToCityId());
+                roads.row().setFloat(4, road.getDistance());
+                roads.add();
+            }
+        }
+    }
+
+    private void insertOrders(Connection connection) throws SQLException {
+        try (BatchInsert orders = new BatchInsert(connection, "delivery_orders",
+                new String[] { "order_id", "order_status" },
+                settings.getBatchSize())) {
+            for (int order = 1; order <= settings.getOrders(); order++) {
+                orders.row().setInt(1, order);
+                orders.row().setString(2, orderStatus(order).name());
+                orders.add();
+            }
+        }
+    }
+
+    private void insertTrucks(Connection connection) throws SQLException {
+        try (BatchInsert trucks = new BatchInsert(connection, "trucks", new String[] {
+                "truck_id", "truck_license_plate_UQ", "truck_crew_size",
+                "truck_cargo_capacity", "truck_status",
+                "truck_current_location_city_FK", "truck_delivery_order_FK_UQ",
+                "truck_deleted" }, settings.getBatchSize())) {
+            for (int truck = 1; truck <= settings.getTrucks(); truck++) {
+                PreparedStatement row = trucks.row();
+                row.setInt(1, truck);
+                row.setString(2, licencePlate(truck));
+                row.setInt(3, truckCrewSize[truck]);
+                row.setFloat(4, truckCapacity[truck]);
+                row.setString(5, (truckFaulty[truck] ? TruckStatus.FAULTY : TruckStatus.OK).name());
+                row.setInt(6, truckCity[truck]);
+                if (truckOrder[truck] == 0) {
+                    row.setNull(7, Types.INTEGER);
+                } else {
+                    row.setInt(7, truckOrder[truck]);
+                }
+                row.setBoolean(8, truckOrder[truck] == 0 && random.nextInt(50) == 0);
+                trucks.add();
+            }
+        }
+    }
+
+    private void insertDrivers(Connection connection) throws SQLException {
+        try (BatchInsert drivers = new BatchInsert(connection, "drivers", new String[] {
+                "driver_id", "driver_employee_id_UQ", "driver_name",
+                "driver_surname", "driver_status",
+                "driver_current_location_city_FK", "driver_current_truck_FK",
+                "driver_deleted" }, settings.getBatchSize())) {
+            int[] crewMembersSeen = new int[settings.getTrucks() + 1];
+            for (int driver = 1; driver <= settings.getDrivers(); driver++) {
+                int truck = driverTruck[driver];
+                DriverStatus status;
+                boolean deleted = false;
+                if (truck != 0) {
+                    status = crewMembersSeen[truck]++ == 0 ? DriverStatus.DRIVING
+                            : DriverStatus.RESTING_EN_ROUT;
+                } else {
+                    status = random.nextInt(10) < 7 ? DriverStatus.FREE
+                            : DriverStatus.NOT_AVAILABLE;
+                    deleted = random.nextInt(100) == 0;
+                }
+
+                PreparedStatement row = drivers.row();
+                row.setInt(1, driver);
+                row.setInt(2, driver);
+                row.setString(3, NAMES[random.nextInt(NAMES.length)]);
+                row.setString(4, SURNAMES[random.nextInt(SURNAMES.length)]);
+                row.setString(5, status.name());
+                row.setInt(6, truck != 0 ? truckCity[truck] : citySkew.next(random));
+                if (truck == 0) {
+                    row.setNull(7, Types.INTEGER);
+                } else {
+                    row.setInt(7, truck);
+                }
+                row.setBoolean(8, deleted);
+                drivers.add();
+            }
+        }
+    }
+
+    private void insertCargoes(Connection connection) throws SQLException {
+        try (BatchInsert cargoes = new BatchInsert(connection, "cargoes", new String[] {
+                "cargo_id", "cargo_title", "cargo_weight", "cargo_status",
+                "cargo_origin_city_FK", "cargo_destination_city_FK",
+                "cargo_from_order_FK" }, settings.getBatchSize())) {
+            int id = 1;
+            CargoStatus[] activeCargoStatuses = CargoStatus.values();
+            for (int order = 1; order <= settings.getOrders(); order++) {
+                int remainingOrders = settings.getOrders() - order + 1;
+                int average = Math.max(1, Math.round(
+                        (float) (settings.getCargoes() - id + 1) / remainingOrders));
+                int count = 1 + random.nextInt(2 * average - 1);
+
+                OrderStatus orderStatus = orderStatus(order);
+                Integer truck = truckOfActiveOrder.get(order);
+                float maxWeight = truck == null ? 3000f
+                        : Math.min(3000f, truckCapacity[truck] / count);
+
+                for (int i = 0; i < count; i++) {
+                    CargoStatus status;
+                    if (orderStatus == OrderStatus.DELIVERED) {
+                        status = CargoStatus.DELIVERED;
+                    } else if (orderStatus == OrderStatus.NOT_READY) {
+                        status = CargoStatus.WAITING_FOR_PICKUP;
+                    } else if (i == count - 1) {
+                        // Order with all cargoes delivered would be DELIVERED
+                        status = random.nextBoolean() ? CargoStatus.PICKED_UP
+                                : CargoStatus.WAITING_FOR_PICKUP;
+                    } else {
+                        status = activeCargoStatuses[random.nextInt(activeCargoStatuses.length)];
+                    }
+                    int origin = citySkew.next(random);
+
+                    PreparedStatement row = cargoes.row();
+                    row.setInt(1, id);
+                    row.setString(2, "Cargo " + id);
+                    row.setFloat(3, 10f + random.nextInt((int) maxWeight - 9));
+                    row.setString(4, status.name());
+                    row.setInt(5, origin);
+                    row.setInt(6, citySkew.nextOtherThan(random, origin));
+                    row.setInt(7, order);
+                    cargoes.add();
+                    id++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Shift journal and working hours ledger of this month. Shifts of every
+     * driver are generated backwards from now, then inserted in
+     * chronological order.
+     */
+    private void insertShiftsAndLedger(Connection connection) throws SQLException {
+        try (BatchInsert journal = new BatchInsert(connection, "drivers_shift_journal",
+                        new String[] { "driver_shift_record_id",
+                                "shift_record_for_driver_FK", "driver_shift_beggined",
+                                "driver_shift_ended" }, settings.getBatchSize());
+                BatchInsert ledger = new BatchInsert(connection, "drivers_monthly_hours",
+                        new String[] { "monthly_hours_record_id",
+                                "monthly_hours_for_driver_FK", "monthly_hours_month",
+                                "monthly_hours_finished_shifts",
+                                "monthly_hours_open_shift_beggined" },
+                        settings.getBatchSize())) {
+            int drivers = settings.getDrivers();
+            int shiftsPerDriver = settings.getShifts() / drivers;
+            int driversWithExtraShift = settings.getShifts() % drivers;
+            long monthStart = DateUtils.getFirstDateOfCurrentMonth().getTime();
+            long todayStart = startOfToday();
+
+            int journalId = 1;
+            int ledgerId = 1;
+            for (int driver = 1; driver <= drivers; driver++) {
+                int count = shiftsPerDriver + (driver <= driversWithExtraShift ? 1 : 0);
+                long[] begins = new long[count];
+                long[] ends = new long[count];
+                generateShifts(begins, ends, driverTruck[driver] != 0, todayStart);
+
+                float finishedHoursThisMonth = 0;
+                long openShiftBegin = 0;
+                for (int i = 0; i < count; i++) {
+                    PreparedStatement row = journal.row();
+                    row.setInt(1, journalId++);
+                    row.setInt(2, driver);
+                    row.setTimestamp(3, new Timestamp(begins[i]));
+                    if (ends[i] == 0) {
+                        row.setNull(4, Types.TIMESTAMP);
+                        openShiftBegin = begins[i];
+                    } else {
+                        row.setTimestamp(4, new Timestamp(ends[i]));
+                        if (ends[i] > monthStart) {
+                            finishedHoursThisMonth += (float) (ends[i]
+                                    - Math.max(begins[i], monthStart)) / HOUR;
+                        }
+                    }
+                    journal.add();
+                }
+
+                if (finishedHoursThisMonth > 0 || openShiftBegin != 0) {
+                    PreparedStatement row = ledger.row();
+                    row.setInt(1, ledgerId++);
+                    row.setInt(2, driver);
+                    row.setDate(3, new java.sql.Date(monthStart));
+                    row.setFloat(4, finishedHoursThisMonth);
+                    if (openShiftBegin == 0) {
+                        row.setNull(5, Types.TIMESTAMP);
+                    } else {
+                        row.setTimestamp(5, new Timestamp(openShiftBegin));
+                    }
+                    ledger.add();
+                }
+            }
+        }
+    }
+
+    /**
+     * Fill arrays with shifts of one driver, oldest first. Unfinished shift
+     * has end 0.
+     */
+    private void generateShifts(long[] begins, long[] ends, boolean onShift,
+            long todayStart) {
+        boolean nightDriver = random.nextDouble() < settings.getNightDriversShare();
+        int startHour = nightDriver ? 19 + random.nextInt(4) : 5 + random.nextInt(5);
+        int workDays = 4 + random.nextInt(3);
+        int daysOff = 1 + random.nextInt(2);
+
+        // Shifts must end before next (later) shift begins
+        long laterBegin = now;
+        long day = todayStart - random.nextInt(3) * DAY;
+        int workedInRow = 0;
+        for (int i = begins.length - 1; i >= 0; i--) {
+            if (onShift && i == begins.length - 1) {
+                begins[i] = now - (long) (random.nextDouble() * 10 * HOUR);
+                ends[i] = 0;
+                laterBegin = begins[i];
+                day = startOfDay(begins[i]) - DAY;
+                continue;
+            }
+
+            long begin;
+            long end;
+            do {
+                begin = day + startHour * HOUR + random.nextInt(60) * 60000L;
+                double hours = 9 + random.nextGaussian() * 1.5;
+                hours = Math.max(MIN_SHIFT_HOURS, Math.min(MAX_SHIFT_HOURS, hours));
+                end = begin + (long) (hours * HOUR);
+                day -= DAY;
+            } while (end >= laterBegin);
+            begins[i] = begin;
+            ends[i] = end;
+            laterBegin = begin;
+
+            if (++workedInRow == workDays) {
+                day -= daysOff * DAY;
+                workedInRow = 0;
+            }
+        }
+    }
+
+    private OrderStatus orderStatus(int order) {
+        if (order <= lastDeliveredOrder) {
+            return OrderStatus.DELIVERED;
+        }
+        return order <= lastNotReadyOrder ? OrderStatus.NOT_READY
+                : OrderStatus.READY_TO_GO;
+    }
+
+    /**
+     * @return unique plate of two letters and five digits, e.g. AB12345
+     */
+    private static String licencePlate(int truck) {
+        int letters = truck / 100000;
+        int first = letters / PLATE_LETTERS.length() % PLATE_LETTERS.length();
+        int second = letters % PLATE_LETTERS.length();
+        return "" + PLATE_LETTERS.charAt(first) + PLATE_LETTERS.charAt(second)
+                + String.format("%05d", truck % 100000);
+    }
+
+    private int[] shuffledIds(int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i + 1;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+        return ids;
+    }
+
+    private long startOfToday() {
+        return startOfDay(now);
+    }
+
+    private static long startOfDay(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,172 @@
+package com.tsystems.javaschool.logiweb.benchmarks.dataset;
+
+/**
+ * Volumes and shape of generated dataset. Read from system properties
+ * (-Ddataset.scale=0.1 etc.), so generator can be configured from maven
+ * command line.
+ * <p>
+ * Default volumes are production-like: 100k drivers, 20k trucks, 200k
+ * orders, 1M cargoes and 10M shift journal records. All of them are
+ * multiplied by 'dataset.scale'.
+ *
+ * @author Andrey Baliushin
+ */
+public final class DatasetSettings {
+
+    private static final int DEFAULT_DRIVERS = 100000;
+    private static final int DEFAULT_TRUCKS = 20000;
+    private static final int DEFAULT_ORDERS = 200000;
+    private static final int DEFAULT_CARGOES = 1000000;
+    private static final int DEFAULT_SHIFTS = 10000000;
+
+    private final String jdbcUrl;
+    private final long seed;
+    private final int cities;
+    private final int roadsPerCity;
+    private final double citySkew;
+    private final int drivers;
+    private final int trucks;
+    private final int orders;
+    private final int cargoes;
+    private final int shifts;
+    private final double busyTrucksShare;
+    private final double nightDriversShare;
+    private final int batchSize;
+
+    private DatasetSettings(String jdbcUrl, long seed, int cities,
+            int roadsPerCity, double citySkew, double scale,
+            double busyTrucksShare, double nightDriversShare, int batchSize) {
+        this.jdbcUrl = jdbcUrl;
+        this.seed = seed;
+        this.cities = cities;
+        this.roadsPerCity = roadsPerCity;
+        this.citySkew = citySkew;
+        this.drivers = scaled(DEFAULT_DRIVERS, scale);
+        this.trucks = scaled(DEFAULT_TRUCKS, scale);
+        this.orders = scaled(DEFAULT_ORDERS, scale);
+        this.cargoes = scaled(DEFAULT_CARGOES, scale);
+        this.shifts = scaled(DEFAULT_SHIFTS, scale);
+        this.busyTrucksShare = busyTrucksShare;
+        this.nightDriversShare = nightDriversShare;
+        this.batchSize = batchSize;
+
+        if (cities < 2 || roadsPerCity < 1 || citySkew < 0) {
+            throw new IllegalArgumentException(
+                    "At least 2 cities, 1 road per city and non-negative skew required.");
+        }
+        if (orders < trucks * busyTrucksShare) {
+            throw new IllegalArgumentException(
+                    "Not enough orders for busy trucks.");
+        }
+    }
+
+    /**
+     * Settings from system properties with production-like defaults.
+     *
+     * @return settings
+     * @throws IllegalArgumentException
+     *             if settings are not consistent
+     */
+    public static DatasetSettings fromSystemProperties() {
+        return new DatasetSettings(
+                System.getProperty("dataset.url",
+                        "jdbc:h2:file:./target/logiweb-dataset"),
+                Long.getLong("dataset.seed", 42L),
+                Integer.getInteger("dataset.cities", 1000),
+                Integer.getInteger("dataset.roadsPerCity", 4),
+                doubleProperty("dataset.citySkew", 1.0),
+                doubleProperty("dataset.scale", 1.0),
+                doubleProperty("dataset.busyTrucksShare", 0.3),
+                doubleProperty("dataset.nightDriversShare", 0.2),
+                Integer.getInteger("dataset.batchSize", 1000));
+    }
+
+    /**
+     * @return JDBC url of embedded database, database is recreated
+     */
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    /**
+     * @return seed of random generator, same seed gives same dataset
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getCities() {
+        return cities;
+    }
+
+    public int getRoadsPerCity() {
+        return roadsPerCity;
+    }
+
+    /**
+     * @return exponent of Zipf distribution of trucks, drivers and cargoes
+     *         over cities; 0 means uniform, 1 means that city of rank N gets
+     *         1/N of traffic of the biggest one
+     */
+    public double getCitySkew() {
+        return citySkew;
+    }
+
+    public int getDrivers() {
+        return drivers;
+    }
+
+    public int getTrucks() {
+        return trucks;
+    }
+
+    public int getOrders() {
+        return orders;
+    }
+
+    public int getCargoes() {
+        return cargoes;
+    }
+
+    public int getShifts() {
+        return shifts;
+    }
+
+    /**
+     * @return share of serviceable trucks that are delivering an order now
+     */
+    public double getBusyTrucksShare() {
+        return busyTrucksShare;
+    }
+
+    /**
+     * @return share of drivers that start their shifts in the evening
+     */
+    public double getNightDriversShare() {
+        return nightDriversShare;
+    }
+
+    /**
+     * @return rows per JDBC batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    private static int scaled(int volume, double scale) {
+        return Math.max(1, (int) Math.round(volume * scale));
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    @Override
+    public String toString() {
+        return "url=" + jdbcUrl + " seed=" + seed + " cities=" + cities
+                + " citySkew=" + citySkew + " drivers=" + drivers + " trucks="
+                + trucks + " orders=" + orders + " cargoes=" + cargoes
+                + " shifts=" + shifts;
+    }
+}
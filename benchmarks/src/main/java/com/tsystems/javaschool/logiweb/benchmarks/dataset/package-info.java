@@ -0,0 +1,7 @@
+/**
+ * Generator of production-sized dataset in embedded database for
+ * benchmarks, load tests and query plan checks.
+ * 
+ * @author Andrew Baliushin
+ */
+package com.tsystems.javaschool.logiweb.benchmarks.dataset;
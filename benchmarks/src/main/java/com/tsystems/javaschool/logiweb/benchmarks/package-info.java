@@ -0,0 +1,6 @@
+/**
+ * JMH benchmarks of service and conversion hot paths.
+ * 
+ * @author Andrew Baliushin
+ */
+package com.tsystems.javaschool.logiweb.benchmarks;
@@ -55,23 +55,46 @@ public class DateUtils {
         return diffInHours(new Date(), getFirstDayOfNextMonth());
     }
 
+    /**
+     * Get first day of month of provided date with 00:00:00 on the clock.
+     * 
+     * @param date
+     * @return
+     */
+    public static Date getFirstDateOfMonth(Date date) {
+        return getFirstDayOfSameOrNextMonth(date, false);
+    }
+    
+    /**
+     * Get first day of month that follows month of provided date with
+     * 00:00:00 on the clock.
+     * 
+     * @param date
+     * @return
+     */
+    public static Date getFirstDateOfNextMonth(Date date) {
+        return getFirstDayOfSameOrNextMonth(date, true);
+    }
+
     private static Date getFirstDayOfCurrentOrNextMonth(boolean nextMonth) {
+        return getFirstDayOfSameOrNextMonth(new Date(), nextMonth); //today
+    }
+    
+    private static Date getFirstDayOfSameOrNextMonth(Date date, boolean nextMonth) {
         Calendar calendar = Calendar.getInstance();  
-        calendar.setTime(new Date());  //today
+        calendar.setTime(date);
         
         calendar.set(Calendar.DAY_OF_MONTH, 1);
         calendar.set(Calendar.HOUR_OF_DAY, 0);
         calendar.set(Calendar.MINUTE, 0);
         calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
         
         if (nextMonth) {
             calendar.add(Calendar.MONTH, 1); //add one month
         }
         
-        Date result = calendar.getTime();
-        calendar.setTime(new Date());
-        
-        return result;
+        return calendar.getTime();
     }
     
     /**
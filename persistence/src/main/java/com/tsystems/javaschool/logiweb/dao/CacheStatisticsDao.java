@@ -0,0 +1,23 @@
+package com.tsystems.javaschool.logiweb.dao;
+
+import java.util.List;
+
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CacheRegionRow;
+
+/**
+ * Read statistics of second level and query cache.
+ * 
+ * @author Andrey Baliushin
+ */
+public interface CacheStatisticsDao {
+
+    /**
+     * Hit/miss statistics for every cache region used by persistence unit.
+     * 
+     * @return rows sorted by region name
+     * @throws DaoException
+     */
+    List<CacheRegionRow> findRegionStatistics() throws DaoException;
+
+}
@@ -1,5 +1,11 @@
 package com.tsystems.javaschool.logiweb.dao;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CargoRow;
 import com.tsystems.javaschool.logiweb.entities.Cargo;
 
 /**
@@ -9,4 +15,35 @@ import com.tsystems.javaschool.logiweb.entities.Cargo;
  */
 public interface CargoDao extends GenericDao<Cargo> {
     
+    /**
+     * Find one page of cargoes as list rows (without loading entities).
+     * 
+     * @param filters
+     *            attribute path as key, required value as value (see
+     *            {@link GenericDao#findFiltered})
+     * @param sortAttribute
+     *            basic attribute of cargo or null for sorting by id
+     * @param ascending
+     * @param firstResult
+     *            position of first row (0 based)
+     * @param maxResults
+     * @return rows or empty list
+     * @throws DaoException
+     *             if sort attribute is not valid or something unexpected
+     *             happened
+     */
+    List<CargoRow> findRowsFiltered(Map<String, Object> filters,
+            String sortAttribute, boolean ascending, int firstResult,
+            int maxResults) throws DaoException;
+    
+    /**
+     * Find cargoes of orders as list rows.
+     * 
+     * @param orderIds
+     * @return cargoes of these orders or empty list
+     * @throws DaoException
+     */
+    List<CargoRow> findRowsByOrderIds(Collection<Integer> orderIds)
+            throws DaoException;
+
 }
@@ -0,0 +1,21 @@
+package com.tsystems.javaschool.logiweb.dao;
+
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.ConnectionPoolRow;
+
+/**
+ * Read state of DB connection pool.
+ * 
+ * @author Andrey Baliushin
+ */
+public interface ConnectionPoolStatisticsDao {
+
+    /**
+     * Current connection counts and accumulated wait/timeout statistics.
+     * 
+     * @return pool statistics or null if pool is not started yet
+     * @throws DaoException
+     */
+    ConnectionPoolRow findPoolStatistics() throws DaoException;
+
+}
@@ -1,6 +1,12 @@
 package com.tsystems.javaschool.logiweb.dao;
 
+import java.util.List;
+import java.util.Map;
+
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.OrderRow;
 import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
 
 /**
  * CRUD operations for Drlivery Order entity.
@@ -8,5 +14,52 @@ import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
  * @author Andrey Baliushin
  */
 public interface DeliveryOrderDao extends GenericDao<DeliveryOrder> {
+    
+    /**
+     * Find one page of orders as list rows (without loading entities and
+     * their cargoes).
+     * 
+     * @param filters
+     *            attribute path as key, required value as value (see
+     *            {@link GenericDao#findFiltered})
+     * @param sortAttribute
+     *            basic attribute of order or null for sorting by id
+     * @param ascending
+     * @param firstResult
+     *            position of first row (0 based)
+     * @param maxResults
+     * @return rows or empty list
+     * @throws DaoException
+     *             if sort attribute is not valid or something unexpected
+     *             happened
+     */
+    List<OrderRow> findRowsFiltered(Map<String, Object> filters,
+            String sortAttribute, boolean ascending, int firstResult,
+            int maxResults) throws DaoException;
+
+    /**
+     * Find ids of orders that have at least one cargo and no assigned truck
+     * (without loading entities).
+     * 
+     * @param status
+     * @return ids in ascending order or empty list
+     * @throws DaoException
+     *             if something unexpected happened
+     */
+    List<Integer> findIdsByStatusWithCargoesAndWithoutTruck(OrderStatus status)
+            throws DaoException;
+
+    /**
+     * Find order that contains given cargo by one statement.
+     * 
+     * @param cargoId
+     * @param entityGraph
+     *            name of order entity graph to fetch or null
+     * @return order or null if cargo does not exist or has no order
+     * @throws DaoException
+     *             if something unexpected happened
+     */
+    DeliveryOrder findByCargoId(int cargoId, String entityGraph)
+            throws DaoException;
 
 }
@@ -1,8 +1,15 @@
 package com.tsystems.javaschool.logiweb.dao;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CrewMemberRow;
+import com.tsystems.javaschool.logiweb.dao.projections.DriverCandidateRow;
+import com.tsystems.javaschool.logiweb.dao.projections.DriverRow;
 import com.tsystems.javaschool.logiweb.entities.City;
 import com.tsystems.javaschool.logiweb.entities.Driver;
 
@@ -20,10 +27,97 @@ public interface DriverDao extends GenericDao<Driver> {
      * @return Driver or null
      */
     Driver findByEmployeeId(int id) throws DaoException;
+
+    /**
+     * Re-read driver and lock its row until end of transaction (SELECT ...
+     * FOR UPDATE). Transactions that change shifts or working hours ledger of
+     * same driver are executed one after another.
+     * 
+     * @param driver
+     *            managed entity
+     * @throws DaoException
+     *             if something unexpected happened
+     */
+    void lockForUpdate(Driver driver) throws DaoException;
+
+    /**
+     * Lock rows of all drivers until end of transaction (SELECT ... FOR
+     * UPDATE in order of id), same locks as {@link #lockForUpdate(Driver)}
+     * takes for one driver. Entities are not loaded.
+     * <p>
+     * Used by batch changes of shifts or working hours ledger of all drivers.
+     * 
+     * @return number of locked drivers
+     * @throws DaoException
+     *             if something unexpected happened
+     */
+    int lockAllForUpdate() throws DaoException;
     
     /**
      * Find not assigned to truck drivers in the city.
      */
     Set<Driver> findByCityWhereNotAssignedToTruck(City city) throws DaoException;
 
+    /**
+     * Find drivers of all cities that are not assigned to any truck.
+     * 
+     * @return drivers or empty set
+     * @throws DaoException
+     */
+    Set<Driver> findWhereNotAssignedToTruck() throws DaoException;
+
+    /**
+     * Find drivers of city that are not assigned to any truck together with
+     * their working hours in month, ranked from best candidate. One select:
+     * hours (finished shifts from ledger plus open shift up until now) are
+     * calculated, filtered, sorted and limited in DB.
+     * 
+     * Drivers without ledger record have 0 hours. Free drivers go first,
+     * then drivers with less hours; ties are ordered by id.
+     * 
+     * @param cityId
+     * @param month
+     *            first day of current month
+     * @param maxWorkingHours
+     *            drivers with more hours are filtered out
+     * @param limit
+     *            max number of rows
+     * @return rows in order of rank or empty list
+     * @throws DaoException
+     */
+    List<DriverCandidateRow> findRankedCandidateRowsByCityWhereNotAssignedToTruck(
+            int cityId, Date month, float maxWorkingHours, int limit)
+            throws DaoException;
+    
+    /**
+     * Find one page of drivers as list rows (without loading entities).
+     * 
+     * @param filters
+     *            attribute path as key, required value as value (see
+     *            {@link GenericDao#findFiltered})
+     * @param sortAttribute
+     *            basic attribute of driver or null for sorting by id
+     * @param ascending
+     * @param firstResult
+     *            position of first row (0 based)
+     * @param maxResults
+     * @return rows or empty list
+     * @throws DaoException
+     *             if sort attribute is not valid or something unexpected
+     *             happened
+     */
+    List<DriverRow> findRowsFiltered(Map<String, Object> filters,
+            String sortAttribute, boolean ascending, int firstResult,
+            int maxResults) throws DaoException;
+    
+    /**
+     * Find drivers assigned to trucks.
+     * 
+     * @param truckIds
+     * @return crew members of these trucks or empty list
+     * @throws DaoException
+     */
+    List<CrewMemberRow> findCrewMembersOfTrucks(Collection<Integer> truckIds)
+            throws DaoException;
+
 }
@@ -0,0 +1,65 @@
+package com.tsystems.javaschool.logiweb.dao;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Set;
+
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.entities.DriverMonthlyHours;
+
+/**
+ * CRUD operations for ledger of Driver working hours per month.
+ * 
+ * @author Andrey Baliushin
+ */
+public interface DriverMonthlyHoursDao extends GenericDao<DriverMonthlyHours> {
+
+    /**
+     * Find ledger record of driver for month.
+     * 
+     * @param driverId
+     * @param month
+     *            first day of month (00:00:00)
+     * @return record or null
+     * @throws DaoException
+     *             if something unexpected happened
+     */
+    DriverMonthlyHours findByDriverIdAndMonth(int driverId, Date month)
+            throws DaoException;
+
+    /**
+     * Find ledger records of drivers for month.
+     * 
+     * @param driverIds
+     * @param month
+     *            first day of month (00:00:00)
+     * @return records or empty set if nothing was found or if empty collection
+     *         of ids was past as param
+     * @throws DaoException
+     *             if something unexpected happened
+     */
+    Set<DriverMonthlyHours> findByDriverIdsAndMonth(
+            Collection<Integer> driverIds, Date month) throws DaoException;
+
+    /**
+     * Delete all ledger records for month.
+     * 
+     * @param month
+     *            first day of month (00:00:00)
+     * @return number of deleted records
+     * @throws DaoException
+     *             if something unexpected happened
+     */
+    int deleteAllForMonth(Date month) throws DaoException;
+
+    /**
+     * Count ledger records for month.
+     * 
+     * @param month
+     *            first day of month (00:00:00)
+     * @return number of records
+     * @throws DaoException
+     *             if something unexpected happened
+     */
+    long countForMonth(Date month) throws DaoException;
+}
@@ -1,5 +1,8 @@
 package com.tsystems.javaschool.logiweb.dao;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
 import java.util.Set;
 
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
@@ -41,5 +44,43 @@ public interface DriverShiftJournaDao extends GenericDao<DriverShiftJournal> {
     Set<DriverShiftJournal> findThisMonthJournalsForDrivers(Driver driver) throws DaoException;
 
     DriverShiftJournal findUnfinishedShiftForDriver(Driver driver) throws DaoException;
-}
 
+    /**
+     * Sum working hours for current month for drivers with one aggregate
+     * query. Shift entities are not loaded.
+     * 
+     * Shifts are trimmed to bounds of current month (first day of month 00:00
+     * and first day of next month 00:00). Shifts that are not ended yet are
+     * counted up until now.
+     * 
+     * @param driverIds
+     * @return map with driver id as key and working hours as value. Drivers
+     *         without shifts in this month are not present in map. Empty map if
+     *         empty collection of ids was past as param.
+     * @throws DaoException if something unexpected happened
+     */
+    Map<Integer, Float> sumWorkingHoursForThisMonth(Collection<Integer> driverIds)
+            throws DaoException;
+
+    /**
+     * Sum hours of finished shifts in month for all drivers with one
+     * aggregate query. Shifts are trimmed to bounds of month.
+     * 
+     * @param firstDayOfMonth
+     *            first day of month (00:00:00)
+     * @return map with driver id as key and working hours as value. Drivers
+     *         without finished shifts in month are not present in map.
+     * @throws DaoException if something unexpected happened
+     */
+    Map<Integer, Float> sumFinishedShiftsHoursForMonth(Date firstDayOfMonth)
+            throws DaoException;
+
+    /**
+     * Find shifts that are not ended yet (for all drivers). Drivers of shifts
+     * are fetched by the same query.
+     * 
+     * @return shifts or empty set
+     * @throws DaoException if something unexpected happened
+     */
+    Set<DriverShiftJournal> findAllUnfinishedShifts() throws DaoException;
+}
@@ -0,0 +1,29 @@
+package com.tsystems.javaschool.logiweb.dao;
+
+import java.util.List;
+
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+
+/**
+ * Callback for streaming reads. Receives entities in fixed-size batches.
+ * 
+ * Entities of batch are detached after handler returns, so they must not be
+ * kept or modified after that.
+ * 
+ * @author Andrey Baliushin
+ *
+ * @param <T>
+ *            persistent object
+ */
+public interface EntityBatchHandler<T> {
+
+    /**
+     * Process batch of entities.
+     * 
+     * @param batch
+     *            entities, never empty
+     * @throws DaoException
+     *             to stop streaming
+     */
+    void handleBatch(List<T> batch) throws DaoException;
+}
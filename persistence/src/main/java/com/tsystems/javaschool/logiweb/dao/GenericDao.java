@@ -1,5 +1,8 @@
 package com.tsystems.javaschool.logiweb.dao;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
@@ -31,6 +34,45 @@ public interface GenericDao<T> {
      * @return persistent object or null if not found
      */
     T find(int id)  throws DaoException;
+    
+    /**
+     * Find persistent object by its primary key. Associations listed in
+     * entity graph are fetched with the object (other associations are
+     * fetched according to their mapping, lazy ones on first access).
+     * 
+     * @param id
+     *            primary key of object
+     * @param entityGraph
+     *            name of entity graph (ex.: {@code Truck.GRAPH_WITH_CREW}) or
+     *            null
+     * @return persistent object or null if not found
+     */
+    T find(int id, String entityGraph)  throws DaoException;
+
+    /**
+     * Find persistent objects by their primary keys.
+     * 
+     * Large collections of keys are split into several IN-lists, so one
+     * query is executed per chunk instead of one query per key.
+     * 
+     * @param ids
+     *            primary keys of objects
+     * @return set of found objects or empty set if nothing found or if ids
+     *         are null or empty
+     */
+    Set<T> findByIds(Collection<Integer> ids)  throws DaoException;
+    
+    /**
+     * Find persistent objects by their primary keys, fetching associations
+     * listed in entity graph with them.
+     * 
+     * @param ids
+     *            primary keys of objects
+     * @param entityGraph
+     *            name of entity graph or null
+     * @return set of found objects or empty set
+     */
+    Set<T> findByIds(Collection<Integer> ids, String entityGraph)  throws DaoException;
 
     /**
      * Update persistent object.
@@ -54,4 +96,97 @@ public interface GenericDao<T> {
      * @return set of objects or null
      */
     Set<T> findAll()  throws DaoException;
-}
\ No newline at end of file
+    
+    /**
+     * Find all objects of that persistent class, fetching associations
+     * listed in entity graph with them.
+     * 
+     * @param entityGraph
+     *            name of entity graph or null
+     * @return set of objects
+     */
+    Set<T> findAll(String entityGraph)  throws DaoException;
+
+    /**
+     * Find page of objects with keyset (seek) pagination. Objects are sorted
+     * by sort attribute and then by id, so order is stable even if values of
+     * sort attribute are not unique. Cost of page does not depend on how far
+     * from beginning it is.
+     * 
+     * If object with afterId was removed between requests, result is empty.
+     * 
+     * @param afterId
+     *            continuation token from previous page or null for first page
+     * @param limit
+     *            max number of objects on page
+     * @param sortAttribute
+     *            name of basic (not null) attribute of persistent class or
+     *            null to sort by id
+     * @param ascending
+     *            sort direction
+     * @return page of objects
+     * @throws DaoException
+     *             if sort attribute does not exist or something unexpected
+     *             happened
+     */
+    KeysetPage<T> findPage(Integer afterId, int limit, String sortAttribute,
+            boolean ascending) throws DaoException;
+
+    /**
+     * Walk through all objects of that persistent class with scrollable
+     * cursor and pass them to handler in batches (sorted by id). Persistence
+     * context is flushed and cleared after every batch, so only one batch is
+     * held in memory.
+     * 
+     * Must be called inside transaction. Managed objects that were loaded in
+     * this transaction before the call are detached.
+     * 
+     * @param batchSize
+     *            number of objects in one batch (last batch may be smaller)
+     * @param handler
+     * @return total number of objects passed to handler
+     * @throws DaoException
+     *             if handler failed or something unexpected happened
+     */
+    long findAllInBatches(int batchSize, EntityBatchHandler<T> handler)
+            throws DaoException;
+
+    /**
+     * Find one page of objects that match all filters (offset pagination).
+     * Objects are sorted by sort attribute and then by id.
+     * 
+     * @param filters
+     *            attribute path (ex.: 'status' or 'currentCity.id') as key
+     *            and required value as value. Null or empty map means no
+     *            filtering.
+     * @param sortAttribute
+     *            name of basic attribute of persistent class or null to sort
+     *            by id
+     * @param ascending
+     *            sort direction
+     * @param firstResult
+     *            position of first object (0 based)
+     * @param maxResults
+     *            max number of objects on page
+     * @return objects in requested order or empty list
+     * @throws DaoException
+     *             if filter or sort attribute does not exist or something
+     *             unexpected happened
+     */
+    List<T> findFiltered(Map<String, Object> filters, String sortAttribute,
+            boolean ascending, int firstResult, int maxResults)
+            throws DaoException;
+
+    /**
+     * Count objects that match all filters.
+     * 
+     * @see #findFiltered(Map, String, boolean, int, int)
+     * 
+     * @param filters
+     * @return number of objects
+     * @throws DaoException
+     *             if filter attribute does not exist or something unexpected
+     *             happened
+     */
+    long countFiltered(Map<String, Object> filters) throws DaoException;
+}
@@ -0,0 +1,46 @@
+package com.tsystems.javaschool.logiweb.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of entities selected with keyset (seek) pagination.
+ * 
+ * Continuation token is id of last entity on this page. It should be passed
+ * as 'afterId' to get next page.
+ * 
+ * @author Andrey Baliushin
+ *
+ * @param <T>
+ *            persistent object
+ */
+public class KeysetPage<T> {
+
+    private final List<T> items;
+    private final Integer nextAfterId;
+
+    public KeysetPage(List<T> items, Integer nextAfterId) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextAfterId = nextAfterId;
+    }
+
+    /**
+     * @return entities in requested order, empty list if nothing found
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return continuation token (id of last entity on this page) or null if
+     *         this page is the last one
+     */
+    public Integer getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public boolean hasNext() {
+        return nextAfterId != null;
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.tsystems.javaschool.logiweb.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SQL statements issued by current thread between {@link #start()} and
+ * {@link #stop()}, usually during one HTTP request or SOAP call.
+ * <p>
+ * Filled by Hibernate interceptor and session listener (see
+ * persistence.xml), so only statements issued through JPA are counted.
+ * Statements of threads that did not call {@link #start()} are not counted.
+ *
+ * @author Andrey Baliushin
+ */
+public final class RequestSqlStatistics {
+
+    /**
+     * Distinct statements remembered for repeat detection, others are only
+     * counted.
+     */
+    private static final int MAX_DISTINCT_STATEMENTS = 1000;
+
+    private static final ThreadLocal<RequestSqlStatistics> CURRENT = new ThreadLocal<RequestSqlStatistics>();
+
+    private final RequestSqlStatistics previous;
+    private final Map<String, Integer> repeats = new HashMap<String, Integer>();
+
+    private int statementCount;
+    private int loadedEntityCount;
+    private long executionNanos;
+
+    private String mostRepeatedStatement;
+    private int mostRepeatedCount;
+
+    private RequestSqlStatistics(RequestSqlStatistics previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * Start counting statements of current thread. Statistics that were
+     * started before are paused until {@link #stop()}.
+     *
+     * @return new statistics
+     */
+    public static RequestSqlStatistics start() {
+        RequestSqlStatistics statistics = new RequestSqlStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Stop counting statements of current thread.
+     *
+     * @return statistics of last {@link #start()} or null if it was not
+     *         called
+     */
+    public static RequestSqlStatistics stop() {
+        RequestSqlStatistics statistics = CURRENT.get();
+        if (statistics == null) {
+            return null;
+        }
+        if (statistics.previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(statistics.previous);
+        }
+        return statistics;
+    }
+
+    /**
+     * Called when statement is prepared.
+     *
+     * @param sql
+     */
+    public static void statementPrepared(String sql) {
+        RequestSqlStatistics statistics = CURRENT.get();
+        if (statistics == null) {
+            return;
+        }
+        statistics.statementCount++;
+
+        Integer count = statistics.repeats.get(sql);
+        if (count == null) {
+            if (statistics.repeats.size() >= MAX_DISTINCT_STATEMENTS) {
+                return;
+            }
+            count = 0;
+        }
+        count++;
+        statistics.repeats.put(sql, count);
+        if (count > statistics.mostRepeatedCount) {
+            statistics.mostRepeatedCount = count;
+            statistics.mostRepeatedStatement = sql;
+        }
+    }
+
+    /**
+     * Called when entity is built from row of result set.
+     */
+    public static void entityLoaded() {
+        RequestSqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.loadedEntityCount++;
+        }
+    }
+
+    /**
+     * Called when statement (or batch) execution is finished.
+     *
+     * @param nanos
+     *            time of execution
+     */
+    public static void statementExecuted(long nanos) {
+        RequestSqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.executionNanos += nanos;
+        }
+    }
+
+    /**
+     * @return number of prepared statements
+     */
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * @return number of entities read from result sets (rows of projection
+     *         queries are not counted)
+     */
+    public int getLoadedEntityCount() {
+        return loadedEntityCount;
+    }
+
+    /**
+     * @return time spent in execution of statements, in milliseconds
+     */
+    public long getExecutionMillis() {
+        return executionNanos / 1000000;
+    }
+
+    /**
+     * @return SQL of statement that was prepared most times or null if there
+     *         were no statements
+     */
+    public String getMostRepeatedStatement() {
+        return mostRepeatedStatement;
+    }
+
+    /**
+     * @return how many times most repeated statement was prepared
+     */
+    public int getMostRepeatedCount() {
+        return mostRepeatedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "statements=" + statementCount + " entities="
+                + loadedEntityCount + " dbMillis=" + getExecutionMillis()
+                + " maxRepeats=" + mostRepeatedCount;
+    }
+}
@@ -0,0 +1,34 @@
+package com.tsystems.javaschool.logiweb.dao;
+
+import java.util.List;
+
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.RoadRow;
+import com.tsystems.javaschool.logiweb.entities.Road;
+
+/**
+ * CRUD operations for Road entity.
+ * 
+ * @author Andrey Baliushin
+ */
+public interface RoadDao extends GenericDao<Road> {
+
+    /**
+     * Find all roads as graph edges (without loading entities and cities).
+     * 
+     * @return rows or empty list
+     * @throws DaoException
+     */
+    List<RoadRow> findAllRows() throws DaoException;
+
+    /**
+     * Find road between two cities (in any direction).
+     * 
+     * @param cityId
+     * @param otherCityId
+     * @return road or null
+     * @throws DaoException
+     */
+    Road findByCities(int cityId, int otherCityId) throws DaoException;
+
+}
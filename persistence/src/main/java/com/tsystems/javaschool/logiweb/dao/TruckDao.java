@@ -1,8 +1,11 @@
 package com.tsystems.javaschool.logiweb.dao;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.TruckRow;
 import com.tsystems.javaschool.logiweb.entities.Truck;
 
 /**
@@ -34,4 +37,26 @@ public interface TruckDao extends GenericDao<Truck> {
      */
     Truck findByLicensePlate(String licensePlate) throws DaoException;
 
+    /**
+     * Find one page of trucks as list rows (without loading entities and
+     * their crews).
+     * 
+     * @param filters
+     *            attribute path as key, required value as value (see
+     *            {@link GenericDao#findFiltered})
+     * @param sortAttribute
+     *            basic attribute of truck or null for sorting by id
+     * @param ascending
+     * @param firstResult
+     *            position of first row (0 based)
+     * @param maxResults
+     * @return rows or empty list
+     * @throws DaoException
+     *             if sort attribute is not valid or something unexpected
+     *             happened
+     */
+    List<TruckRow> findRowsFiltered(Map<String, Object> filters,
+            String sortAttribute, boolean ascending, int firstResult,
+            int maxResults) throws DaoException;
+
 }
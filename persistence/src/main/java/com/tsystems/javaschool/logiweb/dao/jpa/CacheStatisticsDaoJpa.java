@@ -0,0 +1,63 @@
+package com.tsystems.javaschool.logiweb.dao.jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+import org.apache.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import com.tsystems.javaschool.logiweb.dao.CacheStatisticsDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CacheRegionRow;
+
+/**
+ * Reads cache statistics collected by Hibernate (requires
+ * hibernate.generate_statistics).
+ * 
+ * @author Andrey Baliushin
+ */
+@Component
+public class CacheStatisticsDaoJpa implements CacheStatisticsDao {
+
+    private static final Logger LOG = Logger.getLogger(CacheStatisticsDaoJpa.class);
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CacheRegionRow> findRegionStatistics() throws DaoException {
+        try {
+            Statistics statistics = entityManagerFactory.unwrap(
+                    SessionFactory.class).getStatistics();
+
+            String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+            Arrays.sort(regionNames);
+
+            List<CacheRegionRow> rows = new ArrayList<CacheRegionRow>(regionNames.length);
+            for (String regionName : regionNames) {
+                SecondLevelCacheStatistics region = statistics
+                        .getSecondLevelCacheStatistics(regionName);
+                if (region != null) {
+                    rows.add(new CacheRegionRow(regionName, region.getHitCount(),
+                            region.getMissCount(), region.getPutCount(),
+                            region.getElementCountInMemory()));
+                }
+            }
+            return rows;
+        } catch (Exception e) {
+            LOG.warn("Unexpected exception on DB layer.", e);
+            throw new DaoException(e);
+        }
+    }
+
+}
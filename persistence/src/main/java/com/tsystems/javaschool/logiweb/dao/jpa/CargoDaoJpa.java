@@ -1,8 +1,15 @@
 package com.tsystems.javaschool.logiweb.dao.jpa;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.stereotype.Component;
 
 import com.tsystems.javaschool.logiweb.dao.CargoDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CargoRow;
 import com.tsystems.javaschool.logiweb.entities.Cargo;
 
 /**
@@ -13,4 +20,29 @@ import com.tsystems.javaschool.logiweb.entities.Cargo;
 @Component("cargoDao")
 public class CargoDaoJpa extends GenericDaoJpa<Cargo> implements CargoDao {
 
+    private static final List<String> ROW_COLUMNS = Arrays.asList("id",
+            "title", "weight", "status", "originCity.id",
+            "destinationCity.id", "orderForThisCargo.id");
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CargoRow> findRowsFiltered(Map<String, Object> filters,
+            String sortAttribute, boolean ascending, int firstResult,
+            int maxResults) throws DaoException {
+        return findFilteredRows(CargoRow.class, ROW_COLUMNS, filters,
+                sortAttribute, ascending, firstResult, maxResults);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CargoRow> findRowsByOrderIds(Collection<Integer> orderIds)
+            throws DaoException {
+        return findRowsWhereIn(CargoRow.class, ROW_COLUMNS,
+                "orderForThisCargo.id", orderIds);
+    }
+
 }
@@ -0,0 +1,80 @@
+package com.tsystems.javaschool.logiweb.dao.jpa;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.tsystems.javaschool.logiweb.dao.ConnectionPoolStatisticsDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.ConnectionPoolRow;
+import com.zaxxer.hikari.metrics.MetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Collects statistics of HikariCP pool. Registered as metrics tracker factory
+ * of pool (see context-persistence.xml), so pool reports every connection
+ * acquisition and timeout here.
+ * 
+ * @author Andrey Baliushin
+ */
+@Component
+public class ConnectionPoolStatisticsDaoHikari implements
+        ConnectionPoolStatisticsDao, MetricsTrackerFactory {
+
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    /**
+     * Called by pool on start.
+     */
+    @Override
+    public MetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new MetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquiredCount.incrementAndGet();
+                totalWaitNanos.addAndGet(elapsedAcquiredNanos);
+                updateMaxWait(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeoutCount.incrementAndGet();
+            }
+        };
+    }
+
+    private void updateMaxWait(long waitNanos) {
+        long max = maxWaitNanos.get();
+        while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos)) {
+            max = maxWaitNanos.get();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ConnectionPoolRow findPoolStatistics() throws DaoException {
+        PoolStats stats = poolStats;
+        if (stats == null) {
+            return null;
+        }
+        return new ConnectionPoolRow(poolName, stats.getTotalConnections(),
+                stats.getActiveConnections(), stats.getIdleConnections(),
+                stats.getPendingThreads(), acquiredCount.get(),
+                TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()),
+                timeoutCount.get());
+    }
+
+}
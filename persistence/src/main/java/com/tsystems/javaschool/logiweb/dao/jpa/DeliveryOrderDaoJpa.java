@@ -1,9 +1,24 @@
 package com.tsystems.javaschool.logiweb.dao.jpa;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
+
+import org.apache.log4j.Logger;
 import org.springframework.stereotype.Component;
 
 import com.tsystems.javaschool.logiweb.dao.DeliveryOrderDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.OrderRow;
+import com.tsystems.javaschool.logiweb.entities.Cargo;
 import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
 
 /**
  * CRUD operations for Cargo entity (JPA implementation).
@@ -14,4 +29,65 @@ import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
 public class DeliveryOrderDaoJpa extends GenericDaoJpa<DeliveryOrder> implements
         DeliveryOrderDao {
 
+    private static final List<String> ROW_COLUMNS = Arrays.asList("id",
+            "status", "assignedTruck.id", "assignedTruck.licencePlate");
+    
+    private static final Logger LOG = Logger.getLogger(DeliveryOrderDaoJpa.class);
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<OrderRow> findRowsFiltered(Map<String, Object> filters,
+            String sortAttribute, boolean ascending, int firstResult,
+            int maxResults) throws DaoException {
+        return findFilteredRows(OrderRow.class, ROW_COLUMNS, filters,
+                sortAttribute, ascending, firstResult, maxResults);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Integer> findIdsByStatusWithCargoesAndWithoutTruck(
+            OrderStatus status) throws DaoException {
+        try {
+            EntityManager em = getEntityManager();
+            return em.createQuery(
+                    "SELECT o.id FROM " + getEntityClass().getSimpleName()
+                            + " o WHERE o.status = :status"
+                            + " AND o.assignedTruck IS NULL"
+                            + " AND o.assignedCargoes IS NOT EMPTY"
+                            + " ORDER BY o.id", Integer.class)
+                    .setParameter("status", status).getResultList();
+        } catch (Exception e) {
+            LOG.warn(e);
+            throw new DaoException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DeliveryOrder findByCargoId(int cargoId, String entityGraph)
+            throws DaoException {
+        try {
+            CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+            CriteriaQuery<DeliveryOrder> criteria = cb.createQuery(getEntityClass());
+            Root<DeliveryOrder> root = criteria.from(getEntityClass());
+            fetchEntityGraph(root, entityGraph);
+            Join<DeliveryOrder, Cargo> cargo = root.join("assignedCargoes");
+            criteria.select(root).distinct(true)
+                    .where(cb.equal(cargo.get("id"), cargoId));
+            
+            List<DeliveryOrder> result = getEntityManager().createQuery(criteria)
+                    .getResultList();
+            return result.isEmpty() ? null : result.get(0);
+        } catch (Exception e) {
+            LOG.warn(e);
+            throw new DaoException(e);
+        }
+    }
+
 }
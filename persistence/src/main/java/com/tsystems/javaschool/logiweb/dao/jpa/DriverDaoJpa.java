@@ -1,19 +1,34 @@
 package com.tsystems.javaschool.logiweb.dao.jpa;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.Query;
+import javax.persistence.TemporalType;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
 
 import org.apache.log4j.Logger;
 import org.springframework.stereotype.Component;
 
 import com.tsystems.javaschool.logiweb.dao.DriverDao;
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CrewMemberRow;
+import com.tsystems.javaschool.logiweb.dao.projections.DriverCandidateRow;
+import com.tsystems.javaschool.logiweb.dao.projections.DriverRow;
 import com.tsystems.javaschool.logiweb.entities.City;
 import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+import com.tsystems.javaschool.logiweb.utils.DateUtils;
 
 /**
  * CRUD operations for Driver entity (JPA implementation).
@@ -23,6 +38,46 @@ import com.tsystems.javaschool.logiweb.entities.Driver;
 @Component
 public class DriverDaoJpa extends GenericDaoJpa<Driver> implements DriverDao {
 
+    private static final List<String> ROW_COLUMNS = Arrays.asList("id",
+            "employeeId", "name", "surname", "status", "currentCity.id",
+            "currentTruck.licencePlate", "currentTruck.assignedDeliveryOrder.id");
+    
+    private static final List<String> CREW_MEMBER_COLUMNS = Arrays.asList(
+            "currentTruck.id", "id", "surname");
+
+    private static final String EMPLOYEE_ID_QUERY_REGION = "logiweb.query.driverByEmployeeId";
+
+    /**
+     * Native (MySQL) ranked candidates. Hours so far are finished shifts from
+     * ledger plus open shift trimmed to month bounds and counted up to :now.
+     * Free drivers go first, then drivers with less hours, then by id.
+     */
+    private static final String RANKED_CANDIDATES_SQL = "SELECT c.driver_id, c.driver_employee_id_UQ,"
+            + " c.driver_name, c.driver_surname, c.driver_status,"
+            + " c.driver_current_location_city_FK, c.hours"
+            + " FROM (SELECT d.driver_id, d.driver_employee_id_UQ, d.driver_name,"
+            + " d.driver_surname, d.driver_status, d.driver_current_location_city_FK,"
+            + " COALESCE(h.monthly_hours_finished_shifts, 0)"
+            + " + CASE WHEN h.monthly_hours_open_shift_beggined IS NULL THEN 0"
+            + " ELSE TIMESTAMPDIFF(SECOND,"
+            + " GREATEST(h.monthly_hours_open_shift_beggined, :monthStart),"
+            + " LEAST(:now, :nextMonthStart)) / 3600.0 END AS hours"
+            + " FROM drivers d"
+            + " LEFT JOIN drivers_monthly_hours h"
+            + " ON h.monthly_hours_for_driver_FK = d.driver_id"
+            + " AND h.monthly_hours_month = :month"
+            + " WHERE d.driver_current_truck_FK IS NULL"
+            + " AND d.driver_current_location_city_FK = :cityId) c"
+            + " WHERE c.hours <= :maxHours"
+            + " ORDER BY CASE WHEN c.driver_status = 'FREE' THEN 0 ELSE 1 END,"
+            + " c.hours, c.driver_id";
+
+    /**
+     * Native: JPA lock mode can't be set for query that selects only ids.
+     */
+    private static final String LOCK_ALL_SQL = "SELECT d.driver_id FROM drivers d"
+            + " ORDER BY d.driver_id FOR UPDATE";
+
     private static final Logger LOG = Logger.getLogger(GenericDaoJpa.class);
    
     /**
@@ -32,23 +87,20 @@ public class DriverDaoJpa extends GenericDaoJpa<Driver> implements DriverDao {
     public Driver findByEmployeeId(int id) throws DaoException {
         try {
             EntityManager em = getEntityManager();
-
-            Query query = em.createQuery("SELECT t FROM "
-                    + getEntityClass().getSimpleName()
-                    + " t WHERE employeeId = :id", getEntityClass());
-            query.setParameter("id", id);
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Driver> criteria = cb.createQuery(getEntityClass());
+            Root<Driver> root = criteria.from(getEntityClass());
+            criteria.select(root).where(
+                    cb.equal(root.get("employeeId"), id));
 
             /*
              * getResultList used instead of getSingleResult intentionally.
              * Article on this:
              * http://sysout.be/2011/03/09/why-you-should-never-
              * use-getsingleresult-in-jpa/
-             * 
-             * Cause of suppression: type List needs unchecked conversion to
-             * conform to List<Driver>
              */
-            @SuppressWarnings("unchecked")
-            List<Driver> result = query.getResultList();
+            List<Driver> result = cacheQuery(em.createQuery(criteria),
+                    EMPLOYEE_ID_QUERY_REGION).getResultList();
 
             Driver driver = null;
             if (!result.isEmpty()) {
@@ -62,6 +114,33 @@ public class DriverDaoJpa extends GenericDaoJpa<Driver> implements DriverDao {
     }
     
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void lockForUpdate(Driver driver) throws DaoException {
+        try {
+            getEntityManager().refresh(driver, LockModeType.PESSIMISTIC_WRITE);
+        } catch (Exception e) {
+            LOG.warn("Unexpected exception on DB layer.", e);
+            throw new DaoException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lockAllForUpdate() throws DaoException {
+        try {
+            return getEntityManager().createNativeQuery(LOCK_ALL_SQL)
+                    .getResultList().size();
+        } catch (Exception e) {
+            LOG.warn("Unexpected exception on DB layer.", e);
+            throw new DaoException(e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -69,25 +148,106 @@ public class DriverDaoJpa extends GenericDaoJpa<Driver> implements DriverDao {
     public Set<Driver> findByCityWhereNotAssignedToTruck(City city) throws DaoException {
         try {
             EntityManager em = getEntityManager();
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Driver> criteria = cb.createQuery(getEntityClass());
+            Root<Driver> root = criteria.from(getEntityClass());
+            fetchEntityGraph(root, Driver.GRAPH_WITH_TRUCK);
+            criteria.select(root).where(
+                    cb.isNull(root.get("currentTruck")),
+                    cb.equal(root.get("currentCity"), city));
+
+            return new HashSet<Driver>(em.createQuery(criteria).getResultList());
+        } catch (Exception e) {
+            LOG.warn(e);
+            throw new DaoException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Driver> findWhereNotAssignedToTruck() throws DaoException {
+        try {
+            EntityManager em = getEntityManager();
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Driver> criteria = cb.createQuery(getEntityClass());
+            Root<Driver> root = criteria.from(getEntityClass());
+            criteria.select(root).where(cb.isNull(root.get("currentTruck")));
 
-            Query query = em.createQuery("SELECT t FROM "
-                    + getEntityClass().getSimpleName() + " t"
-                    + " WHERE currentTruck IS NULL"
-                    + " AND currentCity = :city", getEntityClass());
-            query.setParameter("city", city);
+            return new HashSet<Driver>(em.createQuery(criteria).getResultList());
+        } catch (Exception e) {
+            LOG.warn(e);
+            throw new DaoException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<DriverCandidateRow> findRankedCandidateRowsByCityWhereNotAssignedToTruck(
+            int cityId, Date month, float maxWorkingHours, int limit)
+            throws DaoException {
+        if (limit <= 0) {
+            return new ArrayList<DriverCandidateRow>(0);
+        }
+
+        try {
+            Query query = getEntityManager().createNativeQuery(RANKED_CANDIDATES_SQL);
+            query.setParameter("cityId", cityId);
+            query.setParameter("month", month, TemporalType.DATE);
+            query.setParameter("monthStart", month, TemporalType.TIMESTAMP);
+            query.setParameter("nextMonthStart",
+                    DateUtils.getFirstDateOfNextMonth(month), TemporalType.TIMESTAMP);
+            query.setParameter("now", new Date(), TemporalType.TIMESTAMP);
+            query.setParameter("maxHours", maxWorkingHours);
+            query.setMaxResults(limit);
 
             /*
-             * Cause of suppression: type List needs unchecked conversion to
-             * conform to List<Driver>
+             * type List needs unchecked conversion to conform to
+             * List<Object[]>
              */
             @SuppressWarnings("unchecked")
-            List<Driver> result = query.getResultList();
+            List<Object[]> rows = query.getResultList();
 
-            return new HashSet<Driver>(result);
+            List<DriverCandidateRow> candidates = new ArrayList<DriverCandidateRow>(rows.size());
+            for (Object[] row : rows) {
+                candidates.add(new DriverCandidateRow(
+                        ((Number) row[0]).intValue(),
+                        ((Number) row[1]).intValue(),
+                        (String) row[2],
+                        (String) row[3],
+                        DriverStatus.valueOf((String) row[4]),
+                        ((Number) row[5]).intValue(),
+                        ((Number) row[6]).floatValue()));
+            }
+            return candidates;
         } catch (Exception e) {
             LOG.warn(e);
             throw new DaoException(e);
         }
     }
-    
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<DriverRow> findRowsFiltered(Map<String, Object> filters,
+            String sortAttribute, boolean ascending, int firstResult,
+            int maxResults) throws DaoException {
+        return findFilteredRows(DriverRow.class, ROW_COLUMNS, filters,
+                sortAttribute, ascending, firstResult, maxResults);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<CrewMemberRow> findCrewMembersOfTrucks(
+            Collection<Integer> truckIds) throws DaoException {
+        return findRowsWhereIn(CrewMemberRow.class, CREW_MEMBER_COLUMNS,
+                "currentTruck.id", truckIds);
+    }
+
 }
@@ -0,0 +1,129 @@
+package com.tsystems.javaschool.logiweb.dao.jpa;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.Query;
+import javax.persistence.TemporalType;
+
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.tsystems.javaschool.logiweb.dao.DriverMonthlyHoursDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.entities.DriverMonthlyHours;
+
+/**
+ * CRUD operations for ledger of Driver working hours per month (JPA
+ * implementation).
+ * 
+ * @author Andrey Baliushin
+ */
+@Component
+public class DriverMonthlyHoursDaoJpa extends GenericDaoJpa<DriverMonthlyHours>
+        implements DriverMonthlyHoursDao {
+
+    private static final Logger LOG = Logger.getLogger(DriverMonthlyHoursDaoJpa.class);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DriverMonthlyHours findByDriverIdAndMonth(int driverId, Date month)
+            throws DaoException {
+        try {
+            Query query = getEntityManager().createQuery("SELECT h FROM "
+                    + getEntityClass().getSimpleName() + " h"
+                    + " WHERE h.driverId = :driverId AND h.month = :month",
+                    getEntityClass());
+            query.setParameter("driverId", driverId);
+            query.setParameter("month", month, TemporalType.DATE);
+
+            /*
+             * Cause of suppression: type List needs unchecked conversion to
+             * conform to List<DriverMonthlyHours>
+             */
+            @SuppressWarnings("unchecked")
+            List<DriverMonthlyHours> result = query.getResultList();
+
+            if (result.isEmpty()) {
+                return null;
+            } else {
+                return result.get(0);
+            }
+        } catch (Exception e) {
+            LOG.warn(e);
+            throw new DaoException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<DriverMonthlyHours> findByDriverIdsAndMonth(
+            Collection<Integer> driverIds, Date month) throws DaoException {
+        if (driverIds == null || driverIds.isEmpty()) {
+            return new HashSet<DriverMonthlyHours>(0);
+        }
+
+        try {
+            Query query = getEntityManager().createQuery("SELECT h FROM "
+                    + getEntityClass().getSimpleName() + " h"
+                    + " WHERE h.driverId IN :driverIds AND h.month = :month",
+                    getEntityClass());
+            query.setParameter("driverIds", driverIds);
+            query.setParameter("month", month, TemporalType.DATE);
+
+            /*
+             * Cause of suppression: type List needs unchecked conversion to
+             * conform to List<DriverMonthlyHours>
+             */
+            @SuppressWarnings("unchecked")
+            List<DriverMonthlyHours> result = query.getResultList();
+
+            return new HashSet<DriverMonthlyHours>(result);
+        } catch (Exception e) {
+            LOG.warn(e);
+            throw new DaoException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int deleteAllForMonth(Date month) throws DaoException {
+        try {
+            Query query = getEntityManager().createQuery("DELETE FROM "
+                    + getEntityClass().getSimpleName() + " h"
+                    + " WHERE h.month = :month");
+            query.setParameter("month", month, TemporalType.DATE);
+            return query.executeUpdate();
+        } catch (Exception e) {
+            LOG.warn(e);
+            throw new DaoException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countForMonth(Date month) throws DaoException {
+        try {
+            Query query = getEntityManager().createQuery("SELECT COUNT(h) FROM "
+                    + getEntityClass().getSimpleName() + " h"
+                    + " WHERE h.month = :month");
+            query.setParameter("month", month, TemporalType.DATE);
+            return (Long) query.getSingleResult();
+        } catch (Exception e) {
+            LOG.warn(e);
+            throw new DaoException(e);
+        }
+    }
+
+}
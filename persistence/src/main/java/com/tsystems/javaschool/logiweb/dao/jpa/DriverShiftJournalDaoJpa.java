@@ -1,12 +1,18 @@
 package com.tsystems.javaschool.logiweb.dao.jpa;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
 
 import org.apache.log4j.Logger;
 import org.springframework.stereotype.Component;
@@ -27,6 +33,22 @@ public class DriverShiftJournalDaoJpa extends GenericDaoJpa<DriverShiftJournal>
         implements DriverShiftJournaDao {
 
     private static final Logger LOG = Logger.getLogger(TruckDaoJpa.class);
+
+    /**
+     * Native (MySQL) aggregate. Every shift is trimmed to month bounds with
+     * GREATEST/LEAST, unfinished shifts end at :now. Only shifts that overlap
+     * month are summed. Filter placeholder is replaced with additional
+     * condition (or empty string).
+     */
+    private static final String SUM_HOURS_FOR_MONTH_SQL = "SELECT j.shift_record_for_driver_FK,"
+            + " SUM(TIMESTAMPDIFF(SECOND,"
+            + " GREATEST(j.driver_shift_beggined, :firstDayOfMonth),"
+            + " LEAST(COALESCE(j.driver_shift_ended, :now), :firstDayOfNextMonth)))"
+            + " FROM drivers_shift_journal j"
+            + " WHERE j.driver_shift_beggined < :firstDayOfNextMonth"
+            + " AND (j.driver_shift_ended IS NULL OR j.driver_shift_ended > :firstDayOfMonth)"
+            + " %s"
+            + " GROUP BY j.shift_record_for_driver_FK";
     
     /**
      * {@inheritDoc}
@@ -51,8 +73,12 @@ public class DriverShiftJournalDaoJpa extends GenericDaoJpa<DriverShiftJournal>
                     + " AND ( (shiftEnded BETWEEN :firstDayOfMonth AND :firstDayOfNextMonth)"
                     + " OR (shiftBeggined BETWEEN :firstDayOfMonth AND :firstDayOfNextMonth) )";
     
-            Query query = em.createQuery(queryString, DriverShiftJournal.class)
-                    .setHint("org.hibernate.cacheable", false);     //fix for strange behavior of hiber
+            /*
+             * Not cached in query cache: journal records are written on every
+             * shift start and end, so cached results would be invalidated
+             * almost every time before reuse.
+             */
+            Query query = em.createQuery(queryString, DriverShiftJournal.class);
             query.setParameter("drivers", drivers);
             query.setParameter("firstDayOfMonth", firstDateOfCurrentMonth);
             query.setParameter("firstDayOfNextMonth", firstDateOfNextMonth);
@@ -120,6 +146,98 @@ public class DriverShiftJournalDaoJpa extends GenericDaoJpa<DriverShiftJournal>
             throw new DaoException(e);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Float> sumWorkingHoursForThisMonth(
+            Collection<Integer> driverIds) throws DaoException {
+        if (driverIds == null || driverIds.isEmpty()) {
+            return new HashMap<Integer, Float>(0);
+        }
+
+        return sumWorkingHours(DateUtils.getFirstDateOfCurrentMonth(),
+                driverIds);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Float> sumFinishedShiftsHoursForMonth(
+            Date firstDayOfMonth) throws DaoException {
+        return sumWorkingHours(firstDayOfMonth, null);
+    }
     
-    
+    /**
+     * Run aggregate query for month and collect results.
+     * 
+     * @param firstDayOfMonth
+     * @param driverIds
+     *            sum hours (including unfinished shifts) for this drivers or,
+     *            if null, sum hours of finished shifts for all drivers
+     * @return map with driver id as key and working hours as value
+     * @throws DaoException
+     */
+    private Map<Integer, Float> sumWorkingHours(Date firstDayOfMonth,
+            Collection<Integer> driverIds) throws DaoException {
+        try {
+            Query query;
+            if (driverIds != null) {
+                query = getEntityManager().createNativeQuery(String.format(
+                        SUM_HOURS_FOR_MONTH_SQL,
+                        "AND j.shift_record_for_driver_FK IN (:driverIds)"));
+                query.setParameter("driverIds", driverIds);
+            } else {
+                query = getEntityManager().createNativeQuery(String.format(
+                        SUM_HOURS_FOR_MONTH_SQL,
+                        "AND j.driver_shift_ended IS NOT NULL"));
+            }
+            
+            query.setParameter("now", new Date());
+            query.setParameter("firstDayOfMonth", firstDayOfMonth);
+            query.setParameter("firstDayOfNextMonth",
+                    DateUtils.getFirstDateOfNextMonth(firstDayOfMonth));
+
+            /*
+             * type List needs unchecked conversion to conform to
+             * List<Object[]>
+             */
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = query.getResultList();
+
+            Map<Integer, Float> workingHours = new HashMap<Integer, Float>(rows.size() * 2);
+            for (Object[] row : rows) {
+                int driverId = ((Number) row[0]).intValue();
+                float seconds = row[1] == null ? 0f : ((Number) row[1]).floatValue();
+                workingHours.put(driverId, seconds / 60 / 60);
+            }
+
+            return workingHours;
+        } catch (Exception e) {
+            LOG.warn(e);
+            throw new DaoException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<DriverShiftJournal> findAllUnfinishedShifts() throws DaoException {
+        try {
+            CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+            CriteriaQuery<DriverShiftJournal> criteria = cb.createQuery(getEntityClass());
+            Root<DriverShiftJournal> root = criteria.from(getEntityClass());
+            fetchEntityGraph(root, DriverShiftJournal.GRAPH_WITH_DRIVER);
+            criteria.select(root).where(cb.isNull(root.get("shiftEnded")));
+
+            return new HashSet<DriverShiftJournal>(getEntityManager()
+                    .createQuery(criteria).getResultList());
+        } catch (Exception e) {
+            LOG.warn(e);
+            throw new DaoException(e);
+        }
+    }
 }
@@ -2,17 +2,42 @@ package com.tsystems.javaschool.logiweb.dao.jpa;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
+import javax.persistence.AttributeNode;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.Subgraph;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.FetchParent;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
 
 import org.apache.log4j.Logger;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.springframework.stereotype.Component;
 
+import com.tsystems.javaschool.logiweb.dao.EntityBatchHandler;
 import com.tsystems.javaschool.logiweb.dao.GenericDao;
+import com.tsystems.javaschool.logiweb.dao.KeysetPage;
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
 
 /**
@@ -25,6 +50,21 @@ import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
 public abstract class GenericDaoJpa<T> implements GenericDao<T> {
 
     private static final Logger LOG = Logger.getLogger(GenericDaoJpa.class);
+    
+    /**
+     * Max number of keys in one IN-list. Keeps statements small enough for
+     * DB parser and driver limits on number of bind parameters.
+     */
+    protected static final int IN_LIST_CHUNK_SIZE = 500;
+    
+    /**
+     * JPA 2.1 hint: attributes of entity graph are fetched eagerly, other
+     * attributes are fetched according to their mapping.
+     */
+    private static final String LOAD_GRAPH_HINT = "javax.persistence.loadgraph";
+
+    private static final String CACHEABLE_HINT = "org.hibernate.cacheable";
+    private static final String CACHE_REGION_HINT = "org.hibernate.cacheRegion";
 
     private Class<T> entityClass;
     
@@ -54,6 +94,58 @@ public abstract class GenericDaoJpa<T> implements GenericDao<T> {
     protected final EntityManager getEntityManager() {
         return entityManager;
     }
+    
+    /**
+     * Add left fetch joins for attributes of named entity graph (and of its
+     * subgraphs) to query root, so associations are loaded by the same
+     * statement.
+     * <p>
+     * Used for queries instead of loadgraph hint: Hibernate 4.3 renders broken
+     * SQL for hint with subgraphs ('cross join left outer join ...').
+     * Queries with collection fetches return duplicate roots, collect results
+     * to set or use distinct.
+     * 
+     * @param root
+     * @param entityGraph
+     *            name of entity graph or null (then root is not changed)
+     */
+    protected final void fetchEntityGraph(Root<T> root, String entityGraph) {
+        if (entityGraph != null) {
+            fetchAttributeNodes(root, getEntityManager()
+                    .getEntityGraph(entityGraph).getAttributeNodes());
+        }
+    }
+    
+    /**
+     * Store query results in query cache region. Cached result holds only ids
+     * of entities, entities themselves are taken from their own regions, so
+     * cache only queries over cacheable entities. Result is invalidated by
+     * Hibernate on any change of queried tables made through JPA (including
+     * bulk updates).
+     * <p>
+     * Fetch joins are not restored on cache hit, associations that caller
+     * needs must be initialized separately.
+     * 
+     * @param query
+     * @param region
+     *            name of query cache region, see ehcache-logiweb.xml
+     * @return same query
+     */
+    protected static <Q extends Query> Q cacheQuery(Q query, String region) {
+        query.setHint(CACHEABLE_HINT, true);
+        query.setHint(CACHE_REGION_HINT, region);
+        return query;
+    }
+    
+    private static void fetchAttributeNodes(FetchParent<?, ?> parent,
+            List<AttributeNode<?>> attributeNodes) {
+        for (AttributeNode<?> node : attributeNodes) {
+            Fetch<?, ?> fetch = parent.fetch(node.getAttributeName(), JoinType.LEFT);
+            for (Subgraph<?> subgraph : node.getSubgraphs().values()) {
+                fetchAttributeNodes(fetch, subgraph.getAttributeNodes());
+            }
+        }
+    }
 
     /**
      * {@inheritDoc}
@@ -74,8 +166,22 @@ public abstract class GenericDaoJpa<T> implements GenericDao<T> {
      */
     @Override
     public final T find(int id) throws DaoException {
+        return find(id, null);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final T find(int id, String entityGraph) throws DaoException {
         try {
-            return getEntityManager().find(getEntityClass(), id);
+            if (entityGraph == null) {
+                return getEntityManager().find(getEntityClass(), id);
+            }
+            
+            Map<String, Object> hints = new HashMap<String, Object>();
+            hints.put(LOAD_GRAPH_HINT, getEntityManager().getEntityGraph(entityGraph));
+            return getEntityManager().find(getEntityClass(), id, hints);
         } catch (Exception e) {
             LOG.warn("Failed to find entity " + getEntityClass()
                     + " by ID = " + id + ". Exception msg: " + e.getMessage());
@@ -83,6 +189,48 @@ public abstract class GenericDaoJpa<T> implements GenericDao<T> {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Set<T> findByIds(Collection<Integer> ids) throws DaoException {
+        return findByIds(ids, null);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Set<T> findByIds(Collection<Integer> ids, String entityGraph)
+            throws DaoException {
+        if (ids == null || ids.isEmpty()) {
+            return new HashSet<T>(0);
+        }
+        
+        try {
+            List<Integer> uniqueIds = new ArrayList<Integer>(new LinkedHashSet<Integer>(ids));
+            Set<T> result = new HashSet<T>(uniqueIds.size() * 2);
+            
+            for (int from = 0; from < uniqueIds.size(); from += IN_LIST_CHUNK_SIZE) {
+                int to = Math.min(from + IN_LIST_CHUNK_SIZE, uniqueIds.size());
+                
+                CriteriaQuery<T> criteria = getEntityManager().getCriteriaBuilder()
+                        .createQuery(getEntityClass());
+                Root<T> root = criteria.from(getEntityClass());
+                fetchEntityGraph(root, entityGraph);
+                criteria.select(root).where(root.get("id").in(uniqueIds.subList(from, to)));
+                
+                result.addAll(getEntityManager().createQuery(criteria).getResultList());
+            }
+            
+            return result;
+        } catch (Exception e) {
+            LOG.warn("Failed to find entities " + getEntityClass()
+                    + " by IDs. Exception msg: " + e.getMessage());
+            throw new DaoException(e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -124,19 +272,388 @@ public abstract class GenericDaoJpa<T> implements GenericDao<T> {
      */
     @Override
     public final Set<T> findAll() throws DaoException {
+        return findAll(null);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Set<T> findAll(String entityGraph) throws DaoException {
+        try {
+            CriteriaQuery<T> criteria = getEntityManager().getCriteriaBuilder()
+                    .createQuery(getEntityClass());
+            Root<T> root = criteria.from(getEntityClass());
+            fetchEntityGraph(root, entityGraph);
+            criteria.select(root);
+            
+            return new HashSet<T>(getEntityManager().createQuery(criteria).getResultList());
+        } catch (Exception e) {
+            LOG.warn("Failed to FindAll entities for: " + getEntityClass()
+                    + ". Exception msg: " + e.getMessage());
+            throw new DaoException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final KeysetPage<T> findPage(Integer afterId, int limit,
+            String sortAttribute, boolean ascending) throws DaoException {
+        if (limit <= 0) {
+            return new KeysetPage<T>(new ArrayList<T>(0), null);
+        }
+        
         try {
+            String sort = sortAttribute == null ? "id" : checkSortAttribute(sortAttribute);
+            String direction = ascending ? "ASC" : "DESC";
+            String compare = ascending ? ">" : "<";
+            String entityName = getEntityClass().getSimpleName();
+            
+            StringBuilder queryString = new StringBuilder("Select t from ")
+                    .append(entityName).append(" t");
+            if (afterId != null) {
+                // 'a' is the last row of previous page
+                queryString.append(", ").append(entityName).append(" a")
+                        .append(" where a.id = :afterId and (t.").append(sort)
+                        .append(" ").append(compare).append(" a.").append(sort)
+                        .append(" or (t.").append(sort).append(" = a.").append(sort)
+                        .append(" and t.id ").append(compare).append(" a.id))");
+            }
+            queryString.append(" order by t.").append(sort).append(" ").append(direction);
+            if (!"id".equals(sort)) {
+                queryString.append(", t.id ").append(direction);
+            }
+            
+            Query query = getEntityManager().createQuery(queryString.toString());
+            if (afterId != null) {
+                query.setParameter("afterId", afterId);
+            }
+            // one extra row tells if there is next page
+            query.setMaxResults(limit + 1);
+            
             // unchecked conversion to conform to List<T>
             @SuppressWarnings("unchecked")
-            List<T> allEntities = getEntityManager().createQuery(
-                    "Select t from " + getEntityClass().getSimpleName() + " t")
+            List<T> rows = query.getResultList();
+            
+            if (rows.size() <= limit) {
+                return new KeysetPage<T>(rows, null);
+            }
+            
+            List<T> items = new ArrayList<T>(rows.subList(0, limit));
+            Object lastId = getEntityManager().getEntityManagerFactory()
+                    .getPersistenceUnitUtil().getIdentifier(items.get(limit - 1));
+            return new KeysetPage<T>(items, (Integer) lastId);
+        } catch (Exception e) {
+            LOG.warn("Failed to find page of entities for: " + getEntityClass()
+                    + ". Exception msg: " + e.getMessage());
+            throw new DaoException(e);
+        }
+    }
+
+    /**
+     * Check that attribute can be used for sorting.
+     * 
+     * @param attributeName
+     * @return same attribute name
+     * @throws IllegalArgumentException
+     *             if attribute not exist or is not basic (association or
+     *             collection)
+     */
+    private String checkSortAttribute(String attributeName) {
+        Attribute<? super T, ?> attribute = getEntityManager().getMetamodel()
+                .entity(getEntityClass()).getAttribute(attributeName);
+        
+        if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+            throw new IllegalArgumentException("Can't sort " + getEntityClass()
+                    + " by non basic attribute " + attributeName);
+        }
+        return attributeName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long findAllInBatches(int batchSize,
+            EntityBatchHandler<T> handler) throws DaoException {
+        ScrollableResults cursor = null;
+        try {
+            Session session = getEntityManager().unwrap(Session.class);
+            cursor = session
+                    .createQuery("Select t from " + getEntityClass().getSimpleName()
+                            + " t order by t.id")
+                    .setFetchSize(batchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            
+            long total = 0;
+            List<T> batch = new ArrayList<T>(batchSize);
+            while (cursor.next()) {
+                // unchecked conversion to conform to T
+                @SuppressWarnings("unchecked")
+                T entity = (T) cursor.get(0);
+                batch.add(entity);
+                
+                if (batch.size() == batchSize) {
+                    total += handOverBatch(batch, handler);
+                }
+            }
+            if (!batch.isEmpty()) {
+                total += handOverBatch(batch, handler);
+            }
+            
+            return total;
+        } catch (DaoException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.warn("Failed to stream entities for: " + getEntityClass()
+                    + ". Exception msg: " + e.getMessage());
+            throw new DaoException(e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+    
+    /**
+     * Pass batch to handler, then detach its entities.
+     * 
+     * @param batch will be cleared
+     * @param handler
+     * @return size of batch
+     * @throws DaoException
+     */
+    private int handOverBatch(List<T> batch, EntityBatchHandler<T> handler)
+            throws DaoException {
+        int size = batch.size();
+        handler.handleBatch(new ArrayList<T>(batch));
+        
+        getEntityManager().flush();
+        getEntityManager().clear();
+        batch.clear();
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final List<T> findFiltered(Map<String, Object> filters,
+            String sortAttribute, boolean ascending, int firstResult,
+            int maxResults) throws DaoException {
+        try {
+            String sort = sortAttribute == null ? "id" : checkSortAttribute(sortAttribute);
+            
+            CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+            CriteriaQuery<T> criteria = cb.createQuery(getEntityClass());
+            Root<T> root = criteria.from(getEntityClass());
+            criteria.select(root).where(buildFilterPredicates(cb, root, filters));
+            applyOrder(cb, criteria, root, sort, ascending);
+            
+            return getEntityManager().createQuery(criteria)
+                    .setFirstResult(Math.max(firstResult, 0))
+                    .setMaxResults(Math.max(maxResults, 0))
                     .getResultList();
+        } catch (Exception e) {
+            LOG.warn("Failed to find filtered entities for: " + getEntityClass()
+                    + ". Exception msg: " + e.getMessage());
+            throw new DaoException(e);
+        }
+    }
 
-            return new HashSet<T>(allEntities);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long countFiltered(Map<String, Object> filters)
+            throws DaoException {
+        try {
+            CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+            CriteriaQuery<Long> criteria = cb.createQuery(Long.class);
+            Root<T> root = criteria.from(getEntityClass());
+            criteria.select(cb.count(root)).where(
+                    buildFilterPredicates(cb, root, filters));
+            
+            return getEntityManager().createQuery(criteria).getSingleResult();
         } catch (Exception e) {
-            LOG.warn("Failed to FindAll entities for: " + getEntityClass()
+            LOG.warn("Failed to count filtered entities for: " + getEntityClass()
+                    + ". Exception msg: " + e.getMessage());
+            throw new DaoException(e);
+        }
+    }
+    
+    /**
+     * Select filtered, sorted and paged projection of entities. Rows are built
+     * by constructor expression from listed attribute paths, so entities are
+     * neither loaded to persistence context nor dirty-checked. Associations
+     * in paths are joined with left outer join, so row is not lost if
+     * association is null.
+     * 
+     * @param rowClass
+     *            class with public constructor that matches columns
+     * @param columns
+     *            attribute paths (ex.: 'currentTruck.licencePlate')
+     * @param filters
+     *            same as in {@link #findFiltered}
+     * @param sortAttribute
+     *            same as in {@link #findFiltered}
+     * @param ascending
+     * @param firstResult
+     * @param maxResults
+     * @return rows or empty list
+     * @throws DaoException
+     */
+    protected final <R> List<R> findFilteredRows(Class<R> rowClass,
+            List<String> columns, Map<String, Object> filters,
+            String sortAttribute, boolean ascending, int firstResult,
+            int maxResults) throws DaoException {
+        try {
+            String sort = sortAttribute == null ? "id" : checkSortAttribute(sortAttribute);
+            
+            CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+            CriteriaQuery<R> criteria = cb.createQuery(rowClass);
+            Root<T> root = criteria.from(getEntityClass());
+            criteria.select(cb.construct(rowClass, resolveColumns(root, columns)))
+                    .where(buildFilterPredicates(cb, root, filters));
+            applyOrder(cb, criteria, root, sort, ascending);
+            
+            return getEntityManager().createQuery(criteria)
+                    .setFirstResult(Math.max(firstResult, 0))
+                    .setMaxResults(Math.max(maxResults, 0))
+                    .getResultList();
+        } catch (Exception e) {
+            LOG.warn("Failed to find filtered rows for: " + getEntityClass()
                     + ". Exception msg: " + e.getMessage());
             throw new DaoException(e);
         }
     }
+    
+    /**
+     * Select projection of entities where value of attribute path is in given
+     * collection of ids. Ids are sent in chunks of {@link #IN_LIST_CHUNK_SIZE}.
+     * 
+     * @param rowClass
+     *            class with public constructor that matches columns
+     * @param columns
+     *            attribute paths (ex.: 'originCity.id')
+     * @param idPath
+     *            attribute path compared with ids (ex.: 'orderForThisCargo.id')
+     * @param ids
+     * @return rows ordered by id of entity (empty list if ids are empty)
+     * @throws DaoException
+     */
+    protected final <R> List<R> findRowsWhereIn(Class<R> rowClass,
+            List<String> columns, String idPath, Collection<Integer> ids)
+            throws DaoException {
+        List<R> result = new ArrayList<R>();
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        
+        try {
+            List<Integer> uniqueIds = new ArrayList<Integer>(new LinkedHashSet<Integer>(ids));
+            for (int from = 0; from < uniqueIds.size(); from += IN_LIST_CHUNK_SIZE) {
+                List<Integer> chunk = uniqueIds.subList(from,
+                        Math.min(from + IN_LIST_CHUNK_SIZE, uniqueIds.size()));
+                
+                CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+                CriteriaQuery<R> criteria = cb.createQuery(rowClass);
+                Root<T> root = criteria.from(getEntityClass());
+                criteria.select(cb.construct(rowClass, resolveColumns(root, columns)))
+                        .where(resolvePath(root, idPath).in(chunk))
+                        .orderBy(cb.asc(root.get("id")));
+                
+                result.addAll(getEntityManager().createQuery(criteria).getResultList());
+            }
+            return result;
+        } catch (Exception e) {
+            LOG.warn("Failed to find rows by ids for: " + getEntityClass()
+                    + ". Exception msg: " + e.getMessage());
+            throw new DaoException(e);
+        }
+    }
+    
+    private Selection<?>[] resolveColumns(Root<T> root, List<String> columns) {
+        Map<String, From<?, ?>> joins = new HashMap<String, From<?, ?>>();
+        Selection<?>[] selections = new Selection<?>[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            selections[i] = resolveColumn(root, joins, columns.get(i));
+        }
+        return selections;
+    }
+    
+    /**
+     * Resolve attribute path, every association on the way is joined with
+     * left outer join (joins are reused for paths with same prefix).
+     */
+    private Path<?> resolveColumn(Root<T> root, Map<String, From<?, ?>> joins,
+            String attributePath) {
+        String[] attributes = attributePath.split("\\.");
+        From<?, ?> from = root;
+        String prefix = "";
+        for (int i = 0; i < attributes.length - 1; i++) {
+            prefix += attributes[i] + ".";
+            From<?, ?> join = joins.get(prefix);
+            if (join == null) {
+                join = from.join(attributes[i], JoinType.LEFT);
+                joins.put(prefix, join);
+            }
+            from = join;
+        }
+        return from.get(attributes[attributes.length - 1]);
+    }
+    
+    private Path<?> resolvePath(Root<T> root, String attributePath) {
+        Path<?> path = root;
+        for (String attribute : attributePath.split("\\.")) {
+            path = path.get(attribute);
+        }
+        return path;
+    }
+    
+    /**
+     * Order by sort attribute and then by id, so order of pages is stable
+     * when sort attribute values are equal.
+     */
+    private void applyOrder(CriteriaBuilder cb, CriteriaQuery<?> criteria,
+            Root<T> root, String sortAttribute, boolean ascending) {
+        if (ascending) {
+            criteria.orderBy(cb.asc(root.get(sortAttribute)), cb.asc(root.get("id")));
+        } else {
+            criteria.orderBy(cb.desc(root.get(sortAttribute)), cb.desc(root.get("id")));
+        }
+    }
+    
+    /**
+     * Convert filters to equality predicates. Attribute paths are resolved
+     * against JPA metamodel (unknown attribute causes
+     * IllegalArgumentException).
+     * 
+     * @param cb
+     * @param root
+     * @param filters attribute path as key, required value as value
+     * @return predicates (empty array if there is no filters)
+     */
+    private Predicate[] buildFilterPredicates(CriteriaBuilder cb, Root<T> root,
+            Map<String, Object> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return new Predicate[0];
+        }
+        
+        List<Predicate> predicates = new ArrayList<Predicate>(filters.size());
+        for (Entry<String, Object> filter : filters.entrySet()) {
+            Path<?> path = resolvePath(root, filter.getKey());
+            
+            if (filter.getValue() == null) {
+                predicates.add(cb.isNull(path));
+            } else {
+                predicates.add(cb.equal(path, filter.getValue()));
+            }
+        }
+        return predicates.toArray(new Predicate[predicates.size()]);
+    }
 
 }
@@ -0,0 +1,73 @@
+package com.tsystems.javaschool.logiweb.dao.jpa;
+
+import java.util.List;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.tsystems.javaschool.logiweb.dao.RoadDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.RoadRow;
+import com.tsystems.javaschool.logiweb.entities.Road;
+
+/**
+ * CRUD operations for Road entity (JPA implementation).
+ * 
+ * @author Andrey Baliushin
+ */
+@Component
+public class RoadDaoJpa extends GenericDaoJpa<Road> implements RoadDao {
+
+    private static final Logger LOG = Logger.getLogger(RoadDaoJpa.class);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<RoadRow> findAllRows() throws DaoException {
+        try {
+            CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+            CriteriaQuery<RoadRow> criteria = cb.createQuery(RoadRow.class);
+            Root<Road> root = criteria.from(getEntityClass());
+            criteria.select(cb.construct(RoadRow.class,
+                    root.get("fromCity").get("id"),
+                    root.get("toCity").get("id"),
+                    root.get("distance")));
+
+            return getEntityManager().createQuery(criteria).getResultList();
+        } catch (Exception e) {
+            LOG.warn("Unexpected exception on DB layer.", e);
+            throw new DaoException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Road findByCities(int cityId, int otherCityId) throws DaoException {
+        try {
+            CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+            CriteriaQuery<Road> criteria = cb.createQuery(getEntityClass());
+            Root<Road> root = criteria.from(getEntityClass());
+            Path<Object> from = root.get("fromCity").get("id");
+            Path<Object> to = root.get("toCity").get("id");
+            criteria.select(root).where(cb.or(
+                    cb.and(cb.equal(from, cityId), cb.equal(to, otherCityId)),
+                    cb.and(cb.equal(from, otherCityId), cb.equal(to, cityId))));
+
+            List<Road> result = getEntityManager().createQuery(criteria)
+                    .getResultList();
+            return result.isEmpty() ? null : result.get(0);
+        } catch (Exception e) {
+            LOG.warn("Unexpected exception on DB layer.", e);
+            throw new DaoException(e);
+        }
+    }
+
+}
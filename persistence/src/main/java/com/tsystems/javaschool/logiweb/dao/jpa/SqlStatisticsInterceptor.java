@@ -0,0 +1,33 @@
+package com.tsystems.javaschool.logiweb.dao.jpa;
+
+import java.io.Serializable;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import com.tsystems.javaschool.logiweb.dao.RequestSqlStatistics;
+
+/**
+ * Reports prepared statements and loaded entities to
+ * {@link RequestSqlStatistics} of current thread. One instance is shared by
+ * all sessions (see 'hibernate.ejb.interceptor' in persistence.xml).
+ *
+ * @author Andrey Baliushin
+ */
+public class SqlStatisticsInterceptor extends EmptyInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String onPrepareStatement(String sql) {
+        RequestSqlStatistics.statementPrepared(sql);
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state,
+            String[] propertyNames, Type[] types) {
+        RequestSqlStatistics.entityLoaded();
+        return false;
+    }
+}
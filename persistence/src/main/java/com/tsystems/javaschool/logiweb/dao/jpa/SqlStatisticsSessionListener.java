@@ -0,0 +1,40 @@
+package com.tsystems.javaschool.logiweb.dao.jpa;
+
+import org.hibernate.BaseSessionEventListener;
+
+import com.tsystems.javaschool.logiweb.dao.RequestSqlStatistics;
+
+/**
+ * Reports time of statement execution to {@link RequestSqlStatistics} of
+ * current thread. Hibernate creates new instance for every session (see
+ * 'hibernate.session.events.auto' in persistence.xml).
+ *
+ * @author Andrey Baliushin
+ */
+public class SqlStatisticsSessionListener extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private long executionStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestSqlStatistics.statementExecuted(System.nanoTime() - executionStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestSqlStatistics.statementExecuted(System.nanoTime() - batchStart);
+    }
+}
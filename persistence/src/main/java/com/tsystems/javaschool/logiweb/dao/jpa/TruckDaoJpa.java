@@ -1,17 +1,23 @@
 package com.tsystems.javaschool.logiweb.dao.jpa;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
 
 import org.apache.log4j.Logger;
 import org.springframework.stereotype.Component;
 
 import com.tsystems.javaschool.logiweb.dao.TruckDao;
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.TruckRow;
 import com.tsystems.javaschool.logiweb.entities.Truck;
 import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
 
@@ -23,6 +29,12 @@ import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
 @Component
 public class TruckDaoJpa extends GenericDaoJpa<Truck> implements TruckDao {
 
+    private static final List<String> ROW_COLUMNS = Arrays.asList("id",
+            "licencePlate", "crewSize", "cargoCapacity", "status",
+            "currentCity.id", "assignedDeliveryOrder.id");
+
+    private static final String LICENSE_PLATE_QUERY_REGION = "logiweb.query.truckByLicensePlate";
+
     private static final Logger LOG = Logger.getLogger(TruckDaoJpa.class);
     
     /**
@@ -33,20 +45,17 @@ public class TruckDaoJpa extends GenericDaoJpa<Truck> implements TruckDao {
             float minCargoCapacity) throws DaoException {
         try {
             EntityManager em = getEntityManager();
-            Class<Truck> truckEntityClass = getEntityClass();
-            String classSimpleName = truckEntityClass.getSimpleName();
-
-            Query query = em
-                    .createQuery(
-                            "SELECT t FROM "
-                                    + classSimpleName
-                                    + " t WHERE status = :status AND assignedDeliveryOrder IS NULL AND"
-                                    + "  cargoCapacity >= :capacity",
-                            truckEntityClass);
-            query.setParameter("status", TruckStatus.OK);
-            query.setParameter("capacity", minCargoCapacity);
+            CriteriaBuilder cb = em.getCriteriaBuilder();
+            CriteriaQuery<Truck> criteria = cb.createQuery(getEntityClass());
+            Root<Truck> root = criteria.from(getEntityClass());
+            fetchEntityGraph(root, Truck.GRAPH_WITH_CREW);
+            criteria.select(root).where(
+                    cb.equal(root.get("status"), TruckStatus.OK),
+                    cb.isNull(root.get("assignedDeliveryOrder")),
+                    cb.greaterThanOrEqualTo(root.<Float> get("cargoCapacity"),
+                            minCargoCapacity));
 
-            List<Truck> resultList = query.getResultList();
+            List<Truck> resultList = em.createQuery(criteria).getResultList();
             return new HashSet<Truck>(resultList);
         } catch (Exception e) {
             LOG.warn(e);
@@ -71,6 +80,7 @@ public class TruckDaoJpa extends GenericDaoJpa<Truck> implements TruckDao {
                                     + " t WHERE licencePlate = :plate",
                             truckEntityClass);
             query.setParameter("plate", licensePlate);
+            cacheQuery(query, LICENSE_PLATE_QUERY_REGION);
 
             List<Truck> resultList = query.getResultList();
             if(resultList.isEmpty()) {
@@ -84,5 +94,15 @@ public class TruckDaoJpa extends GenericDaoJpa<Truck> implements TruckDao {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<TruckRow> findRowsFiltered(Map<String, Object> filters,
+            String sortAttribute, boolean ascending, int firstResult,
+            int maxResults) throws DaoException {
+        return findFilteredRows(TruckRow.class, ROW_COLUMNS, filters,
+                sortAttribute, ascending, firstResult, maxResults);
+    }
 
 }
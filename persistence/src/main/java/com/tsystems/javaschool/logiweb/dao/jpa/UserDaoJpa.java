@@ -14,6 +14,8 @@ import com.tsystems.javaschool.logiweb.entities.LogiwebUser;
 @Component
 public class UserDaoJpa extends GenericDaoJpa<LogiwebUser> implements UserDao {
 
+    private static final String EMAIL_QUERY_REGION = "logiweb.query.userByEmail";
+
     private static final Logger LOG = Logger.getLogger(UserDaoJpa.class);
 
     @Override
@@ -23,6 +25,7 @@ public class UserDaoJpa extends GenericDaoJpa<LogiwebUser> implements UserDao {
                     "SELECT u FROM " + getEntityClass().getSimpleName()
                             + " u WHERE mail = :email");
             q.setParameter("email", email);
+            cacheQuery(q, EMAIL_QUERY_REGION);
 
             List<LogiwebUser> result = q.getResultList();
             if (result != null && !result.isEmpty()) {
@@ -0,0 +1,46 @@
+package com.tsystems.javaschool.logiweb.dao.projections;
+
+/**
+ * Statistics of one second level cache region (entity or query region).
+ * Counters are accumulated since start of application.
+ * 
+ * @author Andrey Baliushin
+ */
+public class CacheRegionRow {
+
+    private final String regionName;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long elementCountInMemory;
+
+    public CacheRegionRow(String regionName, long hitCount, long missCount,
+            long putCount, long elementCountInMemory) {
+        this.regionName = regionName;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.elementCountInMemory = elementCountInMemory;
+    }
+
+    public String getRegionName() {
+        return regionName;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+
+    public long getElementCountInMemory() {
+        return elementCountInMemory;
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.tsystems.javaschool.logiweb.dao.projections;
+
+import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
+
+/**
+ * Cargo columns needed for lists of cargoes. Cities and order are
+ * represented by ids only.
+ * 
+ * @author Andrey Baliushin
+ */
+public class CargoRow {
+
+    private final Integer id;
+    private final String title;
+    private final Float weight;
+    private final CargoStatus status;
+    private final Integer originCityId;
+    private final Integer destinationCityId;
+    private final Integer orderId;
+
+    public CargoRow(Integer id, String title, Float weight, CargoStatus status,
+            Integer originCityId, Integer destinationCityId, Integer orderId) {
+        this.id = id;
+        this.title = title;
+        this.weight = weight;
+        this.status = status;
+        this.originCityId = originCityId;
+        this.destinationCityId = destinationCityId;
+        this.orderId = orderId;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Float getWeight() {
+        return weight;
+    }
+
+    public CargoStatus getStatus() {
+        return status;
+    }
+
+    public Integer getOriginCityId() {
+        return originCityId;
+    }
+
+    public Integer getDestinationCityId() {
+        return destinationCityId;
+    }
+
+    public Integer getOrderId() {
+        return orderId;
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.tsystems.javaschool.logiweb.dao.projections;
+
+/**
+ * Snapshot of DB connection pool state. Connection counts are current values,
+ * acquisition counters are accumulated since start of application.
+ * 
+ * @author Andrey Baliushin
+ */
+public class ConnectionPoolRow {
+
+    private final String poolName;
+    private final int totalConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int threadsAwaitingConnection;
+    private final long acquiredCount;
+    private final long totalWaitMillis;
+    private final long maxWaitMillis;
+    private final long timeoutCount;
+
+    public ConnectionPoolRow(String poolName, int totalConnections,
+            int activeConnections, int idleConnections,
+            int threadsAwaitingConnection, long acquiredCount,
+            long totalWaitMillis, long maxWaitMillis, long timeoutCount) {
+        this.poolName = poolName;
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.threadsAwaitingConnection = threadsAwaitingConnection;
+        this.acquiredCount = acquiredCount;
+        this.totalWaitMillis = totalWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.timeoutCount = timeoutCount;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return threadsAwaitingConnection;
+    }
+
+    /**
+     * @return number of connections handed out by pool
+     */
+    public long getAcquiredCount() {
+        return acquiredCount;
+    }
+
+    /**
+     * @return time callers spent waiting for connections in total
+     */
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    /**
+     * @return longest wait for single connection
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * @return number of requests that got no connection within timeout
+     */
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+}
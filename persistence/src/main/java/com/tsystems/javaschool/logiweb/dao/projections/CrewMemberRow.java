@@ -0,0 +1,32 @@
+package com.tsystems.javaschool.logiweb.dao.projections;
+
+/**
+ * Driver assigned to truck, as shown in list of trucks.
+ * 
+ * @author Andrey Baliushin
+ */
+public class CrewMemberRow {
+
+    private final Integer truckId;
+    private final Integer driverId;
+    private final String surname;
+
+    public CrewMemberRow(Integer truckId, Integer driverId, String surname) {
+        this.truckId = truckId;
+        this.driverId = driverId;
+        this.surname = surname;
+    }
+
+    public Integer getTruckId() {
+        return truckId;
+    }
+
+    public Integer getDriverId() {
+        return driverId;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+}
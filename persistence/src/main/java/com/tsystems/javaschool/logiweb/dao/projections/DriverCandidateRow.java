@@ -0,0 +1,66 @@
+package com.tsystems.javaschool.logiweb.dao.projections;
+
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+
+/**
+ * Driver that can be added to crew, with its working hours so far in
+ * requested month. Selected together with ledger by one ranked query, so no
+ * Driver entity is loaded.
+ * 
+ * @author Andrey Baliushin
+ */
+public class DriverCandidateRow {
+
+    private final Integer id;
+    private final Integer employeeId;
+    private final String name;
+    private final String surname;
+    private final DriverStatus status;
+    private final Integer currentCityId;
+    private final float workingHoursThisMonth;
+
+    public DriverCandidateRow(Integer id, Integer employeeId, String name,
+            String surname, DriverStatus status, Integer currentCityId,
+            float workingHoursThisMonth) {
+        this.id = id;
+        this.employeeId = employeeId;
+        this.name = name;
+        this.surname = surname;
+        this.status = status;
+        this.currentCityId = currentCityId;
+        this.workingHoursThisMonth = workingHoursThisMonth;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Integer getEmployeeId() {
+        return employeeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public DriverStatus getStatus() {
+        return status;
+    }
+
+    public Integer getCurrentCityId() {
+        return currentCityId;
+    }
+
+    /**
+     * @return hours of finished shifts plus open shift up until now, 0 if
+     *         driver has no ledger record for month
+     */
+    public float getWorkingHoursThisMonth() {
+        return workingHoursThisMonth;
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.tsystems.javaschool.logiweb.dao.projections;
+
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+
+/**
+ * Driver columns needed for list of drivers. Selected by constructor
+ * expression, so no Driver entity (and its eager graph) is loaded.
+ * 
+ * @author Andrey Baliushin
+ */
+public class DriverRow {
+
+    private final Integer id;
+    private final Integer employeeId;
+    private final String name;
+    private final String surname;
+    private final DriverStatus status;
+    private final Integer currentCityId;
+    private final String currentTruckLicencePlate;
+    private final Integer orderId;
+
+    public DriverRow(Integer id, Integer employeeId, String name,
+            String surname, DriverStatus status, Integer currentCityId,
+            String currentTruckLicencePlate, Integer orderId) {
+        this.id = id;
+        this.employeeId = employeeId;
+        this.name = name;
+        this.surname = surname;
+        this.status = status;
+        this.currentCityId = currentCityId;
+        this.currentTruckLicencePlate = currentTruckLicencePlate;
+        this.orderId = orderId;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Integer getEmployeeId() {
+        return employeeId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSurname() {
+        return surname;
+    }
+
+    public DriverStatus getStatus() {
+        return status;
+    }
+
+    public Integer getCurrentCityId() {
+        return currentCityId;
+    }
+
+    /**
+     * @return licence plate of current truck or null if not assigned
+     */
+    public String getCurrentTruckLicencePlate() {
+        return currentTruckLicencePlate;
+    }
+
+    /**
+     * @return order of current truck or null
+     */
+    public Integer getOrderId() {
+        return orderId;
+    }
+
+}
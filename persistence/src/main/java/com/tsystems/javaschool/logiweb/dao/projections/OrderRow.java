@@ -0,0 +1,48 @@
+package com.tsystems.javaschool.logiweb.dao.projections;
+
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
+
+/**
+ * Order columns needed for list of orders. Selected by constructor
+ * expression, cargoes are selected separately with {@link CargoRow}.
+ * 
+ * @author Andrey Baliushin
+ */
+public class OrderRow {
+
+    private final Integer id;
+    private final OrderStatus status;
+    private final Integer assignedTruckId;
+    private final String assignedTruckLicencePlate;
+
+    public OrderRow(Integer id, OrderStatus status, Integer assignedTruckId,
+            String assignedTruckLicencePlate) {
+        this.id = id;
+        this.status = status;
+        this.assignedTruckId = assignedTruckId;
+        this.assignedTruckLicencePlate = assignedTruckLicencePlate;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return assigned truck or null
+     */
+    public Integer getAssignedTruckId() {
+        return assignedTruckId;
+    }
+
+    /**
+     * @return licence plate of assigned truck or null
+     */
+    public String getAssignedTruckLicencePlate() {
+        return assignedTruckLicencePlate;
+    }
+
+}
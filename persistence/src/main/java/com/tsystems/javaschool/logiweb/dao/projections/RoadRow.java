@@ -0,0 +1,32 @@
+package com.tsystems.javaschool.logiweb.dao.projections;
+
+/**
+ * Road as edge of road graph: ids of connected cities and length in km.
+ * 
+ * @author Andrey Baliushin
+ */
+public class RoadRow {
+
+    private final int fromCityId;
+    private final int toCityId;
+    private final float distance;
+
+    public RoadRow(int fromCityId, int toCityId, float distance) {
+        this.fromCityId = fromCityId;
+        this.toCityId = toCityId;
+        this.distance = distance;
+    }
+
+    public int getFromCityId() {
+        return fromCityId;
+    }
+
+    public int getToCityId() {
+        return toCityId;
+    }
+
+    public float getDistance() {
+        return distance;
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.tsystems.javaschool.logiweb.dao.projections;
+
+import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
+
+/**
+ * Truck columns needed for list of trucks. Selected by constructor
+ * expression, crew is selected separately with {@link CrewMemberRow}.
+ * 
+ * @author Andrey Baliushin
+ */
+public class TruckRow {
+
+    private final Integer id;
+    private final String licencePlate;
+    private final Integer crewSize;
+    private final Float cargoCapacity;
+    private final TruckStatus status;
+    private final Integer currentCityId;
+    private final Integer assignedDeliveryOrderId;
+
+    public TruckRow(Integer id, String licencePlate, Integer crewSize,
+            Float cargoCapacity, TruckStatus status, Integer currentCityId,
+            Integer assignedDeliveryOrderId) {
+        this.id = id;
+        this.licencePlate = licencePlate;
+        this.crewSize = crewSize;
+        this.cargoCapacity = cargoCapacity;
+        this.status = status;
+        this.currentCityId = currentCityId;
+        this.assignedDeliveryOrderId = assignedDeliveryOrderId;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getLicencePlate() {
+        return licencePlate;
+    }
+
+    public Integer getCrewSize() {
+        return crewSize;
+    }
+
+    public Float getCargoCapacity() {
+        return cargoCapacity;
+    }
+
+    public TruckStatus getStatus() {
+        return status;
+    }
+
+    public Integer getCurrentCityId() {
+        return currentCityId;
+    }
+
+    /**
+     * @return assigned order or null
+     */
+    public Integer getAssignedDeliveryOrderId() {
+        return assignedDeliveryOrderId;
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * This package contains read-only rows selected by projection queries
+ * (columns instead of managed entities).
+ */
+package com.tsystems.javaschool.logiweb.dao.projections;
@@ -9,6 +9,9 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.Table;
 import javax.xml.bind.annotation.XmlTransient;
 
@@ -20,9 +23,21 @@ import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
  * @author Andrey Baliushin
  */
 @Entity
+@NamedEntityGraph(name = Cargo.GRAPH_WITH_ORDER, attributeNodes = {
+        @NamedAttributeNode("originCity"),
+        @NamedAttributeNode("destinationCity"),
+        @NamedAttributeNode(value = "orderForThisCargo", subgraph = "order") },
+        subgraphs = {
+        @NamedSubgraph(name = "order", attributeNodes = {
+                @NamedAttributeNode("assignedTruck") }) })
 @Table(name = "cargoes")
 public class Cargo {
 
+    /**
+     * Cargo with its cities and order (with truck assigned to order).
+     */
+    public static final String GRAPH_WITH_ORDER = "Cargo.withOrderAndCities";
+
     @Id
     @GeneratedValue
     @Column(name = "cargo_id", unique = true, nullable = false)
@@ -38,15 +53,15 @@ public class Cargo {
     @Enumerated(EnumType.STRING)
     private CargoStatus status;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cargo_origin_city_FK", nullable = false)
     private City originCity;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cargo_destination_city_FK", nullable = false)
     private City destinationCity;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cargo_from_order_FK", nullable = false)
     private DeliveryOrder orderForThisCargo;
 
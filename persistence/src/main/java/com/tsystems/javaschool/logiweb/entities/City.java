@@ -1,20 +1,31 @@
 package com.tsystems.javaschool.logiweb.entities;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 /**
  * Entity representation of a City.
  * 
  * @author Andrey Baliushin
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = City.CACHE_REGION)
 @Table(name = "cities")
 public class City {
 
+    /**
+     * Second level cache region, see ehcache-logiweb.xml.
+     */
+    public static final String CACHE_REGION = "logiweb.city";
+
     @Id
     @GeneratedValue
     @Column(name = "city_id", unique = true, nullable = false)
@@ -2,6 +2,8 @@ package com.tsystems.javaschool.logiweb.entities;
 
 import java.util.Set;
 
+import javax.persistence.Access;
+import javax.persistence.AccessType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
@@ -9,6 +11,10 @@ import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
@@ -21,12 +27,36 @@ import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
  * @author Andrey Baliushin
  */
 @Entity
+@Access(AccessType.FIELD)
+@NamedEntityGraphs({
+    @NamedEntityGraph(name = DeliveryOrder.GRAPH_WITH_CARGOES, attributeNodes = {
+            @NamedAttributeNode(value = "assignedCargoes", subgraph = "cargoes") },
+            subgraphs = {
+            @NamedSubgraph(name = "cargoes", attributeNodes = {
+                    @NamedAttributeNode("originCity"),
+                    @NamedAttributeNode("destinationCity") }) }),
+    @NamedEntityGraph(name = DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK, attributeNodes = {
+            @NamedAttributeNode(value = "assignedCargoes", subgraph = "cargoes"),
+            @NamedAttributeNode(value = "assignedTruck", subgraph = "truck") },
+            subgraphs = {
+            @NamedSubgraph(name = "cargoes", attributeNodes = {
+                    @NamedAttributeNode("originCity"),
+                    @NamedAttributeNode("destinationCity") }),
+            @NamedSubgraph(name = "truck", attributeNodes = {
+                    @NamedAttributeNode("drivers") }) }) })
 @Table(name = "delivery_orders")
 public class DeliveryOrder {
 
-    @Id
-    @GeneratedValue
-    @Column(name = "order_id", unique = true, nullable = false)
+    /**
+     * Order with cargoes and their origin and destination cities.
+     */
+    public static final String GRAPH_WITH_CARGOES = "DeliveryOrder.withCargoesAndCities";
+    
+    /**
+     * Order with cargoes (and their cities) and assigned truck with crew.
+     */
+    public static final String GRAPH_WITH_CARGOES_AND_TRUCK = "DeliveryOrder.withCargoesAndTruck";
+
     private int id;
 
     @Column(name = "order_status", nullable = false)
@@ -36,7 +66,7 @@ public class DeliveryOrder {
     @OneToOne(mappedBy = "assignedDeliveryOrder")
     private Truck assignedTruck;
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "orderForThisCargo")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "orderForThisCargo")
     private Set<Cargo> assignedCargoes;
 
     public DeliveryOrder() {
@@ -50,6 +80,15 @@ public class DeliveryOrder {
         this.status = status;
     }
 
+    /**
+     * Id is mapped with property access, so lazy proxy of order (ex.:
+     * {@link Truck#getAssignedDeliveryOrder()}) returns it without loading
+     * order from DB.
+     */
+    @Id
+    @GeneratedValue
+    @Column(name = "order_id", unique = true, nullable = false)
+    @Access(AccessType.PROPERTY)
     public int getId() {
         return id;
     }
@@ -2,6 +2,7 @@ package com.tsystems.javaschool.logiweb.entities;
 
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
@@ -11,12 +12,18 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
 
 /**
@@ -25,9 +32,27 @@ import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
  * @author Andrey Baliushin
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Driver.CACHE_REGION)
+@NamedEntityGraph(name = Driver.GRAPH_WITH_TRUCK, attributeNodes = {
+        @NamedAttributeNode("currentCity"),
+        @NamedAttributeNode(value = "currentTruck", subgraph = "truck") },
+        subgraphs = {
+        @NamedSubgraph(name = "truck", attributeNodes = {
+                @NamedAttributeNode("drivers") }) })
 @Table(name = "drivers", uniqueConstraints = @UniqueConstraint(columnNames = "driver_employee_id_UQ"))
 public class Driver {
 
+    /**
+     * Second level cache region, see ehcache-logiweb.xml.
+     */
+    public static final String CACHE_REGION = "logiweb.driver";
+
+    /**
+     * Driver with current city, current truck and its crew.
+     */
+    public static final String GRAPH_WITH_TRUCK = "Driver.withTruck";
+
     @Id
     @GeneratedValue
     @Column(name = "driver_id", unique = true, nullable = false)
@@ -51,11 +76,11 @@ public class Driver {
     @Enumerated(EnumType.STRING)
     private DriverStatus status;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "driver_current_location_city_FK", nullable = false)
     private City currentCity;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "driver_current_truck_FK")
     private Truck currentTruck;
 
@@ -0,0 +1,96 @@
+package com.tsystems.javaschool.logiweb.entities;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * The persistent class for ledger of Driver working hours per month.
+ * 
+ * Record holds sum of hours for shifts that are already finished (trimmed to
+ * bounds of month) and start of shift that is still open. Hours so far are
+ * calculated from those two values without reading shift journal.
+ * 
+ * Driver is referenced by id only, so ledger can be read and written
+ * without loading Driver entities.
+ * 
+ * @author Andrey Baliushin
+ */
+@Entity
+@Table(name = "drivers_monthly_hours", uniqueConstraints = @UniqueConstraint(columnNames = {
+        "monthly_hours_for_driver_FK", "monthly_hours_month" }))
+public class DriverMonthlyHours {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "monthly_hours_record_id", unique = true, nullable = false)
+    private int id;
+
+    @Column(name = "monthly_hours_for_driver_FK", nullable = false)
+    private int driverId;
+
+    /**
+     * First day of month (00:00:00).
+     */
+    @Temporal(TemporalType.DATE)
+    @Column(name = "monthly_hours_month", nullable = false)
+    private Date month;
+
+    @Column(name = "monthly_hours_finished_shifts", nullable = false)
+    private float finishedShiftsHours;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "monthly_hours_open_shift_beggined")
+    private Date openShiftBeggined;
+
+    public DriverMonthlyHours() {
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getDriverId() {
+        return driverId;
+    }
+
+    public void setDriverId(int driverId) {
+        this.driverId = driverId;
+    }
+
+    public Date getMonth() {
+        return month;
+    }
+
+    public void setMonth(Date month) {
+        this.month = month;
+    }
+
+    public float getFinishedShiftsHours() {
+        return finishedShiftsHours;
+    }
+
+    public void setFinishedShiftsHours(float finishedShiftsHours) {
+        this.finishedShiftsHours = finishedShiftsHours;
+    }
+
+    public Date getOpenShiftBeggined() {
+        return openShiftBeggined;
+    }
+
+    public void setOpenShiftBeggined(Date openShiftBeggined) {
+        this.openShiftBeggined = openShiftBeggined;
+    }
+
+}
@@ -9,6 +9,8 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
@@ -19,9 +21,16 @@ import javax.persistence.TemporalType;
  * @author Andrey Baliushin
  */
 @Entity
+@NamedEntityGraph(name = DriverShiftJournal.GRAPH_WITH_DRIVER, attributeNodes = {
+        @NamedAttributeNode("driverForThisRecord") })
 @Table(name = "drivers_shift_journal")
 public class DriverShiftJournal {
 
+    /**
+     * Shift record with its driver.
+     */
+    public static final String GRAPH_WITH_DRIVER = "DriverShiftJournal.withDriver";
+
     @Id
     @GeneratedValue
     @Column(name = "driver_shift_record_id", unique = true, nullable = false)
@@ -35,7 +44,7 @@ public class DriverShiftJournal {
     @Column(name = "driver_shift_ended")
     private Date shiftEnded;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "shift_record_for_driver_FK", nullable = false)
     private Driver driverForThisRecord;
 
@@ -1,5 +1,6 @@
 package com.tsystems.javaschool.logiweb.entities;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
@@ -10,6 +11,9 @@ import javax.persistence.OneToOne;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.tsystems.javaschool.logiweb.entities.status.UserRole;
 
 
@@ -21,9 +25,16 @@ import com.tsystems.javaschool.logiweb.entities.status.UserRole;
  *
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = LogiwebUser.CACHE_REGION)
 @Table(name = "users", uniqueConstraints = @UniqueConstraint(columnNames = "user_mail"))
 public class LogiwebUser {
-    
+
+    /**
+     * Second level cache region, see ehcache-logiweb.xml.
+     */
+    public static final String CACHE_REGION = "logiweb.user";
+
     @Id
     @GeneratedValue
     @Column(name = "user_id", unique = true, nullable = false)
@@ -0,0 +1,78 @@
+package com.tsystems.javaschool.logiweb.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * Entity representation of a Road between two cities. Roads are two-way,
+ * so one record connects cities in both directions.
+ * 
+ * @author Andrey Baliushin
+ */
+@Entity
+@Table(name = "roads", uniqueConstraints = @UniqueConstraint(columnNames = {
+        "road_from_city_FK", "road_to_city_FK" }))
+public class Road {
+
+    @Id
+    @GeneratedValue
+    @Column(name = "road_id", unique = true, nullable = false)
+    private int id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "road_from_city_FK", nullable = false)
+    private City fromCity;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "road_to_city_FK", nullable = false)
+    private City toCity;
+
+    /**
+     * Length of road in km.
+     */
+    @Column(name = "road_distance", nullable = false)
+    private float distance;
+
+    public Road() {
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public City getFromCity() {
+        return fromCity;
+    }
+
+    public void setFromCity(City fromCity) {
+        this.fromCity = fromCity;
+    }
+
+    public City getToCity() {
+        return toCity;
+    }
+
+    public void setToCity(City toCity) {
+        this.toCity = toCity;
+    }
+
+    public float getDistance() {
+        return distance;
+    }
+
+    public void setDistance(float distance) {
+        this.distance = distance;
+    }
+
+}
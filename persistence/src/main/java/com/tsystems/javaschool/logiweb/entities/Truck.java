@@ -2,6 +2,7 @@ package com.tsystems.javaschool.logiweb.entities;
 
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
@@ -11,11 +12,16 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
 
 /**
@@ -24,9 +30,24 @@ import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
  * @author Andrey Baliushin
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Truck.CACHE_REGION)
+@NamedEntityGraph(name = Truck.GRAPH_WITH_CREW, attributeNodes = {
+        @NamedAttributeNode("drivers") })
 @Table(name = "trucks", uniqueConstraints = @UniqueConstraint(columnNames = "truck_license_plate_UQ"))
 public class Truck {
 
+    /**
+     * Second level cache region, see ehcache-logiweb.xml.
+     */
+    public static final String CACHE_REGION = "logiweb.truck";
+
+    /**
+     * Truck with its crew. Assigned order is lazy, its id is available
+     * without loading the order.
+     */
+    public static final String GRAPH_WITH_CREW = "Truck.withCrew";
+
     @Id
     @GeneratedValue
     @Column(name = "truck_id", unique = true, nullable = false)
@@ -49,14 +70,14 @@ public class Truck {
     @JoinColumn(name = "truck_current_location_city_FK", nullable = false)
     private City currentCity;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "truck_delivery_order_FK_UQ")
     private DeliveryOrder assignedDeliveryOrder;
 
     @Column(name = "truck_deleted", nullable = false)
     private boolean deletedRecord;
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "currentTruck")
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "currentTruck")
     private Set<Driver> drivers;
 
     public Truck() {
@@ -0,0 +1,52 @@
+package com.tsystems.javaschool.logiweb.dao;
+
+/**
+ * Checks number of SQL statements issued by code under test. Only statements
+ * of current thread are counted, see {@link RequestSqlStatistics}.
+ * <p>
+ * Shared with tests of other modules (services, controllers) through test-jar
+ * of persistence module. Fails with {@link AssertionError}, which is reported
+ * as test failure by JUnit.
+ */
+public final class SqlStatementAssert {
+
+    private SqlStatementAssert() {
+    }
+
+    /**
+     * Run action in current thread and collect its statements.
+     *
+     * @param action
+     * @return statements of action
+     */
+    public static RequestSqlStatistics measure(Runnable action) {
+        RequestSqlStatistics.start();
+        RequestSqlStatistics statistics;
+        try {
+            action.run();
+        } finally {
+            statistics = RequestSqlStatistics.stop();
+        }
+        return statistics;
+    }
+
+    /**
+     * Fail if more than given number of statements were issued. Message
+     * shows most repeated statement, which is usually the N+1 select.
+     *
+     * @param maxStatements
+     * @param statistics
+     * @throws AssertionError
+     *             if there were more statements
+     */
+    public static void assertAtMost(int maxStatements,
+            RequestSqlStatistics statistics) {
+        if (statistics.getStatementCount() > maxStatements) {
+            throw new AssertionError("Expected at most " + maxStatements
+                    + " statements, but " + statistics.getStatementCount()
+                    + " were issued. Most repeated ("
+                    + statistics.getMostRepeatedCount() + " times): "
+                    + statistics.getMostRepeatedStatement());
+        }
+    }
+}
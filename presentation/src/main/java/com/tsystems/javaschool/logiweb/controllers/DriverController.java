@@ -1,6 +1,9 @@
 package com.tsystems.javaschool.logiweb.controllers;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,6 +34,8 @@ import com.tsystems.javaschool.logiweb.model.UserModel;
 import com.tsystems.javaschool.logiweb.service.DriverService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
 import com.tsystems.javaschool.logiweb.service.facades.DriverFacade;
 import com.tsystems.javaschool.logiweb.utils.DateUtils;
 
@@ -57,14 +62,32 @@ public class DriverController {
     private CityUtils cityUtils;
 
     @RequestMapping("driver")
-    public String showDrivers(Model model) throws LogiwebServiceException {  
-        Set<DriverModel> drivers = driverService.findAllDrivers();
-        model.addAttribute("drivers", drivers);
+    public String showDrivers(
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "" + PageRequest.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "status", required = false) DriverStatus status,
+            @RequestParam(value = "cityId", required = false) Integer cityId,
+            Model model) throws LogiwebServiceException {  
+        ResultPage<DriverModel> resultPage = driverService.findDriversPage(
+                status, cityId, new PageRequest(page, size, sort));
+        List<DriverModel> drivers = resultPage.getItems();
         
+        Set<Integer> driverIds = new HashSet<Integer>();
+        for (DriverModel driver : drivers) {
+            driverIds.add(driver.getId());
+        }
+        Map<Integer, Float> workingHours = driverService
+                .calculateWorkingHoursForDrivers(driverIds);
         for (DriverModel driver : drivers) {
-            driver.setWorkingHoursThisMonth(driverService
-                    .calculateWorkingHoursForDriver(driver.getId()));
+            driver.setWorkingHoursThisMonth(workingHours.get(driver.getId()));
         }
+        
+        model.addAttribute("drivers", drivers);
+        model.addAttribute("resultPage", resultPage);
+        model.addAttribute("statusFilter", status);
+        model.addAttribute("cityIdFilter", cityId);
+        model.addAttribute("driverStatuses", DriverStatus.values());
         cityUtils.addCitiesToModel(model);
         
         return driverListViewPath;
@@ -84,8 +107,9 @@ public class DriverController {
         
         if (driver.getCoDriversIds() != null) {
             Map<Integer, DriverModel> coDrivers = new HashMap<Integer, DriverModel>();
-            for (Integer coDriverId : driver.getCoDriversIds()) {
-                coDrivers.put(coDriverId, driverService.findDriverById(coDriverId));
+            for (DriverModel coDriver : driverService.findDriversByIds(driver
+                    .getCoDriversIds())) {
+                coDrivers.put(coDriver.getId(), coDriver);
             }
             model.addAttribute("coDrivers", coDrivers);
         }
@@ -233,9 +257,11 @@ public class DriverController {
             @RequestParam("truckId") int truckId, HttpServletResponse response)
             throws LogiwebServiceException {
         try {
+            List<Integer> driverIdsAsList = new ArrayList<Integer>(driversIds.length);
             for (int driverId : driversIds) {
-                driverService.assignDriverToTruck(driverId, truckId);
+                driverIdsAsList.add(driverId);
             }
+            driverService.assignDriversToTruck(driverIdsAsList, truckId);
             return "Drivers are added to truck";
         } catch (ServiceValidationException e) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
@@ -0,0 +1,86 @@
+package com.tsystems.javaschool.logiweb.controllers;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.google.gson.Gson;
+import com.tsystems.javaschool.logiweb.service.MonitoringService;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.ext.MethodTimingStatistics;
+
+/**
+ * Runtime statistics for managers (access is restricted by security config).
+ */
+@Controller
+@RequestMapping("/monitoring")
+public class MonitoringController {
+
+    private static final String TIMINGS_ROW_FORMAT = "%-60s %10s %8s %10s %10s %10s %10s %10s%n";
+
+    @Autowired
+    private MonitoringService monitoringService;
+
+    /**
+     * Hit/miss counters of every second level and query cache region.
+     */
+    @RequestMapping(value = "/cache", method = RequestMethod.GET, produces = "application/json")
+    @ResponseBody
+    public String cacheStatistics() throws LogiwebServiceException {
+        return new Gson().toJson(monitoringService.getCacheRegionStatistics());
+    }
+
+    /**
+     * Active/idle connections, connection wait time and timeouts of DB pool.
+     */
+    @RequestMapping(value = "/pool", method = RequestMethod.GET, produces = "application/json")
+    @ResponseBody
+    public String connectionPoolStatistics() throws LogiwebServiceException {
+        return new Gson().toJson(monitoringService.getConnectionPoolStatistics());
+    }
+
+    /**
+     * Hit/miss counters of cache of calculated routes.
+     */
+    @RequestMapping(value = "/routes", method = RequestMethod.GET, produces = "application/json")
+    @ResponseBody
+    public String routeCacheStatistics() {
+        return new Gson().toJson(monitoringService.getRouteCacheStatistics());
+    }
+
+    /**
+     * Calls, errors and duration percentiles of service methods.
+     */
+    @RequestMapping(value = "/timings", method = RequestMethod.GET, produces = "application/json")
+    @ResponseBody
+    public String serviceMethodTimings() {
+        return new Gson().toJson(monitoringService.getServiceMethodTimings());
+    }
+
+    /**
+     * Same as {@link #serviceMethodTimings()} as plain text table.
+     */
+    @RequestMapping(value = "/timings", params = "format=text", method = RequestMethod.GET, produces = "text/plain")
+    @ResponseBody
+    public String serviceMethodTimingsAsText() {
+        StringBuilder sb = new StringBuilder(String.format(TIMINGS_ROW_FORMAT,
+                "method", "calls", "errors", "mean", "p50", "p90", "p99", "max"));
+        for (MethodTimingStatistics s : monitoringService.getServiceMethodTimings()) {
+            sb.append(String.format(TIMINGS_ROW_FORMAT, s.getMethod(),
+                    s.getCallCount(), s.getErrorCount(),
+                    formatMillis(s.getMeanMillis()), formatMillis(s.getP50Millis()),
+                    formatMillis(s.getP90Millis()), formatMillis(s.getP99Millis()),
+                    formatMillis(s.getMaxMillis())));
+        }
+        return sb.toString();
+    }
+
+    private static String formatMillis(double millis) {
+        return String.format(Locale.ENGLISH, "%.3f", millis);
+    }
+
+}
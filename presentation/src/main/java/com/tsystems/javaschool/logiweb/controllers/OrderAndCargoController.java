@@ -1,6 +1,7 @@
 package com.tsystems.javaschool.logiweb.controllers;
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -12,12 +13,13 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
-import org.springframework.web.servlet.ModelAndView;
 
 import com.tsystems.javaschool.logiweb.controllers.exceptions.FormParamaterParsingException;
 import com.tsystems.javaschool.logiweb.controllers.exceptions.RecordNotFoundException;
 import com.tsystems.javaschool.logiweb.controllers.ext.CityUtils;
+import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
 import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
 import com.tsystems.javaschool.logiweb.model.CargoModel;
 import com.tsystems.javaschool.logiweb.model.DriverModel;
@@ -30,12 +32,18 @@ import com.tsystems.javaschool.logiweb.service.RouteService;
 import com.tsystems.javaschool.logiweb.service.TrucksService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
 import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation.Waypoint;
 import com.tsystems.javaschool.logiweb.utils.DateUtils;
 
 @Controller
 public class OrderAndCargoController {
     
+    private static final int SUGGESTED_TRUCKS_LIMIT = 20;
+    private static final int SUGGESTED_DRIVERS_LIMIT = 20;
+    
     @Value("${bussines.maxWorkingHours}")
     private float driverMonthlyWorkingHoursLimit;
     
@@ -78,9 +86,12 @@ public class OrderAndCargoController {
         
         //suggest trucks
         if (order.getAssignedTruck() == null) {
-            Set<TruckModel> suggestedTrucks = truckService
-                    .findFreeAndUnbrokenByCargoCapacity(routeInfo
-                            .getMaxWeightOnCourse());
+            List<Waypoint> waypoints = routeInfo.getBestOrderOfDelivery();
+            int firstPickupCityId = waypoints.isEmpty() ? 0 : waypoints.get(0)
+                    .getCity().getId();
+            List<TruckModel> suggestedTrucks = truckService.findBestFreeTrucks(
+                    routeInfo.getMaxWeightOnCourse(), firstPickupCityId,
+                    SUGGESTED_TRUCKS_LIMIT);
             model.addAttribute("suggestedTrucks", suggestedTrucks);
         }        
         
@@ -89,15 +100,10 @@ public class OrderAndCargoController {
             float workingHoursLimit = calcMaxWorkingHoursThatDriverCanHave(routeInfo
                     .getEstimatedTime());
 
-            Set<DriverModel> suggestedDrivers = driverService
-                    .findUnassignedToTrucksDriversByMaxWorkingHoursAndCity(
+            List<DriverModel> suggestedDrivers = driverService
+                    .findRankedCandidatesForCrew(
                             order.getAssignedTruck().getCurrentCityId(),
-                            workingHoursLimit);
-
-            for (DriverModel d : suggestedDrivers) {
-                d.setWorkingHoursThisMonth(driverService
-                        .calculateWorkingHoursForDriver(d.getId()));
-            }
+                            workingHoursLimit, SUGGESTED_DRIVERS_LIMIT);
             model.addAttribute("suggestedDrivers", suggestedDrivers);
         }
         
@@ -230,18 +236,44 @@ public class OrderAndCargoController {
     }
     
     @RequestMapping(value = { "/order" })
-    public String showOrders(Model model) throws LogiwebServiceException {
-        model.addAttribute("orders", orderService.findAllOrders());
+    public String showOrders(
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "" + PageRequest.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "status", required = false) OrderStatus status,
+            Model model) throws LogiwebServiceException {
+        ResultPage<OrderModel> resultPage = orderService.findOrdersPage(
+                status, new PageRequest(page, size, sort));
+        List<Integer> orderIds = new ArrayList<Integer>();
+        for (OrderModel order : resultPage.getItems()) {
+            orderIds.add(order.getId());
+        }
+        model.addAttribute("orders", resultPage.getItems());
+        model.addAttribute("routes", routeService.getRouteInformationForOrders(orderIds));
+        model.addAttribute("resultPage", resultPage);
+        model.addAttribute("statusFilter", status);
+        model.addAttribute("orderStatuses", OrderStatus.values());
         cityUtils.addCitiesToModel(model);
         return orderListViewPath;
     }
     
     @RequestMapping(value = { "/cargo" })
-    public ModelAndView showCargoes() throws LogiwebServiceException {
-        ModelAndView mav = new ModelAndView();
-        mav.setViewName(cargoesListViewPath);
-        mav.addObject("cargoes", cargoService.findAllCargoes());
-        return mav;
+    public String showCargoes(
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "" + PageRequest.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "status", required = false) CargoStatus status,
+            @RequestParam(value = "orderId", required = false) Integer orderId,
+            Model model) throws LogiwebServiceException {
+        ResultPage<CargoModel> resultPage = cargoService.findCargoesPage(
+                status, orderId, new PageRequest(page, size, sort));
+        model.addAttribute("cargoes", resultPage.getItems());
+        model.addAttribute("resultPage", resultPage);
+        model.addAttribute("statusFilter", status);
+        model.addAttribute("orderIdFilter", orderId);
+        model.addAttribute("cargoStatuses", CargoStatus.values());
+        cityUtils.addCitiesToModel(model);
+        return cargoesListViewPath;
     }
     
     private CargoModel createDetachedCargoModelFromRequestParams(
@@ -1,7 +1,5 @@
 package com.tsystems.javaschool.logiweb.controllers;
 
-import java.util.Set;
-
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
@@ -14,6 +12,7 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.tsystems.javaschool.logiweb.controllers.exceptions.RecordNotFoundException;
@@ -23,6 +22,8 @@ import com.tsystems.javaschool.logiweb.model.TruckModel;
 import com.tsystems.javaschool.logiweb.service.TrucksService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
 
 @Controller
 public class TruckController {
@@ -38,9 +39,20 @@ public class TruckController {
     private CityUtils cityUtils;
 
     @RequestMapping(value = {"truck"})
-    public String showTrucks(Model model) throws LogiwebServiceException {
-        Set<TruckModel> trucks = truckService.findAllTrucks();
-        model.addAttribute("trucks", trucks);
+    public String showTrucks(
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "" + PageRequest.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "status", required = false) TruckStatus status,
+            @RequestParam(value = "cityId", required = false) Integer cityId,
+            Model model) throws LogiwebServiceException {
+        ResultPage<TruckModel> resultPage = truckService.findTrucksPage(
+                status, cityId, new PageRequest(page, size, sort));
+        model.addAttribute("trucks", resultPage.getItems());
+        model.addAttribute("resultPage", resultPage);
+        model.addAttribute("statusFilter", status);
+        model.addAttribute("cityIdFilter", cityId);
+        model.addAttribute("truckStatuses", TruckStatus.values());
         cityUtils.addCitiesToModel(model);      
         return truckListViewPath;
     }
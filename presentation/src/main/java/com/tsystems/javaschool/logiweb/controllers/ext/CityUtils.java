@@ -1,13 +1,9 @@
 package com.tsystems.javaschool.logiweb.controllers.ext;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.ui.Model;
 
-import com.tsystems.javaschool.logiweb.entities.City;
 import com.tsystems.javaschool.logiweb.service.CityService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 
@@ -17,12 +13,12 @@ public class CityUtils {
     @Autowired
     private CityService cityService;
 
+    /**
+     * Add map of all cities (key is city id) as 'cities' attribute. Map is
+     * shared immutable snapshot, no DB query is made.
+     */
     public Model addCitiesToModel(Model model) throws LogiwebServiceException {
-        Map<Integer, City> cities = new HashMap<Integer, City>();
-        for (City c : cityService.findAllCities()) {
-            cities.put(c.getId(), c);
-        }
-        model.addAttribute("cities", cities);
+        model.addAttribute("cities", cityService.getCityRegistry().getCitiesById());
         return model;
     }
 }
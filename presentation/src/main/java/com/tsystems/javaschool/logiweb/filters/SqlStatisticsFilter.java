@@ -0,0 +1,73 @@
+package com.tsystems.javaschool.logiweb.filters;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.tsystems.javaschool.logiweb.dao.RequestSqlStatistics;
+
+/**
+ * Counts SQL statements, loaded entities and DB time of every HTTP request,
+ * including SOAP calls to /services. Request that issued too many
+ * statements or repeated one statement too many times (typical N+1 select)
+ * is reported with WARN level, summary of every request is written with
+ * DEBUG level.
+ * 
+ * @author Andrey Baliushin
+ */
+@Component("sqlStatisticsFilter")
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    private static final Logger LOG = Logger.getLogger(SqlStatisticsFilter.class);
+
+    @Value("${monitoring.maxStatementsPerRequest}")
+    private int maxStatements = 50;
+
+    @Value("${monitoring.maxStatementRepeatsPerRequest}")
+    private int maxRepeats = 10;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestSqlStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            report(request, RequestSqlStatistics.stop());
+        }
+    }
+
+    private void report(HttpServletRequest request,
+            RequestSqlStatistics statistics) {
+        if (statistics.getStatementCount() > maxStatements
+                || statistics.getMostRepeatedCount() > maxRepeats) {
+            LOG.warn("Too many SQL statements in " + describe(request) + ": "
+                    + statistics + ". Most repeated statement: "
+                    + statistics.getMostRepeatedStatement());
+        } else if (LOG.isDebugEnabled()) {
+            LOG.debug("SQL statements in " + describe(request) + ": "
+                    + statistics);
+        }
+    }
+
+    /**
+     * @return method and URI, and SOAP action for SOAP calls
+     */
+    private static String describe(HttpServletRequest request) {
+        String description = request.getMethod() + " " + request.getRequestURI();
+        String soapAction = request.getHeader("SOAPAction");
+        if (soapAction != null && !soapAction.isEmpty()) {
+            description += " " + soapAction;
+        }
+        return description;
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Servlet filters (registered in web.xml through DelegatingFilterProxy).
+ * 
+ * @author Andrew Baliushin
+ */
+package com.tsystems.javaschool.logiweb.filters;
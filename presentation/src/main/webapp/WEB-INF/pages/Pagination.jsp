@@ -0,0 +1,30 @@
+<%@taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core"%>
+
+<%-- Page navigation for paged lists. Requires 'resultPage' in model 
+     and common/Pagination.js on page. --%>
+<c:if test="${resultPage.totalPages gt 1}">
+	<nav class="text-center">
+		<ul class="pagination">
+			<li class="${resultPage.hasPrevious ? '' : 'disabled'}">
+				<a href="#" onclick="<c:if test="${resultPage.hasPrevious}">goToPage(${resultPage.page - 1});</c:if> return false;"
+					aria-label="Previous"><span aria-hidden="true">&laquo;</span></a>
+			</li>
+			
+			<c:set var="firstShownPage" value="${resultPage.page - 4 gt 1 ? resultPage.page - 4 : 1}" />
+			<c:set var="lastShownPage" value="${resultPage.page + 4 lt resultPage.totalPages ? resultPage.page + 4 : resultPage.totalPages}" />
+			<c:forEach begin="${firstShownPage}" end="${lastShownPage}" var="pageNumber">
+				<li class="${pageNumber eq resultPage.page ? 'active' : ''}">
+					<a href="#" onclick="goToPage(${pageNumber}); return false;">${pageNumber}</a>
+				</li>
+			</c:forEach>
+			
+			<li class="${resultPage.hasNext ? '' : 'disabled'}">
+				<a href="#" onclick="<c:if test="${resultPage.hasNext}">goToPage(${resultPage.page + 1});</c:if> return false;"
+					aria-label="Next"><span aria-hidden="true">&raquo;</span></a>
+			</li>
+		</ul>
+	</nav>
+</c:if>
+<p class="text-center text-muted">
+	<small>Total records: ${resultPage.totalCount}</small>
+</p>
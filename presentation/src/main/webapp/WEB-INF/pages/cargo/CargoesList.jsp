@@ -4,6 +4,7 @@
 <jsp:include page="../GlobalHeader.jsp">
 	<jsp:param name="title" value="Cargoes List" />
 	<jsp:param value="common/common.css" name="css" />
+	<jsp:param value="common/Pagination.js" name="js" />
 </jsp:include>
 
 <jsp:include page="../GlobalHeaderMenu.jsp">
@@ -16,13 +17,25 @@
 		<h1>List of cargoes</h1>
 	</div>
 	<div class="panel-body">
+		<form class="form-inline list-filters margin-bottom" method="get" onsubmit="applyFilter('orderId', this.orderId.value); return false;">
+			<label for="statusFilter">Status</label>
+			<select id="statusFilter" class="form-control" onchange="applyFilter('status', this.value)">
+				<option value="">Any</option>
+				<c:forEach items="${cargoStatuses}" var="status">
+					<option value="${status}" <c:if test="${status eq statusFilter}">selected</c:if>>${status}</option>
+				</c:forEach>
+			</select>
+			<label for="orderIdFilter">Order ID</label>
+			<input id="orderIdFilter" name="orderId" type="number" min="1" class="form-control" value="${orderIdFilter}"
+				onchange="applyFilter('orderId', this.value)">
+		</form>
 		<table class="table table-striped">
 			<thead>
 				<tr>
-					<th>Cargo ID</th>
-					<th>Status</th>
-					<th>Title</th>
-					<th>Weight <small>x1000kg</small></th>
+					<th class="sortable-column" onclick="sortBy('id')">Cargo ID</th>
+					<th class="sortable-column" onclick="sortBy('status')">Status</th>
+					<th class="sortable-column" onclick="sortBy('title')">Title</th>
+					<th class="sortable-column" onclick="sortBy('weight')">Weight <small>x1000kg</small></th>
 					<th>Origin city</th>
 					<th>Destination</th>
 					<th class="text-center">Order</th>
@@ -34,14 +47,14 @@
 					<tr>
 					   <td>${cargo.id}</td>
 					   <td>${cargo.status}</td>
-					   <td>${cargo.title}</td>
+					   <td><c:out value="${cargo.title}" /></td>
 					   <td>${cargo.weight}</td>
-					   <td>${cargo.originCity.name}</td>
-					   <td>${cargo.destinationCity.name}</td>
+					   <td>${cities[cargo.originCityId].name}</td>
+					   <td>${cities[cargo.destinationCityId].name}</td>
 
 						<td class="text-center">
-                            <a href="${pageContext.request.contextPath}/order/${cargo.orderForThisCargo.id}">
-                                ${cargo.orderForThisCargo.id}
+                            <a href="${pageContext.request.contextPath}/order/${cargo.orderIdForThisCargo}">
+                                ${cargo.orderIdForThisCargo}
                             </a>
                         </td>
 
@@ -50,6 +63,7 @@
 
 			</tbody>
 		</table>
+		<jsp:include page="../Pagination.jsp" />
 	</div>
 </div>
 
@@ -3,7 +3,7 @@
 <jsp:include page="../GlobalHeader.jsp">
 	<jsp:param name="title" value="Drivers List" />
 	<jsp:param value="common/common.css" name="css" />
-	<jsp:param value="common/RemoveRecord.js" name="js" />
+	<jsp:param value="common/RemoveRecord.js,common/Pagination.js" name="js" />
 </jsp:include>
 
 <jsp:include page="../GlobalHeaderMenu.jsp">
@@ -7,13 +7,29 @@
 		<h1>List of drivers</h1>
 	</div>
 	<div class="panel-body">
+		<form class="form-inline list-filters margin-bottom" method="get">
+			<label for="statusFilter">Status</label>
+			<select id="statusFilter" class="form-control" onchange="applyFilter('status', this.value)">
+				<option value="">Any</option>
+				<c:forEach items="${driverStatuses}" var="status">
+					<option value="${status}" <c:if test="${status eq statusFilter}">selected</c:if>>${status}</option>
+				</c:forEach>
+			</select>
+			<label for="cityFilter">Current City</label>
+			<select id="cityFilter" class="form-control" onchange="applyFilter('cityId', this.value)">
+				<option value="">Any</option>
+				<c:forEach items="${cities}" var="city">
+					<option value="${city.key}" <c:if test="${city.key eq cityIdFilter}">selected</c:if>><c:out value="${city.value.name}" /></option>
+				</c:forEach>
+			</select>
+		</form>
 		<table class="table table-striped">
 			<thead>
 				<tr>
-					<th class="text-center">Employee ID</th>
-					<th>Name</th>
-					<th>Surname</th>
-					<th>Status</th>
+					<th class="sortable-column text-center" onclick="sortBy('employeeId')">Employee ID</th>
+					<th class="sortable-column" onclick="sortBy('name')">Name</th>
+					<th class="sortable-column" onclick="sortBy('surname')">Surname</th>
+					<th class="sortable-column" onclick="sortBy('status')">Status</th>
 					<th>Current City</th>
 					<th>Current Truck</th>
 					<th>Current Order</th>
@@ -87,6 +103,7 @@
 
 			</tbody>
 		</table>
+		<jsp:include page="../../Pagination.jsp" />
 	</div>
 
 	<%-- Edit priveleges --%>
@@ -36,6 +36,9 @@
 			</div>
 			<div class="panel-body">
 			 <h4>Max weight<small> x1000kg</small>:<span class="label label-info">${routeInfo.maxWeightOnCourse}</span></h4>
+			 <c:if test="${routeInfo.overloaded}">
+			     <div class="alert alert-danger">Cargoes of order can't be delivered without exceeding capacity of assigned truck.</div>
+			 </c:if>
 			 <h4>Estimated time to deliver<small> hours</small>:<span class="label label-info"><fmt:formatNumber value="${routeInfo.estimatedTime}" pattern="0.0"/></span></h4>
 			 
 			 <h4>Assigned truck<small> license plate</small>: 
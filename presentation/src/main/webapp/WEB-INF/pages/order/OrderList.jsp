@@ -1,9 +1,11 @@
 <%@taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core"%>
 <%@ taglib prefix="fn" uri="http://java.sun.com/jsp/jstl/functions"%>
+<%@taglib prefix="fmt" uri="http://java.sun.com/jsp/jstl/fmt"%>
 
 <jsp:include page="../GlobalHeader.jsp">
 	<jsp:param name="title" value="Order List" />
 	<jsp:param value="common/common.css" name="css" />
+	<jsp:param value="common/Pagination.js" name="js" />
 
 </jsp:include>
 
@@ -17,13 +19,24 @@
 		<h1>List of orders</h1>
 	</div>
 	<div class="panel-body">
+		<form class="form-inline list-filters margin-bottom" method="get">
+			<label for="statusFilter">Status</label>
+			<select id="statusFilter" class="form-control" onchange="applyFilter('status', this.value)">
+				<option value="">Any</option>
+				<c:forEach items="${orderStatuses}" var="status">
+					<option value="${status}" <c:if test="${status eq statusFilter}">selected</c:if>>${status}</option>
+				</c:forEach>
+			</select>
+		</form>
 		<table class="table table-striped">
 			<thead>
 				<tr>
-					<th>Order ID</th>
-					<th>Status</th>
+					<th class="sortable-column" onclick="sortBy('id')">Order ID</th>
+					<th class="sortable-column" onclick="sortBy('status')">Status</th>
 					<th>Cargo</th>
 					<th>Assigned truck</th>
+					<th>Estimated time <small>hours</small></th>
+					<th>Max weight <small>x1000kg</small></th>
 					<th class="text-center">Edit</th>
 				</tr>
 			</thead>
@@ -106,6 +119,16 @@
 						<td><c:if test="${empty order.assignedTruck.licencePlate}">Not assigned</c:if>
 							${order.assignedTruck.licencePlate}</td>
 
+						<c:set var="route" value="${routes[order.id]}" />
+						<td><c:choose>
+								<c:when test="${empty order.assignedCargoes}">&mdash;</c:when>
+								<c:when test="${empty route}">Not calculated</c:when>
+								<c:otherwise><fmt:formatNumber value="${route.estimatedTime}" pattern="0.0"/></c:otherwise>
+							</c:choose></td>
+						<td><c:if test="${!empty order.assignedCargoes && !empty route}">
+								<fmt:formatNumber value="${route.maxWeightOnCourse}" pattern="0.###"/>
+							</c:if></td>
+
 						<td class="text-center">
 						  <a
                                  href="${pageContext.request.contextPath}/order/${order.id}/edit"><span
@@ -118,6 +141,7 @@
 
 			</tbody>
 		</table>
+		<jsp:include page="../Pagination.jsp" />
 	</div>
 </div>
 
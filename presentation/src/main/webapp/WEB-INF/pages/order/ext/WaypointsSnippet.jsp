@@ -1,4 +1,5 @@
 <%@taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core"%>
+<%@taglib prefix="fmt" uri="http://java.sun.com/jsp/jstl/fmt"%>
 
 <!-- Route info: print waypoints -->
 <div class="panel panel-default">
@@ -10,6 +11,7 @@
             <th>Operation</th>
             <th>City</th>
             <th>Cargo</th>
+            <th>Load after<small> x1000kg</small></th>
         </tr>
         
         <c:forEach var="waypoint" items="${routeInfo.bestOrderOfDelivery}">
@@ -30,6 +32,7 @@
                     
                     <td>${waypoint.city.name}</td>
                     <td>#<c:out value="${waypoint.cargo.id}"/> &mdash; ${waypoint.cargo.title} </td>
+                    <td><fmt:formatNumber value="${waypoint.loadAfterOperation}" pattern="0.###"/></td>
                 </tr>
         </c:forEach>
         
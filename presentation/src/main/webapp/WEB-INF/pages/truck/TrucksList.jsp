@@ -3,7 +3,7 @@
 <jsp:include page="../GlobalHeader.jsp">
     <jsp:param name="title" value="Trucks List" />
     <jsp:param value="common/common.css" name="css"/>
-    <jsp:param value="common/RemoveRecord.js" name="js"/>
+    <jsp:param value="common/RemoveRecord.js,common/Pagination.js" name="js"/>
     
 </jsp:include>
 
@@ -15,13 +15,29 @@
 <div class="panel panel-default">
     <div class="panel-heading"><h1>List of trucks</h1></div>
     <div class="panel-body">
+		<form class="form-inline list-filters margin-bottom" method="get">
+			<label for="statusFilter">Status</label>
+			<select id="statusFilter" class="form-control" onchange="applyFilter('status', this.value)">
+				<option value="">Any</option>
+				<c:forEach items="${truckStatuses}" var="status">
+					<option value="${status}" <c:if test="${status eq statusFilter}">selected</c:if>>${status}</option>
+				</c:forEach>
+			</select>
+			<label for="cityFilter">Current City</label>
+			<select id="cityFilter" class="form-control" onchange="applyFilter('cityId', this.value)">
+				<option value="">Any</option>
+				<c:forEach items="${cities}" var="city">
+					<option value="${city.key}" <c:if test="${city.key eq cityIdFilter}">selected</c:if>><c:out value="${city.value.name}" /></option>
+				</c:forEach>
+			</select>
+		</form>
 		<table class="table table-striped">
 			<thead>
 				<tr>
-					<th>License plate</th>
-					<th>Crew size</th>
-					<th>Cargo capacity <small>x1000kg<small></th>
-					<th>Status</th>
+					<th class="sortable-column" onclick="sortBy('licencePlate')">License plate</th>
+					<th class="sortable-column" onclick="sortBy('crewSize')">Crew size</th>
+					<th class="sortable-column" onclick="sortBy('cargoCapacity')">Cargo capacity <small>x1000kg</small></th>
+					<th class="sortable-column" onclick="sortBy('status')">Status</th>
 					<th>Current City</th>
 					<th>Delivery order</th>
 					<th>Drivers</th>
@@ -78,6 +94,7 @@
 		
 			</tbody>
 		</table>
+		<jsp:include page="../Pagination.jsp" />
 	</div>
 	
 	<%-- Edit priveleges --%>
@@ -0,0 +1,68 @@
+/**
+ * Navigation for paged lists. Page, size, sort and filters are kept in query
+ * string, so every page of list has its own URL.
+ * 
+ * @author Andrey Baliushin
+ */
+
+/**
+ * @returns object with query parameters of current page
+ */
+function getQueryParams() {
+	var query = {};
+	var pairs = window.location.search.substring(1).split("&");
+	for (var i = 0; i < pairs.length; i++) {
+		if (pairs[i]) {
+			var pair = pairs[i].split("=");
+			query[decodeURIComponent(pair[0])] = decodeURIComponent((pair[1] || "").replace(/\+/g, " "));
+		}
+	}
+	return query;
+}
+
+/**
+ * Reload current list with some query parameters replaced.
+ * 
+ * @param params --
+ *            object with parameter names and values (empty value removes
+ *            parameter)
+ */
+function reloadWithParams(params) {
+	var query = getQueryParams();
+	
+	for (var name in params) {
+		if (params[name] === null || params[name] === "") {
+			delete query[name];
+		} else {
+			query[name] = params[name];
+		}
+	}
+	
+	window.location.search = $.param(query);
+}
+
+function goToPage(page) {
+	reloadWithParams({ page : page });
+}
+
+/**
+ * Sort list by attribute. Second click on same attribute reverses order.
+ * 
+ * @param attribute
+ */
+function sortBy(attribute) {
+	var sort = getQueryParams().sort === attribute ? "-" + attribute : attribute;
+	reloadWithParams({ sort : sort, page : null });
+}
+
+/**
+ * Apply filter (ex.: status or city) and start from first page.
+ * 
+ * @param name -- filter parameter name
+ * @param value -- filter value or empty string to remove filter
+ */
+function applyFilter(name, value) {
+	var params = { page : null };
+	params[name] = value;
+	reloadWithParams(params);
+}
@@ -0,0 +1,143 @@
+package com.tsystems.javaschool.logiweb.filters;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.tsystems.javaschool.logiweb.dao.RequestSqlStatistics;
+
+public class SqlStatisticsFilterTest {
+
+    private static final String SELECT = "select * from cities where city_id=?";
+
+    private final Logger filterLogger = Logger.getLogger(SqlStatisticsFilter.class);
+    private final CapturingAppender appender = new CapturingAppender();
+    private Level previousLevel;
+
+    private SqlStatisticsFilter filter;
+
+    @Before
+    public void setUp() {
+        filter = new SqlStatisticsFilter();
+        previousLevel = filterLogger.getLevel();
+        filterLogger.setLevel(Level.DEBUG);
+        filterLogger.addAppender(appender);
+    }
+
+    @After
+    public void tearDown() {
+        filterLogger.removeAppender(appender);
+        filterLogger.setLevel(previousLevel);
+        while (RequestSqlStatistics.stop() != null) {
+            // leave no statistics bound to test thread
+        }
+    }
+
+    /**
+     * Test: doFilter
+     * Case: statements of request are counted and statistics are unbound
+     * from thread after request
+     */
+    @Test
+    public void testStatisticsAreBoundToThreadOnlyDuringRequest()
+            throws ServletException, IOException {
+        filter.doFilter(new MockHttpServletRequest("GET", "/driver"),
+                new MockHttpServletResponse(), statementsChain(2));
+
+        Assert.assertNull(RequestSqlStatistics.stop());
+        Assert.assertEquals(1, appender.events.size());
+        LoggingEvent event = appender.events.get(0);
+        Assert.assertEquals(Level.DEBUG, event.getLevel());
+        Assert.assertTrue(event.getRenderedMessage().contains("GET /driver"));
+        Assert.assertTrue(event.getRenderedMessage().contains("statements=2"));
+    }
+
+    /**
+     * Test: doFilter
+     * Case: statement repeated more times than allowed (N+1 select) is
+     * reported with WARN level
+     */
+    @Test
+    public void testWarnsWhenStatementIsRepeatedTooManyTimes()
+            throws ServletException, IOException {
+        filter.doFilter(new MockHttpServletRequest("GET", "/order"),
+                new MockHttpServletResponse(), statementsChain(11));
+
+        Assert.assertEquals(1, appender.events.size());
+        LoggingEvent event = appender.events.get(0);
+        Assert.assertEquals(Level.WARN, event.getLevel());
+        Assert.assertTrue(event.getRenderedMessage().contains("maxRepeats=11"));
+        Assert.assertTrue(event.getRenderedMessage().contains(SELECT));
+    }
+
+    /**
+     * Test: doFilter
+     * Case: request failed, statistics are still stopped and reported
+     */
+    @Test
+    public void testStatisticsAreStoppedWhenRequestFails() throws IOException {
+        FilterChain failingChain = new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request,
+                    ServletResponse response) throws ServletException {
+                RequestSqlStatistics.statementPrepared(SELECT);
+                throw new ServletException("Request failed");
+            }
+        };
+
+        try {
+            filter.doFilter(new MockHttpServletRequest("POST", "/truck/new"),
+                    new MockHttpServletResponse(), failingChain);
+            Assert.fail("Exception of chain must be rethrown");
+        } catch (ServletException e) {
+            Assert.assertNull(RequestSqlStatistics.stop());
+            Assert.assertEquals(1, appender.events.size());
+        }
+    }
+
+    private static FilterChain statementsChain(final int statements) {
+        return new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                for (int i = 0; i < statements; i++) {
+                    RequestSqlStatistics.statementPrepared(SELECT);
+                }
+            }
+        };
+    }
+
+    private static class CapturingAppender extends AppenderSkeleton {
+
+        private final List<LoggingEvent> events = new ArrayList<LoggingEvent>();
+
+        @Override
+        protected void append(LoggingEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -8,6 +8,7 @@ import javax.validation.constraints.Size;
 
 import com.tsystems.javaschool.logiweb.entities.DriverShiftJournal;
 import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
 import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
 
 public class DriverModel {
@@ -35,6 +36,8 @@ public class DriverModel {
 
     private Integer orderId;
 
+    private OrderStatus orderStatus;
+
     private RouteInformation routeInfo;
 
     private float workingHoursThisMonth;
@@ -118,6 +121,14 @@ public class DriverModel {
         this.orderId = orderId;
     }
 
+    public OrderStatus getOrderStatus() {
+        return orderStatus;
+    }
+
+    public void setOrderStatus(OrderStatus orderStatus) {
+        this.orderStatus = orderStatus;
+    }
+
     public String getCurrentTruckLicensePlate() {
         return currentTruckLicensePlate;
     }
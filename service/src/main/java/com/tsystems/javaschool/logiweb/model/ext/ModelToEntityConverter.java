@@ -47,7 +47,8 @@ public class ModelToEntityConverter {
         model.setId(entity.getId());
         model.setName(entity.getName());
         
-        if (model.getCurrentTruckLicensePlate() != null) {
+        if (model.getCurrentTruckLicensePlate() != null
+                && entity.getCurrentTruck().getAssignedDeliveryOrder() != null) {
             model.setOrderId(entity.getCurrentTruck()
                     .getAssignedDeliveryOrder().getId());
         }
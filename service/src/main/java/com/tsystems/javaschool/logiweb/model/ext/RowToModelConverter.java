@@ -0,0 +1,175 @@
+package com.tsystems.javaschool.logiweb.model.ext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.tsystems.javaschool.logiweb.dao.projections.CargoRow;
+import com.tsystems.javaschool.logiweb.dao.projections.CrewMemberRow;
+import com.tsystems.javaschool.logiweb.dao.projections.DriverCandidateRow;
+import com.tsystems.javaschool.logiweb.dao.projections.DriverRow;
+import com.tsystems.javaschool.logiweb.dao.projections.OrderRow;
+import com.tsystems.javaschool.logiweb.dao.projections.TruckRow;
+import com.tsystems.javaschool.logiweb.model.CargoModel;
+import com.tsystems.javaschool.logiweb.model.DriverModel;
+import com.tsystems.javaschool.logiweb.model.OrderModel;
+import com.tsystems.javaschool.logiweb.model.TruckModel;
+
+/**
+ * Build models from projection rows. Models are filled only with data needed
+ * by lists (ex.: driver model without co-drivers, order model with truck
+ * that has only id and licence plate).
+ * 
+ * @author Andrey Baliushin
+ */
+public class RowToModelConverter {
+
+    private RowToModelConverter() {
+    }
+    
+    public static DriverModel convertToModel(DriverRow row) {
+        DriverModel model = new DriverModel();
+        
+        model.setId(row.getId());
+        model.setEmployeeId(row.getEmployeeId());
+        model.setName(row.getName());
+        model.setSurname(row.getSurname());
+        model.setStatus(row.getStatus());
+        model.setCurrentCityId(row.getCurrentCityId() == null ? 0 : row.getCurrentCityId());
+        model.setCurrentTruckLicensePlate(row.getCurrentTruckLicencePlate());
+        model.setOrderId(row.getOrderId());
+        model.setWorkingHoursThisMonth(0);
+        
+        return model;
+    }
+    
+    /**
+     * Model of driver that is not assigned to truck, with working hours for
+     * this month.
+     */
+    public static DriverModel convertToModel(DriverCandidateRow row) {
+        DriverModel model = new DriverModel();
+        
+        model.setId(row.getId());
+        model.setEmployeeId(row.getEmployeeId());
+        model.setName(row.getName());
+        model.setSurname(row.getSurname());
+        model.setStatus(row.getStatus());
+        model.setCurrentCityId(row.getCurrentCityId() == null ? 0 : row.getCurrentCityId());
+        model.setWorkingHoursThisMonth(row.getWorkingHoursThisMonth());
+        
+        return model;
+    }
+    
+    public static List<DriverModel> convertDriverRowsToModels(List<DriverRow> rows) {
+        List<DriverModel> models = new ArrayList<DriverModel>(rows.size());
+        for (DriverRow row : rows) {
+            models.add(convertToModel(row));
+        }
+        return models;
+    }
+    
+    /**
+     * @param rows
+     * @param crewMembers
+     *            drivers of these trucks (drivers of other trucks are ignored)
+     * @return models in same order as rows
+     */
+    public static List<TruckModel> convertTruckRowsToModels(List<TruckRow> rows,
+            List<CrewMemberRow> crewMembers) {
+        Map<Integer, Map<Integer, String>> crews = new HashMap<Integer, Map<Integer, String>>();
+        for (CrewMemberRow member : crewMembers) {
+            Map<Integer, String> crew = crews.get(member.getTruckId());
+            if (crew == null) {
+                crew = new HashMap<Integer, String>();
+                crews.put(member.getTruckId(), crew);
+            }
+            crew.put(member.getDriverId(), member.getSurname());
+        }
+        
+        List<TruckModel> models = new ArrayList<TruckModel>(rows.size());
+        for (TruckRow row : rows) {
+            TruckModel model = new TruckModel();
+            
+            model.setId(row.getId());
+            model.setLicencePlate(row.getLicencePlate());
+            model.setCrewSize(row.getCrewSize());
+            model.setCargoCapacity(row.getCargoCapacity());
+            model.setStatus(row.getStatus());
+            model.setCurrentCityId(row.getCurrentCityId() == null ? 0 : row.getCurrentCityId());
+            model.setAssignedDeliveryOrderId(row.getAssignedDeliveryOrderId());
+            
+            Map<Integer, String> crew = crews.get(row.getId());
+            model.setDriversIdsAndSurnames(crew == null ? new HashMap<Integer, String>() : crew);
+            
+            models.add(model);
+        }
+        return models;
+    }
+    
+    public static CargoModel convertToModel(CargoRow row) {
+        CargoModel model = new CargoModel();
+        
+        model.setId(row.getId());
+        model.setTitle(row.getTitle());
+        model.setWeight(row.getWeight());
+        model.setStatus(row.getStatus());
+        model.setOriginCityId(row.getOriginCityId());
+        model.setDestinationCityId(row.getDestinationCityId());
+        model.setOrderIdForThisCargo(row.getOrderId());
+        
+        return model;
+    }
+    
+    public static List<CargoModel> convertCargoRowsToModels(List<CargoRow> rows) {
+        List<CargoModel> models = new ArrayList<CargoModel>(rows.size());
+        for (CargoRow row : rows) {
+            models.add(convertToModel(row));
+        }
+        return models;
+    }
+    
+    /**
+     * @param rows
+     * @param cargoes
+     *            cargoes of these orders (cargoes of other orders are ignored)
+     * @return models in same order as rows
+     */
+    public static List<OrderModel> convertOrderRowsToModels(List<OrderRow> rows,
+            List<CargoRow> cargoes) {
+        Map<Integer, Set<CargoModel>> cargoesOfOrders = new HashMap<Integer, Set<CargoModel>>();
+        for (CargoRow cargo : cargoes) {
+            Set<CargoModel> cargoesOfOrder = cargoesOfOrders.get(cargo.getOrderId());
+            if (cargoesOfOrder == null) {
+                cargoesOfOrder = new HashSet<CargoModel>();
+                cargoesOfOrders.put(cargo.getOrderId(), cargoesOfOrder);
+            }
+            cargoesOfOrder.add(convertToModel(cargo));
+        }
+        
+        List<OrderModel> models = new ArrayList<OrderModel>(rows.size());
+        for (OrderRow row : rows) {
+            OrderModel model = new OrderModel();
+            
+            model.setId(row.getId());
+            model.setStatus(row.getStatus());
+            
+            Set<CargoModel> cargoesOfOrder = cargoesOfOrders.get(row.getId());
+            model.setAssignedCargoes(cargoesOfOrder == null ? new HashSet<CargoModel>() : cargoesOfOrder);
+            
+            if (row.getAssignedTruckId() != null) {
+                TruckModel truck = new TruckModel();
+                truck.setId(row.getAssignedTruckId());
+                truck.setLicencePlate(row.getAssignedTruckLicencePlate());
+                truck.setAssignedDeliveryOrderId(row.getId());
+                model.setAssignedTruck(truck);
+            }
+            
+            models.add(model);
+        }
+        return models;
+    }
+}
@@ -3,10 +3,13 @@ package com.tsystems.javaschool.logiweb.service;
 import java.util.Set;
 
 import com.tsystems.javaschool.logiweb.entities.Cargo;
+import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
 import com.tsystems.javaschool.logiweb.model.CargoModel;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.RecordNotFoundServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
 
 public interface CargoService {
 
@@ -45,6 +48,24 @@ public interface CargoService {
      */
     Set<Cargo> findAllCargoes() throws LogiwebServiceException;
     
+    /**
+     * Find one page of cargoes, optionally filtered by status and order.
+     * Filtering, sorting and paging are done by DB.
+     * 
+     * @param status
+     *            or null for any status
+     * @param orderId
+     *            order of cargo or null for any order
+     * @param pageRequest
+     *            page number, size and sort key. Sortable attributes: id,
+     *            title, weight, status. Unknown sort key is replaced with 'id'.
+     * @return page of cargoes (may be empty)
+     * @throws LogiwebServiceException
+     *             if something unexpected happens
+     */
+    ResultPage<CargoModel> findCargoesPage(CargoStatus status, Integer orderId,
+            PageRequest pageRequest) throws LogiwebServiceException;
+    
     /**
      * Add new cargo. Cargo must contain title, origin and delivery cities,
      * weight and order, to which it must be assigned.
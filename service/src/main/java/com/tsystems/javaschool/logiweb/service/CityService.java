@@ -4,9 +4,13 @@ import java.util.Set;
 
 import com.tsystems.javaschool.logiweb.entities.City;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.ext.CityRegistry;
 
 /**
  * Data manipulation and business logic related to Cities.
+ * <p>
+ * Cities are read from in-memory {@link CityRegistry} that is loaded on
+ * startup, reads don't reach DB.
  * 
  * @author Andrey Baliushin
  */
@@ -31,4 +35,35 @@ public interface CityService {
      */
     Set<City> findAllCities() throws LogiwebServiceException;
     
+    /**
+     * Find city by its name.
+     * 
+     * @param name
+     *            exact name of city
+     * @return null if city not found
+     * @throws LogiwebServiceException
+     *             if something unexpected happened on lower level
+     */
+    City findByName(String name) throws LogiwebServiceException;
+    
+    /**
+     * Get current snapshot of all cities.
+     * 
+     * @return immutable registry
+     * @throws LogiwebServiceException
+     *             if registry was not loaded yet and loading failed
+     */
+    CityRegistry getCityRegistry() throws LogiwebServiceException;
+    
+    /**
+     * Load cities from DB to new registry and replace current one with it.
+     * Must be called after cities are changed in DB. Readers see either old
+     * or new registry, never a partially loaded one.
+     * 
+     * @throws LogiwebServiceException
+     *             if something unexpected happened on lower level (current
+     *             registry is kept)
+     */
+    void reloadCities() throws LogiwebServiceException;
+    
 }
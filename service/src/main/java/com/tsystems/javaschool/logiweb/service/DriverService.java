@@ -1,7 +1,13 @@
 package com.tsystems.javaschool.logiweb.service;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
 import com.tsystems.javaschool.logiweb.entities.Driver;
 import com.tsystems.javaschool.logiweb.entities.DriverShiftJournal;
 import com.tsystems.javaschool.logiweb.model.DriverModel;
@@ -26,6 +32,27 @@ public interface DriverService {
      */
     Set<DriverModel> findAllDrivers() throws LogiwebServiceException;
 
+    /**
+     * Find one page of drivers, optionally filtered by status and
+     * current city. Filtering, sorting and paging are
+     * done by DB.
+     * 
+     * @param status
+     *            or null for any status
+     * @param cityId
+     *            current city or null for any city
+     * @param pageRequest
+     *            page number, size and sort key. Sortable attributes: employeeId,
+     *            name, surname, status.
+     *            Unknown sort key is replaced with 'surname'.
+     * @return page of drivers (may be empty)
+     * @throws LogiwebServiceException
+     *             if unexpected exception occurred on lower level (not user
+     *             fault)
+     */
+    ResultPage<DriverModel> findDriversPage(DriverStatus status, Integer cityId,
+            PageRequest pageRequest) throws LogiwebServiceException;
+
     /**
      * Find driver by id.
      * 
@@ -38,15 +65,28 @@ public interface DriverService {
     DriverModel findDriverById(int id) throws LogiwebServiceException;
 
     /**
-     * Find driver by employee id.
+     * Find drivers by ids with one query (or one query per chunk of ids).
+     * 
+     * @param ids
+     * @return driver models or empty set
+     * @throws LogiwebServiceException
+     *             if unexpected exception occurred on lower level (not user
+     *             fault)
+     */
+    Set<DriverModel> findDriversByIds(Collection<Integer> ids)
+            throws LogiwebServiceException;
+
+    /**
+     * Find driver by employee id. Model has id and status of order assigned
+     * to current truck of driver (if any), working hours are not set.
      * 
      * @param employeeId
-     * @return driver or null
+     * @return driver model or null
      * @throws LogiwebServiceException
      *             if unexpected exception occurred on lower level (not user
      *             fault)
      */
-    Driver findDriverByEmployeeId(int employeeId)
+    DriverModel findDriverByEmployeeId(int employeeId)
             throws LogiwebServiceException;
 
     /**
@@ -113,6 +153,31 @@ public interface DriverService {
     Set<DriverModel> findUnassignedToTrucksDriversByMaxWorkingHoursAndCity(
             int cityId, float deliveryTime) throws LogiwebServiceException, RecordNotFoundServiceException;
 
+    /**
+     * Find drivers that can be added to crew of truck in this city, ranked
+     * from best candidate, with working hours for this month already set.
+     * Drivers and their hours are read by one query.
+     * 
+     * Only drivers that are in the city and not assigned to trucks are
+     * candidates, drivers that would exceed hours limit are filtered out.
+     * Free drivers go before not available ones, then drivers with more hours
+     * left before limit go first.
+     * 
+     * @param cityId
+     *            city of truck
+     * @param workingHoursMaxLimit
+     *            max hours driver can have worked in this month to complete
+     *            order
+     * @param limit
+     *            max number of candidates
+     * @return candidates or empty list (also if city doesn't exist)
+     * @throws LogiwebServiceException
+     *             if unexpected exception on lower level occurred (not user
+     *             fault)
+     */
+    List<DriverModel> findRankedCandidatesForCrew(int cityId,
+            float workingHoursMaxLimit, int limit) throws LogiwebServiceException;
+
     /**
      * Calculate working hours for driver for this month.
      * 
@@ -122,6 +187,8 @@ public interface DriverService {
      * Records that don't have ending date (meaning that driver is currently on
      * shift) are also counted. End time for them is current time.
      * 
+     * Hours are read from working hours ledger, shift journal is not scanned.
+     * 
      * @param driverId
      * @return
      * @throws LogiwebServiceException
@@ -131,6 +198,47 @@ public interface DriverService {
     float calculateWorkingHoursForDriver(int driverId)
             throws LogiwebServiceException;
 
+    /**
+     * Calculate working hours for this month for several drivers at once.
+     * Same rules as in {@link #calculateWorkingHoursForDriver(int)} apply.
+     * 
+     * @param driverIds
+     * @return map with driver id as key and working hours as value. Drivers
+     *         without shifts have 0 hours.
+     * @throws LogiwebServiceException
+     *             if unexpected exception on lower level occurred (not user
+     *             fault)
+     */
+    Map<Integer, Float> calculateWorkingHoursForDrivers(
+            Collection<Integer> driverIds) throws LogiwebServiceException;
+
+    /**
+     * Recalculate working hours ledger records for this month from shift
+     * journal. Rows of all drivers are locked for the rebuild, so shifts
+     * can't start or end meanwhile.
+     * 
+     * Used when month changes (to carry shifts that are still open into new
+     * month).
+     * 
+     * @throws LogiwebServiceException
+     *             if unexpected exception on lower level occurred (not user
+     *             fault)
+     */
+    void rebuildWorkingHoursLedgerForThisMonth() throws LogiwebServiceException;
+
+    /**
+     * Same as {@link #rebuildWorkingHoursLedgerForThisMonth()}, but only if
+     * there are no ledger records for this month yet (application was down
+     * when month changed). Used on application start.
+     * 
+     * @return true if ledger was rebuilt
+     * @throws LogiwebServiceException
+     *             if unexpected exception on lower level occurred (not user
+     *             fault)
+     */
+    boolean rebuildWorkingHoursLedgerForThisMonthIfMissing()
+            throws LogiwebServiceException;
+
     /**
      * Assign driver to truck.
      * 
@@ -146,6 +254,22 @@ public interface DriverService {
     void assignDriverToTruck(int driverId, int truckId)
             throws LogiwebServiceException;
 
+    /**
+     * Assign several drivers to truck. Drivers are loaded with one query.
+     * Either all drivers are assigned or none of them.
+     * 
+     * @param driverIds
+     * @param truckId
+     * @throws ServiceValidationException
+     *             if truck or any of drivers not exist, or if there is not
+     *             enough free crew positions in truck
+     * @throws LogiwebServiceException
+     *             if unexpected exception on lower level occurred (not user
+     *             fault)
+     */
+    void assignDriversToTruck(Collection<Integer> driverIds, int truckId)
+            throws LogiwebServiceException;
+
     /**
      * Find shift records that are started or ended in this month. Records are
      * not trimmed. (Meaning that if record is started in previous month then it
@@ -0,0 +1,50 @@
+package com.tsystems.javaschool.logiweb.service;
+
+import java.util.List;
+
+import com.tsystems.javaschool.logiweb.dao.projections.CacheRegionRow;
+import com.tsystems.javaschool.logiweb.dao.projections.ConnectionPoolRow;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.ext.MethodTimingStatistics;
+
+/**
+ * Runtime statistics of application for managers.
+ * 
+ * @author Andrey Baliushin
+ */
+public interface MonitoringService {
+
+    /**
+     * Hit/miss statistics of second level and query cache regions.
+     * 
+     * @return rows sorted by region name
+     * @throws LogiwebServiceException
+     *             if something unexpected happened on lower level
+     */
+    List<CacheRegionRow> getCacheRegionStatistics() throws LogiwebServiceException;
+
+    /**
+     * Active/idle connections and connection wait statistics of DB pool.
+     * 
+     * @return statistics or null if pool is not started yet
+     * @throws LogiwebServiceException
+     *             if something unexpected happened on lower level
+     */
+    ConnectionPoolRow getConnectionPoolStatistics() throws LogiwebServiceException;
+
+    /**
+     * Hit/miss statistics of cache of calculated routes.
+     * 
+     * @return statistics
+     */
+    CacheRegionRow getRouteCacheStatistics();
+
+    /**
+     * Number of calls, errors and call duration percentiles of every called
+     * method of services.
+     * 
+     * @return statistics, most time consuming methods first
+     */
+    List<MethodTimingStatistics> getServiceMethodTimings();
+
+}
@@ -2,8 +2,14 @@ package com.tsystems.javaschool.logiweb.service;
 
 import java.util.Set;
 
+import com.tsystems.javaschool.logiweb.service.ext.CargoDeliveryResult;
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
 import com.tsystems.javaschool.logiweb.model.OrderModel;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.exceptions.RecordNotFoundServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
 
 /**
@@ -24,6 +30,23 @@ public interface OrderService {
 
     
 
+    /**
+     * Find one page of orders, optionally filtered by status. Filtering, sorting and paging are
+     * done by DB.
+     * 
+     * @param status
+     *            or null for any status
+     * @param pageRequest
+     *            page number, size and sort key. Sortable attributes: id, status.
+     *            Unknown sort key is replaced with 'id'.
+     * @return page of orders (may be empty)
+     * @throws LogiwebServiceException
+     *             if unexpected exception occurred on lower level (not user
+     *             fault)
+     */
+    ResultPage<OrderModel> findOrdersPage(OrderStatus status,
+            PageRequest pageRequest) throws LogiwebServiceException;
+
     /**
      * Create new empty delivery order with Not Ready status.
      * 
@@ -51,7 +74,8 @@ public interface OrderService {
      * @param truckId
      * @param orderId
      * @throws ServiceValidationException
-     *             if truck is not Free or broken.
+     *             if truck is not Free or broken or some cargo of order is
+     *             heavier than truck capacity.
      * @throws LogiwebServiceException
      *             if unexpected happened
      */
@@ -60,7 +84,8 @@ public interface OrderService {
 
     /**
      * Sets 'READY' status for order if order have at least one cargo and assign
-     * truck with full crew.
+     * truck with full crew, and route of order does not exceed capacity of
+     * truck (see {@link RouteInformation#isOverloaded()}).
      * 
      * @param orderId
      * @throws LogiwebServiceException
@@ -96,4 +121,26 @@ public interface OrderService {
      *             if validation failed. Description in message.
      */
     boolean isAllCargoesInOrderDelivered(int orderId) throws LogiwebServiceException;
+
+    /**
+     * Set 'DELIVERED' status for cargo and, if it was last undelivered cargo
+     * of order, set 'DELIVERED' status for order and remove truck and its
+     * drivers from order (drivers become FREE).
+     * 
+     * Everything is done in one transaction: either all changes are saved or
+     * none of them.
+     * 
+     * @param cargoId
+     * @return state of order after delivery
+     * @throws IllegalStateException
+     *             if order of cargo is not in 'Ready to go' state or cargo is
+     *             not in 'Picked up' state
+     * @throws RecordNotFoundServiceException
+     *             if cargo does not exist
+     * @throws LogiwebServiceException
+     *             if unexpected exception on lower level occurred (not user
+     *             fault)
+     */
+    CargoDeliveryResult deliverCargo(int cargoId) throws IllegalStateException,
+            RecordNotFoundServiceException, LogiwebServiceException;
 }
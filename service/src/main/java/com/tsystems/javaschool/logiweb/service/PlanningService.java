@@ -0,0 +1,48 @@
+package com.tsystems.javaschool.logiweb.service;
+
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.DeliveryPlan;
+
+/**
+ * Automatic assignment of trucks and drivers to orders.
+ *
+ * @author Andrey Baliushin
+ */
+public interface PlanningService {
+
+    /**
+     * Propose trucks and crews for all NOT READY orders that have cargo and
+     * no truck.
+     *
+     * Truck must be OK, free, have enough capacity for peak load of order and
+     * enough free drivers in its city to fill crew. Driver must not be
+     * assigned to truck and must have enough hours left in this month to get
+     * to first pickup and deliver order. Among plans with max number of
+     * planned orders the one with least total distance of trucks to first
+     * pickups is chosen.
+     *
+     * Nothing is changed in DB.
+     *
+     * @return plan, orders that can't be planned are listed in it
+     * @throws LogiwebServiceException
+     *             if unexpected exception on lower level occurred (not user
+     *             fault)
+     */
+    DeliveryPlan createPlan() throws LogiwebServiceException;
+
+    /**
+     * Assign trucks and drivers of plan to orders in one transaction. If any
+     * assignment is not valid any more nothing is changed.
+     *
+     * @param plan
+     * @throws ServiceValidationException
+     *             if truck, order or driver was changed after plan was
+     *             created
+     * @throws LogiwebServiceException
+     *             if unexpected exception on lower level occurred (not user
+     *             fault)
+     */
+    void applyPlan(DeliveryPlan plan) throws ServiceValidationException,
+            LogiwebServiceException;
+}
@@ -1,6 +1,12 @@
 package com.tsystems.javaschool.logiweb.service;
 
+import java.util.Collection;
+import java.util.Map;
+
+import com.tsystems.javaschool.logiweb.dao.projections.CacheRegionRow;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.RoadGraph;
 import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
 
 /**
@@ -12,7 +18,9 @@ import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
 public interface RouteService {
 
     /**
-     * Analyze Order and return object with route data.
+     * Analyze Order and return object with route data. Result is cached until
+     * {@link #evictRouteInformation(int)} is called for order, so it must not
+     * be changed by caller.
      * 
      * @param orderId
      * @return {@link RouteInformation}
@@ -21,4 +29,93 @@ public interface RouteService {
      */
     RouteInformation getRouteInformationForOrder(int orderId)
             throws LogiwebServiceException;
+
+    /**
+     * Route data for many orders at once. Routes are calculated in parallel
+     * within time limit.
+     * 
+     * @param orderIds
+     * @return routes by order id; orders that don't exist or were not
+     *         calculated in time are missing
+     * @throws LogiwebServiceException
+     *             if something unexpected happened on lower level
+     */
+    Map<Integer, RouteInformation> getRouteInformationForOrders(
+            Collection<Integer> orderIds) throws LogiwebServiceException;
+
+    /**
+     * Get current graph of roads between cities.
+     * 
+     * @return immutable graph
+     * @throws LogiwebServiceException
+     *             if graph was not loaded yet and loading failed
+     */
+    RoadGraph getRoadGraph() throws LogiwebServiceException;
+
+    /**
+     * Load roads from DB to new graph and replace current one with it. Must be
+     * called after roads are changed in DB.
+     * 
+     * @throws LogiwebServiceException
+     *             if something unexpected happened on lower level (current
+     *             graph is kept)
+     */
+    void reloadRoadGraph() throws LogiwebServiceException;
+
+    /**
+     * Shortest distance between cities by roads. Lookup in precomputed matrix
+     * when it is ready.
+     * 
+     * @param fromCityId
+     * @param toCityId
+     * @return distance in km, 0 for same city,
+     *         {@link RoadGraph#UNREACHABLE} if there is no path
+     * @throws LogiwebServiceException
+     *             if graph was not loaded yet and loading failed
+     */
+    float getDistance(int fromCityId, int toCityId)
+            throws LogiwebServiceException;
+
+    /**
+     * Travel time between cities by shortest roads.
+     * 
+     * @param fromCityId
+     * @param toCityId
+     * @return hours, {@link Float#POSITIVE_INFINITY} if there is no path
+     * @throws LogiwebServiceException
+     *             if graph was not loaded yet and loading failed
+     */
+    float getTravelHours(int fromCityId, int toCityId)
+            throws LogiwebServiceException;
+
+    /**
+     * Add road between cities or change its length. Graph and distances are
+     * updated after transaction is committed.
+     * 
+     * @param cityId
+     * @param otherCityId
+     * @param distance
+     *            length of road in km
+     * @throws ServiceValidationException
+     *             if cities are same or not found, or length is not positive
+     * @throws LogiwebServiceException
+     *             if something unexpected happened on lower level
+     */
+    void saveRoad(int cityId, int otherCityId, float distance)
+            throws ServiceValidationException, LogiwebServiceException;
+
+    /**
+     * Forget cached route of order. Must be called on every change of cargoes
+     * of order, their statuses, assigned truck or status of order.
+     * 
+     * @param orderId
+     */
+    void evictRouteInformation(int orderId);
+
+    /**
+     * Hit/miss counters of route cache.
+     * 
+     * @return statistics
+     */
+    CacheRegionRow getRouteCacheStatistics();
 }
@@ -1,7 +1,11 @@
 package com.tsystems.javaschool.logiweb.service;
 
+import java.util.List;
 import java.util.Set;
 
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
 import com.tsystems.javaschool.logiweb.model.TruckModel;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
@@ -22,6 +26,27 @@ public interface TrucksService {
      */
     Set<TruckModel> findAllTrucks() throws LogiwebServiceException;
 
+    /**
+     * Find one page of trucks, optionally filtered by status and
+     * current city. Filtering, sorting and paging are
+     * done by DB.
+     * 
+     * @param status
+     *            or null for any status
+     * @param cityId
+     *            current city or null for any city
+     * @param pageRequest
+     *            page number, size and sort key. Sortable attributes: licencePlate,
+     *            crewSize, cargoCapacity, status.
+     *            Unknown sort key is replaced with 'licencePlate'.
+     * @return page of trucks (may be empty)
+     * @throws LogiwebServiceException
+     *             if unexpected exception occurred on lower level (not user
+     *             fault)
+     */
+    ResultPage<TruckModel> findTrucksPage(TruckStatus status, Integer cityId,
+            PageRequest pageRequest) throws LogiwebServiceException;
+
     /**
      * Find truck by id.
      * 
@@ -84,6 +109,38 @@ public interface TrucksService {
      */
     Set<TruckModel> findFreeAndUnbrokenByCargoCapacity(float minCargoWeightCapacity) throws LogiwebServiceException;
     
+    /**
+     * Suggest trucks for order from in-memory index of free trucks (no DB
+     * query). Trucks have Status 'OK', are not busy by order and have cargo
+     * capacity more or equal to minCargoWeightCapacity. Trucks in city of
+     * first pickup go first, then others; trucks with least unused capacity
+     * go first in each group.
+     * 
+     * @param minCargoWeightCapacity
+     * @param firstPickupCityId
+     *            or 0 if unknown
+     * @param limit
+     *            max number of trucks
+     * @return trucks in order of preference (without crew)
+     * @throws LogiwebServiceException
+     *             if index was not loaded yet and loading failed
+     */
+    List<TruckModel> findBestFreeTrucks(float minCargoWeightCapacity,
+            int firstPickupCityId, int limit) throws LogiwebServiceException;
+    
+    /**
+     * Put truck in index of free trucks or remove it from index according to
+     * its current state. Must be called by every change of status, capacity,
+     * city or assigned order of truck. Index is changed after commit of
+     * current transaction.
+     * 
+     * @param truckId
+     * @throws LogiwebServiceException
+     *             if unexpected exception on lower level occurred (not user
+     *             fault)
+     */
+    void updateFreeTruckIndex(int truckId) throws LogiwebServiceException;
+    
     /**
      * Remove assignment to order and drivers for this truck.
      * 
@@ -1,20 +1,27 @@
 package com.tsystems.javaschool.logiweb.service.aspects;
 
-import org.apache.commons.lang3.ArrayUtils;
+import java.util.concurrent.ThreadLocalRandom;
+
 import org.apache.log4j.Logger;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
  * Aspect logs calls to methods of classes from package:
  * com.tsystems.javaschool.logiweb.service.impl.*
- * 
- * Class name, method name and method arguments are recorded.
- * 
- * Log level: INFO
- * 
+ *
+ * Class name, method name and method arguments are recorded as key/value
+ * pairs (see {@link ServiceCallRecord}). Only part of calls is recorded, see
+ * 'logging.serviceCallsSampleRate' property. Message is built only for
+ * recorded calls.
+ *
+ * Log level: INFO. Logger writes through asynchronous appender (see
+ * log4j.xml) that drops messages when its buffer is full instead of blocking
+ * callers.
+ *
  * @author Andrey Baliushin
  *
  */
@@ -24,33 +31,29 @@ public class LoggerAspect {
 
     private static final Logger LOG = Logger.getLogger(LoggerAspect.class);
 
+    /**
+     * Part of calls that are recorded: 1 for all, 0 for none.
+     */
+    @Value("${logging.serviceCallsSampleRate:1}")
+    private double sampleRate = 1;
+
     @Before("execution(* com.tsystems.javaschool.logiweb.service.impl.*.* (..))")
     public void beforeAdvice(JoinPoint jp) throws Throwable {
-        Class<?> clazz = jp.getTarget().getClass();
-        String methodName = jp.getSignature().getName();
-        Object[] args = jp.getArgs();
-
-        LOG.info(clazz.getSimpleName() + "." + methodName + "("
-                + convertArgsToString(args) + ") is called");
+        if (!LOG.isInfoEnabled() || !isSampled()) {
+            return;
+        }
 
+        LOG.info(new ServiceCallRecord(jp.getTarget().getClass(),
+                jp.getSignature(), jp.getArgs()));
     }
 
-    private String convertArgsToString(Object[] args) {
-        if (ArrayUtils.isEmpty(args)) {
-            return "";
-        }
-        
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < args.length; i++) {
-            sb.append(args[i].getClass().getSimpleName());
-            sb.append(":");
-            sb.append(args[i].toString());
-
-            if (i != args.length - 1) { // not last one
-                sb.append(", ");
-            }
+    private boolean isSampled() {
+        if (sampleRate >= 1) {
+            return true;
+        } else if (sampleRate <= 0) {
+            return false;
         }
-        return sb.toString();
+        return ThreadLocalRandom.current().nextDouble() < sampleRate;
     }
 
 }
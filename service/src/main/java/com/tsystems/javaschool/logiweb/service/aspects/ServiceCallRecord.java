@@ -0,0 +1,84 @@
+package com.tsystems.javaschool.logiweb.service.aspects;
+
+import org.aspectj.lang.Signature;
+
+/**
+ * Log message about call of service method. Message is rendered only when
+ * logger decides to write it, so calls that are not logged don't pay for
+ * building of strings.
+ * <p>
+ * Rendered as key/value pairs separated by spaces:
+ * {@code event=serviceCall class=OrderServiceImpl method=findOrderById args="[Integer:1]"}.
+ * Values with spaces or quotes are quoted. Every argument is cut to
+ * {@value #MAX_ARG_LENGTH} characters.
+ *
+ * @author Andrey Baliushin
+ */
+final class ServiceCallRecord {
+
+    static final int MAX_ARG_LENGTH = 64;
+
+    private final Class<?> targetClass;
+    private final Signature signature;
+    private final Object[] args;
+
+    /**
+     * @param targetClass
+     *            class of called object; declaring type of signature is
+     *            service interface when call goes through JDK proxy
+     * @param signature
+     * @param args
+     */
+    ServiceCallRecord(Class<?> targetClass, Signature signature, Object[] args) {
+        this.targetClass = targetClass;
+        this.signature = signature;
+        this.args = args;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("event=serviceCall");
+        appendPair(sb, "class", targetClass.getSimpleName());
+        appendPair(sb, "method", signature.getName());
+        appendPair(sb, "args", convertArgsToString());
+        return sb.toString();
+    }
+
+    private String convertArgsToString() {
+        if (args == null || args.length == 0) {
+            return "[]";
+        }
+
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == null) {
+                sb.append("null");
+            } else {
+                sb.append(args[i].getClass().getSimpleName());
+                sb.append(":");
+                String value = String.valueOf(args[i]);
+                if (value.length() > MAX_ARG_LENGTH) {
+                    sb.append(value, 0, MAX_ARG_LENGTH).append("...");
+                } else {
+                    sb.append(value);
+                }
+            }
+
+            if (i != args.length - 1) { // not last one
+                sb.append(", ");
+            }
+        }
+        return sb.append("]").toString();
+    }
+
+    private static void appendPair(StringBuilder sb, String key, String value) {
+        sb.append(' ').append(key).append('=');
+        if (value.indexOf(' ') < 0 && value.indexOf('"') < 0) {
+            sb.append(value);
+        } else {
+            sb.append('"').append(value.replace("\\", "\\\\").replace("\"", "\\\""))
+                    .append('"');
+        }
+    }
+}
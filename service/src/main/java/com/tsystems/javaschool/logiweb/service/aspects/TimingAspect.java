@@ -0,0 +1,85 @@
+package com.tsystems.javaschool.logiweb.service.aspects;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import com.tsystems.javaschool.logiweb.service.ext.LatencyHistogram;
+import com.tsystems.javaschool.logiweb.service.ext.MethodTimingStatistics;
+
+/**
+ * Aspect measures calls to methods of classes from package:
+ * com.tsystems.javaschool.logiweb.service.impl.*
+ *
+ * Duration of every call is recorded to histogram of its method, calls that
+ * threw exception are counted as errors. Nested calls of other services are
+ * included in duration of caller.
+ *
+ * @author Andrey Baliushin
+ */
+@Component
+@Aspect
+public class TimingAspect {
+
+    private static final Comparator<MethodTimingStatistics> BY_TOTAL_TIME = new Comparator<MethodTimingStatistics>() {
+        @Override
+        public int compare(MethodTimingStatistics s1, MethodTimingStatistics s2) {
+            return Double.compare(s2.getTotalMillis(), s1.getTotalMillis());
+        }
+    };
+
+    private final ConcurrentMap<Method, LatencyHistogram> histograms = new ConcurrentHashMap<Method, LatencyHistogram>();
+
+    @Around("execution(* com.tsystems.javaschool.logiweb.service.impl.*.* (..))")
+    public Object aroundAdvice(ProceedingJoinPoint pjp) throws Throwable {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = pjp.proceed();
+            failed = false;
+            return result;
+        } finally {
+            getHistogram(((MethodSignature) pjp.getSignature()).getMethod())
+                    .record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * @return statistics of every called method, most time consuming first
+     */
+    public List<MethodTimingStatistics> getStatistics() {
+        List<MethodTimingStatistics> result = new ArrayList<MethodTimingStatistics>(
+                histograms.size());
+        for (Map.Entry<Method, LatencyHistogram> e : histograms.entrySet()) {
+            Method method = e.getKey();
+            result.add(e.getValue().getStatistics(
+                    method.getDeclaringClass().getSimpleName() + "."
+                            + method.getName()));
+        }
+        Collections.sort(result, BY_TOTAL_TIME);
+        return result;
+    }
+
+    private LatencyHistogram getHistogram(Method method) {
+        LatencyHistogram histogram = histograms.get(method);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(method, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+}
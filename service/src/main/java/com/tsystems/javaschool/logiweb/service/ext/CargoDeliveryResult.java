@@ -0,0 +1,73 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.Collections;
+import java.util.Set;
+
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
+
+/**
+ * State of order after delivery of one of its cargoes.
+ *
+ * @author Andrey Baliushin
+ */
+public class CargoDeliveryResult {
+
+    private final int cargoId;
+    private final int orderId;
+    private final OrderStatus orderStatus;
+    private final int undeliveredCargoes;
+    private final Integer releasedTruckId;
+    private final Set<Integer> releasedDriverIds;
+
+    public CargoDeliveryResult(int cargoId, int orderId,
+            OrderStatus orderStatus, int undeliveredCargoes,
+            Integer releasedTruckId, Set<Integer> releasedDriverIds) {
+        this.cargoId = cargoId;
+        this.orderId = orderId;
+        this.orderStatus = orderStatus;
+        this.undeliveredCargoes = undeliveredCargoes;
+        this.releasedTruckId = releasedTruckId;
+        this.releasedDriverIds = Collections.unmodifiableSet(releasedDriverIds);
+    }
+
+    public int getCargoId() {
+        return cargoId;
+    }
+
+    public int getOrderId() {
+        return orderId;
+    }
+
+    public OrderStatus getOrderStatus() {
+        return orderStatus;
+    }
+
+    /**
+     * @return number of cargoes of order that are not delivered yet
+     */
+    public int getUndeliveredCargoes() {
+        return undeliveredCargoes;
+    }
+
+    /**
+     * @return true if it was last cargo and order is delivered now
+     */
+    public boolean isOrderDelivered() {
+        return orderStatus == OrderStatus.DELIVERED;
+    }
+
+    /**
+     * @return truck removed from delivered order or null if order is not
+     *         delivered yet
+     */
+    public Integer getReleasedTruckId() {
+        return releasedTruckId;
+    }
+
+    /**
+     * @return drivers that became free, empty if order is not delivered yet
+     */
+    public Set<Integer> getReleasedDriverIds() {
+        return releasedDriverIds;
+    }
+}
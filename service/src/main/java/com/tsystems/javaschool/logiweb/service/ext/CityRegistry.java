@@ -0,0 +1,84 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.tsystems.javaschool.logiweb.entities.City;
+
+/**
+ * Immutable snapshot of all cities indexed by id and by name.
+ * <p>
+ * Snapshot holds its own detached copies of cities, so it can be shared
+ * between threads and requests. Returned cities must not be modified. When
+ * cities change new snapshot is built and replaces this one as a whole.
+ *
+ * @author Andrey Baliushin
+ */
+public final class CityRegistry {
+
+    private final Map<Integer, City> citiesById;
+    private final Map<String, City> citiesByName;
+    private final Set<City> cities;
+
+    /**
+     * @param source
+     *            cities to copy (ex.: entities loaded from DB)
+     */
+    public CityRegistry(Collection<City> source) {
+        Map<Integer, City> byId = new LinkedHashMap<Integer, City>(source.size() * 2);
+        Map<String, City> byName = new HashMap<String, City>(source.size() * 2);
+
+        for (City city : source) {
+            City copy = new City(city.getId());
+            copy.setName(city.getName());
+            byId.put(copy.getId(), copy);
+            if (copy.getName() != null) {
+                byName.put(copy.getName(), copy);
+            }
+        }
+
+        this.citiesById = Collections.unmodifiableMap(byId);
+        this.citiesByName = Collections.unmodifiableMap(byName);
+        this.cities = Collections.unmodifiableSet(new LinkedHashSet<City>(byId.values()));
+    }
+
+    /**
+     * @param id
+     * @return city or null if there is no city with such id
+     */
+    public City getById(int id) {
+        return citiesById.get(id);
+    }
+
+    /**
+     * @param name
+     *            exact name of city
+     * @return city or null if there is no city with such name
+     */
+    public City getByName(String name) {
+        return citiesByName.get(name);
+    }
+
+    /**
+     * @return unmodifiable set of all cities
+     */
+    public Set<City> getAll() {
+        return cities;
+    }
+
+    /**
+     * @return unmodifiable map where key is city id
+     */
+    public Map<Integer, City> getCitiesById() {
+        return citiesById;
+    }
+
+    public int size() {
+        return citiesById.size();
+    }
+}
@@ -0,0 +1,99 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Proposed assignment of trucks and crews to orders. Plan is not saved
+ * anywhere, it must be applied as a whole or discarded.
+ *
+ * @author Andrey Baliushin
+ */
+public class DeliveryPlan {
+
+    /**
+     * Truck and drivers proposed for one order.
+     *
+     * @author Andrey Baliushin
+     */
+    public static class Assignment {
+
+        private final int orderId;
+        private final int truckId;
+        private final String truckLicencePlate;
+        private final List<Integer> driverIds;
+        private final float distanceToFirstPickup;
+        private final float estimatedTime;
+
+        public Assignment(int orderId, int truckId, String truckLicencePlate,
+                List<Integer> driverIds, float distanceToFirstPickup,
+                float estimatedTime) {
+            this.orderId = orderId;
+            this.truckId = truckId;
+            this.truckLicencePlate = truckLicencePlate;
+            this.driverIds = Collections.unmodifiableList(driverIds);
+            this.distanceToFirstPickup = distanceToFirstPickup;
+            this.estimatedTime = estimatedTime;
+        }
+
+        public int getOrderId() {
+            return orderId;
+        }
+
+        public int getTruckId() {
+            return truckId;
+        }
+
+        public String getTruckLicencePlate() {
+            return truckLicencePlate;
+        }
+
+        /**
+         * Drivers to add to crew of truck, drivers that are already in crew
+         * are not listed.
+         * @return
+         */
+        public List<Integer> getDriverIds() {
+            return driverIds;
+        }
+
+        /**
+         * Distance from current city of truck to first pickup of order, km.
+         * @return
+         */
+        public float getDistanceToFirstPickup() {
+            return distanceToFirstPickup;
+        }
+
+        /**
+         * Hours to get to first pickup and deliver order.
+         * @return
+         */
+        public float getEstimatedTime() {
+            return estimatedTime;
+        }
+    }
+
+    private final List<Assignment> assignments;
+    private final Set<Integer> unplannedOrderIds;
+
+    public DeliveryPlan(List<Assignment> assignments,
+            Set<Integer> unplannedOrderIds) {
+        this.assignments = Collections.unmodifiableList(assignments);
+        this.unplannedOrderIds = Collections.unmodifiableSet(unplannedOrderIds);
+    }
+
+    public List<Assignment> getAssignments() {
+        return assignments;
+    }
+
+    /**
+     * Orders that got no truck or crew: there is no free truck with enough
+     * capacity and drivers or route could not be calculated.
+     * @return
+     */
+    public Set<Integer> getUnplannedOrderIds() {
+        return unplannedOrderIds;
+    }
+}
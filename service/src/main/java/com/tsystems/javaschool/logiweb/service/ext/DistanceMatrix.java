@@ -0,0 +1,155 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+/**
+ * Immutable matrix of shortest road distances between all pairs of cities of
+ * {@link RoadGraph}.
+ * <p>
+ * Distances are kept in one flat array in row-major order, row and column are
+ * dense city indexes of graph ({@link RoadGraph#indexOf(int)}), so lookup is
+ * O(1). Matrix takes {@code 4 * n * n} bytes for {@code n} cities with roads.
+ * Travel time is derived from distance by average speed of trucks.
+ *
+ * @author Andrey Baliushin
+ */
+public final class DistanceMatrix {
+
+    private final RoadGraph graph;
+    private final int size;
+    private final float[] distances;
+    private final float averageSpeed;
+
+    private DistanceMatrix(RoadGraph graph, float[] distances, float averageSpeed) {
+        this.graph = graph;
+        this.size = graph.size();
+        this.distances = distances;
+        this.averageSpeed = averageSpeed;
+    }
+
+    /**
+     * Run Dijkstra from every city of graph. Takes O(n * E * log n), call it
+     * outside of request threads for big graphs.
+     *
+     * @param graph
+     * @param averageSpeed
+     *            km/h, used to calculate travel time
+     * @return new matrix
+     */
+    public static DistanceMatrix build(RoadGraph graph, float averageSpeed) {
+        int n = graph.size();
+        float[] distances = new float[n * n];
+        for (int i = 0; i < n; i++) {
+            float[] row = graph.shortestDistancesFrom(graph.cityIdAt(i));
+            System.arraycopy(row, 0, distances, i * n, n);
+        }
+        return new DistanceMatrix(graph, distances, averageSpeed);
+    }
+
+    /**
+     * Matrix for graph where one road between cities of this matrix was added
+     * or became shorter. Every pair is relaxed through new road in O(n * n),
+     * so there is no need to run Dijkstra again.
+     * <p>
+     * Doesn't work for removed or longer roads (paths through old road may be
+     * not the shortest any more) and for roads to new cities.
+     *
+     * @param changedGraph
+     *            graph with new road, must have same cities as this matrix
+     * @param cityId
+     * @param otherCityId
+     * @param roadDistance
+     *            new length of road
+     * @return new matrix, this matrix is not changed
+     * @throws IllegalArgumentException
+     *             if cities of changed graph are not the same
+     */
+    public DistanceMatrix withShorterRoad(RoadGraph changedGraph, int cityId,
+            int otherCityId, float roadDistance) {
+        int u = graph.indexOf(cityId);
+        int v = graph.indexOf(otherCityId);
+        if (u < 0 || v < 0 || !hasSameCities(changedGraph)) {
+            throw new IllegalArgumentException(
+                    "Road must connect cities that are already in matrix.");
+        }
+
+        float[] updated = distances.clone();
+        for (int i = 0; i < size; i++) {
+            float toU = distances[i * size + u];
+            float toV = distances[i * size + v];
+            for (int j = 0; j < size; j++) {
+                float throughRoad = Math.min(
+                        toU + roadDistance + distances[v * size + j],
+                        toV + roadDistance + distances[u * size + j]);
+                if (throughRoad < updated[i * size + j]) {
+                    updated[i * size + j] = throughRoad;
+                }
+            }
+        }
+        return new DistanceMatrix(changedGraph, updated, averageSpeed);
+    }
+
+    /**
+     * @param other
+     * @return true if other graph has same cities with same indexes
+     */
+    public boolean hasSameCities(RoadGraph other) {
+        if (other.size() != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (other.cityIdAt(i) != graph.cityIdAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return graph this matrix was built for
+     */
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @param cityId
+     * @return true if matrix has distances for city
+     */
+    public boolean containsCity(int cityId) {
+        return graph.indexOf(cityId) >= 0;
+    }
+
+    /**
+     * @param fromCityId
+     * @param toCityId
+     * @return shortest distance by roads in km, 0 for same city,
+     *         {@link RoadGraph#UNREACHABLE} if there is no path
+     */
+    public float getDistance(int fromCityId, int toCityId) {
+        if (fromCityId == toCityId) {
+            return 0;
+        }
+        int from = graph.indexOf(fromCityId);
+        int to = graph.indexOf(toCityId);
+        if (from < 0 || to < 0) {
+            return RoadGraph.UNREACHABLE;
+        }
+        return distances[from * size + to];
+    }
+
+    /**
+     * @param fromCityId
+     * @param toCityId
+     * @return travel time by shortest roads in hours,
+     *         {@link Float#POSITIVE_INFINITY} if there is no path
+     */
+    public float getTravelHours(int fromCityId, int toCityId) {
+        return getDistance(fromCityId, toCityId) / averageSpeed;
+    }
+
+    /**
+     * @return number of cities in matrix
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,208 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of trucks that are OK and not assigned to any order.
+ * <p>
+ * Trucks are kept in arrays sorted by cargo capacity: one for all trucks and
+ * one per city, so trucks that can take given weight are found by binary
+ * search. Changes create new index in O(n log n), which is fine for size of
+ * fleet and rare changes of trucks.
+ *
+ * @author Andrey Baliushin
+ */
+public final class FreeTruckIndex {
+
+    /**
+     * Data of free truck needed for suggestions.
+     *
+     * @author Andrey Baliushin
+     */
+    public static final class Entry {
+        private final int truckId;
+        private final String licencePlate;
+        private final int crewSize;
+        private final float cargoCapacity;
+        private final int cityId;
+
+        public Entry(int truckId, String licencePlate, int crewSize,
+                float cargoCapacity, int cityId) {
+            this.truckId = truckId;
+            this.licencePlate = licencePlate;
+            this.crewSize = crewSize;
+            this.cargoCapacity = cargoCapacity;
+            this.cityId = cityId;
+        }
+
+        public int getTruckId() {
+            return truckId;
+        }
+
+        public String getLicencePlate() {
+            return licencePlate;
+        }
+
+        public int getCrewSize() {
+            return crewSize;
+        }
+
+        public float getCargoCapacity() {
+            return cargoCapacity;
+        }
+
+        public int getCityId() {
+            return cityId;
+        }
+    }
+
+    private static final Comparator<Entry> BY_CAPACITY = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry e1, Entry e2) {
+            int byCapacity = Float.compare(e1.cargoCapacity, e2.cargoCapacity);
+            return byCapacity != 0 ? byCapacity : Integer.compare(e1.truckId,
+                    e2.truckId);
+        }
+    };
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final Map<Integer, Entry> byId;
+    private final Entry[] byCapacity;
+    private final Map<Integer, Entry[]> byCity;
+
+    private FreeTruckIndex(Map<Integer, Entry> byId) {
+        this.byId = byId;
+        this.byCapacity = byId.values().toArray(new Entry[byId.size()]);
+        Arrays.sort(byCapacity, BY_CAPACITY);
+
+        Map<Integer, List<Entry>> grouped = new HashMap<Integer, List<Entry>>();
+        for (Entry entry : byCapacity) {
+            List<Entry> inCity = grouped.get(entry.cityId);
+            if (inCity == null) {
+                inCity = new ArrayList<Entry>();
+                grouped.put(entry.cityId, inCity);
+            }
+            inCity.add(entry);
+        }
+        this.byCity = new HashMap<Integer, Entry[]>();
+        for (Map.Entry<Integer, List<Entry>> e : grouped.entrySet()) {
+            byCity.put(e.getKey(), e.getValue().toArray(new Entry[e.getValue().size()]));
+        }
+    }
+
+    /**
+     * @param entries
+     *            free trucks, one entry per truck
+     * @return new index
+     */
+    public static FreeTruckIndex build(Collection<Entry> entries) {
+        Map<Integer, Entry> byId = new HashMap<Integer, Entry>();
+        for (Entry entry : entries) {
+            byId.put(entry.truckId, entry);
+        }
+        return new FreeTruckIndex(byId);
+    }
+
+    /**
+     * @param entry
+     *            truck that became free or changed
+     * @return new index with entry instead of old entry of same truck
+     */
+    public FreeTruckIndex with(Entry entry) {
+        Map<Integer, Entry> changed = new HashMap<Integer, Entry>(byId);
+        changed.put(entry.truckId, entry);
+        return new FreeTruckIndex(changed);
+    }
+
+    /**
+     * @param truckId
+     *            truck that is not free any more
+     * @return new index without truck or this index if there is no such truck
+     */
+    public FreeTruckIndex without(int truckId) {
+        if (!byId.containsKey(truckId)) {
+            return this;
+        }
+        Map<Integer, Entry> changed = new HashMap<Integer, Entry>(byId);
+        changed.remove(truckId);
+        return new FreeTruckIndex(changed);
+    }
+
+    /**
+     * Best trucks that can carry given weight. Trucks in preferred city go
+     * first, then others; in each group trucks with least unused capacity go
+     * first. Takes O(log n + limit + k), where k is number of trucks in
+     * preferred city that can carry the weight: second pass goes over all
+     * trucks and skips those k entries.
+     *
+     * @param minCargoCapacity
+     * @param preferredCityId
+     *            city of first pickup (or 0 if unknown)
+     * @param limit
+     *            max number of trucks
+     * @return trucks in order of preference
+     */
+    public List<Entry> findBest(float minCargoCapacity, int preferredCityId,
+            int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<Entry> result = new ArrayList<Entry>(Math.min(limit, byId.size()));
+
+        Entry[] inCity = byCity.get(preferredCityId);
+        if (inCity == null) {
+            inCity = NO_ENTRIES;
+        }
+        for (int i = lowerBound(inCity, minCargoCapacity); i < inCity.length
+                && result.size() < limit; i++) {
+            result.add(inCity[i]);
+        }
+        for (int i = lowerBound(byCapacity, minCargoCapacity); i < byCapacity.length
+                && result.size() < limit; i++) {
+            if (byCapacity[i].cityId != preferredCityId) {
+                result.add(byCapacity[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param truckId
+     * @return true if truck is in index
+     */
+    public boolean contains(int truckId) {
+        return byId.containsKey(truckId);
+    }
+
+    /**
+     * @return number of free trucks
+     */
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * @return index of first entry with capacity not less than given
+     */
+    private static int lowerBound(Entry[] sorted, float capacity) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle].cargoCapacity < capacity) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
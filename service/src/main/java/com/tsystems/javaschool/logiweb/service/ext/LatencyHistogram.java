@@ -0,0 +1,125 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of call durations.
+ * <p>
+ * Durations are counted in microseconds in log-linear buckets: every power
+ * of two is split into {@value #SUB_BUCKETS} equal buckets, so percentile is
+ * known with error of at most 1/{@value #SUB_BUCKETS} of its value. Memory is
+ * constant, recording is a few atomic increments without locks, so
+ * histogram can stay on permanently for hot methods.
+ *
+ * @author Andrey Baliushin
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Longer durations are counted in last bucket (about 19 hours).
+     */
+    private static final int MAX_EXPONENT = 35;
+
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2)
+            * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * @param nanos
+     *            duration of call
+     * @param failed
+     *            true if call threw exception
+     */
+    public void record(long nanos, boolean failed) {
+        long micros = Math.max(0, nanos / 1000);
+        buckets.incrementAndGet(bucketOf(micros));
+        totalMicros.addAndGet(micros);
+        if (failed) {
+            errorCount.incrementAndGet();
+        }
+
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    /**
+     * Counters are read one by one while other threads may record, so
+     * statistics can be off by calls that are in progress.
+     *
+     * @param name
+     *            name of method in statistics
+     * @return statistics of all recorded calls
+     */
+    public MethodTimingStatistics getStatistics(String name) {
+        long[] counts = new long[BUCKETS];
+        long calls = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            calls += counts[i];
+        }
+        long max = maxMicros.get();
+
+        return new MethodTimingStatistics(name, calls, errorCount.get(),
+                calls == 0 ? 0 : toMillis(totalMicros.get()) / calls,
+                toMillis(percentile(counts, calls, 0.5, max)),
+                toMillis(percentile(counts, calls, 0.9, max)),
+                toMillis(percentile(counts, calls, 0.99, max)),
+                toMillis(max));
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros),
+                MAX_EXPONENT);
+        if (exponent == MAX_EXPONENT && micros >= 1L << (MAX_EXPONENT + 1)) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return largest duration that falls into bucket
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + subBucket) * width + width - 1;
+    }
+
+    private static long percentile(long[] counts, long calls, double quantile,
+            long max) {
+        if (calls == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * calls);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+/**
+ * Number of calls, errors and call durations of one service method since
+ * start of application. Durations are in milliseconds.
+ *
+ * @author Andrey Baliushin
+ */
+public class MethodTimingStatistics {
+
+    private final String method;
+    private final long callCount;
+    private final long errorCount;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p90Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    public MethodTimingStatistics(String method, long callCount,
+            long errorCount, double meanMillis, double p50Millis,
+            double p90Millis, double p99Millis, double maxMillis) {
+        this.method = method;
+        this.callCount = callCount;
+        this.errorCount = errorCount;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * @return class and method name, e.g. 'OrderService.findOrderById'
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+
+    /**
+     * @return number of calls that threw exception
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP90Millis() {
+        return p90Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * @return approximate time spent in method by all calls
+     */
+    public double getTotalMillis() {
+        return meanMillis * callCount;
+    }
+}
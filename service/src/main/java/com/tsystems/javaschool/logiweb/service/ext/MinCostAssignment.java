@@ -0,0 +1,181 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.Arrays;
+
+/**
+ * Min-cost assignment of rows to columns (Hungarian algorithm with
+ * potentials).
+ * <p>
+ * Every row gets at most one column and every column at most one row. Pairs
+ * may be forbidden, then as many rows as possible are assigned and among such
+ * assignments the cheapest one is returned. Matrix may be rectangular. Takes
+ * O(n * n * m) time for {@code n} rows and {@code m >= n} columns.
+ * <p>
+ * Costs may be given as sparse rows (only allowed pairs), then memory is
+ * O(n + m + number of allowed pairs) and no full matrix is built.
+ *
+ * @author Andrey Baliushin
+ */
+public final class MinCostAssignment {
+
+    /**
+     * Cost of pair that must not be assigned.
+     */
+    public static final double FORBIDDEN = Double.POSITIVE_INFINITY;
+
+    /**
+     * Column of row that got no allowed column.
+     */
+    public static final int UNASSIGNED = -1;
+
+    private MinCostAssignment() {
+    }
+
+    /**
+     * @param costs
+     *            matrix of rows, all rows must have same length; costs must
+     *            be non-negative or {@link #FORBIDDEN}
+     * @return for every row index of its column or {@link #UNASSIGNED}
+     */
+    public static int[] solve(double[][] costs) {
+        int rows = costs.length;
+        int columns = rows == 0 ? 0 : costs[0].length;
+        int[][] columnsOfRows = new int[rows][];
+        double[][] costsOfRows = new double[rows][];
+        for (int i = 0; i < rows; i++) {
+            int allowed = 0;
+            for (double cost : costs[i]) {
+                if (cost != FORBIDDEN) {
+                    allowed++;
+                }
+            }
+            columnsOfRows[i] = new int[allowed];
+            costsOfRows[i] = new double[allowed];
+            int k = 0;
+            for (int j = 0; j < columns; j++) {
+                if (costs[i][j] != FORBIDDEN) {
+                    columnsOfRows[i][k] = j;
+                    costsOfRows[i][k] = costs[i][j];
+                    k++;
+                }
+            }
+        }
+        return solve(columns, columnsOfRows, costsOfRows);
+    }
+
+    /**
+     * Sparse version: only allowed pairs are given, all other pairs are
+     * forbidden.
+     *
+     * @param columns
+     *            number of columns
+     * @param columnsOfRows
+     *            for every row its allowed columns in ascending order
+     * @param costsOfRows
+     *            for every row non-negative costs of its allowed columns (in
+     *            same order)
+     * @return for every row index of its column or {@link #UNASSIGNED}
+     */
+    public static int[] solve(int columns, int[][] columnsOfRows,
+            double[][] costsOfRows) {
+        int rows = columnsOfRows.length;
+        int[] result = new int[rows];
+        Arrays.fill(result, UNASSIGNED);
+        if (rows == 0 || columns == 0) {
+            return result;
+        }
+
+        /*
+         * Forbidden pairs and extra columns (when there are more rows than
+         * columns) cost more than any assignment of allowed pairs, so number
+         * of forbidden pairs in result is minimal.
+         */
+        double maxAllowed = 0;
+        for (double[] row : costsOfRows) {
+            for (double cost : row) {
+                if (cost > maxAllowed) {
+                    maxAllowed = cost;
+                }
+            }
+        }
+        double big = (maxAllowed + 1) * (rows + 1);
+
+        int[] assignedRow = solveSquareOrWide(columnsOfRows, costsOfRows, big,
+                rows, Math.max(rows, columns));
+        for (int j = 1; j <= columns; j++) {
+            int i = assignedRow[j];
+            if (i != 0 && Arrays.binarySearch(columnsOfRows[i - 1], j - 1) >= 0) {
+                result[i - 1] = j - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Classic shortest augmenting path version with row and column
+     * potentials, arrays are 1-based. Cost of row is read by walking its
+     * sorted allowed columns together with the column loop, missing pairs
+     * cost {@code big}.
+     *
+     * @return for every column row assigned to it or 0
+     */
+    private static int[] solveSquareOrWide(int[][] columnsOfRows,
+            double[][] costsOfRows, double big, int n, int m) {
+        double[] u = new double[n + 1];
+        double[] v = new double[m + 1];
+        int[] p = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minv = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                int[] rowColumns = columnsOfRows[i0 - 1];
+                double[] rowCosts = costsOfRows[i0 - 1];
+                int k = 0;
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    while (k < rowColumns.length && rowColumns[k] < j - 1) {
+                        k++;
+                    }
+                    if (!used[j]) {
+                        double cost = k < rowColumns.length
+                                && rowColumns[k] == j - 1 ? rowCosts[k] : big;
+                        double cur = cost - u[i0] - v[j];
+                        if (cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        return p;
+    }
+}
@@ -0,0 +1,82 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.Collection;
+
+/**
+ * Request for one page of list: page number, page size and sort key.
+ * 
+ * Sort key is attribute name, '-' prefix means descending order (ex.:
+ * 'surname' or '-surname'). Services resolve sort key against their own list
+ * of sortable attributes.
+ * 
+ * @author Andrey Baliushin
+ */
+public class PageRequest {
+    
+    public static final int DEFAULT_PAGE_SIZE = 25;
+    public static final int MAX_PAGE_SIZE = 200;
+    
+    private static final String DESCENDING_PREFIX = "-";
+    
+    private final int page;
+    private final int size;
+    private final String sort;
+
+    /**
+     * @param page
+     *            page number starting from 1 (values less than 1 are treated
+     *            as 1)
+     * @param size
+     *            page size (limited by {@link #MAX_PAGE_SIZE}, default is used
+     *            if less than 1)
+     * @param sort
+     *            sort key or null
+     */
+    public PageRequest(int page, int size, String sort) {
+        this.page = Math.max(page, 1);
+        this.size = size < 1 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        this.sort = sort;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+    
+    /**
+     * @return position of first record of this page (0 based)
+     */
+    public int getFirstResult() {
+        return (page - 1) * size;
+    }
+    
+    public boolean isAscending() {
+        return sort == null || !sort.startsWith(DESCENDING_PREFIX);
+    }
+    
+    /**
+     * Get attribute name from sort key if it is allowed.
+     * 
+     * @param allowedAttributes
+     * @param defaultAttribute
+     *            used if sort key is empty or not allowed
+     * @return attribute name
+     */
+    public String getSortAttribute(Collection<String> allowedAttributes,
+            String defaultAttribute) {
+        if (sort == null) {
+            return defaultAttribute;
+        }
+        
+        String attribute = isAscending() ? sort : sort.substring(DESCENDING_PREFIX.length());
+        return allowedAttributes.contains(attribute) ? attribute : defaultAttribute;
+    }
+
+}
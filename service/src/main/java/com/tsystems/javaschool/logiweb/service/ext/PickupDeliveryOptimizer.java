@@ -0,0 +1,414 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.Random;
+
+/**
+ * Heuristic solver of pickup-and-delivery problem for one truck.
+ * <p>
+ * Stops are visited starting from start point, delivery of cargo must come
+ * after its pickup and truck must never carry more than its capacity.
+ * Sequence without overload always wins over any sequence with overload, so
+ * capacity is exceeded only if no feasible sequence is found (e.g. one cargo
+ * is heavier than truck can take). Then sequence with the least overload is
+ * returned and it is up to caller to reject it, see
+ * {@link RouteInformation#isOverloaded()}. Among sequences with same overload
+ * shorter one is better.
+ * <p>
+ * First sequence is built by nearest feasible stop, then improved by local
+ * search (moving one stop, moving pickup and delivery of cargo together,
+ * reversing part of route). When local optimum is reached best route is
+ * randomly perturbed and improved again until time budget is over or several
+ * perturbations in a row give nothing.
+ * <p>
+ * Optimizer has no state except settings, so one instance can be used by
+ * many threads.
+ *
+ * @author Andrey Baliushin
+ */
+public final class PickupDeliveryOptimizer {
+
+    /**
+     * Value of {@code pickupOf} for stop that has no preceding stop.
+     */
+    public static final int NO_PICKUP = -1;
+
+    /**
+     * Perturbations in a row without improvement before search stops.
+     */
+    private static final int MAX_FAILED_PERTURBATIONS = 30;
+
+    private static final float EPSILON = 0.001f;
+
+    private final long timeBudgetMillis;
+
+    /**
+     * @param timeBudgetMillis
+     *            wall-clock time for one optimization, construction of first
+     *            route is never interrupted
+     */
+    public PickupDeliveryOptimizer(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    /**
+     * Find short sequence of stops.
+     *
+     * @param legDistances
+     *            row-major matrix of {@code (n + 1) * (n + 1)} distances
+     *            between points, point 0 is start, point {@code i + 1} is
+     *            stop {@code i}; may contain {@link RoadGraph#UNREACHABLE}
+     * @param pickupOf
+     *            for every stop index of stop that must be visited before it
+     *            or {@link #NO_PICKUP}
+     * @param loadChange
+     *            for every stop weight that is loaded (positive) or unloaded
+     *            (negative) there
+     * @param initialLoad
+     *            weight in truck at start
+     * @param capacity
+     *            max weight in truck, {@link Float#POSITIVE_INFINITY} if not
+     *            limited
+     * @param seed
+     *            seed of perturbations, same seed gives same route if time
+     *            budget is not reached
+     * @return indexes of stops in order of visiting
+     */
+    public int[] optimize(float[] legDistances, int[] pickupOf,
+            float[] loadChange, float initialLoad, float capacity, long seed) {
+        Search search = new Search(legDistances, pickupOf, loadChange,
+                initialLoad, capacity, System.nanoTime() + timeBudgetMillis
+                        * 1000000L, new Random(seed));
+        return search.run();
+    }
+
+    /**
+     * State of one optimization.
+     */
+    private static final class Search {
+
+        private final float[] legDistances;
+        private final int[] pickupOf;
+        private final float[] loadChange;
+        private final float initialLoad;
+        private final float capacity;
+        private final long deadline;
+        private final Random random;
+
+        private final int n;
+        private final int[] positions;
+        private final int[] deliveryOf;
+
+        Search(float[] legDistances, int[] pickupOf, float[] loadChange,
+                float initialLoad, float capacity, long deadline, Random random) {
+            this.legDistances = legDistances;
+            this.pickupOf = pickupOf;
+            this.loadChange = loadChange;
+            this.initialLoad = initialLoad;
+            this.capacity = capacity;
+            this.deadline = deadline;
+            this.random = random;
+            this.n = pickupOf.length;
+            this.positions = new int[n];
+            this.deliveryOf = new int[n];
+            for (int i = 0; i < n; i++) {
+                deliveryOf[i] = NO_PICKUP;
+            }
+            for (int i = 0; i < n; i++) {
+                if (pickupOf[i] != NO_PICKUP) {
+                    deliveryOf[pickupOf[i]] = i;
+                }
+            }
+        }
+
+        int[] run() {
+            int[] best = construct();
+            if (n < 3) {
+                return best;
+            }
+            improve(best);
+
+            int failed = 0;
+            int[] candidate = new int[n];
+            while (failed < MAX_FAILED_PERTURBATIONS && !timeIsOver()) {
+                System.arraycopy(best, 0, candidate, 0, n);
+                perturb(candidate);
+                improve(candidate);
+                if (isBetter(candidate, best)) {
+                    System.arraycopy(candidate, 0, best, 0, n);
+                    failed = 0;
+                } else {
+                    failed++;
+                }
+            }
+            return best;
+        }
+
+        private boolean timeIsOver() {
+            return System.nanoTime() - deadline >= 0;
+        }
+
+        /**
+         * Nearest stop that keeps precedence, stops that don't overload truck
+         * are preferred.
+         */
+        private int[] construct() {
+            int[] route = new int[n];
+            boolean[] visited = new boolean[n];
+            int current = -1;
+            float load = initialLoad;
+
+            for (int step = 0; step < n; step++) {
+                int best = -1;
+                boolean bestFits = false;
+                float bestDistance = 0;
+                for (int stop = 0; stop < n; stop++) {
+                    if (visited[stop]
+                            || (pickupOf[stop] != NO_PICKUP && !visited[pickupOf[stop]])) {
+                        continue;
+                    }
+                    boolean fits = load + loadChange[stop] <= capacity + EPSILON;
+                    float d = leg(current, stop);
+                    if (best == -1 || (fits && !bestFits)
+                            || (fits == bestFits && d < bestDistance)) {
+                        best = stop;
+                        bestFits = fits;
+                        bestDistance = d;
+                    }
+                }
+                route[step] = best;
+                visited[best] = true;
+                load += loadChange[best];
+                current = best;
+            }
+            return route;
+        }
+
+        /**
+         * First-improvement local search until no move helps or time is over.
+         */
+        private void improve(int[] route) {
+            int[] candidate = new int[n];
+            boolean improved = true;
+            while (improved && !timeIsOver()) {
+                improved = relocateStops(route, candidate)
+                        || relocateCargoes(route, candidate)
+                        || reverseSegments(route, candidate);
+            }
+        }
+
+        private boolean relocateStops(int[] route, int[] candidate) {
+            for (int from = 0; from < n; from++) {
+                for (int to = 0; to < n; to++) {
+                    if (to == from || to == from - 1) {
+                        continue;
+                    }
+                    move(route, candidate, from, to);
+                    if (acceptIfBetter(candidate, route)) {
+                        return true;
+                    }
+                }
+                if (timeIsOver()) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Take pickup and delivery of one cargo out and insert them at every
+         * pair of positions where pickup goes first.
+         */
+        private boolean relocateCargoes(int[] route, int[] candidate) {
+            int[] rest = new int[n];
+            for (int pickup = 0; pickup < n; pickup++) {
+                int delivery = deliveryOf[pickup];
+                if (delivery == NO_PICKUP) {
+                    continue;
+                }
+
+                int restSize = 0;
+                for (int stop : route) {
+                    if (stop != pickup && stop != delivery) {
+                        rest[restSize++] = stop;
+                    }
+                }
+                for (int p = 0; p <= restSize; p++) {
+                    for (int d = p; d <= restSize; d++) {
+                        insertPair(rest, restSize, candidate, pickup, p,
+                                delivery, d);
+                        if (acceptIfBetter(candidate, route)) {
+                            return true;
+                        }
+                    }
+                }
+                if (timeIsOver()) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private boolean reverseSegments(int[] route, int[] candidate) {
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    System.arraycopy(route, 0, candidate, 0, n);
+                    for (int a = i, b = j; a < b; a++, b--) {
+                        int tmp = candidate[a];
+                        candidate[a] = candidate[b];
+                        candidate[b] = tmp;
+                    }
+                    if (acceptIfBetter(candidate, route)) {
+                        return true;
+                    }
+                }
+                if (timeIsOver()) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Random relocation of several cargoes or single stops.
+         */
+        private void perturb(int[] route) {
+            int[] candidate = new int[n];
+            int[] rest = new int[n];
+            int moves = 1 + random.nextInt(Math.max(1, n / 4));
+            for (int m = 0; m < moves; m++) {
+                int stop = random.nextInt(n);
+                int pickup = pickupOf[stop] != NO_PICKUP ? pickupOf[stop] : stop;
+                int delivery = deliveryOf[pickup];
+
+                if (delivery == NO_PICKUP) {
+                    move(route, candidate, indexIn(route, pickup), random.nextInt(n));
+                } else {
+                    int restSize = 0;
+                    for (int s : route) {
+                        if (s != pickup && s != delivery) {
+                            rest[restSize++] = s;
+                        }
+                    }
+                    int p = random.nextInt(restSize + 1);
+                    int d = p + random.nextInt(restSize - p + 1);
+                    insertPair(rest, restSize, candidate, pickup, p, delivery, d);
+                }
+                if (keepsPrecedence(candidate)) {
+                    System.arraycopy(candidate, 0, route, 0, n);
+                }
+            }
+        }
+
+        private static int indexIn(int[] route, int stop) {
+            for (int i = 0; i < route.length; i++) {
+                if (route[i] == stop) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Copy of route where stop at position {@code from} is moved to
+         * position {@code to}.
+         */
+        private void move(int[] route, int[] candidate, int from, int to) {
+            int stop = route[from];
+            if (from < to) {
+                System.arraycopy(route, 0, candidate, 0, from);
+                System.arraycopy(route, from + 1, candidate, from, to - from);
+                candidate[to] = stop;
+                System.arraycopy(route, to + 1, candidate, to + 1, n - to - 1);
+            } else {
+                System.arraycopy(route, 0, candidate, 0, to);
+                candidate[to] = stop;
+                System.arraycopy(route, to, candidate, to + 1, from - to);
+                System.arraycopy(route, from + 1, candidate, from + 1, n - from - 1);
+            }
+        }
+
+        /**
+         * Insert pickup before {@code rest[p]} and delivery before
+         * {@code rest[d]} ({@code p <= d}).
+         */
+        private static void insertPair(int[] rest, int restSize,
+                int[] candidate, int pickup, int p, int delivery, int d) {
+            int k = 0;
+            for (int i = 0; i <= restSize; i++) {
+                if (i == p) {
+                    candidate[k++] = pickup;
+                }
+                if (i == d) {
+                    candidate[k++] = delivery;
+                }
+                if (i < restSize) {
+                    candidate[k++] = rest[i];
+                }
+            }
+        }
+
+        private boolean acceptIfBetter(int[] candidate, int[] route) {
+            if (keepsPrecedence(candidate) && isBetter(candidate, route)) {
+                System.arraycopy(candidate, 0, route, 0, n);
+                return true;
+            }
+            return false;
+        }
+
+        private boolean keepsPrecedence(int[] route) {
+            for (int i = 0; i < n; i++) {
+                positions[route[i]] = i;
+            }
+            for (int stop = 0; stop < n; stop++) {
+                if (pickupOf[stop] != NO_PICKUP
+                        && positions[pickupOf[stop]] > positions[stop]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Less overload wins, then shorter distance.
+         */
+        private boolean isBetter(int[] route, int[] than) {
+            float overload = overload(route);
+            float otherOverload = overload(than);
+            if (overload < otherOverload - EPSILON) {
+                return true;
+            }
+            if (overload > otherOverload + EPSILON) {
+                return false;
+            }
+            return distance(route) < distance(than) - EPSILON;
+        }
+
+        private float overload(int[] route) {
+            float load = initialLoad;
+            float overload = Math.max(0, load - capacity);
+            for (int stop : route) {
+                load += loadChange[stop];
+                overload += Math.max(0, load - capacity);
+            }
+            return overload;
+        }
+
+        private float distance(int[] route) {
+            float distance = 0;
+            int current = -1;
+            for (int stop : route) {
+                distance += leg(current, stop);
+                current = stop;
+            }
+            return distance;
+        }
+
+        /**
+         * @param from
+         *            stop or -1 for start point
+         */
+        private float leg(int from, int to) {
+            return legDistances[(from + 1) * (n + 1) + to + 1];
+        }
+    }
+}
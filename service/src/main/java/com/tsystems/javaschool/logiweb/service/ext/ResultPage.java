@@ -0,0 +1,64 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of list with information about its position in full list.
+ * 
+ * @author Andrey Baliushin
+ *
+ * @param <T> type of records
+ */
+public class ResultPage<T> {
+    
+    private final List<T> items;
+    private final int page;
+    private final int size;
+    private final long totalCount;
+
+    public ResultPage(List<T> items, PageRequest request, long totalCount) {
+        this.items = Collections.unmodifiableList(items);
+        this.page = request.getPage();
+        this.size = request.getSize();
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * @return records of this page in requested order
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return number of this page (starting from 1)
+     */
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return number of records in full list
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+    
+    public int getTotalPages() {
+        return (int) ((totalCount + size - 1) / size);
+    }
+    
+    public boolean isHasPrevious() {
+        return page > 1;
+    }
+    
+    public boolean isHasNext() {
+        return page < getTotalPages();
+    }
+
+}
@@ -0,0 +1,287 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.tsystems.javaschool.logiweb.dao.projections.RoadRow;
+
+/**
+ * Immutable weighted graph of two-way roads between cities.
+ * <p>
+ * Stored as compressed adjacency arrays: roads going out of city with index
+ * {@code i} are at positions {@code edgeOffsets[i]} (inclusive) to
+ * {@code edgeOffsets[i + 1]} (exclusive) of {@code edgeTargets} and
+ * {@code edgeDistances}. City ids are mapped to dense indexes by binary search
+ * over sorted {@code cityIds}. Graph never changes after creation, so it can be
+ * shared between threads; when roads change new graph replaces this one as a
+ * whole.
+ * <p>
+ * Shortest distances are found by Dijkstra algorithm with binary heap.
+ *
+ * @author Andrey Baliushin
+ */
+public final class RoadGraph {
+
+    /**
+     * Distance between cities that are not connected by roads.
+     */
+    public static final float UNREACHABLE = Float.POSITIVE_INFINITY;
+
+    private final int[] cityIds;
+    private final int[] edgeOffsets;
+    private final int[] edgeTargets;
+    private final float[] edgeDistances;
+
+    /**
+     * @param roads
+     *            two-way roads, roads with negative length or loops are
+     *            ignored
+     */
+    public RoadGraph(Collection<RoadRow> roads) {
+        int[] ids = new int[roads.size() * 2];
+        int idCount = 0;
+        for (RoadRow road : roads) {
+            ids[idCount++] = road.getFromCityId();
+            ids[idCount++] = road.getToCityId();
+        }
+        Arrays.sort(ids, 0, idCount);
+        int unique = 0;
+        for (int i = 0; i < idCount; i++) {
+            if (unique == 0 || ids[unique - 1] != ids[i]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        this.cityIds = Arrays.copyOf(ids, unique);
+
+        int[] degree = new int[unique + 1];
+        for (RoadRow road : roads) {
+            if (isValid(road)) {
+                degree[indexOf(road.getFromCityId())]++;
+                degree[indexOf(road.getToCityId())]++;
+            }
+        }
+
+        this.edgeOffsets = new int[unique + 1];
+        for (int i = 0; i < unique; i++) {
+            edgeOffsets[i + 1] = edgeOffsets[i] + degree[i];
+        }
+
+        this.edgeTargets = new int[edgeOffsets[unique]];
+        this.edgeDistances = new float[edgeOffsets[unique]];
+        int[] next = Arrays.copyOf(edgeOffsets, unique);
+        for (RoadRow road : roads) {
+            if (isValid(road)) {
+                int from = indexOf(road.getFromCityId());
+                int to = indexOf(road.getToCityId());
+                addEdge(next, from, to, road.getDistance());
+                addEdge(next, to, from, road.getDistance());
+            }
+        }
+    }
+
+    private static boolean isValid(RoadRow road) {
+        return road.getDistance() >= 0
+                && road.getFromCityId() != road.getToCityId();
+    }
+
+    private void addEdge(int[] next, int from, int to, float distance) {
+        int position = next[from]++;
+        edgeTargets[position] = to;
+        edgeDistances[position] = distance;
+    }
+
+    /**
+     * @return number of cities that have at least one road
+     */
+    public int size() {
+        return cityIds.length;
+    }
+
+    /**
+     * @return number of two-way roads
+     */
+    public int roadCount() {
+        return edgeTargets.length / 2;
+    }
+
+    /**
+     * @param cityId
+     * @return dense index of city (0 to size - 1) or negative value if city
+     *         has no roads
+     */
+    public int indexOf(int cityId) {
+        return Arrays.binarySearch(cityIds, cityId);
+    }
+
+    /**
+     * @param index
+     *            dense index of city
+     * @return id of city
+     */
+    public int cityIdAt(int index) {
+        return cityIds[index];
+    }
+
+    /**
+     * Shortest distances from city to every city of graph.
+     *
+     * @param fromCityId
+     * @return array indexed by {@link #indexOf(int)}, {@link #UNREACHABLE}
+     *         for cities without path; null if city has no roads
+     */
+    public float[] shortestDistancesFrom(int fromCityId) {
+        int source = indexOf(fromCityId);
+        if (source < 0) {
+            return null;
+        }
+        return dijkstra(source, -1, null);
+    }
+
+    /**
+     * Length of shortest path between cities.
+     *
+     * @param fromCityId
+     * @param toCityId
+     * @return distance in km, 0 for same city, {@link #UNREACHABLE} if there
+     *         is no path
+     */
+    public float shortestDistance(int fromCityId, int toCityId) {
+        if (fromCityId == toCityId) {
+            return 0;
+        }
+        int source = indexOf(fromCityId);
+        int target = indexOf(toCityId);
+        if (source < 0 || target < 0) {
+            return UNREACHABLE;
+        }
+        return dijkstra(source, target, null)[target];
+    }
+
+    /**
+     * Cities on shortest path between cities.
+     *
+     * @param fromCityId
+     * @param toCityId
+     * @return ids of cities from first to last (both included), empty list if
+     *         there is no path
+     */
+    public List<Integer> shortestPath(int fromCityId, int toCityId) {
+        if (fromCityId == toCityId) {
+            return Collections.singletonList(fromCityId);
+        }
+        int source = indexOf(fromCityId);
+        int target = indexOf(toCityId);
+        if (source < 0 || target < 0) {
+            return Collections.emptyList();
+        }
+
+        int[] previous = new int[cityIds.length];
+        float[] distances = dijkstra(source, target, previous);
+        if (distances[target] == UNREACHABLE) {
+            return Collections.emptyList();
+        }
+
+        List<Integer> path = new ArrayList<Integer>();
+        for (int node = target; node != -1; node = previous[node]) {
+            path.add(cityIds[node]);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Dijkstra with binary heap of (distance, node) pairs kept in primitive
+     * arrays. Stale heap entries are skipped instead of decreasing keys.
+     *
+     * @param target
+     *            node where search may stop, or -1 to reach all nodes
+     * @param previous
+     *            filled with previous node on shortest path (-1 for source),
+     *            may be null
+     */
+    private float[] dijkstra(int source, int target, int[] previous) {
+        int n = cityIds.length;
+        float[] distances = new float[n];
+        Arrays.fill(distances, UNREACHABLE);
+        boolean[] settled = new boolean[n];
+        if (previous != null) {
+            Arrays.fill(previous, -1);
+        }
+
+        float[] heapKeys = new float[edgeTargets.length + 1];
+        int[] heapNodes = new int[edgeTargets.length + 1];
+        int heapSize = 0;
+
+        distances[source] = 0;
+        heapSize = heapPush(heapKeys, heapNodes, heapSize, 0, source);
+
+        while (heapSize > 0) {
+            int node = heapNodes[0];
+            heapSize = heapPop(heapKeys, heapNodes, heapSize);
+            if (settled[node]) {
+                continue;
+            }
+            settled[node] = true;
+            if (node == target) {
+                break;
+            }
+
+            for (int e = edgeOffsets[node]; e < edgeOffsets[node + 1]; e++) {
+                int next = edgeTargets[e];
+                float candidate = distances[node] + edgeDistances[e];
+                if (!settled[next] && candidate < distances[next]) {
+                    distances[next] = candidate;
+                    if (previous != null) {
+                        previous[next] = node;
+                    }
+                    heapSize = heapPush(heapKeys, heapNodes, heapSize,
+                            candidate, next);
+                }
+            }
+        }
+        return distances;
+    }
+
+    private static int heapPush(float[] keys, int[] nodes, int size,
+            float key, int node) {
+        int i = size;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[i] = keys[parent];
+            nodes[i] = nodes[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        nodes[i] = node;
+        return size + 1;
+    }
+
+    private static int heapPop(float[] keys, int[] nodes, int size) {
+        int last = size - 1;
+        float key = keys[last];
+        int node = nodes[last];
+        int i = 0;
+        int half = last >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < last && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            keys[i] = keys[child];
+            nodes[i] = nodes[child];
+            i = child;
+        }
+        keys[i] = key;
+        nodes[i] = node;
+        return last;
+    }
+}
@@ -0,0 +1,143 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.tsystems.javaschool.logiweb.dao.projections.CacheRegionRow;
+
+/**
+ * Bounded cache of calculated routes of orders.
+ * <p>
+ * Route is stored with version of its order and with road graph it was
+ * calculated on, and is returned only while both are current. Version of
+ * order is increased by {@link #invalidate(int)} whenever cargoes, truck or
+ * status of order change. Versions are kept in fixed number of stripes
+ * shared by orders with same remainder of id, so they take constant memory;
+ * invalidation of one order may only cause extra miss for another one.
+ * <p>
+ * Route that was calculated while its order was invalidated is stored with
+ * old version and is never returned. Least recently used routes are evicted
+ * when cache is full.
+ *
+ * @author Andrey Baliushin
+ */
+public final class RouteCache {
+
+    private static final int VERSION_STRIPES = 1024;
+
+    private final String name;
+    private final Map<Integer, Entry> entries;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong putCount = new AtomicLong();
+
+    /**
+     * @param name
+     *            name of cache in statistics
+     * @param capacity
+     *            max number of routes
+     */
+    public RouteCache(String name, final int capacity) {
+        this.name = name;
+        this.entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Version to pass to {@link #put} later. Must be taken before order is
+     * read from DB.
+     *
+     * @param orderId
+     * @return current version of order
+     */
+    public long getVersion(int orderId) {
+        return versions.get(stripe(orderId));
+    }
+
+    /**
+     * @param orderId
+     * @param graph
+     *            current road graph
+     * @return route or null if there is no route for current version of
+     *         order and graph
+     */
+    public RouteInformation get(int orderId, RoadGraph graph) {
+        long version = getVersion(orderId);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(orderId);
+        }
+        if (entry != null && entry.version == version && entry.graph == graph) {
+            hitCount.incrementAndGet();
+            return entry.route;
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * @param orderId
+     * @param version
+     *            version of order taken before calculation of route
+     * @param graph
+     *            road graph route was calculated on
+     * @param route
+     */
+    public void put(int orderId, long version, RoadGraph graph,
+            RouteInformation route) {
+        synchronized (entries) {
+            entries.put(orderId, new Entry(version, graph, route));
+        }
+        putCount.incrementAndGet();
+    }
+
+    /**
+     * Make cached route of order outdated.
+     *
+     * @param orderId
+     */
+    public void invalidate(int orderId) {
+        versions.incrementAndGet(stripe(orderId));
+        synchronized (entries) {
+            entries.remove(orderId);
+        }
+    }
+
+    /**
+     * @return counters since start of application
+     */
+    public CacheRegionRow getStatistics() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheRegionRow(name, hitCount.get(), missCount.get(),
+                putCount.get(), size);
+    }
+
+    private static int stripe(int orderId) {
+        return orderId & (VERSION_STRIPES - 1);
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final RoadGraph graph;
+        private final RouteInformation route;
+
+        Entry(long version, RoadGraph graph, RouteInformation route) {
+            this.version = version;
+            this.graph = graph;
+            this.route = route;
+        }
+    }
+}
@@ -32,6 +32,7 @@ public class RouteInformation {
         private OperationWithCargo operation;
         private City city;
         private Cargo cargo;
+        private float loadAfterOperation;
         
         public Waypoint(OperationWithCargo operation, City city, Cargo cargo) {
             this.operation = operation;
@@ -61,19 +62,38 @@ public class RouteInformation {
 
         public void setCargo(Cargo cargo) {
             this.cargo = cargo;
-        }    
+        }
+
+        /**
+         * Weight of all cargoes in truck when it leaves this waypoint.
+         * @return
+         */
+        public float getLoadAfterOperation() {
+            return loadAfterOperation;
+        }
+
+        public void setLoadAfterOperation(float loadAfterOperation) {
+            this.loadAfterOperation = loadAfterOperation;
+        }
     }
     
     private float estimatedTime;
     private float maxWeightOnCourse;
     private List<Waypoint> bestOrderOfDelivery;
+    private boolean overloaded;
     
     public RouteInformation(float estimatedTime, float maxWeightOnCourse,
             List<Waypoint> bestOrderOfDelivery) {
+        this(estimatedTime, maxWeightOnCourse, bestOrderOfDelivery, false);
+    }
+
+    public RouteInformation(float estimatedTime, float maxWeightOnCourse,
+            List<Waypoint> bestOrderOfDelivery, boolean overloaded) {
         super();
         this.estimatedTime = estimatedTime;
         this.maxWeightOnCourse = maxWeightOnCourse;
         this.bestOrderOfDelivery = bestOrderOfDelivery;
+        this.overloaded = overloaded;
     }
 
     /**
@@ -85,7 +105,8 @@ public class RouteInformation {
     }
     
     /**
-     * Max cargo weight during delivery.
+     * Max cargo weight during delivery: peak of load of truck along
+     * {@link #getBestOrderOfDelivery()}.
      * @return
      */
     public float getMaxWeightOnCourse() {
@@ -101,6 +122,16 @@ public class RouteInformation {
         return bestOrderOfDelivery;
     }
 
+    /**
+     * Assigned truck can't deliver order: there is no order of delivery that
+     * keeps load within truck capacity, so {@link #getMaxWeightOnCourse()} is
+     * more than capacity. Always false for order without truck.
+     * @return
+     */
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
     public RouteInformation() {
     }
 
@@ -115,6 +146,10 @@ public class RouteInformation {
     public void setBestOrderOfDelivery(List<Waypoint> bestOrderOfDelivery) {
         this.bestOrderOfDelivery = bestOrderOfDelivery;
     }
+
+    public void setOverloaded(boolean overloaded) {
+        this.overloaded = overloaded;
+    }
     
     
 }
@@ -1,5 +1,9 @@
 package com.tsystems.javaschool.logiweb.service.impl;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.transaction.Transactional;
@@ -13,6 +17,7 @@ import com.tsystems.javaschool.logiweb.dao.CargoDao;
 import com.tsystems.javaschool.logiweb.dao.CityDao;
 import com.tsystems.javaschool.logiweb.dao.DeliveryOrderDao;
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CargoRow;
 import com.tsystems.javaschool.logiweb.entities.Cargo;
 import com.tsystems.javaschool.logiweb.entities.City;
 import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
@@ -20,27 +25,36 @@ import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
 import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
 import com.tsystems.javaschool.logiweb.model.CargoModel;
 import com.tsystems.javaschool.logiweb.model.ext.ModelToEntityConverter;
+import com.tsystems.javaschool.logiweb.model.ext.RowToModelConverter;
 import com.tsystems.javaschool.logiweb.service.CargoService;
+import com.tsystems.javaschool.logiweb.service.RouteService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.RecordNotFoundServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
 
 @Service
 public class CargoServiceImpl implements CargoService {
 
     private static final Logger LOG = Logger
             .getLogger(CargoServiceImpl.class);
+    
+    private static final List<String> SORTABLE_ATTRIBUTES = Arrays.asList(
+            "id", "title", "weight", "status");
 
     private CargoDao cargoDao;
     private CityDao cityDao;
     private DeliveryOrderDao deliveryOrderDao;
+    private RouteService routeService;
 
     @Autowired
     public CargoServiceImpl(CargoDao cargoDao, CityDao cityDao,
-            DeliveryOrderDao deliveryOrderDao) {
+            DeliveryOrderDao deliveryOrderDao, RouteService routeService) {
         this.cargoDao = cargoDao;
         this.cityDao = cityDao;
         this.deliveryOrderDao = deliveryOrderDao;
+        this.routeService = routeService;
     }
 
     /**
@@ -51,7 +65,7 @@ public class CargoServiceImpl implements CargoService {
     public void setPickedUpStatus(int cargoId) throws IllegalStateException,
             RecordNotFoundServiceException, LogiwebServiceException {
         try {
-            Cargo c = cargoDao.find(cargoId);
+            Cargo c = cargoDao.find(cargoId, Cargo.GRAPH_WITH_ORDER);
             if (c == null) {
                 throw new RecordNotFoundServiceException();
             }
@@ -68,6 +82,7 @@ public class CargoServiceImpl implements CargoService {
 
             c.setStatus(CargoStatus.PICKED_UP);
             cargoDao.update(c);
+            routeService.evictRouteInformation(c.getOrderForThisCargo().getId());
         } catch (DaoException e) {
             LOG.warn("Something unexcpected happend.");
             throw new LogiwebServiceException(e);
@@ -82,7 +97,7 @@ public class CargoServiceImpl implements CargoService {
     public void setDeliveredStatus(int cargoId) throws IllegalStateException,
             RecordNotFoundServiceException, LogiwebServiceException {
         try {
-            Cargo c = cargoDao.find(cargoId);
+            Cargo c = cargoDao.find(cargoId, Cargo.GRAPH_WITH_ORDER);
             if (c == null) {
                 throw new RecordNotFoundServiceException();
             }
@@ -99,6 +114,7 @@ public class CargoServiceImpl implements CargoService {
 
             c.setStatus(CargoStatus.DELIVERED);
             cargoDao.update(c);
+            routeService.evictRouteInformation(c.getOrderForThisCargo().getId());
         } catch (DaoException e) {
             LOG.warn("Something unexcpected happend.");
             throw new LogiwebServiceException(e);
@@ -109,7 +125,7 @@ public class CargoServiceImpl implements CargoService {
     @Transactional
     public Cargo findById(int cargoId) throws LogiwebServiceException {
         try {
-            return cargoDao.find(cargoId);
+            return cargoDao.find(cargoId, Cargo.GRAPH_WITH_ORDER);
         } catch (DaoException e) {
             LOG.warn("Something unexpected happend.", e);
             throw new LogiwebServiceException(e);
@@ -123,7 +139,38 @@ public class CargoServiceImpl implements CargoService {
     @Transactional
     public Set<Cargo> findAllCargoes() throws LogiwebServiceException {
         try {
-            return cargoDao.findAll();
+            return cargoDao.findAll(Cargo.GRAPH_WITH_ORDER);
+        } catch (DaoException e) {
+            LOG.warn("Something unexcpected happend.");
+            throw new LogiwebServiceException(e);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public ResultPage<CargoModel> findCargoesPage(CargoStatus status,
+            Integer orderId, PageRequest pageRequest) throws LogiwebServiceException {
+        try {
+            Map<String, Object> filters = new HashMap<String, Object>();
+            if (status != null) {
+                filters.put("status", status);
+            }
+            if (orderId != null) {
+                filters.put("orderForThisCargo.id", orderId);
+            }
+            
+            List<CargoRow> rows = cargoDao.findRowsFiltered(filters,
+                    pageRequest.getSortAttribute(SORTABLE_ATTRIBUTES, "id"),
+                    pageRequest.isAscending(), pageRequest.getFirstResult(),
+                    pageRequest.getSize());
+            long totalCount = cargoDao.countFiltered(filters);
+            
+            return new ResultPage<CargoModel>(
+                    RowToModelConverter.convertCargoRowsToModels(rows),
+                    pageRequest, totalCount);
         } catch (DaoException e) {
             LOG.warn("Something unexcpected happend.");
             throw new LogiwebServiceException(e);
@@ -157,6 +204,7 @@ public class CargoServiceImpl implements CargoService {
             newCargoAsEntity.setStatus(CargoStatus.WAITING_FOR_PICKUP);
             
             cargoDao.create(newCargoAsEntity);
+            routeService.evictRouteInformation(orderForCargo.getId());
             LOG.info("New cargo with id #" + newCargoAsEntity.getId() + "created for irder id #" + orderForCargo.getId());
         } catch (DaoException e) {         
             LOG.warn("Something unexpected happend.", e);
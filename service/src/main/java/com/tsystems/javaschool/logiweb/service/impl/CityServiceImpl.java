@@ -1,7 +1,9 @@
 package com.tsystems.javaschool.logiweb.service.impl;
 
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javax.annotation.PostConstruct;
 import javax.transaction.Transactional;
 
 import org.apache.log4j.Logger;
@@ -13,39 +15,75 @@ import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
 import com.tsystems.javaschool.logiweb.entities.City;
 import com.tsystems.javaschool.logiweb.service.CityService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.ext.CityRegistry;
 
 /**
  * Data manipulation and business logic related to Cities.
- * 
+ *
  * @author Andrey Baliushin
  */
 @Service
 public class CityServiceImpl implements CityService {
-    
+
     private static final Logger LOG = Logger.getLogger(CityServiceImpl.class);
-    
+
     private CityDao cityDao;
 
+    /**
+     * Current snapshot. Null until first successful load.
+     */
+    private final AtomicReference<CityRegistry> registry = new AtomicReference<CityRegistry>();
+
     @Autowired
     public CityServiceImpl(CityDao cityDao) {
         this.cityDao = cityDao;
     }
 
-    @Override
-    @Transactional
-    public City findById(int id) throws LogiwebServiceException {
+    /**
+     * Load registry on startup. If DB is not available yet registry will be
+     * loaded on first read.
+     */
+    @PostConstruct
+    public void loadCitiesOnStartup() {
         try {
-            return cityDao.find(id);
-        } catch (DaoException e) {
-            LOG.warn("Something unexcpected happend.");
-            throw new LogiwebServiceException(e);
+            reloadCities();
+        } catch (LogiwebServiceException e) {
+            LOG.warn("Cities were not loaded on startup.", e);
         }
     }
-    
+
+    @Override
+    public City findById(int id) throws LogiwebServiceException {
+        return getCityRegistry().getById(id);
+    }
+
     @Override
     public Set<City> findAllCities() throws LogiwebServiceException {
+        return getCityRegistry().getAll();
+    }
+
+    @Override
+    public City findByName(String name) throws LogiwebServiceException {
+        return getCityRegistry().getByName(name);
+    }
+
+    @Override
+    public CityRegistry getCityRegistry() throws LogiwebServiceException {
+        CityRegistry current = registry.get();
+        if (current == null) {
+            reloadCities();
+            current = registry.get();
+        }
+        return current;
+    }
+
+    @Override
+    @Transactional
+    public void reloadCities() throws LogiwebServiceException {
         try {
-            return cityDao.findAll();
+            CityRegistry loaded = new CityRegistry(cityDao.findAll());
+            registry.set(loaded);
+            LOG.info("City registry loaded: " + loaded.size() + " cities.");
         } catch (DaoException e) {
             LOG.warn("Something unexcpected happend.");
             throw new LogiwebServiceException(e);
@@ -1,10 +1,13 @@
 package com.tsystems.javaschool.logiweb.service.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -17,12 +20,16 @@ import org.springframework.stereotype.Service;
 
 import com.tsystems.javaschool.logiweb.dao.CityDao;
 import com.tsystems.javaschool.logiweb.dao.DriverDao;
+import com.tsystems.javaschool.logiweb.dao.DriverMonthlyHoursDao;
 import com.tsystems.javaschool.logiweb.dao.DriverShiftJournaDao;
 import com.tsystems.javaschool.logiweb.dao.TruckDao;
 import com.tsystems.javaschool.logiweb.dao.UserDao;
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.DriverCandidateRow;
+import com.tsystems.javaschool.logiweb.dao.projections.DriverRow;
 import com.tsystems.javaschool.logiweb.entities.City;
 import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.DriverMonthlyHours;
 import com.tsystems.javaschool.logiweb.entities.DriverShiftJournal;
 import com.tsystems.javaschool.logiweb.entities.LogiwebUser;
 import com.tsystems.javaschool.logiweb.entities.Truck;
@@ -30,11 +37,14 @@ import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
 import com.tsystems.javaschool.logiweb.entities.status.UserRole;
 import com.tsystems.javaschool.logiweb.model.DriverModel;
 import com.tsystems.javaschool.logiweb.model.ext.ModelToEntityConverter;
+import com.tsystems.javaschool.logiweb.model.ext.RowToModelConverter;
 import com.tsystems.javaschool.logiweb.service.DriverService;
 import com.tsystems.javaschool.logiweb.service.UserService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.RecordNotFoundServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
 import com.tsystems.javaschool.logiweb.utils.DateUtils;
 
 /**
@@ -47,19 +57,25 @@ public class DriverServiceImpl implements DriverService {
     
     private static final Logger LOG = Logger.getLogger(DriverServiceImpl.class);
     
+    private static final List<String> SORTABLE_ATTRIBUTES = Arrays.asList(
+            "employeeId", "name", "surname", "status");
+    
     private DriverDao driverDao;
     private TruckDao truckDao;
     private DriverShiftJournaDao driverShiftJournalDao;
+    private DriverMonthlyHoursDao driverMonthlyHoursDao;
     private UserService userService;
     private UserDao userDao;
     private CityDao cityDao;
       
     @Autowired
     public DriverServiceImpl(DriverDao driverDao, TruckDao truckDao,
-            DriverShiftJournaDao shiftDao, UserService userService, UserDao userDao, CityDao cityDao) {
+            DriverShiftJournaDao shiftDao, DriverMonthlyHoursDao monthlyHoursDao,
+            UserService userService, UserDao userDao, CityDao cityDao) {
         this.driverDao = driverDao;
         this.truckDao = truckDao;
         this.driverShiftJournalDao = shiftDao;
+        this.driverMonthlyHoursDao = monthlyHoursDao;
 	this.userService = userService;
 	this.userDao = userDao;
 	this.cityDao = cityDao;
@@ -72,13 +88,44 @@ public class DriverServiceImpl implements DriverService {
     @Transactional
     public Set<DriverModel> findAllDrivers() throws LogiwebServiceException {
         try {
-            return ModelToEntityConverter.convertDriversToModels(driverDao.findAll());
+            return ModelToEntityConverter.convertDriversToModels(driverDao.findAll(Driver.GRAPH_WITH_TRUCK));
         } catch (DaoException e) {
             LOG.warn("Something unexcpected happend.");
             throw new LogiwebServiceException(e);
         } 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public ResultPage<DriverModel> findDriversPage(DriverStatus status,
+            Integer cityId, PageRequest pageRequest) throws LogiwebServiceException {
+        try {
+            Map<String, Object> filters = new HashMap<String, Object>();
+            if (status != null) {
+                filters.put("status", status);
+            }
+            if (cityId != null) {
+                filters.put("currentCity.id", cityId);
+            }
+            
+            List<DriverRow> rows = driverDao.findRowsFiltered(filters,
+                    pageRequest.getSortAttribute(SORTABLE_ATTRIBUTES, "surname"),
+                    pageRequest.isAscending(), pageRequest.getFirstResult(),
+                    pageRequest.getSize());
+            long totalCount = driverDao.countFiltered(filters);
+            
+            return new ResultPage<DriverModel>(
+                    RowToModelConverter.convertDriverRowsToModels(rows),
+                    pageRequest, totalCount);
+        } catch (DaoException e) {
+            LOG.warn("Something unexcpected happend.");
+            throw new LogiwebServiceException(e);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -86,7 +133,7 @@ public class DriverServiceImpl implements DriverService {
     @Transactional
     public DriverModel findDriverById(int id) throws LogiwebServiceException {
         try {
-            Driver d = driverDao.find(id);
+            Driver d = driverDao.find(id, Driver.GRAPH_WITH_TRUCK);
             if (d != null) {
                 return ModelToEntityConverter.convertToModel(d);
             } else {
@@ -103,9 +150,35 @@ public class DriverServiceImpl implements DriverService {
      */
     @Override
     @Transactional
-    public Driver findDriverByEmployeeId(int employeeId) throws LogiwebServiceException {
+    public Set<DriverModel> findDriversByIds(Collection<Integer> ids) throws LogiwebServiceException {
+        try {
+            return ModelToEntityConverter.convertDriversToModels(driverDao.findByIds(ids, Driver.GRAPH_WITH_TRUCK));
+        } catch (DaoException e) {
+            LOG.warn("Something unexcpected happend.");
+            throw new LogiwebServiceException(e);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public DriverModel findDriverByEmployeeId(int employeeId) throws LogiwebServiceException {
         try {
-            return driverDao.findByEmployeeId(employeeId);
+            Driver driver = driverDao.findByEmployeeId(employeeId);
+            if (driver == null) {
+                return null;
+            }
+            
+            // lookup may be served from query cache (without fetch joins), so
+            // model is built here while truck and order can still be loaded
+            DriverModel model = ModelToEntityConverter.convertToModel(driver);
+            if (model.getOrderId() != null) {
+                model.setOrderStatus(driver.getCurrentTruck()
+                        .getAssignedDeliveryOrder().getStatus());
+            }
+            return model;
         } catch (DaoException e) {
             LOG.warn("Something unexcpected happend.");
             throw new LogiwebServiceException(e);
@@ -269,14 +342,14 @@ public class DriverServiceImpl implements DriverService {
             
             Set<Driver> freeDriversInCity = driverDao
                     .findByCityWhereNotAssignedToTruck(city);
-            Set<DriverShiftJournal> journals = driverShiftJournalDao
-                    .findThisMonthJournalsForDrivers(freeDriversInCity);
+            Map<Integer, Float> hoursByDriverId = readWorkingHoursLedger(
+                    collectDriverIds(freeDriversInCity));
             
-            Map<Driver, Float> workingHoursData = sumWorkingHoursForThisMonth(journals);
-            for (Driver driver : freeDriversInCity) {   //add drivers that don't yet have journals
-                if(workingHoursData.get(driver) == null) {
-                    workingHoursData.put(driver, 0f);
-                }
+            Map<Driver, Float> workingHoursData = new HashMap<Driver, Float>();
+            for (Driver driver : freeDriversInCity) {
+                Float hours = hoursByDriverId.get(driver.getId());
+                //drivers that don't yet have journals in this month
+                workingHoursData.put(driver, hours == null ? 0f : hours);
             }
             
             filterDriversByMaxWorkingHours(workingHoursData, workingHoursMaxLimit);
@@ -288,6 +361,30 @@ public class DriverServiceImpl implements DriverService {
         }
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public List<DriverModel> findRankedCandidatesForCrew(int cityId,
+            float workingHoursMaxLimit, int limit) throws LogiwebServiceException {
+        try {
+            List<DriverCandidateRow> rows = driverDao
+                    .findRankedCandidateRowsByCityWhereNotAssignedToTruck(cityId,
+                            DateUtils.getFirstDateOfCurrentMonth(),
+                            workingHoursMaxLimit, limit);
+            
+            List<DriverModel> candidates = new ArrayList<DriverModel>(rows.size());
+            for (DriverCandidateRow row : rows) {
+                candidates.add(RowToModelConverter.convertToModel(row));
+            }
+            return candidates;
+        } catch (DaoException e) {
+            LOG.warn(e);
+            throw new LogiwebServiceException(e);
+        }
+    }
+    
     /**
      * {@inheritDoc}
      * @throws LogiwebServiceException 
@@ -318,18 +415,33 @@ public class DriverServiceImpl implements DriverService {
     @Transactional
     public float calculateWorkingHoursForDriver(int driverId) throws LogiwebServiceException {
         try {
-            Driver driver = driverDao.find(driverId); //get managed entity
-            
-            Set<DriverShiftJournal> journals = driverShiftJournalDao
-                    .findThisMonthJournalsForDrivers(driver);
-            Map<Driver, Float> workingHours = sumWorkingHoursForThisMonth(journals);
+            DriverMonthlyHours ledgerRecord = driverMonthlyHoursDao
+                    .findByDriverIdAndMonth(driverId,
+                            DateUtils.getFirstDateOfCurrentMonth());
             
             //if driver don't have any records yet
-            if (workingHours.get(driver) == null) {
-                workingHours.put(driver, 0f);
+            return ledgerRecord == null ? 0f : calculateHoursSoFar(ledgerRecord, new Date());
+        } catch (DaoException e) {
+            LOG.warn(e);
+            throw new LogiwebServiceException(e);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public Map<Integer, Float> calculateWorkingHoursForDrivers(
+            Collection<Integer> driverIds) throws LogiwebServiceException {
+        try {
+            Map<Integer, Float> workingHours = readWorkingHoursLedger(driverIds);
+            for (Integer driverId : driverIds) {
+                if (workingHours.get(driverId) == null) {
+                    workingHours.put(driverId, 0f);
+                }
             }
-            
-            return workingHours.get(driver);
+            return workingHours;
         } catch (DaoException e) {
             LOG.warn(e);
             throw new LogiwebServiceException(e);
@@ -337,51 +449,197 @@ public class DriverServiceImpl implements DriverService {
     }
     
     /**
-     * Calculate total working hours for Drivers that are listed in Shift journals.
+     * Read working hours for this month from ledger.
+     * 
+     * @param driverIds
+     * @return map with driver id as key and hours so far as value. Drivers
+     *         without ledger record are not present in map.
+     * @throws DaoException
+     */
+    private Map<Integer, Float> readWorkingHoursLedger(
+            Collection<Integer> driverIds) throws DaoException {
+        Date now = new Date();
+        Set<DriverMonthlyHours> ledgerRecords = driverMonthlyHoursDao
+                .findByDriverIdsAndMonth(driverIds,
+                        DateUtils.getFirstDateOfCurrentMonth());
+        
+        Map<Integer, Float> workingHours = new HashMap<Integer, Float>();
+        for (DriverMonthlyHours ledgerRecord : ledgerRecords) {
+            workingHours.put(ledgerRecord.getDriverId(),
+                    calculateHoursSoFar(ledgerRecord, now));
+        }
+        return workingHours;
+    }
+    
+    /**
+     * Hours of finished shifts plus hours of open shift (trimmed to month of
+     * ledger record) up until now.
      * 
-     * @param journal
-     * @return Map with Driver as keys and working hours as values.
+     * @param ledgerRecord
+     * @param now
+     * @return hours
      */
-    private Map<Driver, Float> sumWorkingHoursForThisMonth(
-            Collection<DriverShiftJournal> journal) {
+    private float calculateHoursSoFar(DriverMonthlyHours ledgerRecord, Date now) {
+        return calculateHoursSoFar(ledgerRecord.getFinishedShiftsHours(),
+                ledgerRecord.getOpenShiftBeggined(), ledgerRecord.getMonth(), now);
+    }
+    
+    private float calculateHoursSoFar(float finishedShiftsHours,
+            Date openShiftBeggined, Date monthStart, Date now) {
+        float hours = finishedShiftsHours;
+        
+        if (openShiftBeggined != null) {
+            Date monthEnd = DateUtils.getFirstDateOfNextMonth(monthStart);
+            Date from = openShiftBeggined.before(monthStart) ? monthStart : openShiftBeggined;
+            Date to = now.after(monthEnd) ? monthEnd : now;
+            if (from.before(to)) {
+                hours += DateUtils.diffInHours(from, to);
+            }
+        }
+        return hours;
+    }
     
-        Map<Driver, Float> workingHoursForDrivers = new HashMap<Driver, Float>();
+    /**
+     * Find ledger record of driver for month or create new empty one.
+     * <p>
+     * Caller must hold lock of driver row ({@link DriverDao#lockForUpdate}),
+     * otherwise concurrent transactions can both create record for same month.
+     * 
+     * @param driverId
+     * @param month first day of month
+     * @return managed ledger record
+     * @throws DaoException
+     */
+    private DriverMonthlyHours findOrCreateLedgerRecord(int driverId, Date month) throws DaoException {
+        DriverMonthlyHours ledgerRecord = driverMonthlyHoursDao
+                .findByDriverIdAndMonth(driverId, month);
         
-        Date firstDayOfCurrentMonth = DateUtils.getFirstDateOfCurrentMonth();
-        Date firstDayOfNextMonth = DateUtils.getFirstDayOfNextMonth();
+        if (ledgerRecord == null) {
+            ledgerRecord = new DriverMonthlyHours();
+            ledgerRecord.setDriverId(driverId);
+            ledgerRecord.setMonth(month);
+            driverMonthlyHoursDao.create(ledgerRecord);
+        }
+        return ledgerRecord;
+    }
+    
+    /**
+     * Add finished shift to ledger. Shift is split by month boundaries and
+     * hours are added to record of every month that shift touches. Open shift
+     * mark is removed from those records.
+     * 
+     * @param driverId
+     * @param shiftBeggined
+     * @param shiftEnded
+     * @throws DaoException
+     */
+    private void addFinishedShiftToLedger(int driverId, Date shiftBeggined,
+            Date shiftEnded) throws DaoException {
+        Date monthStart = DateUtils.getFirstDateOfMonth(shiftBeggined);
         
-        for (DriverShiftJournal j : journal) {
-            Driver driver = j.getDriverForThisRecord();
-            Date shiftBeggined = j.getShiftBeggined();
-            Date shiftEnded = j.getShiftEnded();
+        do {
+            Date nextMonthStart = DateUtils.getFirstDateOfNextMonth(monthStart);
+            Date from = shiftBeggined.before(monthStart) ? monthStart : shiftBeggined;
+            Date to = shiftEnded.after(nextMonthStart) ? nextMonthStart : shiftEnded;
             
-            /*
-             * If shift ended after or before current month
-             * we trim it by limiting shift end to first day of next
-             * month (00:00:00) and  shift start to first day of month (00:00:00).
-             * if shift is not yet ended -- set Now as upper limit.            * 
-             */
-            if (shiftEnded == null) {
-                shiftEnded = new Date();
-            }
-            if (shiftBeggined.getTime() < firstDayOfCurrentMonth.getTime()) {
-                shiftBeggined = firstDayOfCurrentMonth;
-            }
-            if (shiftEnded.getTime() > firstDayOfNextMonth.getTime()) {
-                shiftEnded = firstDayOfNextMonth;
+            DriverMonthlyHours ledgerRecord = findOrCreateLedgerRecord(driverId, monthStart);
+            if (from.before(to)) {
+                ledgerRecord.setFinishedShiftsHours(ledgerRecord
+                        .getFinishedShiftsHours() + DateUtils.diffInHours(from, to));
             }
+            ledgerRecord.setOpenShiftBeggined(null);
+            driverMonthlyHoursDao.update(ledgerRecord);
             
-            float shiftDuration = DateUtils.diffInHours(shiftBeggined, shiftEnded);
-            Float totalHoursForDriver = workingHoursForDrivers.get(driver);
-            
-            if(totalHoursForDriver == null) {
-                workingHoursForDrivers.put(driver, shiftDuration);
-            } else {
-                workingHoursForDrivers.put(driver, totalHoursForDriver + shiftDuration);
+            monthStart = nextMonthStart;
+        } while (monthStart.before(shiftEnded));
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void rebuildWorkingHoursLedgerForThisMonth() throws LogiwebServiceException {
+        try {
+            // shifts can't start or end until ledger is rebuilt
+            driverDao.lockAllForUpdate();
+            rebuildWorkingHoursLedger(DateUtils.getFirstDateOfCurrentMonth());
+        } catch (DaoException e) {
+            LOG.warn(e);
+            throw new LogiwebServiceException(e);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public boolean rebuildWorkingHoursLedgerForThisMonthIfMissing()
+            throws LogiwebServiceException {
+        try {
+            driverDao.lockAllForUpdate();
+            Date month = DateUtils.getFirstDateOfCurrentMonth();
+            if (driverMonthlyHoursDao.countForMonth(month) > 0) {
+                return false;
+            }
+            rebuildWorkingHoursLedger(month);
+            return true;
+        } catch (DaoException e) {
+            LOG.warn(e);
+            throw new LogiwebServiceException(e);
+        }
+    }
+    
+    /**
+     * Replace ledger records for month with records calculated from shift
+     * journal. Caller must hold locks of all drivers.
+     */
+    private void rebuildWorkingHoursLedger(Date month) throws DaoException {
+        driverMonthlyHoursDao.deleteAllForMonth(month);
+        
+        Map<Integer, DriverMonthlyHours> ledger = new HashMap<Integer, DriverMonthlyHours>();
+        Map<Integer, Float> finishedShiftsHours = driverShiftJournalDao
+                .sumFinishedShiftsHoursForMonth(month);
+        for (Entry<Integer, Float> e : finishedShiftsHours.entrySet()) {
+            DriverMonthlyHours ledgerRecord = new DriverMonthlyHours();
+            ledgerRecord.setDriverId(e.getKey());
+            ledgerRecord.setMonth(month);
+            ledgerRecord.setFinishedShiftsHours(e.getValue());
+            ledger.put(e.getKey(), ledgerRecord);
+        }
+        
+        for (DriverShiftJournal openShift : driverShiftJournalDao.findAllUnfinishedShifts()) {
+            int driverId = openShift.getDriverForThisRecord().getId();
+            DriverMonthlyHours ledgerRecord = ledger.get(driverId);
+            if (ledgerRecord == null) {
+                ledgerRecord = new DriverMonthlyHours();
+                ledgerRecord.setDriverId(driverId);
+                ledgerRecord.setMonth(month);
+                ledger.put(driverId, ledgerRecord);
             }
+            ledgerRecord.setOpenShiftBeggined(openShift.getShiftBeggined());
+        }
+        
+        for (DriverMonthlyHours ledgerRecord : ledger.values()) {
+            driverMonthlyHoursDao.create(ledgerRecord);
         }
         
-        return workingHoursForDrivers;        
+        LOG.info("Working hours ledger rebuilt for " + month + ". Records: " + ledger.size());
+    }
+    
+    /**
+     * Collect ids of drivers.
+     * 
+     * @param drivers
+     * @return ids of drivers or empty set
+     */
+    private Set<Integer> collectDriverIds(Collection<Driver> drivers) {
+        Set<Integer> ids = new HashSet<Integer>();
+        for (Driver driver : drivers) {
+            ids.add(driver.getId());
+        }
+        return ids;
     }
     
     /**
@@ -412,29 +670,75 @@ public class DriverServiceImpl implements DriverService {
     public void assignDriverToTruck(int driverId, int truckId) throws ServiceValidationException, LogiwebServiceException {
         try {
             Driver driver = driverDao.find(driverId);
-            Truck truck = truckDao.find(truckId);
+            Truck truck = truckDao.find(truckId, Truck.GRAPH_WITH_CREW);
             
             if(driver == null || truck == null) {
                 throw new ServiceValidationException("Driver and truck must exist.");
             }
             
-            Set<Driver> truckCrew = truck.getDrivers();
-            if(truckCrew == null) {
-                truckCrew = new HashSet<Driver>();
-                truck.setDrivers(truckCrew);
+            addDriverToCrew(driver, truck);
+        } catch (DaoException e) {
+            LOG.warn(e);
+            throw new LogiwebServiceException(e);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(rollbackOn = LogiwebServiceException.class)
+    public void assignDriversToTruck(Collection<Integer> driverIds, int truckId)
+            throws ServiceValidationException, LogiwebServiceException {
+        try {
+            Set<Integer> uniqueDriverIds = new HashSet<Integer>(driverIds);
+            Set<Driver> drivers = driverDao.findByIds(uniqueDriverIds);
+            Truck truck = truckDao.find(truckId, Truck.GRAPH_WITH_CREW);
+            
+            if (truck == null || drivers.size() != uniqueDriverIds.size()) {
+                throw new ServiceValidationException("Driver and truck must exist.");
+            }
+            
+            // Check before any change, so crew is never filled partially
+            Set<Driver> newCrewMembers = new HashSet<Driver>(drivers);
+            if (truck.getDrivers() != null) {
+                newCrewMembers.removeAll(truck.getDrivers());
             }
-        
-            if(truckCrew.size() < truck.getCrewSize()) {
-                truckCrew.add(driver);
-                driver.setCurrentTruck(truck);
-            } else {
-                throw new ServiceValidationException("All crew positions are occupied. Can't add Driver to crew.");
+            int crewSize = truck.getDrivers() == null ? 0 : truck.getDrivers().size();
+            if (crewSize + newCrewMembers.size() > truck.getCrewSize()) {
+                throw new ServiceValidationException("Not enough free crew positions. Can't add Drivers to crew.");
+            }
+            
+            for (Driver driver : drivers) {
+                addDriverToCrew(driver, truck);
             }
         } catch (DaoException e) {
             LOG.warn(e);
             throw new LogiwebServiceException(e);
         }
     }
+    
+    /**
+     * Add driver to truck crew if there is free crew position.
+     * 
+     * @param driver
+     * @param truck
+     * @throws ServiceValidationException if crew is full
+     */
+    private void addDriverToCrew(Driver driver, Truck truck) throws ServiceValidationException {
+        Set<Driver> truckCrew = truck.getDrivers();
+        if(truckCrew == null) {
+            truckCrew = new HashSet<Driver>();
+            truck.setDrivers(truckCrew);
+        }
+    
+        if(truckCrew.size() < truck.getCrewSize()) {
+            truckCrew.add(driver);
+            driver.setCurrentTruck(truck);
+        } else {
+            throw new ServiceValidationException("All crew positions are occupied. Can't add Driver to crew.");
+        }
+    }
 
     @Override
     @Transactional
@@ -477,6 +781,7 @@ public class DriverServiceImpl implements DriverService {
                 throw new ServiceValidationException(
                         "Provide valid driver employee id.");
             }
+            driverDao.lockForUpdate(driver);
             if (driver.getStatus() != DriverStatus.FREE) {
                 throw new ServiceValidationException("Driver must be free to start new shift.");
             }
@@ -495,6 +800,11 @@ public class DriverServiceImpl implements DriverService {
 
             driverShiftJournalDao.create(newShift);
             
+            DriverMonthlyHours ledgerRecord = findOrCreateLedgerRecord(
+                    driver.getId(), DateUtils.getFirstDateOfMonth(newShift.getShiftBeggined()));
+            ledgerRecord.setOpenShiftBeggined(newShift.getShiftBeggined());
+            driverMonthlyHoursDao.update(ledgerRecord);
+            
             driver.setStatus(DriverStatus.RESTING_EN_ROUT);
             driverDao.update(driver);
         } catch (DaoException e) {
@@ -513,6 +823,7 @@ public class DriverServiceImpl implements DriverService {
                 throw new ServiceValidationException(
                         "Provide valid driver employee id.");
             }
+            driverDao.lockForUpdate(driver);
             DriverShiftJournal unfinishedShift = driverShiftJournalDao
                     .findUnfinishedShiftForDriver(driver);
 
@@ -523,6 +834,8 @@ public class DriverServiceImpl implements DriverService {
             
             unfinishedShift.setShiftEnded(new Date());
             driverShiftJournalDao.update(unfinishedShift);   
+            addFinishedShiftToLedger(driver.getId(),
+                    unfinishedShift.getShiftBeggined(), unfinishedShift.getShiftEnded());
             
             driver.setStatus(DriverStatus.FREE);
             driverDao.update(driver);
@@ -0,0 +1,77 @@
+package com.tsystems.javaschool.logiweb.service.impl;
+
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.tsystems.javaschool.logiweb.dao.CacheStatisticsDao;
+import com.tsystems.javaschool.logiweb.dao.ConnectionPoolStatisticsDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CacheRegionRow;
+import com.tsystems.javaschool.logiweb.dao.projections.ConnectionPoolRow;
+import com.tsystems.javaschool.logiweb.service.MonitoringService;
+import com.tsystems.javaschool.logiweb.service.RouteService;
+import com.tsystems.javaschool.logiweb.service.aspects.TimingAspect;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.ext.MethodTimingStatistics;
+
+/**
+ * Runtime statistics of application for managers.
+ *
+ * @author Andrey Baliushin
+ */
+@Service
+public class MonitoringServiceImpl implements MonitoringService {
+
+    private static final Logger LOG = Logger.getLogger(MonitoringServiceImpl.class);
+
+    private CacheStatisticsDao cacheStatisticsDao;
+    private ConnectionPoolStatisticsDao connectionPoolStatisticsDao;
+    private RouteService routeService;
+    private TimingAspect timingAspect;
+
+    @Autowired
+    public MonitoringServiceImpl(CacheStatisticsDao cacheStatisticsDao,
+            ConnectionPoolStatisticsDao connectionPoolStatisticsDao,
+            RouteService routeService, TimingAspect timingAspect) {
+        this.cacheStatisticsDao = cacheStatisticsDao;
+        this.connectionPoolStatisticsDao = connectionPoolStatisticsDao;
+        this.routeService = routeService;
+        this.timingAspect = timingAspect;
+    }
+
+    @Override
+    public List<CacheRegionRow> getCacheRegionStatistics()
+            throws LogiwebServiceException {
+        try {
+            return cacheStatisticsDao.findRegionStatistics();
+        } catch (DaoException e) {
+            LOG.warn("Something unexcpected happend.");
+            throw new LogiwebServiceException(e);
+        }
+    }
+
+    @Override
+    public ConnectionPoolRow getConnectionPoolStatistics()
+            throws LogiwebServiceException {
+        try {
+            return connectionPoolStatisticsDao.findPoolStatistics();
+        } catch (DaoException e) {
+            LOG.warn("Something unexcpected happend.");
+            throw new LogiwebServiceException(e);
+        }
+    }
+
+    @Override
+    public CacheRegionRow getRouteCacheStatistics() {
+        return routeService.getRouteCacheStatistics();
+    }
+
+    @Override
+    public List<MethodTimingStatistics> getServiceMethodTimings() {
+        return timingAspect.getStatistics();
+    }
+
+}
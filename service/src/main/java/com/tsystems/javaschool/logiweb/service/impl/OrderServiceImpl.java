@@ -1,5 +1,11 @@
 package com.tsystems.javaschool.logiweb.service.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.transaction.Transactional;
@@ -8,21 +14,33 @@ import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.tsystems.javaschool.logiweb.dao.CargoDao;
 import com.tsystems.javaschool.logiweb.dao.DeliveryOrderDao;
 import com.tsystems.javaschool.logiweb.dao.TruckDao;
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CargoRow;
+import com.tsystems.javaschool.logiweb.dao.projections.OrderRow;
 import com.tsystems.javaschool.logiweb.entities.Cargo;
 import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
+import com.tsystems.javaschool.logiweb.entities.Driver;
 import com.tsystems.javaschool.logiweb.entities.Truck;
 import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
 import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
 import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
 import com.tsystems.javaschool.logiweb.model.OrderModel;
 import com.tsystems.javaschool.logiweb.model.ext.ModelToEntityConverter;
+import com.tsystems.javaschool.logiweb.model.ext.RowToModelConverter;
 import com.tsystems.javaschool.logiweb.service.OrderService;
+import com.tsystems.javaschool.logiweb.service.RouteService;
+import com.tsystems.javaschool.logiweb.service.TrucksService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.RecordNotFoundServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.CargoDeliveryResult;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
 
 /**
  * Data manipulation and business logic related to 
@@ -34,24 +52,70 @@ import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationExcep
 public class OrderServiceImpl implements OrderService {
 
     private static final Logger LOG = Logger.getLogger(OrderServiceImpl.class);
+    
+    private static final List<String> SORTABLE_ATTRIBUTES = Arrays.asList(
+            "id", "status");
         
     private DeliveryOrderDao deliveryOrderDao;
     private TruckDao truckDao;
+    private CargoDao cargoDao;
+    private RouteService routeService;
+    private TrucksService trucksService;
 
     @Autowired
-    public OrderServiceImpl(DeliveryOrderDao deliveryOrderDao, TruckDao truckDao) {
+    public OrderServiceImpl(DeliveryOrderDao deliveryOrderDao, TruckDao truckDao,
+            CargoDao cargoDao, RouteService routeService,
+            TrucksService trucksService) {
         this.deliveryOrderDao = deliveryOrderDao;
         this.truckDao = truckDao;
+        this.cargoDao = cargoDao;
+        this.routeService = routeService;
+        this.trucksService = trucksService;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
+    @Transactional
     public Set<OrderModel> findAllOrders() throws LogiwebServiceException {
         try {
             return ModelToEntityConverter
-                    .convertOrdersToModels(deliveryOrderDao.findAll());
+                    .convertOrdersToModels(deliveryOrderDao.findAll(DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK));
+        } catch (DaoException e) {
+            LOG.warn("Something unexcpected happend.");
+            throw new LogiwebServiceException(e);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public ResultPage<OrderModel> findOrdersPage(OrderStatus status,
+            PageRequest pageRequest) throws LogiwebServiceException {
+        try {
+            Map<String, Object> filters = new HashMap<String, Object>();
+            if (status != null) {
+                filters.put("status", status);
+            }
+            
+            List<OrderRow> rows = deliveryOrderDao.findRowsFiltered(filters,
+                    pageRequest.getSortAttribute(SORTABLE_ATTRIBUTES, "id"),
+                    pageRequest.isAscending(), pageRequest.getFirstResult(),
+                    pageRequest.getSize());
+            long totalCount = deliveryOrderDao.countFiltered(filters);
+            
+            List<Integer> orderIds = new ArrayList<Integer>(rows.size());
+            for (OrderRow row : rows) {
+                orderIds.add(row.getId());
+            }
+            List<CargoRow> cargoes = cargoDao.findRowsByOrderIds(orderIds);
+            
+            return new ResultPage<OrderModel>(
+                    RowToModelConverter.convertOrderRowsToModels(rows, cargoes),
+                    pageRequest, totalCount);
         } catch (DaoException e) {
             LOG.warn("Something unexcpected happend.");
             throw new LogiwebServiceException(e);
@@ -81,9 +145,10 @@ public class OrderServiceImpl implements OrderService {
      * {@inheritDoc}
      */
     @Override
+    @Transactional
     public OrderModel findOrderById(int id) throws LogiwebServiceException {
         try {
-            DeliveryOrder o = deliveryOrderDao.find(id);
+            DeliveryOrder o = deliveryOrderDao.find(id, DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK);
             if (o == null) {
                 return null;
             } else {
@@ -126,11 +191,19 @@ public class OrderServiceImpl implements OrderService {
                         + " must have cargo.");
             }
             
+            Cargo tooHeavy = findCargoHeavierThanTruckCapacity(order, truck);
+            if (tooHeavy != null) {
+                throw new ServiceValidationException("Cargo #"
+                        + tooHeavy.getId() + " is heavier than capacity of truck.");
+            }
+            
             truck.setAssignedDeliveryOrder(order);
             order.setAssignedTruck(truck);
             
             deliveryOrderDao.update(order);
             truckDao.update(truck);
+            trucksService.updateFreeTruckIndex(truck.getId());
+            routeService.evictRouteInformation(order.getId());
             LOG.info("Truck id#" + truck.getId() + " assign to order id#" + order.getId());
         } catch (DaoException e) {
             LOG.warn("Something unexpected happened.", e);
@@ -146,7 +219,7 @@ public class OrderServiceImpl implements OrderService {
     public void setReadyStatusForOrder(int orderId)
             throws ServiceValidationException, LogiwebServiceException {
         try {
-            DeliveryOrder order = deliveryOrderDao.find(orderId); 
+            DeliveryOrder order = deliveryOrderDao.find(orderId, DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK); 
             
             if (order == null) {
                 throw new ServiceValidationException("Order does not exist.");
@@ -169,8 +242,16 @@ public class OrderServiceImpl implements OrderService {
                         "Order must be in NOT READY STATE.");
             }
             
+            RouteInformation route = routeService
+                    .getRouteInformationForOrder(orderId);
+            if (route != null && route.isOverloaded()) {
+                throw new ServiceValidationException(
+                        "Order can't be delivered without exceeding capacity of truck.");
+            }
+            
             order.setStatus(OrderStatus.READY_TO_GO);
             deliveryOrderDao.update(order);
+            routeService.evictRouteInformation(order.getId());
             LOG.info("Order id#" + order.getId() + " changed status to " + OrderStatus.READY_TO_GO);
         } catch (DaoException e) {
             LOG.warn("Something unexpected happened.", e);
@@ -178,6 +259,27 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
+    /**
+     * Any route of order overloads truck if one of its cargoes alone is too
+     * heavy. Otherwise cargoes can at least be carried one at a time.
+     * 
+     * @return such cargo or null if there is none or truck capacity is unknown
+     */
+    private static Cargo findCargoHeavierThanTruckCapacity(DeliveryOrder order,
+            Truck truck) {
+        if (truck.getCargoCapacity() == null) {
+            return null;
+        }
+        for (Cargo cargo : order.getAssignedCargoes()) {
+            if (cargo.getStatus() != CargoStatus.DELIVERED
+                    && cargo.getWeight() != null
+                    && cargo.getWeight() > truck.getCargoCapacity()) {
+                return cargo;
+            }
+        }
+        return null;
+    }
+
     @Override
     @Transactional
     public boolean isAllCargoesInOrderDelivered(int orderId)
@@ -214,6 +316,7 @@ public class OrderServiceImpl implements OrderService {
             if (isAllCargoesInOrderDelivered(orderId)) {
                 order.setStatus(OrderStatus.DELIVERED);
                 deliveryOrderDao.update(order);
+                routeService.evictRouteInformation(order.getId());
                 LOG.info("Order id#" + order.getId() + " changed status to "
                         + OrderStatus.DELIVERED);
             } else {
@@ -225,4 +328,82 @@ public class OrderServiceImpl implements OrderService {
             throw new LogiwebServiceException(e);
         }    
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(rollbackOn = LogiwebServiceException.class)
+    public CargoDeliveryResult deliverCargo(int cargoId)
+            throws IllegalStateException, RecordNotFoundServiceException,
+            LogiwebServiceException {
+        try {
+            DeliveryOrder order = deliveryOrderDao.findByCargoId(cargoId,
+                    DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK);
+            if (order == null) {
+                throw new RecordNotFoundServiceException();
+            }
+            
+            Cargo cargo = null;
+            int undelivered = 0;
+            for (Cargo c : order.getAssignedCargoes()) {
+                if (c.getId() == cargoId) {
+                    cargo = c;
+                } else if (c.getStatus() != CargoStatus.DELIVERED) {
+                    undelivered++;
+                }
+            }
+            
+            if (order.getStatus() != OrderStatus.READY_TO_GO) {
+                throw new IllegalStateException(
+                        "Order for cargo must be in 'Ready to go' state");
+            }
+            if (cargo.getStatus() != CargoStatus.PICKED_UP) {
+                throw new IllegalStateException(
+                        "Cargo must be in 'Picked up' state");
+            }
+            
+            cargo.setStatus(CargoStatus.DELIVERED);
+            cargoDao.update(cargo);
+            routeService.evictRouteInformation(order.getId());
+            LOG.info("Cargo id#" + cargoId + " changed status to "
+                    + CargoStatus.DELIVERED);
+            
+            if (undelivered > 0) {
+                return new CargoDeliveryResult(cargoId, order.getId(),
+                        order.getStatus(), undelivered, null,
+                        new HashSet<Integer>());
+            }
+            
+            order.setStatus(OrderStatus.DELIVERED);
+            LOG.info("Order id#" + order.getId() + " changed status to "
+                    + OrderStatus.DELIVERED);
+            
+            Truck truck = order.getAssignedTruck();
+            Integer releasedTruckId = null;
+            Set<Integer> releasedDriverIds = new HashSet<Integer>();
+            if (truck != null) {
+                for (Driver driver : truck.getDrivers()) {
+                    driver.setCurrentTruck(null);
+                    driver.setStatus(DriverStatus.FREE);
+                    releasedDriverIds.add(driver.getId());
+                }
+                truck.setDrivers(new HashSet<Driver>());
+                truck.setAssignedDeliveryOrder(null);
+                order.setAssignedTruck(null);
+                truckDao.update(truck);
+                trucksService.updateFreeTruckIndex(truck.getId());
+                releasedTruckId = truck.getId();
+                LOG.info("Truck id#" + truck.getId()
+                        + " and its drivers removed from order.");
+            }
+            deliveryOrderDao.update(order);
+            
+            return new CargoDeliveryResult(cargoId, order.getId(),
+                    order.getStatus(), 0, releasedTruckId, releasedDriverIds);
+        } catch (DaoException e) {
+            LOG.warn("Something unexpected happened.", e);
+            throw new LogiwebServiceException(e);
+        }
+    }
 }
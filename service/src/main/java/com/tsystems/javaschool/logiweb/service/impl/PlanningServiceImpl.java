@@ -0,0 +1,500 @@
+package com.tsystems.javaschool.logiweb.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.transaction.Transactional;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.tsystems.javaschool.logiweb.dao.DeliveryOrderDao;
+import com.tsystems.javaschool.logiweb.dao.DriverDao;
+import com.tsystems.javaschool.logiweb.dao.TruckDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.Truck;
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
+import com.tsystems.javaschool.logiweb.service.DriverService;
+import com.tsystems.javaschool.logiweb.service.OrderService;
+import com.tsystems.javaschool.logiweb.service.PlanningService;
+import com.tsystems.javaschool.logiweb.service.RouteService;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.DeliveryPlan;
+import com.tsystems.javaschool.logiweb.service.ext.DeliveryPlan.Assignment;
+import com.tsystems.javaschool.logiweb.service.ext.FreeTruckIndex;
+import com.tsystems.javaschool.logiweb.service.ext.MinCostAssignment;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
+
+/**
+ * Automatic assignment of trucks and drivers to orders.
+ * <p>
+ * Orders and trucks are matched by {@link MinCostAssignment}. Every order
+ * gets a bounded list of candidate trucks from {@link FreeTruckIndex} (by
+ * capacity and city of first pickup), so costs are kept as sparse rows
+ * instead of full orders x trucks matrix. Pair is allowed if truck can reach
+ * first pickup and there are enough free drivers with enough hours in city of
+ * truck. Cost of pair is distance to first pickup plus small penalty for
+ * unused capacity, so big trucks are left for heavy orders.
+ * <p>
+ * Drivers are then given to matched trucks starting from the longest order,
+ * every truck gets drivers with the least hours left that are still enough.
+ * If two trucks in one city compete for same drivers, pair that didn't get
+ * crew is forbidden and matching is repeated.
+ *
+ * @author Andrey Baliushin
+ */
+@Service
+public class PlanningServiceImpl implements PlanningService {
+
+    private static final Logger LOG = Logger.getLogger(PlanningServiceImpl.class);
+
+    /**
+     * Cost of one unit of unused truck capacity, km.
+     */
+    private static final float UNUSED_CAPACITY_COST = 1f;
+
+    /**
+     * Max number of trucks considered for one order: trucks in city of first
+     * pickup go first, then others; in each group trucks with least unused
+     * capacity go first (see {@link FreeTruckIndex#findBest}).
+     */
+    private static final int CANDIDATE_TRUCKS_PER_ORDER = 20;
+
+    /**
+     * Max number of repeated matchings after conflicts for drivers, after
+     * that orders without crew are left unplanned.
+     */
+    private static final int MAX_REPLANS = 10;
+
+    @Value("${bussines.maxWorkingHours}")
+    private float maxWorkingHours = 176;
+
+    private DeliveryOrderDao deliveryOrderDao;
+    private TruckDao truckDao;
+    private DriverDao driverDao;
+    private RouteService routeService;
+    private DriverService driverService;
+    private OrderService orderService;
+
+    @Autowired
+    public PlanningServiceImpl(DeliveryOrderDao deliveryOrderDao,
+            TruckDao truckDao, DriverDao driverDao, RouteService routeService,
+            DriverService driverService, OrderService orderService) {
+        this.deliveryOrderDao = deliveryOrderDao;
+        this.truckDao = truckDao;
+        this.driverDao = driverDao;
+        this.routeService = routeService;
+        this.driverService = driverService;
+        this.orderService = orderService;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public DeliveryPlan createPlan() throws LogiwebServiceException {
+        try {
+            List<Integer> orderIds = deliveryOrderDao
+                    .findIdsByStatusWithCargoesAndWithoutTruck(OrderStatus.NOT_READY);
+            Set<Integer> unplanned = new TreeSet<Integer>(orderIds);
+            if (orderIds.isEmpty()) {
+                return new DeliveryPlan(new ArrayList<Assignment>(), unplanned);
+            }
+
+            Map<Integer, RouteInformation> routes = routeService
+                    .getRouteInformationForOrders(orderIds);
+            List<PlannedOrder> orders = new ArrayList<PlannedOrder>();
+            for (Integer orderId : orderIds) {
+                RouteInformation route = routes.get(orderId);
+                if (route != null && !route.getBestOrderOfDelivery().isEmpty()
+                        && !Float.isInfinite(route.getEstimatedTime())) {
+                    orders.add(new PlannedOrder(orderId, route));
+                }
+            }
+
+            List<Truck> trucks = new ArrayList<Truck>(
+                    truckDao.findByMinCapacityWhereStatusOkAndNotAssignedToOrder(0));
+            Collections.sort(trucks, new Comparator<Truck>() {
+                @Override
+                public int compare(Truck t1, Truck t2) {
+                    return Integer.compare(t1.getId(), t2.getId());
+                }
+            });
+
+            Map<Integer, List<FreeDriver>> driversByCity = findFreeDriversByCity();
+
+            List<Assignment> assignments = match(orders, trucks, driversByCity);
+            for (Assignment assignment : assignments) {
+                unplanned.remove(assignment.getOrderId());
+            }
+            LOG.info("Plan created. Planned orders: " + assignments.size()
+                    + ", unplanned: " + unplanned.size());
+            return new DeliveryPlan(assignments, unplanned);
+        } catch (DaoException e) {
+            LOG.warn("Something unexpected happend.", e);
+            throw new LogiwebServiceException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(rollbackOn = LogiwebServiceException.class)
+    public void applyPlan(DeliveryPlan plan)
+            throws ServiceValidationException, LogiwebServiceException {
+        try {
+            for (Assignment assignment : plan.getAssignments()) {
+                orderService.assignTruckToOrder(assignment.getTruckId(),
+                        assignment.getOrderId());
+                if (!assignment.getDriverIds().isEmpty()) {
+                    validateDrivers(assignment);
+                    driverService.assignDriversToTruck(
+                            assignment.getDriverIds(), assignment.getTruckId());
+                }
+            }
+            LOG.info("Plan applied. Assigned orders: "
+                    + plan.getAssignments().size());
+        } catch (DaoException e) {
+            LOG.warn("Something unexpected happend.", e);
+            throw new LogiwebServiceException(e);
+        }
+    }
+
+    /**
+     * Drivers must still be free, stay in city of truck and have enough
+     * hours for order.
+     */
+    private void validateDrivers(Assignment assignment)
+            throws ServiceValidationException, LogiwebServiceException,
+            DaoException {
+        Truck truck = truckDao.find(assignment.getTruckId());
+        Set<Driver> drivers = driverDao.findByIds(assignment.getDriverIds());
+        Map<Integer, Float> workedHours = driverService
+                .calculateWorkingHoursForDrivers(assignment.getDriverIds());
+
+        for (Driver driver : drivers) {
+            if (driver.getCurrentTruck() != null) {
+                throw new ServiceValidationException("Driver id#"
+                        + driver.getId() + " is already assigned to truck.");
+            } else if (truck.getCurrentCity() == null
+                    || driver.getCurrentCity().getId() != truck
+                            .getCurrentCity().getId()) {
+                throw new ServiceValidationException("Driver id#"
+                        + driver.getId() + " is not in city of truck.");
+            } else if (workedHours.get(driver.getId())
+                    + assignment.getEstimatedTime() > maxWorkingHours) {
+                throw new ServiceValidationException("Driver id#"
+                        + driver.getId() + " don't have enough working hours.");
+            }
+        }
+    }
+
+    /**
+     * Free drivers grouped by city, every list is sorted by hours left.
+     */
+    private Map<Integer, List<FreeDriver>> findFreeDriversByCity()
+            throws DaoException, LogiwebServiceException {
+        Set<Driver> drivers = driverDao.findWhereNotAssignedToTruck();
+        List<Integer> driverIds = new ArrayList<Integer>(drivers.size());
+        for (Driver driver : drivers) {
+            driverIds.add(driver.getId());
+        }
+        Map<Integer, Float> workedHours = driverService
+                .calculateWorkingHoursForDrivers(driverIds);
+
+        Map<Integer, List<FreeDriver>> driversByCity = new HashMap<Integer, List<FreeDriver>>();
+        for (Driver driver : drivers) {
+            float hoursLeft = maxWorkingHours - workedHours.get(driver.getId());
+            if (hoursLeft <= 0 || driver.getCurrentCity() == null) {
+                continue;
+            }
+            int cityId = driver.getCurrentCity().getId();
+            List<FreeDriver> inCity = driversByCity.get(cityId);
+            if (inCity == null) {
+                inCity = new ArrayList<FreeDriver>();
+                driversByCity.put(cityId, inCity);
+            }
+            inCity.add(new FreeDriver(driver.getId(), hoursLeft));
+        }
+        for (List<FreeDriver> inCity : driversByCity.values()) {
+            Collections.sort(inCity);
+        }
+        return driversByCity;
+    }
+
+    private List<Assignment> match(List<PlannedOrder> orders,
+            List<Truck> trucks, Map<Integer, List<FreeDriver>> driversByCity)
+            throws LogiwebServiceException {
+        Map<Integer, Truck> truckById = new HashMap<Integer, Truck>();
+        List<FreeTruckIndex.Entry> entries = new ArrayList<FreeTruckIndex.Entry>(trucks.size());
+        for (Truck truck : trucks) {
+            if (truck.getCurrentCity() != null && truck.getCargoCapacity() != null) {
+                truckById.put(truck.getId(), truck);
+                entries.add(new FreeTruckIndex.Entry(truck.getId(),
+                        truck.getLicencePlate(), truck.getCrewSize(),
+                        truck.getCargoCapacity(), truck.getCurrentCity().getId()));
+            }
+        }
+        FreeTruckIndex index = FreeTruckIndex.build(entries);
+        Map<Integer, float[]> hoursLeftByCity = collectHoursLeftByCity(driversByCity);
+
+        int n = orders.size();
+        List<List<TruckCandidate>> candidatesOfOrders = new ArrayList<List<TruckCandidate>>(n);
+        Map<Integer, Integer> columnOfTruck = new HashMap<Integer, Integer>();
+        Map<Long, Float> distanceCache = new HashMap<Long, Float>();
+
+        for (PlannedOrder order : orders) {
+            List<TruckCandidate> candidates = new ArrayList<TruckCandidate>();
+            for (FreeTruckIndex.Entry entry : index.findBest(order.peakLoad,
+                    order.firstPickupCityId, CANDIDATE_TRUCKS_PER_ORDER)) {
+                Truck truck = truckById.get(entry.getTruckId());
+                int truckCityId = entry.getCityId();
+                float distance = distance(distanceCache, truckCityId,
+                        order.firstPickupCityId);
+                if (Float.isInfinite(distance)) {
+                    continue;
+                }
+                float requiredHours = routeService.getTravelHours(truckCityId,
+                        order.firstPickupCityId) + order.route.getEstimatedTime();
+                if (countDriversWithHours(hoursLeftByCity.get(truckCityId),
+                        requiredHours) < missingCrew(truck)) {
+                    continue;
+                }
+                Integer column = columnOfTruck.get(truck.getId());
+                if (column == null) {
+                    column = columnOfTruck.size();
+                    columnOfTruck.put(truck.getId(), column);
+                }
+                candidates.add(new TruckCandidate(column, truck, distance,
+                        requiredHours, distance
+                                + (entry.getCargoCapacity() - order.peakLoad)
+                                * UNUSED_CAPACITY_COST));
+            }
+            Collections.sort(candidates);
+            candidatesOfOrders.add(candidates);
+        }
+
+        for (int attempt = 0;; attempt++) {
+            int[][] columnsOfOrders = new int[n][];
+            double[][] costsOfOrders = new double[n][];
+            for (int i = 0; i < n; i++) {
+                List<TruckCandidate> candidates = candidatesOfOrders.get(i);
+                columnsOfOrders[i] = new int[candidates.size()];
+                costsOfOrders[i] = new double[candidates.size()];
+                for (int k = 0; k < candidates.size(); k++) {
+                    columnsOfOrders[i][k] = candidates.get(k).column;
+                    costsOfOrders[i][k] = candidates.get(k).cost;
+                }
+            }
+            int[] columnOfOrder = MinCostAssignment.solve(columnOfTruck.size(),
+                    columnsOfOrders, costsOfOrders);
+
+            final Map<Integer, TruckCandidate> matched = new HashMap<Integer, TruckCandidate>();
+            for (int i = 0; i < n; i++) {
+                if (columnOfOrder[i] != MinCostAssignment.UNASSIGNED) {
+                    matched.put(i, findCandidate(candidatesOfOrders.get(i),
+                            columnOfOrder[i]));
+                }
+            }
+            List<Integer> byHours = new ArrayList<Integer>(new TreeSet<Integer>(matched.keySet()));
+            Collections.sort(byHours, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer i1, Integer i2) {
+                    return Float.compare(matched.get(i2).hours,
+                            matched.get(i1).hours);
+                }
+            });
+
+            Map<Integer, List<FreeDriver>> available = new HashMap<Integer, List<FreeDriver>>();
+            for (Map.Entry<Integer, List<FreeDriver>> e : driversByCity.entrySet()) {
+                available.put(e.getKey(), new ArrayList<FreeDriver>(e.getValue()));
+            }
+
+            List<Assignment> assignments = new ArrayList<Assignment>();
+            boolean conflict = false;
+            for (int i : byHours) {
+                TruckCandidate candidate = matched.get(i);
+                Truck truck = candidate.truck;
+                List<Integer> crew = takeCrew(
+                        available.get(truck.getCurrentCity().getId()),
+                        missingCrew(truck), candidate.hours);
+                if (crew == null) {
+                    candidatesOfOrders.get(i).remove(candidate);
+                    conflict = true;
+                } else {
+                    assignments.add(new Assignment(orders.get(i).orderId,
+                            truck.getId(), truck.getLicencePlate(), crew,
+                            candidate.distance, candidate.hours));
+                }
+            }
+            if (!conflict || attempt == MAX_REPLANS) {
+                return assignments;
+            }
+        }
+    }
+
+    private static TruckCandidate findCandidate(List<TruckCandidate> candidates,
+            int column) {
+        for (TruckCandidate candidate : candidates) {
+            if (candidate.column == column) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No candidate for column " + column);
+    }
+
+    private float distance(Map<Long, Float> cache, int fromCityId,
+            int toCityId) throws LogiwebServiceException {
+        Long key = ((long) fromCityId << 32) | (toCityId & 0xFFFFFFFFL);
+        Float distance = cache.get(key);
+        if (distance == null) {
+            distance = routeService.getDistance(fromCityId, toCityId);
+            cache.put(key, distance);
+        }
+        return distance;
+    }
+
+    private static int missingCrew(Truck truck) {
+        int crew = truck.getDrivers() == null ? 0 : truck.getDrivers().size();
+        return Math.max(0, truck.getCrewSize() - crew);
+    }
+
+    /**
+     * Hours left of drivers per city, every array is sorted (lists of drivers
+     * are already sorted by hours left).
+     */
+    private static Map<Integer, float[]> collectHoursLeftByCity(
+            Map<Integer, List<FreeDriver>> driversByCity) {
+        Map<Integer, float[]> hoursLeftByCity = new HashMap<Integer, float[]>();
+        for (Map.Entry<Integer, List<FreeDriver>> e : driversByCity.entrySet()) {
+            float[] hoursLeft = new float[e.getValue().size()];
+            for (int k = 0; k < hoursLeft.length; k++) {
+                hoursLeft[k] = e.getValue().get(k).hoursLeft;
+            }
+            hoursLeftByCity.put(e.getKey(), hoursLeft);
+        }
+        return hoursLeftByCity;
+    }
+
+    /**
+     * Binary search for first driver with enough hours in sorted array.
+     */
+    private static int countDriversWithHours(float[] hoursLeft,
+            float requiredHours) {
+        if (hoursLeft == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = hoursLeft.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (hoursLeft[middle] < requiredHours) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return hoursLeft.length - low;
+    }
+
+    /**
+     * Remove from list drivers with the least hours left that are still
+     * enough.
+     *
+     * @return ids of drivers or null if there are not enough drivers (list
+     *         is not changed then)
+     */
+    private static List<Integer> takeCrew(List<FreeDriver> drivers,
+            int crewSize, float requiredHours) {
+        List<Integer> crew = new ArrayList<Integer>(crewSize);
+        if (crewSize == 0) {
+            return crew;
+        }
+        if (drivers == null) {
+            return null;
+        }
+        int first = 0;
+        while (first < drivers.size()
+                && drivers.get(first).hoursLeft < requiredHours) {
+            first++;
+        }
+        if (drivers.size() - first < crewSize) {
+            return null;
+        }
+        List<FreeDriver> taken = drivers.subList(first, first + crewSize);
+        for (FreeDriver driver : taken) {
+            crew.add(driver.id);
+        }
+        taken.clear();
+        return crew;
+    }
+
+    private static final class PlannedOrder {
+        private final int orderId;
+        private final RouteInformation route;
+        private final float peakLoad;
+        private final int firstPickupCityId;
+
+        PlannedOrder(int orderId, RouteInformation route) {
+            this.orderId = orderId;
+            this.route = route;
+            this.peakLoad = route.getMaxWeightOnCourse();
+            this.firstPickupCityId = route.getBestOrderOfDelivery().get(0)
+                    .getCity().getId();
+        }
+    }
+
+    /**
+     * Allowed pair of order and truck, sorted by column of truck in
+     * assignment.
+     */
+    private static final class TruckCandidate implements Comparable<TruckCandidate> {
+        private final int column;
+        private final Truck truck;
+        private final float distance;
+        private final float hours;
+        private final double cost;
+
+        TruckCandidate(int column, Truck truck, float distance, float hours,
+                double cost) {
+            this.column = column;
+            this.truck = truck;
+            this.distance = distance;
+            this.hours = hours;
+            this.cost = cost;
+        }
+
+        @Override
+        public int compareTo(TruckCandidate other) {
+            return Integer.compare(column, other.column);
+        }
+    }
+
+    private static final class FreeDriver implements Comparable<FreeDriver> {
+        private final int id;
+        private final float hoursLeft;
+
+        FreeDriver(int id, float hoursLeft) {
+            this.id = id;
+            this.hoursLeft = hoursLeft;
+        }
+
+        @Override
+        public int compareTo(FreeDriver other) {
+            int byHours = Float.compare(hoursLeft, other.hoursLeft);
+            return byHours != 0 ? byHours : Integer.compare(id, other.id);
+        }
+    }
+}
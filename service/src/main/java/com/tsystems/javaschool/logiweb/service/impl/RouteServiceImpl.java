@@ -0,0 +1,668 @@
+package com.tsystems.javaschool.logiweb.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PostConstruct;
+import javax.transaction.Transactional;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.tsystems.javaschool.logiweb.dao.DeliveryOrderDao;
+import com.tsystems.javaschool.logiweb.dao.RoadDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CacheRegionRow;
+import com.tsystems.javaschool.logiweb.entities.Cargo;
+import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
+import com.tsystems.javaschool.logiweb.entities.Road;
+import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
+import com.tsystems.javaschool.logiweb.service.CityService;
+import com.tsystems.javaschool.logiweb.service.RouteService;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.CityRegistry;
+import com.tsystems.javaschool.logiweb.service.ext.DistanceMatrix;
+import com.tsystems.javaschool.logiweb.service.ext.PickupDeliveryOptimizer;
+import com.tsystems.javaschool.logiweb.service.ext.RoadGraph;
+import com.tsystems.javaschool.logiweb.service.ext.RouteCache;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation.OperationWithCargo;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation.Waypoint;
+
+/**
+ * Route planning on graph of roads between cities.
+ * <p>
+ * Road graph is loaded on startup and kept in memory, so building route for
+ * order needs only one lookup of order with its cargoes. Matrix of distances
+ * between all cities is built from graph in background; until it is ready
+ * distances are found by Dijkstra on graph. Calculated routes are cached
+ * until order is changed (see {@link #evictRouteInformation(int)}) or road
+ * graph is replaced.
+ *
+ * @author Andrey Baliushin
+ */
+@Service
+public class RouteServiceImpl implements RouteService {
+
+    private static final Logger LOG = Logger.getLogger(RouteServiceImpl.class);
+
+    /**
+     * Average speed of truck on roads, km/h.
+     */
+    static final float AVERAGE_SPEED = 60f;
+
+    /**
+     * Time spent in city to load or unload one cargo, hours.
+     */
+    static final float HOURS_PER_CARGO_OPERATION = 0.5f;
+
+    /**
+     * Float error of summed cargo weights that is not counted as overload.
+     */
+    private static final float CAPACITY_TOLERANCE = 0.001f;
+
+    /**
+     * Time to search for better order of waypoints for one route.
+     */
+    @Value("${bussines.routeOptimizationMillis}")
+    private long routeOptimizationMillis = 50;
+
+    /**
+     * Time to calculate all routes requested at once.
+     */
+    @Value("${bussines.bulkRouteDeadlineMillis}")
+    private long bulkRouteDeadlineMillis = 2000;
+
+    /**
+     * Max number of cached routes.
+     */
+    static final int ROUTE_CACHE_SIZE = 1000;
+
+    private DeliveryOrderDao deliveryOrderDao;
+    private RoadDao roadDao;
+    private CityService cityService;
+    private Executor routeTablesExecutor;
+    private Executor routePlanningExecutor;
+
+    /**
+     * Current graph. Null until first successful load.
+     */
+    private final AtomicReference<RoadGraph> roadGraph = new AtomicReference<RoadGraph>();
+
+    /**
+     * Latest built matrix. Used only while it belongs to current graph.
+     */
+    private final AtomicReference<DistanceMatrix> distanceMatrix = new AtomicReference<DistanceMatrix>();
+
+    private final RouteCache routeCache = new RouteCache("logiweb.routes",
+            ROUTE_CACHE_SIZE);
+
+    /**
+     * @param routeTablesExecutor
+     *            single thread executor for building of distance matrix
+     * @param routePlanningExecutor
+     *            bounded pool for calculation of many routes at once
+     */
+    @Autowired
+    public RouteServiceImpl(DeliveryOrderDao deliveryOrderDao, RoadDao roadDao,
+            CityService cityService,
+            @Qualifier("routeTablesExecutor") Executor routeTablesExecutor,
+            @Qualifier("routePlanningExecutor") Executor routePlanningExecutor) {
+        this.deliveryOrderDao = deliveryOrderDao;
+        this.roadDao = roadDao;
+        this.cityService = cityService;
+        this.routeTablesExecutor = routeTablesExecutor;
+        this.routePlanningExecutor = routePlanningExecutor;
+    }
+
+    /**
+     * Load road graph on startup. If DB is not available yet graph will be
+     * loaded on first use.
+     */
+    @PostConstruct
+    public void loadRoadGraphOnStartup() {
+        try {
+            reloadRoadGraph();
+        } catch (LogiwebServiceException e) {
+            LOG.warn("Road graph was not loaded on startup.", e);
+        }
+    }
+
+    @Override
+    public RoadGraph getRoadGraph() throws LogiwebServiceException {
+        RoadGraph current = roadGraph.get();
+        if (current == null) {
+            reloadRoadGraph();
+            current = roadGraph.get();
+        }
+        return current;
+    }
+
+    @Override
+    @Transactional
+    public void reloadRoadGraph() throws LogiwebServiceException {
+        try {
+            RoadGraph loaded = new RoadGraph(roadDao.findAllRows());
+            roadGraph.set(loaded);
+            LOG.info("Road graph loaded: " + loaded.size() + " cities, "
+                    + loaded.roadCount() + " roads.");
+            scheduleDistanceMatrixBuild();
+        } catch (DaoException e) {
+            LOG.warn("Something unexcpected happend.");
+            throw new LogiwebServiceException(e);
+        }
+    }
+
+    /**
+     * Distance matrix if it is built for current graph.
+     * 
+     * @return matrix or null if it is not ready yet
+     */
+    DistanceMatrix getDistanceMatrix() {
+        DistanceMatrix matrix = distanceMatrix.get();
+        if (matrix != null && matrix.getGraph() == roadGraph.get()) {
+            return matrix;
+        }
+        return null;
+    }
+
+    /**
+     * Build matrix for current graph in background. Task that runs after
+     * newer graph was set builds matrix for the newer graph, so skipped or
+     * discarded tasks lose nothing.
+     */
+    private void scheduleDistanceMatrixBuild() {
+        routeTablesExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    RoadGraph graph = roadGraph.get();
+                    DistanceMatrix current = distanceMatrix.get();
+                    if (graph == null || (current != null && current.getGraph() == graph)) {
+                        return;
+                    }
+
+                    long start = System.currentTimeMillis();
+                    DistanceMatrix built = DistanceMatrix.build(graph, AVERAGE_SPEED);
+                    if (distanceMatrix.compareAndSet(current, built)) {
+                        LOG.info("Distance matrix built for " + built.size()
+                                + " cities in "
+                                + (System.currentTimeMillis() - start) + " ms.");
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public float getDistance(int fromCityId, int toCityId)
+            throws LogiwebServiceException {
+        RoadGraph graph = getRoadGraph();
+        DistanceMatrix matrix = getDistanceMatrix();
+        if (matrix != null && matrix.getGraph() == graph) {
+            return matrix.getDistance(fromCityId, toCityId);
+        }
+        return graph.shortestDistance(fromCityId, toCityId);
+    }
+
+    @Override
+    public float getTravelHours(int fromCityId, int toCityId)
+            throws LogiwebServiceException {
+        return getDistance(fromCityId, toCityId) / AVERAGE_SPEED;
+    }
+
+    /**
+     * In-memory graph is replaced after commit. Added or shortened road
+     * updates distance matrix in place of full rebuild (see
+     * {@link DistanceMatrix#withShorterRoad}), any other change rebuilds
+     * matrix in background.
+     */
+    @Override
+    @Transactional
+    public void saveRoad(final int cityId, final int otherCityId,
+            final float distance) throws ServiceValidationException,
+            LogiwebServiceException {
+        if (cityId == otherCityId) {
+            throw new ServiceValidationException("Road must connect two different cities.");
+        }
+        if (distance <= 0 || Float.isNaN(distance) || Float.isInfinite(distance)) {
+            throw new ServiceValidationException("Road length must be positive number.");
+        }
+        CityRegistry cities = cityService.getCityRegistry();
+        if (cities.getById(cityId) == null || cities.getById(otherCityId) == null) {
+            throw new ServiceValidationException("City not found.");
+        }
+
+        try {
+            final RoadGraph graphBefore = getRoadGraph();
+
+            Road road = roadDao.findByCities(cityId, otherCityId);
+            final boolean shorter;
+            if (road == null) {
+                road = new Road();
+                road.setFromCity(new City(cityId));
+                road.setToCity(new City(otherCityId));
+                road.setDistance(distance);
+                roadDao.create(road);
+                shorter = true;
+            } else {
+                shorter = distance <= road.getDistance();
+                road.setDistance(distance);
+                roadDao.update(road);
+            }
+
+            final RoadGraph changedGraph = new RoadGraph(roadDao.findAllRows());
+            LOG.info("Road saved. Cities: " + cityId + ", " + otherCityId
+                    + " Length: " + distance);
+
+            TransactionHooks.runAfterCommit(new Runnable() {
+                @Override
+                public void run() {
+                    applyRoadChange(graphBefore, changedGraph, cityId,
+                            otherCityId, distance, shorter);
+                }
+            });
+        } catch (DaoException e) {
+            LOG.warn("Something unexcpected happend.");
+            throw new LogiwebServiceException(e);
+        }
+    }
+
+    private synchronized void applyRoadChange(RoadGraph graphBefore,
+            RoadGraph changedGraph, int cityId, int otherCityId,
+            float distance, boolean shorter) {
+        if (!roadGraph.compareAndSet(graphBefore, changedGraph)) {
+            // graph was replaced meanwhile and one of graphs misses a change
+            routeTablesExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    loadRoadGraphOnStartup();
+                }
+            });
+            return;
+        }
+
+        DistanceMatrix current = distanceMatrix.get();
+        if (shorter && current != null && current.getGraph() == graphBefore
+                && current.containsCity(cityId)
+                && current.containsCity(otherCityId)
+                && current.hasSameCities(changedGraph)) {
+            distanceMatrix.compareAndSet(current, current.withShorterRoad(
+                    changedGraph, cityId, otherCityId, distance));
+        } else {
+            scheduleDistanceMatrixBuild();
+        }
+    }
+
+    /**
+     * Cached route is dropped at once and once again after commit, so route
+     * read by concurrent request before commit is not kept either.
+     */
+    @Override
+    public void evictRouteInformation(final int orderId) {
+        routeCache.invalidate(orderId);
+        TransactionHooks.runAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                routeCache.invalidate(orderId);
+            }
+        });
+    }
+
+    @Override
+    public CacheRegionRow getRouteCacheStatistics() {
+        return routeCache.getStatistics();
+    }
+
+    /**
+     * Waypoints of delivered cargoes go first (pickup followed by delivery of
+     * each cargo), then pickups of cargoes that are in truck now. Remaining
+     * waypoints are ordered by {@link PickupDeliveryOptimizer} starting from
+     * current city of assigned truck (or from first waypoint if there is no
+     * truck): delivery of cargo is possible only after its pickup and
+     * capacity of assigned truck is never exceeded if there is such order.
+     * Search takes no more than {@code bussines.routeOptimizationMillis}.
+     * <p>
+     * Estimated time covers remaining waypoints only: travel by shortest roads
+     * at {@link #AVERAGE_SPEED} plus {@link #HOURS_PER_CARGO_OPERATION} for
+     * each stop. It is {@link Float#POSITIVE_INFINITY} if some city can't be
+     * reached by roads.
+     * <p>
+     * Load of truck after each waypoint is counted along this sequence, max
+     * weight on course is the highest of these loads. If it is more than
+     * capacity of assigned truck route is marked as overloaded.
+     */
+    @Override
+    @Transactional
+    public RouteInformation getRouteInformationForOrder(int orderId)
+            throws LogiwebServiceException {
+        RoadGraph graph = getRoadGraph();
+        long version = routeCache.getVersion(orderId);
+        RouteInformation cached = routeCache.get(orderId, graph);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            DeliveryOrder order = deliveryOrderDao.find(orderId,
+                    DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK);
+            if (order == null) {
+                return null;
+            }
+
+            RouteInformation routeInformation = calculateRoute(order, graph,
+                    getDistanceMatrix(), cityService.getCityRegistry(),
+                    routeOptimizationMillis);
+            routeCache.put(orderId, version, graph, routeInformation);
+            return routeInformation;
+        } catch (DaoException e) {
+            LOG.warn("Something unexcpected happend.");
+            throw new LogiwebServiceException(e);
+        }
+    }
+
+    /**
+     * Routes that are not cached are calculated on {@code routePlanningExecutor}
+     * from orders loaded by one query. Optimization of each route is limited
+     * by {@code bussines.routeOptimizationMillis} and by time left to
+     * {@code bussines.bulkRouteDeadlineMillis}; routes that are not ready by
+     * deadline are cancelled.
+     */
+    @Override
+    @Transactional
+    public Map<Integer, RouteInformation> getRouteInformationForOrders(
+            Collection<Integer> orderIds) throws LogiwebServiceException {
+        final long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(bulkRouteDeadlineMillis);
+        final RoadGraph graph = getRoadGraph();
+
+        Map<Integer, RouteInformation> routes = new HashMap<Integer, RouteInformation>();
+        Map<Integer, Long> versions = new HashMap<Integer, Long>();
+        for (Integer orderId : orderIds) {
+            long version = routeCache.getVersion(orderId);
+            RouteInformation cached = routeCache.get(orderId, graph);
+            if (cached != null) {
+                routes.put(orderId, cached);
+            } else {
+                versions.put(orderId, version);
+            }
+        }
+        if (versions.isEmpty()) {
+            return routes;
+        }
+
+        Set<DeliveryOrder> orders;
+        try {
+            orders = deliveryOrderDao.findByIds(versions.keySet(),
+                    DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK);
+        } catch (DaoException e) {
+            LOG.warn("Something unexcpected happend.");
+            throw new LogiwebServiceException(e);
+        }
+
+        final DistanceMatrix matrix = getDistanceMatrix();
+        final CityRegistry cities = cityService.getCityRegistry();
+        Map<Integer, FutureTask<RouteInformation>> tasks = new LinkedHashMap<Integer, FutureTask<RouteInformation>>();
+        for (final DeliveryOrder order : orders) {
+            FutureTask<RouteInformation> task = new FutureTask<RouteInformation>(
+                    new Callable<RouteInformation>() {
+                        @Override
+                        public RouteInformation call() {
+                            long millisLeft = TimeUnit.NANOSECONDS
+                                    .toMillis(deadline - System.nanoTime());
+                            return calculateRoute(order, graph, matrix, cities,
+                                    Math.max(0, Math.min(routeOptimizationMillis, millisLeft)));
+                        }
+                    });
+            tasks.put(order.getId(), task);
+            routePlanningExecutor.execute(task);
+        }
+
+        int timedOut = 0;
+        try {
+            for (Map.Entry<Integer, FutureTask<RouteInformation>> entry : tasks.entrySet()) {
+                int orderId = entry.getKey();
+                try {
+                    RouteInformation route = entry.getValue().get(
+                            Math.max(0, deadline - System.nanoTime()),
+                            TimeUnit.NANOSECONDS);
+                    routeCache.put(orderId, versions.get(orderId), graph, route);
+                    routes.put(orderId, route);
+                } catch (TimeoutException e) {
+                    entry.getValue().cancel(true);
+                    timedOut++;
+                }
+            }
+        } catch (ExecutionException e) {
+            cancelAll(tasks.values());
+            LOG.warn("Something unexcpected happend.");
+            throw new LogiwebServiceException(e.getCause());
+        } catch (InterruptedException e) {
+            cancelAll(tasks.values());
+            Thread.currentThread().interrupt();
+            throw new LogiwebServiceException(e);
+        }
+
+        if (timedOut > 0) {
+            LOG.warn(timedOut + " of " + tasks.size()
+                    + " routes were not calculated in "
+                    + bulkRouteDeadlineMillis + " ms.");
+        }
+        return routes;
+    }
+
+    private static void cancelAll(Collection<FutureTask<RouteInformation>> tasks) {
+        for (FutureTask<RouteInformation> task : tasks) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Route of order that is loaded with cargoes and truck. Doesn't access
+     * DB, so can be called from any thread.
+     */
+    private RouteInformation calculateRoute(DeliveryOrder order,
+            RoadGraph graph, DistanceMatrix matrix, CityRegistry cities,
+            long optimizationMillis) {
+        List<Cargo> cargoes = getCargoesSortedById(order);
+
+        List<Waypoint> delivered = new ArrayList<Waypoint>();
+        List<Waypoint> pickedUp = new ArrayList<Waypoint>();
+        List<Waypoint> remaining = new ArrayList<Waypoint>();
+        for (Cargo cargo : cargoes) {
+            Waypoint pickup = new Waypoint(OperationWithCargo.PICKUP,
+                    registeredCity(cities, cargo.getOriginCity()), cargo);
+            Waypoint delivery = new Waypoint(OperationWithCargo.DELIVER,
+                    registeredCity(cities, cargo.getDestinationCity()), cargo);
+
+            if (cargo.getStatus() == CargoStatus.DELIVERED) {
+                delivered.add(pickup);
+                delivered.add(delivery);
+            } else if (cargo.getStatus() == CargoStatus.PICKED_UP) {
+                pickedUp.add(pickup);
+                remaining.add(delivery);
+            } else {
+                remaining.add(pickup);
+                remaining.add(delivery);
+            }
+        }
+
+        List<Waypoint> route = new ArrayList<Waypoint>(delivered);
+        route.addAll(pickedUp);
+
+        Integer startCityId = null;
+        if (order.getAssignedTruck() != null
+                && order.getAssignedTruck().getCurrentCity() != null) {
+            startCityId = order.getAssignedTruck().getCurrentCity().getId();
+        }
+
+        float capacity = Float.POSITIVE_INFINITY;
+        if (order.getAssignedTruck() != null
+                && order.getAssignedTruck().getCargoCapacity() != null) {
+            capacity = order.getAssignedTruck().getCargoCapacity();
+        }
+
+        float hours = appendOptimizedRemainder(order.getId(), graph, matrix,
+                startCityId, capacity, optimizationMillis, remaining, route);
+        if (Float.isInfinite(hours)) {
+            LOG.warn("Order #" + order.getId()
+                    + ": some cities of route are not connected by roads.");
+        }
+
+        float maxWeightOnCourse = countLoadOnCourse(route);
+        boolean overloaded = maxWeightOnCourse > capacity + CAPACITY_TOLERANCE;
+        if (overloaded) {
+            LOG.warn("Order #" + order.getId() + ": max weight on course "
+                    + maxWeightOnCourse + " exceeds truck capacity " + capacity);
+        }
+
+        return new RouteInformation(hours, maxWeightOnCourse, route, overloaded);
+    }
+
+    /**
+     * Append remaining waypoints to route in order found by optimizer.
+     * Cargoes that have only delivery remaining are already in truck.
+     *
+     * @return hours to pass appended waypoints
+     */
+    private static float appendOptimizedRemainder(int orderId, RoadGraph graph,
+            DistanceMatrix matrix, Integer startCityId, float capacity,
+            long optimizationMillis, List<Waypoint> remaining,
+            List<Waypoint> route) {
+        int n = remaining.size();
+        int[] pickupOf = new int[n];
+        float[] loadChange = new float[n];
+        float initialLoad = 0;
+        Map<Integer, Integer> pickupIndexes = new HashMap<Integer, Integer>();
+        for (int i = 0; i < n; i++) {
+            Waypoint waypoint = remaining.get(i);
+            float weight = waypoint.getCargo().getWeight();
+            if (waypoint.getOperation() == OperationWithCargo.PICKUP) {
+                pickupIndexes.put(waypoint.getCargo().getId(), i);
+                pickupOf[i] = PickupDeliveryOptimizer.NO_PICKUP;
+                loadChange[i] = weight;
+            } else {
+                Integer pickup = pickupIndexes.get(waypoint.getCargo().getId());
+                if (pickup == null) {
+                    initialLoad += weight;
+                }
+                pickupOf[i] = pickup == null ? PickupDeliveryOptimizer.NO_PICKUP : pickup;
+                loadChange[i] = -weight;
+            }
+        }
+
+        Map<Integer, float[]> distancesFrom = new HashMap<Integer, float[]>();
+        float[] legDistances = new float[(n + 1) * (n + 1)];
+        for (int from = 0; from <= n; from++) {
+            Integer fromCityId = startCityId;
+            if (from > 0) {
+                fromCityId = remaining.get(from - 1).getCity().getId();
+            }
+            for (int to = 1; to <= n; to++) {
+                legDistances[from * (n + 1) + to] = fromCityId == null ? 0
+                        : distance(graph, matrix, distancesFrom, fromCityId,
+                                remaining.get(to - 1).getCity().getId());
+            }
+        }
+
+        int[] order = new PickupDeliveryOptimizer(optimizationMillis)
+                .optimize(legDistances, pickupOf, loadChange, initialLoad,
+                        capacity, orderId);
+
+        float distance = 0;
+        int previous = 0;
+        for (int stop : order) {
+            distance += legDistances[previous * (n + 1) + stop + 1];
+            previous = stop + 1;
+            route.add(remaining.get(stop));
+        }
+        return distance / AVERAGE_SPEED + n * HOURS_PER_CARGO_OPERATION;
+    }
+
+    /**
+     * Shortest distance by roads. Taken from matrix if it is ready, otherwise
+     * one-to-all distances of each source city are computed once per route.
+     */
+    private static float distance(RoadGraph graph, DistanceMatrix matrix,
+            Map<Integer, float[]> distancesFrom, int fromCityId, int toCityId) {
+        if (matrix != null && matrix.getGraph() == graph) {
+            return matrix.getDistance(fromCityId, toCityId);
+        }
+        if (fromCityId == toCityId) {
+            return 0;
+        }
+        if (!distancesFrom.containsKey(fromCityId)) {
+            distancesFrom.put(fromCityId, graph.shortestDistancesFrom(fromCityId));
+        }
+        float[] distances = distancesFrom.get(fromCityId);
+        int target = graph.indexOf(toCityId);
+        if (distances == null || target < 0) {
+            return RoadGraph.UNREACHABLE;
+        }
+        return distances[target];
+    }
+
+    private static List<Cargo> getCargoesSortedById(DeliveryOrder order) {
+        if (order.getAssignedCargoes() == null) {
+            return new ArrayList<Cargo>(0);
+        }
+        List<Cargo> cargoes = new ArrayList<Cargo>(order.getAssignedCargoes());
+        Collections.sort(cargoes, new Comparator<Cargo>() {
+            @Override
+            public int compare(Cargo c1, Cargo c2) {
+                return Integer.compare(c1.getId(), c2.getId());
+            }
+        });
+        return cargoes;
+    }
+
+    /**
+     * @return city from registry, or given city if registry don't have it yet
+     */
+    private static City registeredCity(CityRegistry cities, City city) {
+        City registered = cities.getById(city.getId());
+        return registered == null ? city : registered;
+    }
+
+    /**
+     * Set load after operation for every waypoint.
+     *
+     * @return peak load
+     */
+    private static float countLoadOnCourse(List<Waypoint> route) {
+        float load = 0;
+        float peak = 0;
+        for (Waypoint waypoint : route) {
+            if (waypoint.getOperation() == OperationWithCargo.PICKUP) {
+                load += waypoint.getCargo().getWeight();
+            } else {
+                load -= waypoint.getCargo().getWeight();
+            }
+            // deliveries may bring float error below zero
+            load = Math.max(0, load);
+            waypoint.setLoadAfterOperation(load);
+            peak = Math.max(peak, load);
+        }
+        return peak;
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.tsystems.javaschool.logiweb.service.impl;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Work on in-memory state of services that must be done only when changes
+ * in DB are committed.
+ *
+ * @author Andrey Baliushin
+ */
+final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * Run task after commit of current transaction or at once if there is no
+     * transaction. Task is not run if transaction is rolled back.
+     *
+     * @param task
+     */
+    static void runAfterCommit(final Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager
+                    .registerSynchronization(new TransactionSynchronizationAdapter() {
+                        @Override
+                        public void afterCommit() {
+                            task.run();
+                        }
+                    });
+        } else {
+            task.run();
+        }
+    }
+}
@@ -1,16 +1,26 @@
 package com.tsystems.javaschool.logiweb.service.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javax.annotation.PostConstruct;
 import javax.transaction.Transactional;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.tsystems.javaschool.logiweb.dao.DriverDao;
 import com.tsystems.javaschool.logiweb.dao.TruckDao;
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CrewMemberRow;
+import com.tsystems.javaschool.logiweb.dao.projections.TruckRow;
 import com.tsystems.javaschool.logiweb.entities.City;
 import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
 import com.tsystems.javaschool.logiweb.entities.Driver;
@@ -20,9 +30,14 @@ import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
 import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
 import com.tsystems.javaschool.logiweb.model.TruckModel;
 import com.tsystems.javaschool.logiweb.model.ext.ModelToEntityConverter;
+import com.tsystems.javaschool.logiweb.model.ext.RowToModelConverter;
+import com.tsystems.javaschool.logiweb.service.RouteService;
 import com.tsystems.javaschool.logiweb.service.TrucksService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.FreeTruckIndex;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
 import com.tsystems.javaschool.logiweb.service.validators.LicensePlateValidator;
 
 /**
@@ -35,14 +50,27 @@ public class TrucksSeviceImpl implements TrucksService {
     
     private static final Logger LOG = Logger.getLogger(TrucksSeviceImpl.class);
     
+    private static final List<String> SORTABLE_ATTRIBUTES = Arrays.asList(
+            "licencePlate", "crewSize", "cargoCapacity", "status");
+    
     private TruckDao truckDao;
     
+    private DriverDao driverDao;
+    
     private LicensePlateValidator licenserPlateValidator;
     
+    private RouteService routeService;
+    
+    private final AtomicReference<FreeTruckIndex> freeTruckIndex = new AtomicReference<FreeTruckIndex>();
+    
     @Autowired
-    public TrucksSeviceImpl(TruckDao truckDao, LicensePlateValidator licenserPlateValidator) {
+    public TrucksSeviceImpl(TruckDao truckDao, DriverDao driverDao,
+            LicensePlateValidator licenserPlateValidator,
+            RouteService routeService) {
 	this.truckDao = truckDao;
+	this.driverDao = driverDao;
 	this.licenserPlateValidator = licenserPlateValidator;
+	this.routeService = routeService;
     }
     
     /**
@@ -53,7 +81,44 @@ public class TrucksSeviceImpl implements TrucksService {
     public Set<TruckModel> findAllTrucks() throws LogiwebServiceException {
         try {
             return ModelToEntityConverter.convertTrucksToModels(truckDao
-                    .findAll());
+                    .findAll(Truck.GRAPH_WITH_CREW));
+        } catch (DaoException e) {
+            LOG.warn("Something unexpected happend.", e);
+            throw new LogiwebServiceException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public ResultPage<TruckModel> findTrucksPage(TruckStatus status,
+            Integer cityId, PageRequest pageRequest) throws LogiwebServiceException {
+        try {
+            Map<String, Object> filters = new HashMap<String, Object>();
+            if (status != null) {
+                filters.put("status", status);
+            }
+            if (cityId != null) {
+                filters.put("currentCity.id", cityId);
+            }
+            
+            List<TruckRow> rows = truckDao.findRowsFiltered(filters,
+                    pageRequest.getSortAttribute(SORTABLE_ATTRIBUTES, "licencePlate"),
+                    pageRequest.isAscending(), pageRequest.getFirstResult(),
+                    pageRequest.getSize());
+            long totalCount = truckDao.countFiltered(filters);
+            
+            List<Integer> truckIds = new ArrayList<Integer>(rows.size());
+            for (TruckRow row : rows) {
+                truckIds.add(row.getId());
+            }
+            List<CrewMemberRow> crewMembers = driverDao.findCrewMembersOfTrucks(truckIds);
+            
+            return new ResultPage<TruckModel>(
+                    RowToModelConverter.convertTruckRowsToModels(rows, crewMembers),
+                    pageRequest, totalCount);
         } catch (DaoException e) {
             LOG.warn("Something unexpected happend.", e);
             throw new LogiwebServiceException(e);
@@ -68,7 +133,7 @@ public class TrucksSeviceImpl implements TrucksService {
     @Transactional
     public TruckModel findTruckById(int id) throws LogiwebServiceException {
         try {
-            Truck t = truckDao.find(id);
+            Truck t = truckDao.find(id, Truck.GRAPH_WITH_CREW);
             if (t == null) {
                 return null;
             } else {
@@ -117,6 +182,7 @@ public class TrucksSeviceImpl implements TrucksService {
             validateForEmptyFields(truckEntityToEdit);
             
             truckDao.update(truckEntityToEdit);
+            updateFreeTruckIndex(truckEntityToEdit);
 
             LOG.info("Truck edited. Plate " + truckEntityToEdit.getLicencePlate()
                     + " ID: " + truckEntityToEdit.getId());
@@ -169,6 +235,7 @@ public class TrucksSeviceImpl implements TrucksService {
             validateForEmptyFields(newTruckEntity); 
         
             truckDao.create(newTruckEntity);
+            updateFreeTruckIndex(newTruckEntity);
             LOG.info("Truck created. Plate " + newTruckEntity.getLicencePlate()
                     + " ID: " + newTruckEntity.getId());
 
@@ -222,6 +289,7 @@ public class TrucksSeviceImpl implements TrucksService {
             }
             
             truckDao.delete(truckToRemove);
+            removeFromFreeTruckIndex(truckToRemove.getId());
             
             LOG.info("Truck removed. Plate " + truckToRemove.getLicencePlate()
                     + " ID: " + truckToRemove.getId());
@@ -249,6 +317,132 @@ public class TrucksSeviceImpl implements TrucksService {
         }
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<TruckModel> findBestFreeTrucks(float minCargoWeightCapacity,
+            int firstPickupCityId, int limit) throws LogiwebServiceException {
+        List<FreeTruckIndex.Entry> entries = getFreeTruckIndex().findBest(
+                minCargoWeightCapacity, firstPickupCityId, limit);
+        
+        List<TruckModel> trucks = new ArrayList<TruckModel>(entries.size());
+        for (FreeTruckIndex.Entry entry : entries) {
+            TruckModel truck = new TruckModel();
+            truck.setId(entry.getTruckId());
+            truck.setLicencePlate(entry.getLicencePlate());
+            truck.setCrewSize(entry.getCrewSize());
+            truck.setCargoCapacity(entry.getCargoCapacity());
+            truck.setCurrentCityId(entry.getCityId());
+            truck.setStatus(TruckStatus.OK);
+            trucks.add(truck);
+        }
+        return trucks;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public void updateFreeTruckIndex(int truckId) throws LogiwebServiceException {
+        try {
+            Truck truck = truckDao.find(truckId);
+            if (truck == null) {
+                removeFromFreeTruckIndex(truckId);
+            } else {
+                updateFreeTruckIndex(truck);
+            }
+        } catch (DaoException e) {
+            LOG.warn("Something unexpected happend.", e);
+            throw new LogiwebServiceException(e);
+        }
+    }
+    
+    /**
+     * Index entry is taken from truck at once, so later changes of entity
+     * don't leak into index. Index that is not loaded yet is not changed, it
+     * will be loaded from DB.
+     */
+    private void updateFreeTruckIndex(Truck truck) {
+        if (!isFree(truck)) {
+            removeFromFreeTruckIndex(truck.getId());
+            return;
+        }
+        final FreeTruckIndex.Entry entry = new FreeTruckIndex.Entry(
+                truck.getId(), truck.getLicencePlate(), truck.getCrewSize(),
+                truck.getCargoCapacity(), truck.getCurrentCity().getId());
+        TransactionHooks.runAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                FreeTruckIndex current;
+                do {
+                    current = freeTruckIndex.get();
+                } while (current != null
+                        && !freeTruckIndex.compareAndSet(current, current.with(entry)));
+            }
+        });
+    }
+    
+    private void removeFromFreeTruckIndex(final int truckId) {
+        TransactionHooks.runAfterCommit(new Runnable() {
+            @Override
+            public void run() {
+                FreeTruckIndex current;
+                do {
+                    current = freeTruckIndex.get();
+                } while (current != null
+                        && !freeTruckIndex.compareAndSet(current, current.without(truckId)));
+            }
+        });
+    }
+    
+    private static boolean isFree(Truck truck) {
+        return truck.getStatus() == TruckStatus.OK
+                && truck.getAssignedDeliveryOrder() == null
+                && !truck.isDeletedRecord()
+                && truck.getCargoCapacity() != null
+                && truck.getCurrentCity() != null;
+    }
+    
+    @PostConstruct
+    public void loadFreeTruckIndexOnStartup() {
+        try {
+            reloadFreeTruckIndex();
+        } catch (LogiwebServiceException e) {
+            LOG.warn("Index of free trucks was not loaded on startup.", e);
+        }
+    }
+    
+    private FreeTruckIndex getFreeTruckIndex() throws LogiwebServiceException {
+        FreeTruckIndex current = freeTruckIndex.get();
+        if (current == null) {
+            reloadFreeTruckIndex();
+            current = freeTruckIndex.get();
+        }
+        return current;
+    }
+    
+    private void reloadFreeTruckIndex() throws LogiwebServiceException {
+        try {
+            Set<Truck> trucks = truckDao
+                    .findByMinCapacityWhereStatusOkAndNotAssignedToOrder(0);
+            List<FreeTruckIndex.Entry> entries = new ArrayList<FreeTruckIndex.Entry>(trucks.size());
+            for (Truck truck : trucks) {
+                if (isFree(truck)) {
+                    entries.add(new FreeTruckIndex.Entry(truck.getId(),
+                            truck.getLicencePlate(), truck.getCrewSize(),
+                            truck.getCargoCapacity(), truck.getCurrentCity().getId()));
+                }
+            }
+            freeTruckIndex.set(FreeTruckIndex.build(entries));
+            LOG.info("Index of free trucks loaded. Trucks: " + entries.size());
+        } catch (DaoException e) {
+            LOG.warn("Something unexpected happend.", e);
+            throw new LogiwebServiceException(e);
+        }
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -257,7 +451,7 @@ public class TrucksSeviceImpl implements TrucksService {
     public void removeAssignedOrderAndDriversFromTruck(int truckId)
             throws ServiceValidationException, LogiwebServiceException {
         try {
-            Truck truck = truckDao.find(truckId);
+            Truck truck = truckDao.find(truckId, Truck.GRAPH_WITH_CREW);
             
             if (truck == null) {
                 throw new ServiceValidationException("Truck not found.");
@@ -285,9 +479,11 @@ public class TrucksSeviceImpl implements TrucksService {
             
             if(order != null) {
                 order.setAssignedTruck(null);
+                routeService.evictRouteInformation(order.getId());
             }
             
             truckDao.update(truck);            
+            updateFreeTruckIndex(truck);
             LOG.info("Truck id#" + truck.getId() + " and its drivers removed from order.");
         } catch (DaoException e) {
             LOG.warn("Something unexpected happend.", e);
@@ -0,0 +1,62 @@
+package com.tsystems.javaschool.logiweb.service.jobs;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tsystems.javaschool.logiweb.service.DriverService;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+
+/**
+ * Keeps working hours ledger in sync with shift journal.
+ * 
+ * Start and end of shift update ledger directly. This job covers what they
+ * can't: shifts that are still open when new month begins. Ledger for current
+ * month is rebuilt right after midnight of every first day of month and on
+ * application start if it is missing (application was down when month
+ * changed).
+ * 
+ * @author Andrey Baliushin
+ */
+@Component
+public class WorkingHoursLedgerJob implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger LOG = Logger.getLogger(WorkingHoursLedgerJob.class);
+
+    private DriverService driverService;
+
+    @Autowired
+    public WorkingHoursLedgerJob(DriverService driverService) {
+        this.driverService = driverService;
+    }
+
+    /**
+     * Build missing ledger on start of root application context (child
+     * contexts are ignored).
+     */
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (event.getApplicationContext().getParent() == null) {
+            try {
+                driverService.rebuildWorkingHoursLedgerForThisMonthIfMissing();
+            } catch (LogiwebServiceException e) {
+                LOG.error("Failed to build working hours ledger.", e);
+            }
+        }
+    }
+
+    /**
+     * Rebuild ledger at 00:00:00 of first day of every month.
+     */
+    @Scheduled(cron = "0 0 0 1 * *")
+    public void rebuildLedger() {
+        try {
+            driverService.rebuildWorkingHoursLedgerForThisMonth();
+        } catch (LogiwebServiceException e) {
+            LOG.error("Failed to rebuild working hours ledger.", e);
+        }
+    }
+}
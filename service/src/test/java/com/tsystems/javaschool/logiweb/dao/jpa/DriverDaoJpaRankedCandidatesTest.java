@@ -0,0 +1,263 @@
+package com.tsystems.javaschool.logiweb.dao.jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tsystems.javaschool.logiweb.dao.DriverDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.DriverCandidateRow;
+import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.DriverMonthlyHours;
+import com.tsystems.javaschool.logiweb.entities.Truck;
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
+import com.tsystems.javaschool.logiweb.utils.DateUtils;
+
+/**
+ * Ranked crew candidates query of DriverDaoJpa against embedded H2 database.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:test-context-h2.xml")
+public class DriverDaoJpaRankedCandidatesTest {
+
+    private static final float MAX_HOURS = 100f;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DriverDao driverDao;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Date monthStart;
+    private int cityId;
+
+    private int noLedgerDriverId;
+    private int zeroHoursDriverId;
+    private int tenHoursDriverId;
+    private int tieDriverId;
+    private int atLimitDriverId;
+    private int overLimitDriverId;
+    private int notAvailableDriverId;
+    private int openShiftDriverId;
+    private int previousMonthDriverId;
+    private int assignedDriverId;
+    private int otherCityDriverId;
+
+    @Before
+    public void populateDatabase() {
+        monthStart = DateUtils.getFirstDateOfCurrentMonth();
+        Date now = new Date();
+        Date twoHoursAgo = new Date(now.getTime() - 2 * 60 * 60 * 1000L);
+        final Date openShiftBeggined = twoHoursAgo.before(monthStart) ? monthStart
+                : twoHoursAgo;
+        final Date previousMonth = DateUtils.getFirstDateOfMonth(new Date(
+                monthStart.getTime() - 24 * 60 * 60 * 1000L));
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                City city = createCity("City");
+                City otherCity = createCity("Other city");
+                cityId = city.getId();
+
+                noLedgerDriverId = createDriver(1, city, DriverStatus.FREE).getId();
+
+                zeroHoursDriverId = createDriver(2, city, DriverStatus.FREE).getId();
+                createLedger(zeroHoursDriverId, monthStart, 0f, null);
+
+                tenHoursDriverId = createDriver(3, city, DriverStatus.FREE).getId();
+                createLedger(tenHoursDriverId, monthStart, 10f, null);
+
+                tieDriverId = createDriver(4, city, DriverStatus.FREE).getId();
+                createLedger(tieDriverId, monthStart, 10f, null);
+
+                atLimitDriverId = createDriver(5, city, DriverStatus.FREE).getId();
+                createLedger(atLimitDriverId, monthStart, MAX_HOURS, null);
+
+                overLimitDriverId = createDriver(6, city, DriverStatus.FREE).getId();
+                createLedger(overLimitDriverId, monthStart, MAX_HOURS + 1, null);
+
+                notAvailableDriverId = createDriver(7, city,
+                        DriverStatus.NOT_AVAILABLE).getId();
+
+                openShiftDriverId = createDriver(8, city, DriverStatus.FREE).getId();
+                createLedger(openShiftDriverId, monthStart, 10f, openShiftBeggined);
+
+                previousMonthDriverId = createDriver(9, city, DriverStatus.FREE).getId();
+                createLedger(previousMonthDriverId, previousMonth, 50f, null);
+
+                Driver assigned = createDriver(10, city, DriverStatus.FREE);
+                assigned.setCurrentTruck(createTruck(city));
+                assignedDriverId = assigned.getId();
+
+                otherCityDriverId = createDriver(11, otherCity, DriverStatus.FREE).getId();
+            }
+        });
+    }
+
+    @After
+    public void cleanDatabase() {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                entityManager.createQuery("DELETE FROM DriverMonthlyHours").executeUpdate();
+                entityManager.createQuery("DELETE FROM Driver").executeUpdate();
+                entityManager.createQuery("DELETE FROM Truck").executeUpdate();
+                entityManager.createQuery("DELETE FROM City").executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Test: findRankedCandidateRowsByCityWhereNotAssignedToTruck
+     * Case: free drivers first, then by hours, ties by id; driver exactly at
+     * limit is included, over limit, assigned to truck and from other city
+     * are not; drivers without ledger record for this month have 0 hours
+     */
+    @Test
+    public void testCandidatesAreRankedAndFiltered() {
+        List<DriverCandidateRow> rows = findRanked(MAX_HOURS, 100);
+
+        Assert.assertEquals(Arrays.asList(noLedgerDriverId, zeroHoursDriverId,
+                previousMonthDriverId, tenHoursDriverId, tieDriverId,
+                openShiftDriverId, atLimitDriverId, notAvailableDriverId),
+                collectIds(rows));
+        Assert.assertFalse(collectIds(rows).contains(overLimitDriverId));
+        Assert.assertFalse(collectIds(rows).contains(assignedDriverId));
+        Assert.assertFalse(collectIds(rows).contains(otherCityDriverId));
+
+        Assert.assertEquals(0f, rows.get(0).getWorkingHoursThisMonth(), 0);
+        Assert.assertEquals(0f, rows.get(2).getWorkingHoursThisMonth(), 0);
+        Assert.assertEquals(10f, rows.get(3).getWorkingHoursThisMonth(), 0.01f);
+        Assert.assertEquals(MAX_HOURS, rows.get(6).getWorkingHoursThisMonth(), 0.01f);
+        Assert.assertEquals(DriverStatus.NOT_AVAILABLE, rows.get(7).getStatus());
+    }
+
+    /**
+     * Test: findRankedCandidateRowsByCityWhereNotAssignedToTruck
+     * Case: open shift is counted up until now
+     */
+    @Test
+    public void testOpenShiftIsCounted() {
+        List<DriverCandidateRow> rows = findRanked(MAX_HOURS, 100);
+        DriverCandidateRow openShift = rows.get(collectIds(rows).indexOf(
+                openShiftDriverId));
+
+        Assert.assertTrue(openShift.getWorkingHoursThisMonth() > 10f);
+    }
+
+    /**
+     * Test: findRankedCandidateRowsByCityWhereNotAssignedToTruck
+     * Case: result is limited in DB, best candidates are kept; ties are cut by
+     * id
+     */
+    @Test
+    public void testResultIsLimited() {
+        Assert.assertEquals(Arrays.asList(noLedgerDriverId, zeroHoursDriverId),
+                collectIds(findRanked(MAX_HOURS, 2)));
+        Assert.assertEquals(Arrays.asList(noLedgerDriverId, zeroHoursDriverId,
+                previousMonthDriverId, tenHoursDriverId),
+                collectIds(findRanked(MAX_HOURS, 4)));
+        Assert.assertTrue(findRanked(MAX_HOURS, 0).isEmpty());
+    }
+
+    /**
+     * Test: findRankedCandidateRowsByCityWhereNotAssignedToTruck
+     * Case: no hours left before limit, only drivers that haven't worked in
+     * this month are candidates
+     */
+    @Test
+    public void testZeroHoursLeft() {
+        Assert.assertEquals(Arrays.asList(noLedgerDriverId, zeroHoursDriverId,
+                previousMonthDriverId, notAvailableDriverId),
+                collectIds(findRanked(0f, 100)));
+    }
+
+    private List<DriverCandidateRow> findRanked(final float maxHours, final int limit) {
+        return transactionTemplate
+                .execute(new TransactionCallback<List<DriverCandidateRow>>() {
+                    @Override
+                    public List<DriverCandidateRow> doInTransaction(TransactionStatus status) {
+                        try {
+                            return driverDao.findRankedCandidateRowsByCityWhereNotAssignedToTruck(
+                                    cityId, monthStart, maxHours, limit);
+                        } catch (DaoException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+    }
+
+    private static List<Integer> collectIds(List<DriverCandidateRow> rows) {
+        List<Integer> ids = new ArrayList<Integer>(rows.size());
+        for (DriverCandidateRow row : rows) {
+            ids.add(row.getId());
+        }
+        return ids;
+    }
+
+    private City createCity(String name) {
+        City city = new City();
+        city.setName(name);
+        entityManager.persist(city);
+        return city;
+    }
+
+    private Truck createTruck(City city) {
+        Truck truck = new Truck();
+        truck.setLicencePlate("AB12345");
+        truck.setCrewSize(2);
+        truck.setCargoCapacity(1000f);
+        truck.setStatus(TruckStatus.OK);
+        truck.setCurrentCity(city);
+        entityManager.persist(truck);
+        return truck;
+    }
+
+    private Driver createDriver(int employeeId, City city, DriverStatus status) {
+        Driver driver = new Driver();
+        driver.setEmployeeId(employeeId);
+        driver.setName("Name");
+        driver.setSurname("Surname");
+        driver.setStatus(status);
+        driver.setCurrentCity(city);
+        entityManager.persist(driver);
+        return driver;
+    }
+
+    private void createLedger(int driverId, Date month, float finishedShiftsHours,
+            Date openShiftBeggined) {
+        DriverMonthlyHours ledger = new DriverMonthlyHours();
+        ledger.setDriverId(driverId);
+        ledger.setMonth(month);
+        ledger.setFinishedShiftsHours(finishedShiftsHours);
+        ledger.setOpenShiftBeggined(openShiftBeggined);
+        entityManager.persist(ledger);
+    }
+}
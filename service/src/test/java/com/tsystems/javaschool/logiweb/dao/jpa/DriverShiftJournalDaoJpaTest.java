@@ -0,0 +1,235 @@
+package com.tsystems.javaschool.logiweb.dao.jpa;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Hibernate;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tsystems.javaschool.logiweb.dao.DriverShiftJournaDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.DriverShiftJournal;
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+import com.tsystems.javaschool.logiweb.utils.DateUtils;
+
+/**
+ * Aggregate queries of shift journal against embedded H2 database.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:test-context-h2.xml")
+public class DriverShiftJournalDaoJpaTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DriverShiftJournaDao driverShiftJournalDao;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Date monthStart;
+    private Date openShiftBeggined;
+    private int inMonthDriverId;
+    private int crossingDriverId;
+    private int openShiftDriverId;
+    private int previousMonthDriverId;
+
+    @Before
+    public void populateDatabase() {
+        monthStart = DateUtils.getFirstDateOfCurrentMonth();
+        Date now = new Date();
+        Date twoHoursAgo = new Date(now.getTime() - 2 * 60 * 60 * 1000L);
+        openShiftBeggined = twoHoursAgo.before(monthStart) ? monthStart : twoHoursAgo;
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                City city = new City();
+                city.setName("City");
+                entityManager.persist(city);
+
+                Driver inMonth = createDriver(1, city);
+                createShift(inMonth, addHours(monthStart, 24), addHours(monthStart, 34));
+                createShift(inMonth, addHours(monthStart, 40), addHours(monthStart, 45));
+                inMonthDriverId = inMonth.getId();
+
+                Driver crossing = createDriver(2, city);
+                createShift(crossing, addHours(monthStart, -5), addHours(monthStart, 3));
+                crossingDriverId = crossing.getId();
+
+                Driver openShift = createDriver(3, city);
+                createShift(openShift, openShiftBeggined, null);
+                openShiftDriverId = openShift.getId();
+
+                Driver previousMonth = createDriver(4, city);
+                createShift(previousMonth, addHours(monthStart, -30), addHours(monthStart, -20));
+                previousMonthDriverId = previousMonth.getId();
+            }
+        });
+    }
+
+    @After
+    public void cleanDatabase() {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                entityManager.createQuery("DELETE FROM DriverShiftJournal").executeUpdate();
+                entityManager.createQuery("DELETE FROM Driver").executeUpdate();
+                entityManager.createQuery("DELETE FROM City").executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Test: sumWorkingHoursForThisMonth
+     * Case: shifts are trimmed to month bounds, open shift is counted up
+     * until now, drivers without shifts in this month are not in result
+     */
+    @Test
+    public void testSumWorkingHoursForThisMonth() {
+        Map<Integer, Float> hours = sumWorkingHoursForThisMonth(Arrays.asList(
+                inMonthDriverId, crossingDriverId, openShiftDriverId,
+                previousMonthDriverId));
+
+        Assert.assertEquals(3, hours.size());
+        Assert.assertEquals(15f, hours.get(inMonthDriverId), 0.01f);
+        Assert.assertEquals(3f, hours.get(crossingDriverId), 0.01f);
+        float openShiftHours = DateUtils.diffInHours(openShiftBeggined, new Date());
+        Assert.assertEquals(openShiftHours, hours.get(openShiftDriverId), 0.05f);
+        Assert.assertNull(hours.get(previousMonthDriverId));
+    }
+
+    /**
+     * Test: sumWorkingHoursForThisMonth
+     * Case: only requested drivers are summed, empty collection gives empty
+     * map
+     */
+    @Test
+    public void testSumWorkingHoursForThisMonthOnlyForRequestedDrivers() {
+        Map<Integer, Float> hours = sumWorkingHoursForThisMonth(
+                Collections.singletonList(crossingDriverId));
+
+        Assert.assertEquals(1, hours.size());
+        Assert.assertEquals(3f, hours.get(crossingDriverId), 0.01f);
+        Assert.assertTrue(sumWorkingHoursForThisMonth(
+                Collections.<Integer> emptyList()).isEmpty());
+    }
+
+    /**
+     * Test: sumFinishedShiftsHoursForMonth
+     * Case: open shifts are not counted
+     */
+    @Test
+    public void testSumFinishedShiftsHoursForMonth() {
+        Map<Integer, Float> hours = transactionTemplate
+                .execute(new TransactionCallback<Map<Integer, Float>>() {
+                    @Override
+                    public Map<Integer, Float> doInTransaction(TransactionStatus status) {
+                        try {
+                            return driverShiftJournalDao
+                                    .sumFinishedShiftsHoursForMonth(monthStart);
+                        } catch (DaoException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+
+        Assert.assertEquals(2, hours.size());
+        Assert.assertEquals(15f, hours.get(inMonthDriverId), 0.01f);
+        Assert.assertEquals(3f, hours.get(crossingDriverId), 0.01f);
+    }
+
+    /**
+     * Test: findAllUnfinishedShifts
+     * Case: only open shifts are found, their drivers are loaded by the same
+     * query and can be read after transaction ends
+     */
+    @Test
+    public void testFindAllUnfinishedShiftsFetchesDrivers() {
+        Set<DriverShiftJournal> shifts = transactionTemplate
+                .execute(new TransactionCallback<Set<DriverShiftJournal>>() {
+                    @Override
+                    public Set<DriverShiftJournal> doInTransaction(TransactionStatus status) {
+                        try {
+                            return driverShiftJournalDao.findAllUnfinishedShifts();
+                        } catch (DaoException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+
+        Assert.assertEquals(1, shifts.size());
+        Driver driver = shifts.iterator().next().getDriverForThisRecord();
+        Assert.assertTrue(Hibernate.isInitialized(driver));
+        Assert.assertEquals(openShiftDriverId, driver.getId());
+        Assert.assertEquals(3, driver.getEmployeeId());
+    }
+
+    private Map<Integer, Float> sumWorkingHoursForThisMonth(
+            final Collection<Integer> driverIds) {
+        return transactionTemplate
+                .execute(new TransactionCallback<Map<Integer, Float>>() {
+                    @Override
+                    public Map<Integer, Float> doInTransaction(TransactionStatus status) {
+                        try {
+                            return driverShiftJournalDao
+                                    .sumWorkingHoursForThisMonth(driverIds);
+                        } catch (DaoException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+    }
+
+    private Driver createDriver(int employeeId, City city) {
+        Driver driver = new Driver();
+        driver.setEmployeeId(employeeId);
+        driver.setName("Name");
+        driver.setSurname("Surname");
+        driver.setStatus(DriverStatus.FREE);
+        driver.setCurrentCity(city);
+        entityManager.persist(driver);
+        return driver;
+    }
+
+    private void createShift(Driver driver, Date beggined, Date ended) {
+        DriverShiftJournal shift = new DriverShiftJournal();
+        shift.setDriverForThisRecord(driver);
+        shift.setShiftBeggined(beggined);
+        shift.setShiftEnded(ended);
+        entityManager.persist(shift);
+    }
+
+    private static Date addHours(Date date, int hours) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.add(Calendar.HOUR_OF_DAY, hours);
+        return calendar.getTime();
+    }
+}
@@ -0,0 +1,191 @@
+package com.tsystems.javaschool.logiweb.dao.jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tsystems.javaschool.logiweb.dao.CityDao;
+import com.tsystems.javaschool.logiweb.dao.EntityBatchHandler;
+import com.tsystems.javaschool.logiweb.dao.KeysetPage;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.entities.City;
+
+/**
+ * Keyset pagination and batched streaming of GenericDaoJpa against embedded
+ * H2 database.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:test-context-h2.xml")
+public class GenericDaoJpaKeysetTest {
+
+    private static final List<String> NAMES = Arrays.asList("B", "A", "B",
+            "C", "A");
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CityDao cityDao;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void populateDatabase() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                for (String name : NAMES) {
+                    City city = new City();
+                    city.setName(name);
+                    entityManager.persist(city);
+                }
+            }
+        });
+    }
+
+    @After
+    public void cleanDatabase() {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                entityManager.createQuery("DELETE FROM City").executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Test: findPage
+     * Case: sort attribute has duplicate values, pages follow continuation
+     * token and every city is returned exactly once in (name, id) order
+     */
+    @Test
+    public void testPagesFollowContinuationToken() {
+        List<KeysetPage<City>> pages = readAllPages("name", true, 2);
+
+        Assert.assertEquals(3, pages.size());
+        Assert.assertEquals(2, pages.get(0).getItems().size());
+        Assert.assertEquals(2, pages.get(1).getItems().size());
+        Assert.assertEquals(1, pages.get(2).getItems().size());
+        Assert.assertTrue(pages.get(1).hasNext());
+        Assert.assertFalse(pages.get(2).hasNext());
+
+        List<City> cities = new ArrayList<City>();
+        for (KeysetPage<City> page : pages) {
+            cities.addAll(page.getItems());
+        }
+        Assert.assertEquals(NAMES.size(), cities.size());
+        for (int i = 1; i < cities.size(); i++) {
+            City previous = cities.get(i - 1);
+            City current = cities.get(i);
+            int byName = previous.getName().compareTo(current.getName());
+            Assert.assertTrue(byName < 0
+                    || (byName == 0 && previous.getId() < current.getId()));
+        }
+    }
+
+    /**
+     * Test: findPage
+     * Case: no sort attribute, descending order by id
+     */
+    @Test
+    public void testPagesByIdDescending() {
+        List<KeysetPage<City>> pages = readAllPages(null, false, 3);
+
+        Assert.assertEquals(2, pages.size());
+        List<City> firstPage = pages.get(0).getItems();
+        Assert.assertEquals(Integer.valueOf(firstPage.get(2).getId()),
+                pages.get(0).getNextAfterId());
+        Assert.assertTrue(firstPage.get(0).getId() > firstPage.get(1).getId());
+        Assert.assertTrue(firstPage.get(2).getId() > pages.get(1).getItems()
+                .get(0).getId());
+    }
+
+    /**
+     * Test: findPage
+     * Case: sort attribute that does not exist is rejected
+     */
+    @Test(expected = DaoException.class)
+    public void testUnknownSortAttributeIsRejected() throws DaoException {
+        cityDao.findPage(null, 2, "population", true);
+    }
+
+    /**
+     * Test: findAllInBatches
+     * Case: entities are handed over in batches of fixed size and detached
+     * after each batch
+     */
+    @Test
+    public void testStreamingHandsOverDetachedBatches() {
+        final List<Integer> batchSizes = new ArrayList<Integer>();
+        final List<City> firstBatch = new ArrayList<City>();
+
+        long total = transactionTemplate.execute(new TransactionCallback<Long>() {
+            @Override
+            public Long doInTransaction(TransactionStatus status) {
+                try {
+                    return cityDao.findAllInBatches(2, new EntityBatchHandler<City>() {
+                        @Override
+                        public void handleBatch(List<City> batch) {
+                            if (firstBatch.isEmpty()) {
+                                firstBatch.addAll(batch);
+                            } else {
+                                Assert.assertFalse(entityManager
+                                        .contains(firstBatch.get(0)));
+                            }
+                            batchSizes.add(batch.size());
+                        }
+                    });
+                } catch (DaoException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        Assert.assertEquals(NAMES.size(), total);
+        Assert.assertEquals(Arrays.asList(2, 2, 1), batchSizes);
+        Assert.assertTrue(firstBatch.get(0).getId() < firstBatch.get(1).getId());
+    }
+
+    private List<KeysetPage<City>> readAllPages(final String sortAttribute,
+            final boolean ascending, final int limit) {
+        return transactionTemplate.execute(new TransactionCallback<List<KeysetPage<City>>>() {
+            @Override
+            public List<KeysetPage<City>> doInTransaction(TransactionStatus status) {
+                try {
+                    List<KeysetPage<City>> pages = new ArrayList<KeysetPage<City>>();
+                    Integer afterId = null;
+                    do {
+                        KeysetPage<City> page = cityDao.findPage(afterId,
+                                limit, sortAttribute, ascending);
+                        pages.add(page);
+                        afterId = page.getNextAfterId();
+                    } while (afterId != null);
+                    return pages;
+                } catch (DaoException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+}
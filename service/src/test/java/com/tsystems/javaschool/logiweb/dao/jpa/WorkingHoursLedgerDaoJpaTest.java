@@ -0,0 +1,150 @@
+package com.tsystems.javaschool.logiweb.dao.jpa;
+
+import java.util.Date;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tsystems.javaschool.logiweb.dao.DriverDao;
+import com.tsystems.javaschool.logiweb.dao.DriverMonthlyHoursDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.DriverMonthlyHours;
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+import com.tsystems.javaschool.logiweb.utils.DateUtils;
+
+/**
+ * Queries used by rebuild of working hours ledger against embedded H2
+ * database.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:test-context-h2.xml")
+public class WorkingHoursLedgerDaoJpaTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DriverDao driverDao;
+
+    @Autowired
+    private DriverMonthlyHoursDao driverMonthlyHoursDao;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Date monthStart;
+    private Date previousMonth;
+
+    @Before
+    public void populateDatabase() {
+        monthStart = DateUtils.getFirstDateOfCurrentMonth();
+        previousMonth = DateUtils.getFirstDateOfMonth(new Date(
+                monthStart.getTime() - 24 * 60 * 60 * 1000L));
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                City city = new City();
+                city.setName("City");
+                entityManager.persist(city);
+
+                for (int employeeId = 1; employeeId <= 3; employeeId++) {
+                    Driver driver = new Driver();
+                    driver.setEmployeeId(employeeId);
+                    driver.setName("Name");
+                    driver.setSurname("Surname");
+                    driver.setStatus(DriverStatus.FREE);
+                    driver.setCurrentCity(city);
+                    entityManager.persist(driver);
+
+                    createLedger(driver.getId(), previousMonth);
+                    if (employeeId == 1) {
+                        createLedger(driver.getId(), monthStart);
+                    }
+                }
+            }
+        });
+    }
+
+    @After
+    public void cleanDatabase() {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                entityManager.createQuery("DELETE FROM DriverMonthlyHours").executeUpdate();
+                entityManager.createQuery("DELETE FROM Driver").executeUpdate();
+                entityManager.createQuery("DELETE FROM City").executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Test: lockAllForUpdate
+     * Case: rows of all drivers are locked
+     */
+    @Test
+    public void testLockAllForUpdate() {
+        int locked = transactionTemplate.execute(new TransactionCallback<Integer>() {
+            @Override
+            public Integer doInTransaction(TransactionStatus status) {
+                try {
+                    return driverDao.lockAllForUpdate();
+                } catch (DaoException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        Assert.assertEquals(3, locked);
+    }
+
+    /**
+     * Test: countForMonth
+     * Case: only records of requested month are counted
+     */
+    @Test
+    public void testCountForMonth() {
+        Assert.assertEquals(1, countForMonth(monthStart));
+        Assert.assertEquals(3, countForMonth(previousMonth));
+    }
+
+    private long countForMonth(final Date month) {
+        return transactionTemplate.execute(new TransactionCallback<Long>() {
+            @Override
+            public Long doInTransaction(TransactionStatus status) {
+                try {
+                    return driverMonthlyHoursDao.countForMonth(month);
+                } catch (DaoException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    private void createLedger(int driverId, Date month) {
+        DriverMonthlyHours ledger = new DriverMonthlyHours();
+        ledger.setDriverId(driverId);
+        ledger.setMonth(month);
+        ledger.setFinishedShiftsHours(5f);
+        entityManager.persist(ledger);
+    }
+}
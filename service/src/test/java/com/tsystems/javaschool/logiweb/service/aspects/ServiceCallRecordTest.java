@@ -0,0 +1,69 @@
+package com.tsystems.javaschool.logiweb.service.aspects;
+
+import static org.mockito.Mockito.when;
+
+import org.aspectj.lang.Signature;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.tsystems.javaschool.logiweb.service.OrderService;
+import com.tsystems.javaschool.logiweb.service.impl.OrderServiceImpl;
+
+public class ServiceCallRecordTest {
+
+    private Signature signature;
+
+    @Before
+    public void setupMocks() {
+        signature = Mockito.mock(Signature.class);
+        when(signature.getDeclaringType()).thenReturn(OrderService.class);
+        when(signature.getName()).thenReturn("assignTruckToOrder");
+    }
+
+    /**
+     * Test: toString
+     * Case: null argument is rendered instead of failing, class of target is
+     * logged instead of interface that declares method
+     */
+    @Test
+    public void testNullArgumentIsRendered() {
+        String message = new ServiceCallRecord(OrderServiceImpl.class,
+                signature, new Object[] { 1, null }).toString();
+
+        Assert.assertEquals("event=serviceCall class=OrderServiceImpl"
+                + " method=assignTruckToOrder args=\"[Integer:1, null]\"", message);
+    }
+
+    /**
+     * Test: toString
+     * Case: method without arguments, value without spaces is not quoted
+     */
+    @Test
+    public void testNoArguments() {
+        String message = new ServiceCallRecord(OrderServiceImpl.class,
+                signature, new Object[0]).toString();
+
+        Assert.assertTrue(message.endsWith(" args=[]"));
+    }
+
+    /**
+     * Test: toString
+     * Case: long argument is cut, quotes inside value are escaped
+     */
+    @Test
+    public void testLongArgumentIsCutAndQuotesEscaped() {
+        StringBuilder longValue = new StringBuilder("\"");
+        for (int i = 0; i < 100; i++) {
+            longValue.append('a');
+        }
+
+        String message = new ServiceCallRecord(OrderServiceImpl.class,
+                signature, new Object[] { longValue.toString() }).toString();
+
+        Assert.assertTrue(message.contains("args=\"[String:\\\"aaa"));
+        Assert.assertTrue(message.endsWith("a...]\""));
+        Assert.assertTrue(message.length() < 100 + ServiceCallRecord.MAX_ARG_LENGTH);
+    }
+}
@@ -0,0 +1,86 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.tsystems.javaschool.logiweb.dao.projections.RoadRow;
+
+public class DistanceMatrixTest {
+
+    private static final float SPEED = 60f;
+
+    private static final List<RoadRow> ROADS = Arrays.asList(
+            new RoadRow(1, 2, 10),
+            new RoadRow(2, 4, 10),
+            new RoadRow(1, 3, 50),
+            new RoadRow(3, 4, 5),
+            new RoadRow(7, 8, 1));
+
+    /**
+     * Test: build
+     * Case: every pair has same distance as Dijkstra on graph
+     */
+    @Test
+    public void testBuiltMatrixMatchesGraph() {
+        RoadGraph graph = new RoadGraph(ROADS);
+        DistanceMatrix matrix = DistanceMatrix.build(graph, SPEED);
+
+        Assert.assertEquals(graph.size(), matrix.size());
+        assertSameAsGraph(graph, matrix);
+        Assert.assertEquals(25f / SPEED, matrix.getTravelHours(1, 3), 0.0001f);
+        Assert.assertEquals(0f, matrix.getDistance(42, 42), 0.0001f);
+        Assert.assertEquals(RoadGraph.UNREACHABLE, matrix.getDistance(1, 42), 0f);
+    }
+
+    /**
+     * Test: withShorterRoad
+     * Case: new road between unconnected parts and shortened road give same
+     * distances as full rebuild
+     */
+    @Test
+    public void testShorterRoadGivesSameMatrixAsRebuild() {
+        DistanceMatrix matrix = DistanceMatrix.build(new RoadGraph(ROADS), SPEED);
+
+        List<RoadRow> withBridge = new ArrayList<RoadRow>(ROADS);
+        withBridge.add(new RoadRow(4, 7, 2));
+        RoadGraph bridged = new RoadGraph(withBridge);
+        matrix = matrix.withShorterRoad(bridged, 4, 7, 2);
+        assertSameAsGraph(bridged, matrix);
+        Assert.assertEquals(23f, matrix.getDistance(1, 8), 0.0001f);
+
+        List<RoadRow> shortened = new ArrayList<RoadRow>(withBridge);
+        shortened.set(2, new RoadRow(1, 3, 1));
+        RoadGraph shortenedGraph = new RoadGraph(shortened);
+        matrix = matrix.withShorterRoad(shortenedGraph, 1, 3, 1);
+        assertSameAsGraph(shortenedGraph, matrix);
+        Assert.assertSame(shortenedGraph, matrix.getGraph());
+    }
+
+    /**
+     * Test: withShorterRoad
+     * Case: road to new city can't be applied incrementally
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRoadToNewCityIsRejected() {
+        DistanceMatrix matrix = DistanceMatrix.build(new RoadGraph(ROADS), SPEED);
+        List<RoadRow> withNewCity = new ArrayList<RoadRow>(ROADS);
+        withNewCity.add(new RoadRow(4, 9, 2));
+
+        matrix.withShorterRoad(new RoadGraph(withNewCity), 4, 9, 2);
+    }
+
+    private static void assertSameAsGraph(RoadGraph graph, DistanceMatrix matrix) {
+        for (int i = 0; i < graph.size(); i++) {
+            for (int j = 0; j < graph.size(); j++) {
+                int from = graph.cityIdAt(i);
+                int to = graph.cityIdAt(j);
+                Assert.assertEquals(graph.shortestDistance(from, to),
+                        matrix.getDistance(from, to), 0.0001f);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    /**
+     * Test: bucketOf, upperBoundOf
+     * Case: every duration falls into bucket which upper bound is not less
+     * than duration and not more than 1/8 greater
+     */
+    @Test
+    public void testBucketBoundsAreWithinPrecision() {
+        for (long micros = 0; micros < 1L << 40; micros = micros * 3 / 2 + 1) {
+            long upperBound = LatencyHistogram.upperBoundOf(LatencyHistogram
+                    .bucketOf(micros));
+            if (micros < 1L << 36) {
+                Assert.assertTrue(upperBound >= micros);
+                Assert.assertTrue(upperBound <= micros + micros / 8);
+            }
+        }
+    }
+
+    /**
+     * Test: getStatistics
+     * Case: 1..1000 ms calls, percentiles are within precision
+     */
+    @Test
+    public void testPercentilesAndCounts() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * 1000000L, millis % 100 == 0);
+        }
+
+        MethodTimingStatistics statistics = histogram.getStatistics("Service.method");
+
+        Assert.assertEquals(1000, statistics.getCallCount());
+        Assert.assertEquals(10, statistics.getErrorCount());
+        Assert.assertEquals(500.5, statistics.getMeanMillis(), 0.001);
+        Assert.assertEquals(500, statistics.getP50Millis(), 500 / 8.0);
+        Assert.assertEquals(900, statistics.getP90Millis(), 900 / 8.0);
+        Assert.assertEquals(990, statistics.getP99Millis(), 990 / 8.0);
+        Assert.assertEquals(1000, statistics.getMaxMillis(), 0.001);
+    }
+
+    /**
+     * Test: record
+     * Case: calls recorded by many threads at once are not lost
+     */
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i * 1000L, false);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(40000, histogram.getStatistics("m").getCallCount());
+        Assert.assertEquals(9.999, histogram.getStatistics("m").getMaxMillis(), 0.0001);
+    }
+}
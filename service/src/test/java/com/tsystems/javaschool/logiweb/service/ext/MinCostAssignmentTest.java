@@ -0,0 +1,127 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MinCostAssignmentTest {
+
+    private static final double NO = MinCostAssignment.FORBIDDEN;
+
+    /**
+     * Test: solve
+     * Case: cheapest pair of first row is not in optimal assignment
+     */
+    @Test
+    public void testFindsOptimumInsteadOfGreedyChoice() {
+        double[][] costs = {
+                { 1, 2 },
+                { 1, 10 } };
+
+        int[] result = MinCostAssignment.solve(costs);
+
+        Assert.assertArrayEquals(new int[] { 1, 0 }, result);
+    }
+
+    /**
+     * Test: solve
+     * Case: more rows than columns and forbidden pairs; as many rows as
+     * possible are assigned even if it costs more
+     */
+    @Test
+    public void testMaxNumberOfRowsIsAssigned() {
+        double[][] costs = {
+                { 1, NO },
+                { 5, 100 },
+                { NO, NO } };
+
+        int[] result = MinCostAssignment.solve(costs);
+
+        Assert.assertArrayEquals(new int[] { 0, 1, MinCostAssignment.UNASSIGNED }, result);
+    }
+
+    /**
+     * Test: solve (sparse rows)
+     * Case: row without allowed columns and unused columns; pairs that are
+     * not listed are never assigned
+     */
+    @Test
+    public void testSparseRows() {
+        int[][] columnsOfRows = { { 1, 3 }, {}, { 1 } };
+        double[][] costsOfRows = { { 1, 7 }, {}, { 2 } };
+
+        int[] result = MinCostAssignment.solve(5, columnsOfRows, costsOfRows);
+
+        Assert.assertArrayEquals(new int[] { 3, MinCostAssignment.UNASSIGNED, 1 }, result);
+    }
+
+    /**
+     * Test: solve
+     * Case: random rectangular matrices, result is same as brute force
+     */
+    @Test
+    public void testSameAsBruteForce() {
+        Random random = new Random(3);
+        for (int test = 0; test < 200; test++) {
+            int rows = 1 + random.nextInt(5);
+            int columns = 1 + random.nextInt(5);
+            double[][] costs = new double[rows][columns];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    costs[i][j] = random.nextInt(4) == 0 ? NO : random.nextInt(50);
+                }
+            }
+
+            int[] result = MinCostAssignment.solve(costs);
+
+            boolean[] usedColumns = new boolean[columns];
+            for (int column : result) {
+                if (column != MinCostAssignment.UNASSIGNED) {
+                    Assert.assertFalse(usedColumns[column]);
+                    usedColumns[column] = true;
+                }
+            }
+            double[] best = bruteForce(costs, 0, new boolean[columns]);
+            double[] actual = score(costs, result);
+            Assert.assertEquals(best[0], actual[0], 0.0001);
+            Assert.assertEquals(best[1], actual[1], 0.0001);
+        }
+    }
+
+    /**
+     * @return number of assigned rows (negative) and total cost
+     */
+    private static double[] score(double[][] costs, int[] result) {
+        double[] score = new double[2];
+        for (int i = 0; i < result.length; i++) {
+            if (result[i] != MinCostAssignment.UNASSIGNED) {
+                Assert.assertTrue(costs[i][result[i]] != NO);
+                score[0]--;
+                score[1] += costs[i][result[i]];
+            }
+        }
+        return score;
+    }
+
+    private static double[] bruteForce(double[][] costs, int row, boolean[] used) {
+        if (row == costs.length) {
+            return new double[2];
+        }
+        double[] best = bruteForce(costs, row + 1, used);
+        for (int j = 0; j < used.length; j++) {
+            if (used[j] || costs[row][j] == NO) {
+                continue;
+            }
+            used[j] = true;
+            double[] rest = bruteForce(costs, row + 1, used);
+            used[j] = false;
+            double[] candidate = { rest[0] - 1, rest[1] + costs[row][j] };
+            if (candidate[0] < best[0]
+                    || (candidate[0] == best[0] && candidate[1] < best[1])) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,176 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PickupDeliveryOptimizerTest {
+
+    private static final int NO = PickupDeliveryOptimizer.NO_PICKUP;
+
+    private final PickupDeliveryOptimizer optimizer = new PickupDeliveryOptimizer(200);
+
+    /**
+     * Test: optimize
+     * Case: cargo is delivered on the way instead of carrying all cargoes
+     * to the end; result is same as best of all feasible orders
+     */
+    @Test
+    public void testFindsBestOrderOnLine() {
+        // start at 0; cargo A 0 -> 10, cargo B 10 -> 20, cargo C 20 -> 5
+        float[] positions = { 0, 0, 10, 10, 20, 20, 5 };
+        int[] pickupOf = { NO, 0, NO, 2, NO, 4 };
+        float[] loadChange = { 1, -1, 1, -1, 1, -1 };
+        float[] legs = lineDistances(positions);
+
+        int[] route = optimizer.optimize(legs, pickupOf, loadChange, 0,
+                Float.POSITIVE_INFINITY, 1);
+
+        assertKeepsPrecedence(route, pickupOf);
+        Assert.assertEquals(bruteForceBest(legs, pickupOf), length(legs, route), 0.001f);
+        Assert.assertEquals(35f, length(legs, route), 0.001f);
+    }
+
+    /**
+     * Test: optimize
+     * Case: truck takes one cargo at a time when two don't fit, even if it
+     * is longer
+     */
+    @Test
+    public void testCapacityIsNotExceeded() {
+        // start at 0; cargo A 0 -> 10, cargo B 1 -> 11
+        float[] positions = { 0, 0, 10, 1, 11 };
+        int[] pickupOf = { NO, 0, NO, 2 };
+        float[] loadChange = { 1, -1, 1, -1 };
+        float[] legs = lineDistances(positions);
+
+        int[] unlimited = optimizer.optimize(legs, pickupOf, loadChange, 0,
+                Float.POSITIVE_INFINITY, 1);
+        int[] limited = optimizer.optimize(legs, pickupOf, loadChange, 0, 1, 1);
+
+        Assert.assertEquals(11f, length(legs, unlimited), 0.001f);
+        assertKeepsPrecedence(limited, pickupOf);
+        float load = 0;
+        for (int stop : limited) {
+            load += loadChange[stop];
+            Assert.assertTrue(load <= 1);
+        }
+        Assert.assertEquals(29f, length(legs, limited), 0.001f);
+    }
+
+    /**
+     * Test: optimize
+     * Case: deliveries of cargoes that are already in truck may go anywhere,
+     * time budget is kept on big route
+     */
+    @Test
+    public void testBigRouteKeepsPrecedenceAndBudget() {
+        Random random = new Random(7);
+        int cargoes = 40;
+        int n = cargoes * 2 + 5;
+        float[] positions = new float[(n + 1) * 2];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextInt(1000);
+        }
+        int[] pickupOf = new int[n];
+        float[] loadChange = new float[n];
+        for (int i = 0; i < cargoes; i++) {
+            pickupOf[2 * i] = NO;
+            pickupOf[2 * i + 1] = 2 * i;
+            loadChange[2 * i] = 1;
+            loadChange[2 * i + 1] = -1;
+        }
+        for (int i = cargoes * 2; i < n; i++) {
+            pickupOf[i] = NO;
+            loadChange[i] = -1;
+        }
+        float[] legs = planeDistances(positions);
+
+        long start = System.currentTimeMillis();
+        int[] route = new PickupDeliveryOptimizer(100).optimize(legs,
+                pickupOf, loadChange, 5, Float.POSITIVE_INFINITY, 1);
+        long elapsed = System.currentTimeMillis() - start;
+
+        Assert.assertEquals(n, route.length);
+        assertKeepsPrecedence(route, pickupOf);
+        Assert.assertTrue("Took " + elapsed + " ms", elapsed < 1000);
+    }
+
+    /**
+     * Points on a line, first point is start.
+     */
+    private static float[] lineDistances(float[] positions) {
+        int size = positions.length;
+        float[] legs = new float[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                legs[i * size + j] = Math.abs(positions[i] - positions[j]);
+            }
+        }
+        return legs;
+    }
+
+    /**
+     * Points on a plane given as x, y pairs.
+     */
+    private static float[] planeDistances(float[] coordinates) {
+        int size = coordinates.length / 2;
+        float[] legs = new float[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                float dx = coordinates[2 * i] - coordinates[2 * j];
+                float dy = coordinates[2 * i + 1] - coordinates[2 * j + 1];
+                legs[i * size + j] = (float) Math.sqrt(dx * dx + dy * dy);
+            }
+        }
+        return legs;
+    }
+
+    private static float length(float[] legs, int[] route) {
+        int size = route.length + 1;
+        float length = 0;
+        int previous = 0;
+        for (int stop : route) {
+            length += legs[previous * size + stop + 1];
+            previous = stop + 1;
+        }
+        return length;
+    }
+
+    private static void assertKeepsPrecedence(int[] route, int[] pickupOf) {
+        int[] positions = new int[route.length];
+        for (int i = 0; i < route.length; i++) {
+            positions[route[i]] = i;
+        }
+        for (int stop = 0; stop < route.length; stop++) {
+            if (pickupOf[stop] != NO) {
+                Assert.assertTrue(positions[pickupOf[stop]] < positions[stop]);
+            }
+        }
+    }
+
+    private static float bruteForceBest(float[] legs, int[] pickupOf) {
+        int n = pickupOf.length;
+        return bruteForce(legs, pickupOf, new int[n], new boolean[n], 0);
+    }
+
+    private static float bruteForce(float[] legs, int[] pickupOf, int[] route,
+            boolean[] used, int depth) {
+        int n = route.length;
+        if (depth == n) {
+            return length(legs, route);
+        }
+        float best = Float.POSITIVE_INFINITY;
+        for (int stop = 0; stop < n; stop++) {
+            if (used[stop] || (pickupOf[stop] != NO && !used[pickupOf[stop]])) {
+                continue;
+            }
+            used[stop] = true;
+            route[depth] = stop;
+            best = Math.min(best, bruteForce(legs, pickupOf, route, used, depth + 1));
+            used[stop] = false;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,81 @@
+package com.tsystems.javaschool.logiweb.service.ext;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tsystems.javaschool.logiweb.dao.projections.RoadRow;
+
+public class RoadGraphTest {
+
+    private RoadGraph graph;
+
+    /**
+     * 1 --10-- 2 --10-- 4
+     *  \               /
+     *   ------50-- 3 -5
+     * 
+     * 7 --1-- 8 (not connected to others)
+     */
+    @Before
+    public void buildGraph() {
+        graph = new RoadGraph(Arrays.asList(
+                new RoadRow(1, 2, 10),
+                new RoadRow(2, 4, 10),
+                new RoadRow(1, 3, 50),
+                new RoadRow(3, 4, 5),
+                new RoadRow(7, 8, 1)));
+    }
+
+    /**
+     * Test: shortestDistance
+     * Case: longer path with fewer roads is not chosen, roads are two-way
+     */
+    @Test
+    public void testShortestDistanceTakesCheapestPath() {
+        Assert.assertEquals(25f, graph.shortestDistance(1, 3), 0.0001f);
+        Assert.assertEquals(25f, graph.shortestDistance(3, 1), 0.0001f);
+        Assert.assertEquals(20f, graph.shortestDistance(1, 4), 0.0001f);
+    }
+
+    /**
+     * Test: shortestPath
+     * Case: path lists all cities from first to last
+     */
+    @Test
+    public void testShortestPathListsCities() {
+        Assert.assertEquals(Arrays.asList(1, 2, 4, 3), graph.shortestPath(1, 3));
+        Assert.assertEquals(Arrays.asList(5), graph.shortestPath(5, 5));
+    }
+
+    /**
+     * Test: shortestDistance, shortestPath
+     * Case: cities in different components or without roads
+     */
+    @Test
+    public void testUnreachableCities() {
+        Assert.assertEquals(RoadGraph.UNREACHABLE, graph.shortestDistance(1, 8), 0f);
+        Assert.assertEquals(RoadGraph.UNREACHABLE, graph.shortestDistance(1, 42), 0f);
+        Assert.assertTrue(graph.shortestPath(1, 8).isEmpty());
+        Assert.assertNull(graph.shortestDistancesFrom(42));
+        Assert.assertEquals(0f, graph.shortestDistance(42, 42), 0f);
+    }
+
+    /**
+     * Test: shortestDistancesFrom
+     * Case: one-to-all distances are indexed by city index
+     */
+    @Test
+    public void testShortestDistancesFromIsIndexedByCityIndex() {
+        float[] distances = graph.shortestDistancesFrom(4);
+
+        Assert.assertEquals(6, graph.size());
+        Assert.assertEquals(5, graph.roadCount());
+        Assert.assertEquals(20f, distances[graph.indexOf(1)], 0.0001f);
+        Assert.assertEquals(0f, distances[graph.indexOf(4)], 0.0001f);
+        Assert.assertEquals(RoadGraph.UNREACHABLE, distances[graph.indexOf(7)], 0f);
+        Assert.assertEquals(3, graph.cityIdAt(graph.indexOf(3)));
+    }
+}
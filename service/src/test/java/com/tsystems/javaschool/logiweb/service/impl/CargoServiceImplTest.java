@@ -4,6 +4,10 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.hibernate.annotations.Any;
 import org.junit.Before;
 import org.junit.Test;
@@ -13,6 +17,7 @@ import com.tsystems.javaschool.logiweb.dao.CargoDao;
 import com.tsystems.javaschool.logiweb.dao.CityDao;
 import com.tsystems.javaschool.logiweb.dao.DeliveryOrderDao;
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CargoRow;
 import com.tsystems.javaschool.logiweb.entities.Cargo;
 import com.tsystems.javaschool.logiweb.entities.City;
 import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
@@ -20,14 +25,17 @@ import com.tsystems.javaschool.logiweb.entities.Truck;
 import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
 import com.tsystems.javaschool.logiweb.model.CargoModel;
 import com.tsystems.javaschool.logiweb.service.CargoService;
+import com.tsystems.javaschool.logiweb.service.RouteService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
 
 public class CargoServiceImplTest {
 
     private CargoDao cargoDaoMock;
     private CityDao cityDaoMock;
     private DeliveryOrderDao deliveryOrderDaoMock;
+    private RouteService routeServiceMock;
     
     private CargoService cargoService;
 
@@ -36,9 +44,10 @@ public class CargoServiceImplTest {
         cargoDaoMock = mock(CargoDao.class);
         cityDaoMock = mock(CityDao.class);
         deliveryOrderDaoMock = mock(DeliveryOrderDao.class);    
+        routeServiceMock = mock(RouteService.class);
         
         cargoService = new CargoServiceImpl(cargoDaoMock,
-                cityDaoMock, deliveryOrderDaoMock);
+                cityDaoMock, deliveryOrderDaoMock, routeServiceMock);
     }
     
     private CargoModel createValidTestCargo() {
@@ -90,7 +99,7 @@ public class CargoServiceImplTest {
             throws ServiceValidationException, LogiwebServiceException, DaoException {
         setupMocks();
         CargoService cargoService = new CargoServiceImpl(cargoDaoMock,
-                cityDaoMock, deliveryOrderDaoMock);
+                cityDaoMock, deliveryOrderDaoMock, routeServiceMock);
         CargoModel newCargo = createValidTestCargo();
         
         setMocksToPassInnerValidationInAddCargo(newCargo);
@@ -98,6 +107,8 @@ public class CargoServiceImplTest {
         cargoService.addCargo(newCargo);
         
         Mockito.verify(cargoDaoMock, times(1)).create(Mockito.any(Cargo.class));
+        Mockito.verify(routeServiceMock).evictRouteInformation(
+                newCargo.getOrderIdForThisCargo());
     }
     
     @Test(expected = ServiceValidationException.class)
@@ -106,7 +117,7 @@ public class CargoServiceImplTest {
             DaoException {
         setupMocks();
         CargoService cargoService = new CargoServiceImpl(cargoDaoMock,
-                cityDaoMock, deliveryOrderDaoMock);
+                cityDaoMock, deliveryOrderDaoMock, routeServiceMock);
         CargoModel newCargo = createValidTestCargo();
         setMocksToPassInnerValidationInAddCargo(newCargo);
         
@@ -121,7 +132,7 @@ public class CargoServiceImplTest {
             DaoException {
         setupMocks();
         CargoService cargoService = new CargoServiceImpl(cargoDaoMock,
-                cityDaoMock, deliveryOrderDaoMock);
+                cityDaoMock, deliveryOrderDaoMock, routeServiceMock);
         CargoModel newCargo = createValidTestCargo();
         setMocksToPassInnerValidationInAddCargo(newCargo);        
         
@@ -141,7 +152,7 @@ public class CargoServiceImplTest {
             DaoException {
         setupMocks();
         CargoService cargoService = new CargoServiceImpl(cargoDaoMock,
-                cityDaoMock, deliveryOrderDaoMock);
+                cityDaoMock, deliveryOrderDaoMock, routeServiceMock);
         CargoModel newCargo = createValidTestCargo();
         setMocksToPassInnerValidationInAddCargo(newCargo);
         
@@ -160,7 +171,7 @@ public class CargoServiceImplTest {
             DaoException {
         setupMocks();
         CargoService cargoService = new CargoServiceImpl(cargoDaoMock,
-                cityDaoMock, deliveryOrderDaoMock);
+                cityDaoMock, deliveryOrderDaoMock, routeServiceMock);
         CargoModel newCargo = createValidTestCargo();
         setMocksToPassInnerValidationInAddCargo(newCargo);
         
@@ -173,4 +184,23 @@ public class CargoServiceImplTest {
         
         cargoService.addCargo(newCargo);
     }
+    
+    /**
+     * Test: findCargoesPage
+     * Case: filter by order
+     */
+    @Test
+    public void testFindCargoesPageFilteredByOrder() throws LogiwebServiceException, DaoException {
+        Map<String, Object> expectedFilters = new HashMap<String, Object>();
+        expectedFilters.put("orderForThisCargo.id", 5);
+        
+        when(cargoDaoMock.findRowsFiltered(expectedFilters, "id", true, 0, 25))
+        .thenReturn(new ArrayList<CargoRow>());
+        
+        cargoService.findCargoesPage(null, 5, new PageRequest(1, 0, null));
+        
+        Mockito.verify(cargoDaoMock, times(1)).findRowsFiltered(expectedFilters,
+                "id", true, 0, 25);
+        Mockito.verify(cargoDaoMock, times(1)).countFiltered(expectedFilters);
+    }
 }
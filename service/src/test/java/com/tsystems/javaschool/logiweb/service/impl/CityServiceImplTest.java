@@ -0,0 +1,120 @@
+package com.tsystems.javaschool.logiweb.service.impl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.tsystems.javaschool.logiweb.dao.CityDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.ext.CityRegistry;
+
+public class CityServiceImplTest {
+
+    private CityDao cityDaoMock;
+    private CityServiceImpl cityService;
+
+    @Before
+    public void setupMocks() throws DaoException {
+        cityDaoMock = mock(CityDao.class);
+        when(cityDaoMock.findAll()).thenReturn(createCities("Moscow", "Berlin"));
+
+        cityService = new CityServiceImpl(cityDaoMock);
+    }
+
+    private Set<City> createCities(String... names) {
+        Set<City> cities = new HashSet<City>();
+        for (int i = 0; i < names.length; i++) {
+            City city = new City(i + 1);
+            city.setName(names[i]);
+            cities.add(city);
+        }
+        return cities;
+    }
+
+    /**
+     * Test: findById, findByName, findAllCities
+     * Case: cities are loaded once, then read from registry
+     */
+    @Test
+    public void testReadsDoNotReachDaoAfterLoad() throws DaoException,
+            LogiwebServiceException {
+        cityService.loadCitiesOnStartup();
+
+        Assert.assertEquals("Moscow", cityService.findById(1).getName());
+        Assert.assertEquals(2, cityService.findByName("Berlin").getId());
+        Assert.assertEquals(2, cityService.findAllCities().size());
+        Assert.assertNull(cityService.findById(42));
+
+        Mockito.verify(cityDaoMock, times(1)).findAll();
+    }
+
+    /**
+     * Test: findById
+     * Case: loading failed on startup, registry is loaded on first read
+     */
+    @Test
+    public void testRegistryIsLoadedOnFirstReadIfStartupLoadFailed()
+            throws DaoException, LogiwebServiceException {
+        when(cityDaoMock.findAll()).thenThrow(new DaoException())
+                .thenReturn(createCities("Moscow"));
+
+        cityService.loadCitiesOnStartup();
+
+        Assert.assertEquals("Moscow", cityService.findById(1).getName());
+    }
+
+    /**
+     * Test: reloadCities
+     * Case: new snapshot replaces old one, old snapshot is not changed
+     */
+    @Test
+    public void testReloadSwapsRegistry() throws DaoException,
+            LogiwebServiceException {
+        cityService.loadCitiesOnStartup();
+        CityRegistry oldRegistry = cityService.getCityRegistry();
+
+        when(cityDaoMock.findAll()).thenReturn(createCities("Moscow", "Berlin", "Paris"));
+        cityService.reloadCities();
+
+        Assert.assertEquals(2, oldRegistry.size());
+        Assert.assertNotSame(oldRegistry, cityService.getCityRegistry());
+        Assert.assertEquals(3, cityService.getCityRegistry().getById(3).getId());
+    }
+
+    /**
+     * Test: reloadCities
+     * Case: DAO fails, current registry is kept
+     */
+    @Test
+    public void testFailedReloadKeepsCurrentRegistry() throws DaoException,
+            LogiwebServiceException {
+        cityService.loadCitiesOnStartup();
+
+        when(cityDaoMock.findAll()).thenThrow(new DaoException());
+        try {
+            cityService.reloadCities();
+            Assert.fail("Exception expected");
+        } catch (LogiwebServiceException e) {
+            Assert.assertEquals("Berlin", cityService.findById(2).getName());
+        }
+    }
+
+    /**
+     * Test: findAllCities
+     * Case: snapshot can't be modified by caller
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFindAllCitiesIsUnmodifiable() throws LogiwebServiceException {
+        cityService.findAllCities().clear();
+    }
+}
@@ -0,0 +1,101 @@
+package com.tsystems.javaschool.logiweb.service.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tsystems.javaschool.logiweb.dao.CityDao;
+import com.tsystems.javaschool.logiweb.dao.ConnectionPoolStatisticsDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.ConnectionPoolRow;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Statistics of connection pool against embedded H2 database.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:test-context-h2.xml")
+public class ConnectionPoolStatisticsTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CityDao cityDao;
+
+    @Autowired
+    private ConnectionPoolStatisticsDao connectionPoolStatisticsDao;
+
+    @Test
+    public void testConnectionIsCountedAndReturnedAfterTransaction()
+            throws LogiwebServiceException {
+        MonitoringServiceImpl monitoringService = new MonitoringServiceImpl(
+                null, connectionPoolStatisticsDao, null, null);
+        long acquiredBefore = monitoringService.getConnectionPoolStatistics()
+                .getAcquiredCount();
+
+        new TransactionTemplate(transactionManager)
+                .execute(new TransactionCallbackWithoutResult() {
+                    @Override
+                    protected void doInTransactionWithoutResult(
+                            TransactionStatus status) {
+                        try {
+                            cityDao.findAll();
+                        } catch (DaoException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                });
+
+        ConnectionPoolRow stats = monitoringService.getConnectionPoolStatistics();
+        Assert.assertEquals("logiweb-test", stats.getPoolName());
+        Assert.assertTrue(stats.getAcquiredCount() > acquiredBefore);
+        Assert.assertEquals(0, stats.getActiveConnections());
+    }
+
+    @Test
+    public void testExhaustedPoolCountsTimeout() throws SQLException,
+            DaoException {
+        long timeoutsBefore = connectionPoolStatisticsDao.findPoolStatistics()
+                .getTimeoutCount();
+        int poolSize = ((HikariDataSource) dataSource).getMaximumPoolSize();
+
+        List<Connection> borrowed = new ArrayList<Connection>();
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                borrowed.add(dataSource.getConnection());
+            }
+            try {
+                dataSource.getConnection().close();
+                Assert.fail("Pool is exhausted, timeout expected");
+            } catch (SQLException e) {
+                // expected
+            }
+        } finally {
+            for (Connection connection : borrowed) {
+                connection.close();
+            }
+        }
+
+        Assert.assertEquals(timeoutsBefore + 1, connectionPoolStatisticsDao
+                .findPoolStatistics().getTimeoutCount());
+    }
+}
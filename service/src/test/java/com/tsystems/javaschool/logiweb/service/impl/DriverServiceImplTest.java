@@ -6,43 +6,56 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 import com.tsystems.javaschool.logiweb.dao.CityDao;
 import com.tsystems.javaschool.logiweb.dao.DriverDao;
+import com.tsystems.javaschool.logiweb.dao.DriverMonthlyHoursDao;
 import com.tsystems.javaschool.logiweb.dao.DriverShiftJournaDao;
 import com.tsystems.javaschool.logiweb.dao.TruckDao;
 import com.tsystems.javaschool.logiweb.dao.UserDao;
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.DriverCandidateRow;
+import com.tsystems.javaschool.logiweb.dao.projections.DriverRow;
 import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
 import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.DriverMonthlyHours;
 import com.tsystems.javaschool.logiweb.entities.DriverShiftJournal;
 import com.tsystems.javaschool.logiweb.entities.LogiwebUser;
 import com.tsystems.javaschool.logiweb.entities.Truck;
 import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
 import com.tsystems.javaschool.logiweb.model.DriverModel;
 import com.tsystems.javaschool.logiweb.service.DriverService;
 import com.tsystems.javaschool.logiweb.service.UserService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.RecordNotFoundServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
+import com.tsystems.javaschool.logiweb.utils.DateUtils;
 
 public class DriverServiceImplTest {
 
     private DriverDao driverDaoMock;
     private TruckDao truckDaoMock;
     private DriverShiftJournaDao shiftDaoMock;
+    private DriverMonthlyHoursDao monthlyHoursDaoMock;
     private UserService userServiceMock;
     private UserDao userDaoMock;
     private CityDao cityDaoMock;
@@ -58,6 +71,7 @@ public class DriverServiceImplTest {
         driverDaoMock = mock(DriverDao.class);
         truckDaoMock = mock(TruckDao.class);
         shiftDaoMock = mock(DriverShiftJournaDao.class);
+        monthlyHoursDaoMock = mock(DriverMonthlyHoursDao.class);
         userServiceMock = mock(UserService.class);
         userDaoMock = mock(UserDao.class);
         cityDaoMock = mock(CityDao.class);    
@@ -66,7 +80,8 @@ public class DriverServiceImplTest {
         .thenReturn(new City());
         
         driverService = new DriverServiceImpl(driverDaoMock,
-                truckDaoMock, shiftDaoMock, userServiceMock, userDaoMock, cityDaoMock);        
+                truckDaoMock, shiftDaoMock, monthlyHoursDaoMock, userServiceMock,
+                userDaoMock, cityDaoMock);        
     }
 
     /**
@@ -74,12 +89,12 @@ public class DriverServiceImplTest {
      * shiftDaoMock. Drivers for
      * driverDaoMock.findByCityWhereNotAssignedToTruck(...) will be created with
      * names: test0..test4 and IDs 0..4
-     *  Journals for
-     * shiftDaoMock.findThisMonthJournalsForDrivers(...) will be created with
-     * working hours: 
+     *  Working hours ledger records for
+     * monthlyHoursDaoMock.findByDriverIdsAndMonth(...) will be created with
+     * working hours (already trimmed to current month): 
      * test0 -- 15 working hours in two shifts 
      * test1 -- 12 working hours in one shift 
-     * test2 -- 0 hours 
+     * test2 -- 0 hours (no ledger record)
      * test3 -- 5 hours this month, 10 in previous (one shift)
      * test4 -- have unknown number of hours in unfinished shift
      * 
@@ -112,70 +127,42 @@ public class DriverServiceImplTest {
         freeDriversAsList.add(d4);
         freeDrivers = new HashSet<Driver>(freeDriversAsList);
 
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(new Date()); // today
-
-        calendar.set(Calendar.DAY_OF_MONTH, 1);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-
-        DriverShiftJournal j0 = new DriverShiftJournal();
-        j0.setDriverForThisRecord(d0);
-        j0.setId(1);
-        j0.setShiftBeggined(calendar.getTime());
-        calendar.set(Calendar.HOUR_OF_DAY, 10);
-        j0.setShiftEnded(calendar.getTime());
-
-        DriverShiftJournal j1 = new DriverShiftJournal();
-        j1.setDriverForThisRecord(d0);
-        j1.setId(1);
-        calendar.set(Calendar.HOUR_OF_DAY, 15);
-        j1.setShiftBeggined(calendar.getTime());
-        calendar.set(Calendar.HOUR_OF_DAY, 20);
-        j1.setShiftEnded(calendar.getTime());
-        // Driver 0 have 15 hours in total
-
-        DriverShiftJournal j2 = new DriverShiftJournal();
-        j2.setDriverForThisRecord(d1);
-        j2.setId(1);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        j2.setShiftBeggined(calendar.getTime());
-        calendar.set(Calendar.HOUR_OF_DAY, 12);
-        j2.setShiftEnded(calendar.getTime());
-        // Driver 1 have 12 hours in total
-
-        DriverShiftJournal j3 = new DriverShiftJournal();
-        j3.setDriverForThisRecord(d3);
-        j3.setId(1);
-        calendar.set(Calendar.HOUR_OF_DAY, 5); // ended
-        j3.setShiftEnded(calendar.getTime());
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.add(Calendar.HOUR, -10); // 10 H in prev. month
-        j3.setShiftBeggined(calendar.getTime());
-        // driver 3 have 5 hours in this month, and 10 in prev.
-        
-        DriverShiftJournal j4 = new DriverShiftJournal();
-        j4.setDriverForThisRecord(d4);
-        j4.setId(1);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        j4.setShiftBeggined(calendar.getTime());
+        Date month = DateUtils.getFirstDateOfCurrentMonth();
+        Set<DriverMonthlyHours> ledger = new HashSet<DriverMonthlyHours>();
+        ledger.add(createLedgerRecord(0, month, 15f, null));
+        ledger.add(createLedgerRecord(1, month, 12f, null));
+        ledger.add(createLedgerRecord(3, month, 5f, null)); // 10 H in prev. month are trimmed
         // driver 4 have unknown number of hours in unfinished shift
-
-        Set<DriverShiftJournal> journals = new HashSet<DriverShiftJournal>();
-        journals.add(j0);
-        journals.add(j1);
-        journals.add(j2);
-        journals.add(j4);
+        ledger.add(createLedgerRecord(4, month, 0f, month));
 
         when(driverDaoMock.findByCityWhereNotAssignedToTruck(Mockito
                         .any(City.class))).thenReturn(freeDrivers);
-        when(shiftDaoMock.findThisMonthJournalsForDrivers(freeDrivers))
-                .thenReturn(journals);
+        when(monthlyHoursDaoMock.findByDriverIdsAndMonth(
+                Mockito.anyCollectionOf(Integer.class), Mockito.any(Date.class)))
+                .thenReturn(ledger);
 
         return freeDriversAsList;
     }
 
+    /**
+     * Create working hours ledger record.
+     * 
+     * @param driverId
+     * @param month
+     * @param finishedShiftsHours
+     * @param openShiftBeggined null if there is no open shift
+     * @return
+     */
+    private DriverMonthlyHours createLedgerRecord(int driverId, Date month,
+            float finishedShiftsHours, Date openShiftBeggined) {
+        DriverMonthlyHours ledgerRecord = new DriverMonthlyHours();
+        ledgerRecord.setDriverId(driverId);
+        ledgerRecord.setMonth(month);
+        ledgerRecord.setFinishedShiftsHours(finishedShiftsHours);
+        ledgerRecord.setOpenShiftBeggined(openShiftBeggined);
+        return ledgerRecord;
+    }
+
     /**
      * Examine Driver Models and return true if they contain all drivers with ids specified in 
      * driverIdsToLookFor.
@@ -334,7 +321,7 @@ public class DriverServiceImplTest {
         setupMocks();
         when(driverDaoMock.find(1))
             .thenReturn(null);
-        when(truckDaoMock.find(1))
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
         .thenReturn(new Truck());
         
         driverService.assignDriverToTruck(1, 1);
@@ -349,7 +336,7 @@ public class DriverServiceImplTest {
         setupMocks();
         when(driverDaoMock.find(1))
         .thenReturn(new Driver());
-        when(truckDaoMock.find(1))
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
         .thenReturn(null);
         
         driverService.assignDriverToTruck(1, 1);
@@ -371,7 +358,7 @@ public class DriverServiceImplTest {
         
         when(driverDaoMock.find(1))
         .thenReturn(d);
-        when(truckDaoMock.find(1))
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
         .thenReturn(t);
         
         driverService.assignDriverToTruck(1, 1);
@@ -395,7 +382,7 @@ public class DriverServiceImplTest {
         
         when(driverDaoMock.find(1))
         .thenReturn(d);
-        when(truckDaoMock.find(1))
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
         .thenReturn(t);
         
         driverService.assignDriverToTruck(1, 1);
@@ -421,7 +408,7 @@ public class DriverServiceImplTest {
         
         when(driverDaoMock.find(1))
         .thenReturn(d);
-        when(truckDaoMock.find(1))
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
         .thenReturn(t);
         
         driverService.assignDriverToTruck(1, 1);
@@ -447,12 +434,126 @@ public class DriverServiceImplTest {
         
         when(driverDaoMock.find(1))
         .thenReturn(d);
-        when(truckDaoMock.find(1))
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
         .thenReturn(t);
         
         driverService.assignDriverToTruck(1, 1);
     }
     
+    /**
+     * Test: assignDriversToTruck
+     * Case: drivers are loaded with one query and all added to crew
+     */
+    @Test  
+    public void testAssignDriversToTruckWhenTruckHaveEnoughFreePositions() throws DaoException, LogiwebServiceException {
+        setupMocks();
+        
+        Driver d1 = new Driver();
+        d1.setId(1);
+        Driver d2 = new Driver();
+        d2.setId(2);
+        Set<Driver> drivers = new HashSet<Driver>();
+        drivers.add(d1);
+        drivers.add(d2);
+        Truck t = new Truck();
+        t.setCrewSize(2);
+        
+        when(driverDaoMock.findByIds(Mockito.anyCollectionOf(Integer.class)))
+        .thenReturn(drivers);
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
+        .thenReturn(t);
+        
+        driverService.assignDriversToTruck(Arrays.asList(1, 2), 1);
+        
+        Assert.assertTrue(t.getDrivers().containsAll(drivers));
+        Assert.assertEquals(t, d1.getCurrentTruck());
+        Mockito.verify(driverDaoMock, times(1)).findByIds(
+                Mockito.anyCollectionOf(Integer.class));
+        Mockito.verify(driverDaoMock, times(0)).find(Mockito.anyInt());
+    }
+    
+    /**
+     * Test: assignDriversToTruck
+     * Case: one of drivers not exist
+     */
+    @Test(expected = ServiceValidationException.class)  
+    public void testAssignDriversToTruckWhenDriverNotExist() throws DaoException, LogiwebServiceException {
+        setupMocks();
+        
+        Set<Driver> drivers = new HashSet<Driver>();
+        drivers.add(new Driver());
+        
+        when(driverDaoMock.findByIds(Mockito.anyCollectionOf(Integer.class)))
+        .thenReturn(drivers);
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
+        .thenReturn(new Truck());
+        
+        driverService.assignDriversToTruck(Arrays.asList(1, 2), 1);
+    }
+    
+    /**
+     * Test: assignDriversToTruck
+     * Case: truck don't have enough free crew positions
+     */
+    @Test(expected = ServiceValidationException.class)  
+    public void testAssignDriversToTruckWhenNotEnoughCrewPositions() throws DaoException, LogiwebServiceException {
+        setupMocks();
+        
+        Driver d1 = new Driver();
+        d1.setId(1);
+        Driver d2 = new Driver();
+        d2.setId(2);
+        Set<Driver> drivers = new HashSet<Driver>();
+        drivers.add(d1);
+        drivers.add(d2);
+        Truck t = new Truck();
+        t.setCrewSize(1);
+        
+        when(driverDaoMock.findByIds(Mockito.anyCollectionOf(Integer.class)))
+        .thenReturn(drivers);
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
+        .thenReturn(t);
+        
+        driverService.assignDriversToTruck(Arrays.asList(1, 2), 1);
+    }
+    
+    /**
+     * Test: assignDriversToTruck
+     * Case: crew becomes full in the middle of list, none of drivers is
+     * assigned
+     */
+    @Test
+    public void testAssignDriversToTruckWhenCrewFillsUpNothingIsAssigned() throws DaoException, LogiwebServiceException {
+        setupMocks();
+        
+        Driver d0 = new Driver();
+        d0.setId(10);
+        Driver d1 = new Driver();
+        d1.setId(1);
+        Driver d2 = new Driver();
+        d2.setId(2);
+        Set<Driver> drivers = new HashSet<Driver>();
+        drivers.add(d1);
+        drivers.add(d2);
+        Truck t = new Truck();
+        t.setCrewSize(2);
+        t.setDrivers(new HashSet<Driver>(Arrays.asList(d0)));
+        
+        when(driverDaoMock.findByIds(Mockito.anyCollectionOf(Integer.class)))
+        .thenReturn(drivers);
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
+        .thenReturn(t);
+        
+        try {
+            driverService.assignDriversToTruck(Arrays.asList(1, 2), 1);
+            Assert.fail("Crew can't take two more drivers");
+        } catch (ServiceValidationException e) {
+            Assert.assertEquals(1, t.getDrivers().size());
+            Assert.assertNull(d1.getCurrentTruck());
+            Assert.assertNull(d2.getCurrentTruck());
+        }
+    }
+    
     /**
      * Test: addDriverWithAccount
      * Case: driver with same employee id already exists
@@ -469,6 +570,53 @@ public class DriverServiceImplTest {
                 "irrelevant");
     }
     
+    /**
+     * Test: findDriverByEmployeeId
+     * Case: model has id and status of order assigned to truck of driver
+     */
+    @Test
+    public void testFindDriverByEmployeeIdWithAssignedOrder()
+            throws LogiwebServiceException, DaoException {
+        DeliveryOrder order = new DeliveryOrder();
+        order.setId(7);
+        order.setStatus(OrderStatus.READY_TO_GO);
+        Truck truck = new Truck();
+        truck.setLicencePlate("AB12345");
+        truck.setAssignedDeliveryOrder(order);
+        Driver d = new Driver();
+        d.setId(1);
+        d.setEmployeeId(101);
+        d.setCurrentTruck(truck);
+        
+        when(driverDaoMock.findByEmployeeId(101)).thenReturn(d);
+        
+        DriverModel driver = driverService.findDriverByEmployeeId(101);
+        
+        Assert.assertEquals(Integer.valueOf(1), driver.getId());
+        Assert.assertEquals(Integer.valueOf(7), driver.getOrderId());
+        Assert.assertEquals(OrderStatus.READY_TO_GO, driver.getOrderStatus());
+    }
+    
+    /**
+     * Test: findDriverByEmployeeId
+     * Case: driver without truck has no order, unknown driver is null
+     */
+    @Test
+    public void testFindDriverByEmployeeIdWithoutTruck()
+            throws LogiwebServiceException, DaoException {
+        Driver d = new Driver();
+        d.setId(1);
+        d.setEmployeeId(101);
+        
+        when(driverDaoMock.findByEmployeeId(101)).thenReturn(d);
+        
+        DriverModel driver = driverService.findDriverByEmployeeId(101);
+        
+        Assert.assertNull(driver.getOrderId());
+        Assert.assertNull(driver.getOrderStatus());
+        Assert.assertNull(driverService.findDriverByEmployeeId(102));
+    }
+    
     /**
      * Test: addDriverWithAccount
      * Case: driver successfully added
@@ -543,27 +691,12 @@ public class DriverServiceImplTest {
     public void testCalculateWorkingHoursForDriver()
             throws LogiwebServiceException, DaoException {
         setupMocks();
-        List<Driver> drivers = setupDriverAndJournalsTestData();
-
-        // use previously created test data but only for driver0
-        // who have 15 hours in 2 shifts
-        Set<Driver> driversSet = driverDaoMock
-                .findByCityWhereNotAssignedToTruck(new City());
-        Set<DriverShiftJournal> journals = shiftDaoMock
-                .findThisMonthJournalsForDrivers(driversSet);
-
-        Iterator<DriverShiftJournal> it = journals.iterator();
-        while (it.hasNext()) {
-            DriverShiftJournal j = it.next();
-            if (j.getDriverForThisRecord() != drivers.get(0)) {
-                it.remove();
-            }
-        }
 
-        when(shiftDaoMock.findThisMonthJournalsForDrivers(drivers.get(0)))
-                .thenReturn(journals);
+        // driver with id 1 have 15 hours in 2 shifts
+        when(monthlyHoursDaoMock.findByDriverIdAndMonth(Mockito.eq(1),
+                Mockito.any(Date.class))).thenReturn(createLedgerRecord(1,
+                DateUtils.getFirstDateOfCurrentMonth(), 15f, null));
 
-        when(driverDaoMock.find(1)).thenReturn(drivers.get(0));
         float wHours = driverService.calculateWorkingHoursForDriver(1);
         Assert.assertEquals(15.0, wHours, 0.01);
     }
@@ -577,7 +710,6 @@ public class DriverServiceImplTest {
             throws LogiwebServiceException, DaoException {
         setupMocks();
 
-        when(driverDaoMock.find(1)).thenReturn(new Driver());
         float wHours = driverService.calculateWorkingHoursForDriver(1);
         Assert.assertEquals(0, wHours, 0);
     }
@@ -848,8 +980,9 @@ public class DriverServiceImplTest {
         Driver d = new Driver();
         
         when(driverDaoMock.findByEmployeeId(1)).thenReturn(d);
-        when(shiftDaoMock.findUnfinishedShiftForDriver(d)).thenReturn(
-                new DriverShiftJournal());
+        DriverShiftJournal shift = new DriverShiftJournal();
+        shift.setShiftBeggined(new Date());
+        when(shiftDaoMock.findUnfinishedShiftForDriver(d)).thenReturn(shift);
 
         driverService.endShiftForDriverAndSetFreeStatus(1);
         
@@ -870,12 +1003,289 @@ public class DriverServiceImplTest {
         d.setStatus(DriverStatus.DRIVING);
         
         when(driverDaoMock.findByEmployeeId(1)).thenReturn(d);
-        when(shiftDaoMock.findUnfinishedShiftForDriver(d)).thenReturn(
-                new DriverShiftJournal());
+        DriverShiftJournal shift = new DriverShiftJournal();
+        shift.setShiftBeggined(new Date());
+        when(shiftDaoMock.findUnfinishedShiftForDriver(d)).thenReturn(shift);
 
         driverService.endShiftForDriverAndSetFreeStatus(1);
         
         Assert.assertEquals(d.getStatus(), DriverStatus.FREE);
     }
+    
+    /**
+     * Test: calculateWorkingHoursForDriver
+     * Case: driver have finished shifts and open shift in ledger
+     */
+    @Test 
+    public void testCalculateWorkingHoursForDriverWithOpenShift()
+            throws LogiwebServiceException, DaoException {
+        setupMocks();
+        
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.HOUR_OF_DAY, -2);
+        Date openShiftBeggined = calendar.getTime();
+        Date month = DateUtils.getFirstDateOfMonth(openShiftBeggined);
+        
+        when(monthlyHoursDaoMock.findByDriverIdAndMonth(Mockito.eq(1),
+                Mockito.any(Date.class))).thenReturn(createLedgerRecord(1,
+                month, 10f, openShiftBeggined));
+        
+        float wHours = driverService.calculateWorkingHoursForDriver(1);
+        // 10 hours of finished shifts + up to 2 hours of open shift
+        // (less if month has changed during last 2 hours)
+        Assert.assertTrue(wHours > 10f && wHours <= 12.01f);
+        Mockito.verify(shiftDaoMock, times(0)).findThisMonthJournalsForDrivers(
+                any(Driver.class));
+    }
+    
+    /**
+     * Test: calculateWorkingHoursForDrivers
+     * Case: drivers without ledger records have 0 hours
+     */
+    @Test 
+    public void testCalculateWorkingHoursForDrivers()
+            throws LogiwebServiceException, DaoException {
+        setupDriverAndJournalsTestData();
+        
+        Map<Integer, Float> result = driverService
+                .calculateWorkingHoursForDrivers(Arrays.asList(0, 1, 2, 3, 4));
+        
+        Assert.assertEquals(5, result.size());
+        Assert.assertEquals(15f, result.get(0), 0.01);
+        Assert.assertEquals(12f, result.get(1), 0.01);
+        Assert.assertEquals(0f, result.get(2), 0);
+        Assert.assertEquals(5f, result.get(3), 0.01);
+    }
+    
+    /**
+     * Test: startShiftForDriver 
+     * Case: open shift is marked in ledger record of current month
+     */
+    @Test
+    public void testStartShiftForDriverMarksOpenShiftInLedger()
+            throws LogiwebServiceException, DaoException {
+        setupMocks();
+        
+        Driver d = new Driver();
+        d.setId(1);
+        d.setStatus(DriverStatus.FREE);
+        DriverMonthlyHours ledgerRecord = createLedgerRecord(1,
+                DateUtils.getFirstDateOfCurrentMonth(), 7f, null);
+        
+        when(driverDaoMock.findByEmployeeId(1)).thenReturn(d);
+        when(monthlyHoursDaoMock.findByDriverIdAndMonth(Mockito.eq(1),
+                Mockito.any(Date.class))).thenReturn(ledgerRecord);
+
+        driverService.startShiftForDriverAndSetRestingEnRouteStatus(1);
+        
+        Assert.assertNotNull(ledgerRecord.getOpenShiftBeggined());
+        Assert.assertEquals(7f, ledgerRecord.getFinishedShiftsHours(), 0);
+    }
+    
+    /**
+     * Test: startShiftForDriver 
+     * Case: driver row is locked before ledger record is read, so concurrent
+     * shift changes of driver can't create two records for same month
+     */
+    @Test
+    public void testStartShiftForDriverLocksDriverBeforeLedgerIsRead()
+            throws LogiwebServiceException, DaoException {
+        setupMocks();
+        
+        Driver d = new Driver();
+        d.setId(1);
+        d.setStatus(DriverStatus.FREE);
+        
+        when(driverDaoMock.findByEmployeeId(1)).thenReturn(d);
 
+        driverService.startShiftForDriverAndSetRestingEnRouteStatus(1);
+        
+        InOrder inOrder = Mockito.inOrder(driverDaoMock, monthlyHoursDaoMock);
+        inOrder.verify(driverDaoMock).lockForUpdate(d);
+        inOrder.verify(monthlyHoursDaoMock).findByDriverIdAndMonth(
+                Mockito.eq(1), Mockito.any(Date.class));
+        inOrder.verify(monthlyHoursDaoMock).create(
+                Mockito.any(DriverMonthlyHours.class));
+    }
+    
+    /**
+     * Test: endShiftForDriver
+     * Case: shift started in previous month, hours are split between ledger
+     * records of both months
+     */
+    @Test
+    public void testEndShiftForDriverWhenShiftCrossesMonthBoundary()
+            throws LogiwebServiceException, DaoException {
+        setupMocks();
+        
+        Driver d = new Driver();
+        d.setId(1);
+        d.setStatus(DriverStatus.DRIVING);
+        
+        Date thisMonth = DateUtils.getFirstDateOfCurrentMonth();
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(thisMonth);
+        calendar.add(Calendar.HOUR_OF_DAY, -10); // 10 H in prev. month
+        Date shiftBeggined = calendar.getTime();
+        Date previousMonth = DateUtils.getFirstDateOfMonth(shiftBeggined);
+        
+        DriverShiftJournal shift = new DriverShiftJournal();
+        shift.setShiftBeggined(shiftBeggined);
+        
+        DriverMonthlyHours previousMonthRecord = createLedgerRecord(1,
+                previousMonth, 20f, shiftBeggined);
+        DriverMonthlyHours thisMonthRecord = createLedgerRecord(1,
+                thisMonth, 0f, shiftBeggined);
+        
+        when(driverDaoMock.findByEmployeeId(1)).thenReturn(d);
+        when(shiftDaoMock.findUnfinishedShiftForDriver(d)).thenReturn(shift);
+        when(monthlyHoursDaoMock.findByDriverIdAndMonth(1, previousMonth))
+                .thenReturn(previousMonthRecord);
+        when(monthlyHoursDaoMock.findByDriverIdAndMonth(1, thisMonth))
+                .thenReturn(thisMonthRecord);
+
+        driverService.endShiftForDriverAndSetFreeStatus(1);
+        
+        float hoursInThisMonth = DateUtils.diffInHours(thisMonth, shift.getShiftEnded());
+        Assert.assertEquals(30f, previousMonthRecord.getFinishedShiftsHours(), 0.01);
+        Assert.assertEquals(hoursInThisMonth, thisMonthRecord.getFinishedShiftsHours(), 0.01);
+        Assert.assertNull(previousMonthRecord.getOpenShiftBeggined());
+        Assert.assertNull(thisMonthRecord.getOpenShiftBeggined());
+    }
+    
+    /**
+     * Test: rebuildWorkingHoursLedgerForThisMonth
+     * Case: records are created from finished shifts and open shifts
+     */
+    @Test
+    public void testRebuildWorkingHoursLedgerForThisMonth()
+            throws LogiwebServiceException, DaoException {
+        setupMocks();
+        
+        Driver d = new Driver();
+        d.setId(2);
+        DriverShiftJournal openShift = new DriverShiftJournal();
+        openShift.setDriverForThisRecord(d);
+        openShift.setShiftBeggined(new Date());
+        Set<DriverShiftJournal> openShifts = new HashSet<DriverShiftJournal>();
+        openShifts.add(openShift);
+        
+        Map<Integer, Float> finishedShiftsHours = new HashMap<Integer, Float>();
+        finishedShiftsHours.put(1, 12f);
+        finishedShiftsHours.put(2, 3f);
+        
+        when(shiftDaoMock.sumFinishedShiftsHoursForMonth(Mockito.any(Date.class)))
+                .thenReturn(finishedShiftsHours);
+        when(shiftDaoMock.findAllUnfinishedShifts()).thenReturn(openShifts);
+        
+        driverService.rebuildWorkingHoursLedgerForThisMonth();
+        
+        InOrder inOrder = Mockito.inOrder(driverDaoMock, monthlyHoursDaoMock);
+        inOrder.verify(driverDaoMock).lockAllForUpdate();
+        inOrder.verify(monthlyHoursDaoMock).deleteAllForMonth(
+                DateUtils.getFirstDateOfCurrentMonth());
+        inOrder.verify(monthlyHoursDaoMock, times(2)).create(
+                any(DriverMonthlyHours.class));
+    }
+    
+    /**
+     * Test: rebuildWorkingHoursLedgerForThisMonthIfMissing
+     * Case: ledger for this month exists, it is not touched
+     */
+    @Test
+    public void testRebuildWorkingHoursLedgerIfMissingWhenLedgerExists()
+            throws LogiwebServiceException, DaoException {
+        setupMocks();
+        when(monthlyHoursDaoMock.countForMonth(DateUtils.getFirstDateOfCurrentMonth()))
+                .thenReturn(3L);
+        
+        Assert.assertFalse(driverService.rebuildWorkingHoursLedgerForThisMonthIfMissing());
+        
+        InOrder inOrder = Mockito.inOrder(driverDaoMock, monthlyHoursDaoMock);
+        inOrder.verify(driverDaoMock).lockAllForUpdate();
+        inOrder.verify(monthlyHoursDaoMock).countForMonth(
+                DateUtils.getFirstDateOfCurrentMonth());
+        Mockito.verify(monthlyHoursDaoMock, times(0)).deleteAllForMonth(
+                Mockito.any(Date.class));
+        Mockito.verify(monthlyHoursDaoMock, times(0)).create(
+                any(DriverMonthlyHours.class));
+    }
+    
+    /**
+     * Test: rebuildWorkingHoursLedgerForThisMonthIfMissing
+     * Case: no ledger records for this month, ledger is built under lock
+     */
+    @Test
+    public void testRebuildWorkingHoursLedgerIfMissingWhenLedgerIsMissing()
+            throws LogiwebServiceException, DaoException {
+        setupMocks();
+        Map<Integer, Float> finishedShiftsHours = new HashMap<Integer, Float>();
+        finishedShiftsHours.put(1, 12f);
+        
+        when(monthlyHoursDaoMock.countForMonth(DateUtils.getFirstDateOfCurrentMonth()))
+                .thenReturn(0L);
+        when(shiftDaoMock.sumFinishedShiftsHoursForMonth(Mockito.any(Date.class)))
+                .thenReturn(finishedShiftsHours);
+        when(shiftDaoMock.findAllUnfinishedShifts()).thenReturn(
+                new HashSet<DriverShiftJournal>());
+        
+        Assert.assertTrue(driverService.rebuildWorkingHoursLedgerForThisMonthIfMissing());
+        
+        InOrder inOrder = Mockito.inOrder(driverDaoMock, monthlyHoursDaoMock);
+        inOrder.verify(driverDaoMock).lockAllForUpdate();
+        inOrder.verify(monthlyHoursDaoMock).create(any(DriverMonthlyHours.class));
+    }
+    
+    /**
+     * Test: findDriversPage
+     * Case: filters, descending sort and page position are passed to DAO
+     */
+    @Test
+    public void testFindDriversPageWithFilters() throws LogiwebServiceException, DaoException {
+        Map<String, Object> expectedFilters = new HashMap<String, Object>();
+        expectedFilters.put("status", DriverStatus.FREE);
+        expectedFilters.put("currentCity.id", 3);
+        
+        when(driverDaoMock.findRowsFiltered(expectedFilters, "name", false, 20, 10))
+        .thenReturn(new ArrayList<DriverRow>());
+        when(driverDaoMock.countFiltered(expectedFilters))
+        .thenReturn(21L);
+        
+        ResultPage<DriverModel> page = driverService.findDriversPage(
+                DriverStatus.FREE, 3, new PageRequest(3, 10, "-name"));
+        
+        Mockito.verify(driverDaoMock, times(1)).findRowsFiltered(expectedFilters,
+                "name", false, 20, 10);
+        Assert.assertEquals(3, page.getTotalPages());
+        Assert.assertTrue(page.isHasPrevious());
+        Assert.assertFalse(page.isHasNext());
+    }
+
+    /**
+     * Test: findRankedCandidatesForCrew
+     * Case: ranking, hours limit and result limit are passed to one DAO
+     * query, rows are converted in order with hours set
+     */
+    @Test
+    public void testFindRankedCandidatesForCrew() throws LogiwebServiceException, DaoException {
+        List<DriverCandidateRow> rows = Arrays.asList(
+                new DriverCandidateRow(2, 102, "b", "b", DriverStatus.FREE, 3, 0f),
+                new DriverCandidateRow(5, 105, "e", "e", DriverStatus.FREE, 3, 20f),
+                new DriverCandidateRow(3, 103, "c", "c", DriverStatus.NOT_AVAILABLE, 3, 10f));
+        when(driverDaoMock.findRankedCandidateRowsByCityWhereNotAssignedToTruck(
+                Mockito.eq(3), Mockito.any(Date.class), Mockito.eq(100f),
+                Mockito.eq(3))).thenReturn(rows);
+        
+        List<DriverModel> result = driverService.findRankedCandidatesForCrew(3, 100, 3);
+        
+        Assert.assertEquals(3, result.size());
+        Assert.assertEquals(Integer.valueOf(2), result.get(0).getId());
+        Assert.assertEquals(0f, result.get(0).getWorkingHoursThisMonth(), 0);
+        Assert.assertEquals(Integer.valueOf(5), result.get(1).getId());
+        Assert.assertEquals(20f, result.get(1).getWorkingHoursThisMonth(), 0.01);
+        Assert.assertEquals(Integer.valueOf(3), result.get(2).getId());
+        Assert.assertEquals(DriverStatus.NOT_AVAILABLE, result.get(2).getStatus());
+        Mockito.verify(monthlyHoursDaoMock, times(0)).findByDriverIdsAndMonth(
+                Mockito.anyCollectionOf(Integer.class), Mockito.any(Date.class));
+    }
 }
@@ -0,0 +1,394 @@
+package com.tsystems.javaschool.logiweb.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tsystems.javaschool.logiweb.dao.CargoDao;
+import com.tsystems.javaschool.logiweb.dao.CityDao;
+import com.tsystems.javaschool.logiweb.dao.DeliveryOrderDao;
+import com.tsystems.javaschool.logiweb.dao.DriverDao;
+import com.tsystems.javaschool.logiweb.dao.RequestSqlStatistics;
+import com.tsystems.javaschool.logiweb.dao.RoadDao;
+import com.tsystems.javaschool.logiweb.dao.SqlStatementAssert;
+import com.tsystems.javaschool.logiweb.dao.TruckDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.entities.Cargo;
+import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
+import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.DriverMonthlyHours;
+import com.tsystems.javaschool.logiweb.entities.Road;
+import com.tsystems.javaschool.logiweb.entities.Truck;
+import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
+import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
+import com.tsystems.javaschool.logiweb.model.DriverModel;
+import com.tsystems.javaschool.logiweb.model.OrderModel;
+import com.tsystems.javaschool.logiweb.model.TruckModel;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
+import com.tsystems.javaschool.logiweb.utils.DateUtils;
+
+/**
+ * Counts SQL statements issued by service read paths against embedded H2
+ * database. Each read must stay within fixed number of statements no matter
+ * how many rows are loaded, so lazy associations that are not covered by
+ * entity graph (N+1 selects) make these tests fail.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:test-context-h2.xml")
+public class FetchPlanStatementCountTest {
+
+    private static final int ORDERS = 5;
+    private static final int CARGOES_PER_ORDER = 3;
+    private static final int CREW_SIZE = 2;
+    private static final int FREE_DRIVERS = 4;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DeliveryOrderDao deliveryOrderDao;
+
+    @Autowired
+    private TruckDao truckDao;
+
+    @Autowired
+    private DriverDao driverDao;
+
+    @Autowired
+    private CargoDao cargoDao;
+
+    @Autowired
+    private CityDao cityDao;
+
+    @Autowired
+    private RoadDao roadDao;
+
+    private TransactionTemplate transactionTemplate;
+    private int anyCargoId;
+    private int originCityId;
+    private int anyOrderId;
+
+    @Before
+    public void populateDatabase() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                City origin = createCity("Origin");
+                originCityId = origin.getId();
+                City destination = createCity("Destination");
+
+                Road road = new Road();
+                road.setFromCity(origin);
+                road.setToCity(destination);
+                road.setDistance(120f);
+                entityManager.persist(road);
+
+                int driverEmployeeId = 1;
+                for (int i = 0; i < ORDERS; i++) {
+                    DeliveryOrder order = new DeliveryOrder();
+                    order.setStatus(OrderStatus.NOT_READY);
+                    entityManager.persist(order);
+                    anyOrderId = order.getId();
+
+                    for (int j = 0; j < CARGOES_PER_ORDER; j++) {
+                        Cargo cargo = new Cargo();
+                        cargo.setTitle("Cargo " + i + "-" + j);
+                        cargo.setWeight(100f);
+                        cargo.setStatus(CargoStatus.WAITING_FOR_PICKUP);
+                        cargo.setOriginCity(origin);
+                        cargo.setDestinationCity(destination);
+                        cargo.setOrderForThisCargo(order);
+                        entityManager.persist(cargo);
+                        anyCargoId = cargo.getId();
+                    }
+
+                    Truck truck = new Truck();
+                    truck.setLicencePlate("AB" + (10000 + i));
+                    truck.setCrewSize(CREW_SIZE);
+                    truck.setCargoCapacity(1000f);
+                    truck.setStatus(TruckStatus.OK);
+                    truck.setCurrentCity(origin);
+                    truck.setAssignedDeliveryOrder(order);
+                    entityManager.persist(truck);
+
+                    for (int k = 0; k < CREW_SIZE; k++) {
+                        Driver driver = new Driver();
+                        driver.setEmployeeId(driverEmployeeId++);
+                        driver.setName("Name");
+                        driver.setSurname("Surname");
+                        driver.setStatus(DriverStatus.FREE);
+                        driver.setCurrentCity(origin);
+                        driver.setCurrentTruck(truck);
+                        entityManager.persist(driver);
+                    }
+                }
+
+                for (int i = 0; i < FREE_DRIVERS; i++) {
+                    Driver driver = new Driver();
+                    driver.setEmployeeId(driverEmployeeId++);
+                    driver.setName("Name");
+                    driver.setSurname("Free");
+                    driver.setStatus(DriverStatus.FREE);
+                    driver.setCurrentCity(origin);
+                    entityManager.persist(driver);
+
+                    DriverMonthlyHours ledgerRecord = new DriverMonthlyHours();
+                    ledgerRecord.setDriverId(driver.getId());
+                    ledgerRecord.setMonth(DateUtils.getFirstDateOfCurrentMonth());
+                    ledgerRecord.setFinishedShiftsHours(10f * i);
+                    entityManager.persist(ledgerRecord);
+                }
+            }
+        });
+    }
+
+    @After
+    public void cleanDatabase() {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                entityManager.createQuery("DELETE FROM DriverMonthlyHours").executeUpdate();
+                entityManager.createQuery("DELETE FROM Driver").executeUpdate();
+                entityManager.createQuery("DELETE FROM Truck").executeUpdate();
+                entityManager.createQuery("DELETE FROM Cargo").executeUpdate();
+                entityManager.createQuery("DELETE FROM DeliveryOrder").executeUpdate();
+                entityManager.createQuery("DELETE FROM Road").executeUpdate();
+                entityManager.createQuery("DELETE FROM City").executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    public void testFindAllOrdersLoadsCargoesAndCrewWithoutPerOrderSelects() {
+        final OrderServiceImpl orderService = new OrderServiceImpl(
+                deliveryOrderDao, truckDao, cargoDao, null, null);
+
+        RequestSqlStatistics statements = countStatements(new TransactionCallback<Set<OrderModel>>() {
+            @Override
+            public Set<OrderModel> doInTransaction(TransactionStatus status) {
+                try {
+                    return orderService.findAllOrders();
+                } catch (LogiwebServiceException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        // orders, trucks, crews, cargoes and cities are joined
+        SqlStatementAssert.assertAtMost(1, statements);
+    }
+
+    @Test
+    public void testFindAllTrucksLoadsCrewWithoutPerTruckSelects() {
+        final TrucksSeviceImpl truckService = new TrucksSeviceImpl(truckDao,
+                driverDao, null, null);
+
+        RequestSqlStatistics statements = countStatements(new TransactionCallback<Set<TruckModel>>() {
+            @Override
+            public Set<TruckModel> doInTransaction(TransactionStatus status) {
+                try {
+                    return truckService.findAllTrucks();
+                } catch (LogiwebServiceException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        // trucks with crews, then their (eager) current city
+        SqlStatementAssert.assertAtMost(2, statements);
+    }
+
+    @Test
+    public void testFindAllDriversLoadsTruckWithoutPerDriverSelects() {
+        final DriverServiceImpl driverService = new DriverServiceImpl(driverDao,
+                truckDao, null, null, null, null, cityDao);
+
+        RequestSqlStatistics statements = countStatements(new TransactionCallback<Set<DriverModel>>() {
+            @Override
+            public Set<DriverModel> doInTransaction(TransactionStatus status) {
+                try {
+                    return driverService.findAllDrivers();
+                } catch (LogiwebServiceException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        // assigned orders are lazy, their ids are known without select
+        SqlStatementAssert.assertAtMost(1, statements);
+    }
+
+    @Test
+    public void testRankedCrewCandidatesAreReadWithHoursInOneStatement() {
+        final DriverServiceImpl driverService = new DriverServiceImpl(driverDao,
+                truckDao, null, null, null, null, cityDao);
+
+        final List<DriverModel> candidates = new ArrayList<DriverModel>();
+        RequestSqlStatistics statements = countStatements(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(TransactionStatus status) {
+                try {
+                    candidates.addAll(driverService.findRankedCandidatesForCrew(
+                            originCityId, 25, 10));
+                    return null;
+                } catch (LogiwebServiceException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        // drivers and their ledger records together
+        SqlStatementAssert.assertAtMost(1, statements);
+        // 0, 10 and 20 hours; 30 is over limit
+        Assert.assertEquals(3, candidates.size());
+        Assert.assertEquals(0f, candidates.get(0).getWorkingHoursThisMonth(), 0.01f);
+        Assert.assertEquals(20f, candidates.get(2).getWorkingHoursThisMonth(), 0.01f);
+    }
+
+    @Test
+    public void testFindCargoByIdLoadsOrderAndTruckUpFront() {
+        final CargoServiceImpl cargoService = new CargoServiceImpl(cargoDao,
+                cityDao, deliveryOrderDao, null);
+
+        Cargo cargo = transactionTemplate.execute(new TransactionCallback<Cargo>() {
+            @Override
+            public Cargo doInTransaction(TransactionStatus status) {
+                try {
+                    return cargoService.findById(anyCargoId);
+                } catch (LogiwebServiceException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        // accessed outside of transaction, as SOAP endpoint does
+        Assert.assertNotNull(cargo.getOrderForThisCargo().getAssignedTruck()
+                .getLicencePlate());
+        Assert.assertNotNull(cargo.getOriginCity().getName());
+    }
+
+    @Test
+    public void testOrderOfCargoIsLoadedWithCargoesAndCrewInOneStatement() {
+        final DeliveryOrder[] order = new DeliveryOrder[1];
+        RequestSqlStatistics statements = countStatements(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(TransactionStatus status) {
+                try {
+                    order[0] = deliveryOrderDao.findByCargoId(anyCargoId,
+                            DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK);
+                    return order[0];
+                } catch (DaoException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        SqlStatementAssert.assertAtMost(1, statements);
+        // accessed outside of transaction
+        Assert.assertEquals(CARGOES_PER_ORDER, order[0].getAssignedCargoes().size());
+        Assert.assertEquals(CREW_SIZE, order[0].getAssignedTruck().getDrivers().size());
+    }
+
+    @Test
+    public void testRouteInformationIsBuiltFromSingleOrderLookup() {
+        CityServiceImpl cityService = new CityServiceImpl(cityDao);
+        cityService.loadCitiesOnStartup();
+        final RouteServiceImpl routeService = new RouteServiceImpl(
+                deliveryOrderDao, roadDao, cityService, new SyncTaskExecutor(),
+                new SyncTaskExecutor());
+        routeService.loadRoadGraphOnStartup();
+
+        final RouteInformation[] route = new RouteInformation[1];
+        RequestSqlStatistics statements = countStatements(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(TransactionStatus status) {
+                try {
+                    route[0] = routeService.getRouteInformationForOrder(anyOrderId);
+                    return route[0];
+                } catch (LogiwebServiceException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        SqlStatementAssert.assertAtMost(1, statements);
+        // truck is in origin: one road to destination plus 6 cargo operations
+        Assert.assertEquals(120f / RouteServiceImpl.AVERAGE_SPEED + 2
+                * CARGOES_PER_ORDER * RouteServiceImpl.HOURS_PER_CARGO_OPERATION,
+                route[0].getEstimatedTime(), 0.001f);
+    }
+
+    @Test
+    public void testLazyCollectionInLoopIsReportedAsRepeatedStatement() {
+        RequestSqlStatistics statements = countStatements(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(TransactionStatus status) {
+                try {
+                    for (DeliveryOrder order : deliveryOrderDao.findAll()) {
+                        order.getAssignedCargoes().size();
+                    }
+                    return null;
+                } catch (DaoException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        Assert.assertEquals(ORDERS, statements.getMostRepeatedCount());
+        Assert.assertTrue(statements.getLoadedEntityCount() >= ORDERS
+                * (1 + CARGOES_PER_ORDER));
+    }
+
+    /**
+     * Run callback in new transaction (and so with empty persistence context
+     * and empty second level cache, so cache hits don't hide extra selects)
+     * and return statements prepared during its execution.
+     */
+    private RequestSqlStatistics countStatements(final TransactionCallback<?> callback) {
+        entityManagerFactory.getCache().evictAll();
+        return SqlStatementAssert.measure(new Runnable() {
+            @Override
+            public void run() {
+                transactionTemplate.execute(callback);
+            }
+        });
+    }
+
+    private City createCity(String name) {
+        City city = new City();
+        city.setName(name);
+        entityManager.persist(city);
+        return city;
+    }
+}
@@ -3,35 +3,57 @@ package com.tsystems.javaschool.logiweb.service.impl;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.tsystems.javaschool.logiweb.dao.CargoDao;
 import com.tsystems.javaschool.logiweb.dao.DeliveryOrderDao;
 import com.tsystems.javaschool.logiweb.dao.TruckDao;
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CargoRow;
+import com.tsystems.javaschool.logiweb.dao.projections.OrderRow;
 import com.tsystems.javaschool.logiweb.entities.Cargo;
 import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
 import com.tsystems.javaschool.logiweb.entities.Driver;
 import com.tsystems.javaschool.logiweb.entities.Truck;
 import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
 import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
 import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
+import com.tsystems.javaschool.logiweb.model.OrderModel;
 import com.tsystems.javaschool.logiweb.service.OrderService;
+import com.tsystems.javaschool.logiweb.service.RouteService;
+import com.tsystems.javaschool.logiweb.service.TrucksService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.exceptions.RecordNotFoundServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.CargoDeliveryResult;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation.Waypoint;
 
 public class OrderServiceImplTest {
     
     private DeliveryOrderDao deliveryOrderDaoMock;
     private TruckDao truckDaoMock;
+    private CargoDao cargoDaoMock;
+    private RouteService routeServiceMock;
+    private TrucksService trucksServiceMock;
     
     private void setupMocks() {
         deliveryOrderDaoMock = Mockito.mock(DeliveryOrderDao.class);
         truckDaoMock = Mockito.mock(TruckDao.class);
+        cargoDaoMock = Mockito.mock(CargoDao.class);
+        routeServiceMock = Mockito.mock(RouteService.class);
+        trucksServiceMock = Mockito.mock(TrucksService.class);
     }
 
     @Test
@@ -39,7 +61,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         Truck truck = new Truck();
         truck.setId(1);
@@ -63,7 +85,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         when(truckDaoMock.find(1))
             .thenReturn(null);
@@ -76,7 +98,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         Truck truck = new Truck();
         truck.setId(1);
@@ -97,7 +119,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         Truck truck = new Truck();
         truck.setId(1);
@@ -121,7 +143,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         Truck truck = new Truck();
         truck.setId(1);
@@ -140,7 +162,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         Truck truck = new Truck();
         truck.setId(1);
@@ -162,7 +184,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         Truck truck = new Truck();
         truck.setId(1);
@@ -179,6 +201,39 @@ public class OrderServiceImplTest {
         orderService.assignTruckToOrder(1, 1);
     }
     
+    /**
+     * Test: assignTruckToOrder
+     * Case: cargo of order alone is heavier than truck capacity
+     */
+    @Test(expected = ServiceValidationException.class)
+    public void testAssignTruckToOrderWhenCargoIsHeavierThanCapacity()
+            throws ServiceValidationException, LogiwebServiceException, DaoException {
+        setupMocks();
+        OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
+        
+        Truck truck = new Truck();
+        truck.setId(1);
+        truck.setStatus(TruckStatus.OK);
+        truck.setCargoCapacity(2f);
+        Cargo cargo = new Cargo();
+        cargo.setWeight(3f);
+        cargo.setStatus(CargoStatus.WAITING_FOR_PICKUP);
+        DeliveryOrder order = new DeliveryOrder();
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(cargo)));
+
+        when(truckDaoMock.find(1))
+            .thenReturn(truck);
+        when(deliveryOrderDaoMock.find(1))
+            .thenReturn(order);
+        
+        try {
+            orderService.assignTruckToOrder(1, 1);
+        } finally {
+            Mockito.verify(truckDaoMock, Mockito.never()).update(truck);
+        }
+    }
+    
     private DeliveryOrder createValidTestOrder() {
         Truck truck = new Truck();
         truck.setCrewSize(1);
@@ -197,10 +252,11 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         DeliveryOrder order = createValidTestOrder();
-        when(deliveryOrderDaoMock.find(order.getId()))
+        when(deliveryOrderDaoMock.find(order.getId(),
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK))
             .thenReturn(order);
         
         orderService.setReadyStatusForOrder(order.getId());
@@ -212,10 +268,11 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         DeliveryOrder order = createValidTestOrder();
-        when(deliveryOrderDaoMock.find(order.getId()))
+        when(deliveryOrderDaoMock.find(order.getId(),
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK))
             .thenReturn(null);
         
         orderService.setReadyStatusForOrder(order.getId());
@@ -226,12 +283,13 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         DeliveryOrder order = createValidTestOrder();
         order.setAssignedCargoes(new HashSet<Cargo>());
         
-        when(deliveryOrderDaoMock.find(order.getId()))
+        when(deliveryOrderDaoMock.find(order.getId(),
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK))
             .thenReturn(order);
         
         orderService.setReadyStatusForOrder(order.getId());
@@ -242,11 +300,12 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         DeliveryOrder order = createValidTestOrder();
         order.setAssignedTruck(null);
-        when(deliveryOrderDaoMock.find(order.getId()))
+        when(deliveryOrderDaoMock.find(order.getId(),
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK))
             .thenReturn(order);
         
         orderService.setReadyStatusForOrder(order.getId());
@@ -257,27 +316,56 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         DeliveryOrder order = createValidTestOrder();
         int currentCrewSize = order.getAssignedTruck().getDrivers().size();
         order.getAssignedTruck().setCrewSize(currentCrewSize + 1);
-        when(deliveryOrderDaoMock.find(order.getId()))
+        when(deliveryOrderDaoMock.find(order.getId(),
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK))
             .thenReturn(order);
         
         orderService.setReadyStatusForOrder(order.getId());
     }
     
+    /**
+     * Test: setReadyStatusForOrder
+     * Case: route of order exceeds capacity of assigned truck
+     */
+    @Test
+    public void testSetReadyStatusForOrderWhenRouteIsOverloaded()
+            throws LogiwebServiceException, DaoException {
+        setupMocks();
+        OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
+        
+        DeliveryOrder order = createValidTestOrder();
+        when(deliveryOrderDaoMock.find(order.getId(),
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK))
+            .thenReturn(order);
+        when(routeServiceMock.getRouteInformationForOrder(order.getId()))
+            .thenReturn(new RouteInformation(1f, 3f, new ArrayList<Waypoint>(), true));
+        
+        try {
+            orderService.setReadyStatusForOrder(order.getId());
+            Assert.fail("Overloaded order must not become ready.");
+        } catch (ServiceValidationException e) {
+            Assert.assertEquals(OrderStatus.NOT_READY, order.getStatus());
+            Mockito.verify(deliveryOrderDaoMock, Mockito.never()).update(order);
+        }
+    }
+    
     @Test(expected = ServiceValidationException.class)
     public void testSetReadyStatusForOrderWhenOrderHaveWrongStatus() throws ServiceValidationException,
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         DeliveryOrder order = createValidTestOrder();
         order.setStatus(OrderStatus.DELIVERED);
-        when(deliveryOrderDaoMock.find(order.getId()))
+        when(deliveryOrderDaoMock.find(order.getId(),
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK))
             .thenReturn(order);
         
         orderService.setReadyStatusForOrder(order.getId());
@@ -288,7 +376,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         DeliveryOrder order = createValidTestOrder();
         
@@ -312,7 +400,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         DeliveryOrder order = createValidTestOrder();
         
@@ -336,7 +424,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         DeliveryOrder order = createValidTestOrder();
         Cargo cargo = new Cargo();
@@ -355,7 +443,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         DeliveryOrder order = createValidTestOrder();
         when(deliveryOrderDaoMock.find(order.getId()))
@@ -369,7 +457,7 @@ public class OrderServiceImplTest {
             LogiwebServiceException, DaoException {
         setupMocks();
         OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
-                truckDaoMock);
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
         
         DeliveryOrder order = createValidTestOrder();
         
@@ -386,4 +474,146 @@ public class OrderServiceImplTest {
         
         orderService.setStatusDeliveredForOrder(order.getId());
     }
+    
+    /**
+     * Test: findOrdersPage
+     * Case: cargoes and truck are attached to their orders
+     */
+    @Test
+    public void testFindOrdersPageAttachesCargoesAndTruck()
+            throws LogiwebServiceException, DaoException {
+        setupMocks();
+        OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
+        
+        Map<String, Object> noFilters = new HashMap<String, Object>();
+        when(deliveryOrderDaoMock.findRowsFiltered(noFilters, "id", true, 0, 25))
+        .thenReturn(Arrays.asList(new OrderRow(1, OrderStatus.READY_TO_GO, 5, "AB12345"),
+                new OrderRow(2, OrderStatus.NOT_READY, null, null)));
+        when(cargoDaoMock.findRowsByOrderIds(Arrays.asList(1, 2)))
+        .thenReturn(Arrays.asList(
+                new CargoRow(10, "first", 1f, CargoStatus.WAITING_FOR_PICKUP, 1, 2, 1),
+                new CargoRow(11, "second", 1f, CargoStatus.WAITING_FOR_PICKUP, 2, 1, 1)));
+        
+        List<OrderModel> orders = orderService.findOrdersPage(null,
+                new PageRequest(1, 25, null)).getItems();
+        
+        Assert.assertEquals(2, orders.get(0).getAssignedCargoes().size());
+        Assert.assertEquals("AB12345", orders.get(0).getAssignedTruck().getLicencePlate());
+        Assert.assertTrue(orders.get(1).getAssignedCargoes().isEmpty());
+        Assert.assertNull(orders.get(1).getAssignedTruck());
+    }
+    
+    /**
+     * Test: deliverCargo
+     * Case: other cargo of order is still on the way, truck keeps order
+     */
+    @Test
+    public void testDeliverCargoWhenOtherCargoUndelivered()
+            throws LogiwebServiceException, DaoException {
+        setupMocks();
+        OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
+        DeliveryOrder order = createReadyOrderWithCrew(CargoStatus.PICKED_UP,
+                CargoStatus.PICKED_UP);
+        when(deliveryOrderDaoMock.findByCargoId(1,
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK)).thenReturn(order);
+        
+        CargoDeliveryResult result = orderService.deliverCargo(1);
+        
+        Assert.assertFalse(result.isOrderDelivered());
+        Assert.assertEquals(1, result.getUndeliveredCargoes());
+        Assert.assertNull(result.getReleasedTruckId());
+        Assert.assertEquals(OrderStatus.READY_TO_GO, order.getStatus());
+        Assert.assertNotNull(order.getAssignedTruck());
+        Mockito.verify(truckDaoMock, times(0)).update(Mockito.any(Truck.class));
+    }
+    
+    /**
+     * Test: deliverCargo
+     * Case: last cargo delivered, order is finished and truck with crew are
+     * released in the same call
+     */
+    @Test
+    public void testDeliverLastCargoFinishesOrderAndReleasesCrew()
+            throws LogiwebServiceException, DaoException {
+        setupMocks();
+        OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
+        DeliveryOrder order = createReadyOrderWithCrew(CargoStatus.PICKED_UP,
+                CargoStatus.DELIVERED);
+        Truck truck = order.getAssignedTruck();
+        Driver driver = truck.getDrivers().iterator().next();
+        when(deliveryOrderDaoMock.findByCargoId(1,
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK)).thenReturn(order);
+        
+        CargoDeliveryResult result = orderService.deliverCargo(1);
+        
+        Assert.assertTrue(result.isOrderDelivered());
+        Assert.assertEquals(Integer.valueOf(5), result.getReleasedTruckId());
+        Assert.assertEquals(new HashSet<Integer>(Arrays.asList(7)),
+                result.getReleasedDriverIds());
+        Assert.assertEquals(OrderStatus.DELIVERED, order.getStatus());
+        Assert.assertNull(order.getAssignedTruck());
+        Assert.assertNull(truck.getAssignedDeliveryOrder());
+        Assert.assertNull(driver.getCurrentTruck());
+        Assert.assertEquals(DriverStatus.FREE, driver.getStatus());
+        Mockito.verify(trucksServiceMock).updateFreeTruckIndex(5);
+        Mockito.verify(deliveryOrderDaoMock, times(0)).find(Mockito.anyInt());
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void testDeliverCargoWhenNotPickedUp() throws LogiwebServiceException,
+            DaoException {
+        setupMocks();
+        OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
+        DeliveryOrder order = createReadyOrderWithCrew(
+                CargoStatus.WAITING_FOR_PICKUP, CargoStatus.DELIVERED);
+        when(deliveryOrderDaoMock.findByCargoId(1,
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK)).thenReturn(order);
+        
+        orderService.deliverCargo(1);
+    }
+    
+    @Test(expected = RecordNotFoundServiceException.class)
+    public void testDeliverCargoWhenNotExist() throws LogiwebServiceException,
+            DaoException {
+        setupMocks();
+        OrderService orderService = new OrderServiceImpl(deliveryOrderDaoMock,
+                truckDaoMock, cargoDaoMock, routeServiceMock, trucksServiceMock);
+        
+        orderService.deliverCargo(1);
+    }
+    
+    /**
+     * @return READY TO GO order with cargo id 1 and cargo id 2, truck id 5
+     *         and driver id 7
+     */
+    private static DeliveryOrder createReadyOrderWithCrew(
+            CargoStatus firstCargoStatus, CargoStatus secondCargoStatus) {
+        DeliveryOrder order = new DeliveryOrder();
+        order.setId(3);
+        order.setStatus(OrderStatus.READY_TO_GO);
+        
+        Cargo cargo1 = new Cargo();
+        cargo1.setId(1);
+        cargo1.setStatus(firstCargoStatus);
+        Cargo cargo2 = new Cargo();
+        cargo2.setId(2);
+        cargo2.setStatus(secondCargoStatus);
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(cargo1,
+                cargo2)));
+        
+        Truck truck = new Truck();
+        truck.setId(5);
+        Driver driver = new Driver();
+        driver.setId(7);
+        driver.setStatus(DriverStatus.DRIVING);
+        driver.setCurrentTruck(truck);
+        truck.setDrivers(new HashSet<Driver>(Arrays.asList(driver)));
+        truck.setAssignedDeliveryOrder(order);
+        order.setAssignedTruck(truck);
+        return order;
+    }
 }
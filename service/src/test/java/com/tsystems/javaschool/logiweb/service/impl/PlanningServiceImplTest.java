@@ -0,0 +1,264 @@
+package com.tsystems.javaschool.logiweb.service.impl;
+
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyFloat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.tsystems.javaschool.logiweb.dao.DeliveryOrderDao;
+import com.tsystems.javaschool.logiweb.dao.DriverDao;
+import com.tsystems.javaschool.logiweb.dao.TruckDao;
+import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.Truck;
+import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
+import com.tsystems.javaschool.logiweb.service.DriverService;
+import com.tsystems.javaschool.logiweb.service.OrderService;
+import com.tsystems.javaschool.logiweb.service.PlanningService;
+import com.tsystems.javaschool.logiweb.service.RouteService;
+import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.DeliveryPlan;
+import com.tsystems.javaschool.logiweb.service.ext.DeliveryPlan.Assignment;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation.OperationWithCargo;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation.Waypoint;
+
+public class PlanningServiceImplTest {
+
+    private DeliveryOrderDao deliveryOrderDaoMock;
+    private TruckDao truckDaoMock;
+    private DriverDao driverDaoMock;
+    private RouteService routeServiceMock;
+    private DriverService driverServiceMock;
+    private OrderService orderServiceMock;
+    private PlanningService planningService;
+
+    private City cityA;
+    private City cityB;
+    private Map<Integer, RouteInformation> routes;
+    private Set<Truck> trucks;
+    private Set<Driver> drivers;
+    private Map<Integer, Float> workedHours;
+
+    @Before
+    public void setupMocks() throws Exception {
+        deliveryOrderDaoMock = Mockito.mock(DeliveryOrderDao.class);
+        truckDaoMock = Mockito.mock(TruckDao.class);
+        driverDaoMock = Mockito.mock(DriverDao.class);
+        routeServiceMock = Mockito.mock(RouteService.class);
+        driverServiceMock = Mockito.mock(DriverService.class);
+        orderServiceMock = Mockito.mock(OrderService.class);
+        planningService = new PlanningServiceImpl(deliveryOrderDaoMock,
+                truckDaoMock, driverDaoMock, routeServiceMock,
+                driverServiceMock, orderServiceMock);
+
+        cityA = createCity(1);
+        cityB = createCity(2);
+        routes = new HashMap<Integer, RouteInformation>();
+        trucks = new HashSet<Truck>();
+        drivers = new HashSet<Driver>();
+        workedHours = new HashMap<Integer, Float>();
+
+        when(deliveryOrderDaoMock
+                .findIdsByStatusWithCargoesAndWithoutTruck(OrderStatus.NOT_READY))
+            .thenAnswer(new Answer<List<Integer>>() {
+                @Override
+                public List<Integer> answer(InvocationOnMock invocation) {
+                    return new ArrayList<Integer>(routes.keySet());
+                }
+            });
+        when(routeServiceMock.getRouteInformationForOrders(anyCollectionOf(Integer.class)))
+            .thenReturn(routes);
+        when(truckDaoMock.findByMinCapacityWhereStatusOkAndNotAssignedToOrder(anyFloat()))
+            .thenReturn(trucks);
+        when(driverDaoMock.findWhereNotAssignedToTruck()).thenReturn(drivers);
+        when(driverServiceMock.calculateWorkingHoursForDrivers(anyCollectionOf(Integer.class)))
+            .thenReturn(workedHours);
+        when(routeServiceMock.getDistance(anyInt(), anyInt())).thenAnswer(
+                new Answer<Float>() {
+                    @Override
+                    public Float answer(InvocationOnMock invocation) {
+                        Object[] args = invocation.getArguments();
+                        return args[0].equals(args[1]) ? 0f : 100f;
+                    }
+                });
+        when(routeServiceMock.getTravelHours(anyInt(), anyInt())).thenAnswer(
+                new Answer<Float>() {
+                    @Override
+                    public Float answer(InvocationOnMock invocation) {
+                        Object[] args = invocation.getArguments();
+                        return args[0].equals(args[1]) ? 0f : 2f;
+                    }
+                });
+    }
+
+    /**
+     * Test: createPlan
+     * Case: light order gets smallest truck that fits it, heavy order gets
+     * truck in its own city; drivers without enough hours are skipped
+     */
+    @Test
+    public void testTrucksAndCrewsAreMatchedByCapacityCityAndHours()
+            throws Exception {
+        addOrder(10, cityA, 5, 10);
+        addOrder(11, cityB, 20, 100);
+        addTruck(1, cityA, 30, 1);
+        addTruck(2, cityA, 6, 1);
+        addTruck(3, cityB, 25, 2);
+        addDriver(1, cityA, 170);
+        addDriver(2, cityA, 0);
+        addDriver(3, cityB, 100);
+        addDriver(4, cityB, 0);
+        addDriver(5, cityB, 0);
+
+        DeliveryPlan plan = planningService.createPlan();
+
+        Assert.assertTrue(plan.getUnplannedOrderIds().isEmpty());
+        Map<Integer, Assignment> byOrder = byOrder(plan);
+        Assert.assertEquals(2, byOrder.get(10).getTruckId());
+        Assert.assertEquals(Arrays.asList(2), byOrder.get(10).getDriverIds());
+        Assert.assertEquals(3, byOrder.get(11).getTruckId());
+        Assert.assertEquals(new HashSet<Integer>(Arrays.asList(4, 5)),
+                new HashSet<Integer>(byOrder.get(11).getDriverIds()));
+    }
+
+    /**
+     * Test: createPlan
+     * Case: two trucks in one city compete for one driver; long order gets
+     * him, other order is left unplanned
+     */
+    @Test
+    public void testOrderWithoutDriversIsUnplanned() throws Exception {
+        addOrder(10, cityA, 5, 10);
+        addOrder(11, cityA, 5, 50);
+        addTruck(1, cityA, 10, 1);
+        addTruck(2, cityA, 10, 1);
+        addDriver(1, cityA, 0);
+
+        DeliveryPlan plan = planningService.createPlan();
+
+        Assert.assertEquals(1, plan.getAssignments().size());
+        Assert.assertEquals(11, plan.getAssignments().get(0).getOrderId());
+        Assert.assertEquals(new HashSet<Integer>(Arrays.asList(10)),
+                plan.getUnplannedOrderIds());
+    }
+
+    /**
+     * Test: createPlan
+     * Case: fleet is bigger than candidate list of order; truck in city of
+     * first pickup is chosen and only bounded number of trucks is checked
+     */
+    @Test
+    public void testOnlyBestCandidateTrucksAreChecked() throws Exception {
+        addOrder(10, cityA, 5, 10);
+        for (int id = 1; id <= 50; id++) {
+            addTruck(id, cityB, 5 + id, 1);
+        }
+        addTruck(100, cityA, 60, 1);
+        addDriver(1, cityA, 0);
+        addDriver(2, cityB, 0);
+
+        DeliveryPlan plan = planningService.createPlan();
+
+        Assert.assertEquals(1, plan.getAssignments().size());
+        Assert.assertEquals(100, plan.getAssignments().get(0).getTruckId());
+        Mockito.verify(routeServiceMock, Mockito.atMost(20)).getTravelHours(
+                anyInt(), anyInt());
+    }
+
+    /**
+     * Test: applyPlan
+     * Case: driver was assigned to other truck after plan was created
+     */
+    @Test(expected = ServiceValidationException.class)
+    public void testApplyPlanRejectsBusyDriver() throws Exception {
+        Truck truck = addTruck(1, cityA, 10, 1);
+        Driver driver = addDriver(1, cityA, 0);
+        driver.setCurrentTruck(new Truck());
+        when(truckDaoMock.find(1)).thenReturn(truck);
+        when(driverDaoMock.findByIds(anyCollectionOf(Integer.class)))
+            .thenReturn(new HashSet<Driver>(Arrays.asList(driver)));
+
+        Assignment assignment = new Assignment(10, 1, "AB12345",
+                Arrays.asList(1), 0, 10);
+        planningService.applyPlan(new DeliveryPlan(Arrays.asList(assignment),
+                new HashSet<Integer>()));
+    }
+
+    /**
+     * Test: applyPlan
+     * Case: everything is valid, truck and drivers are assigned
+     */
+    @Test
+    public void testApplyPlanAssignsTruckAndDrivers() throws Exception {
+        Truck truck = addTruck(1, cityA, 10, 1);
+        Driver driver = addDriver(1, cityA, 0);
+        when(truckDaoMock.find(1)).thenReturn(truck);
+        when(driverDaoMock.findByIds(anyCollectionOf(Integer.class)))
+            .thenReturn(new HashSet<Driver>(Arrays.asList(driver)));
+
+        Assignment assignment = new Assignment(10, 1, "AB12345",
+                Arrays.asList(1), 0, 10);
+        planningService.applyPlan(new DeliveryPlan(Arrays.asList(assignment),
+                new HashSet<Integer>()));
+
+        Mockito.verify(orderServiceMock).assignTruckToOrder(1, 10);
+        Mockito.verify(driverServiceMock).assignDriversToTruck(Arrays.asList(1), 1);
+    }
+
+    private static City createCity(int id) {
+        City city = new City();
+        city.setId(id);
+        return city;
+    }
+
+    private void addOrder(int orderId, City firstPickup, float peakLoad,
+            float hours) {
+        List<Waypoint> waypoints = new ArrayList<Waypoint>();
+        waypoints.add(new Waypoint(OperationWithCargo.PICKUP, firstPickup, null));
+        routes.put(orderId, new RouteInformation(hours, peakLoad, waypoints));
+    }
+
+    private Truck addTruck(int id, City city, float capacity, int crewSize) {
+        Truck truck = new Truck();
+        truck.setId(id);
+        truck.setCurrentCity(city);
+        truck.setCargoCapacity(capacity);
+        truck.setCrewSize(crewSize);
+        truck.setLicencePlate("AB" + (12340 + id));
+        trucks.add(truck);
+        return truck;
+    }
+
+    private Driver addDriver(int id, City city, float worked) {
+        Driver driver = new Driver();
+        driver.setId(id);
+        driver.setCurrentCity(city);
+        drivers.add(driver);
+        workedHours.put(id, worked);
+        return driver;
+    }
+
+    private static Map<Integer, Assignment> byOrder(DeliveryPlan plan) {
+        Map<Integer, Assignment> byOrder = new HashMap<Integer, Assignment>();
+        for (Assignment assignment : plan.getAssignments()) {
+            byOrder.put(assignment.getOrderId(), assignment);
+        }
+        return byOrder;
+    }
+}
@@ -0,0 +1,477 @@
+package com.tsystems.javaschool.logiweb.service.impl;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.tsystems.javaschool.logiweb.dao.CityDao;
+import com.tsystems.javaschool.logiweb.dao.DeliveryOrderDao;
+import com.tsystems.javaschool.logiweb.dao.RoadDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CacheRegionRow;
+import com.tsystems.javaschool.logiweb.dao.projections.RoadRow;
+import com.tsystems.javaschool.logiweb.entities.Cargo;
+import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
+import com.tsystems.javaschool.logiweb.entities.Road;
+import com.tsystems.javaschool.logiweb.entities.Truck;
+import com.tsystems.javaschool.logiweb.entities.status.CargoStatus;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.DistanceMatrix;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation.OperationWithCargo;
+import com.tsystems.javaschool.logiweb.service.ext.RouteInformation.Waypoint;
+
+public class RouteServiceImplTest {
+
+    private static final int ORDER_ID = 1;
+
+    private DeliveryOrderDao deliveryOrderDaoMock;
+    private RoadDao roadDaoMock;
+    private RouteServiceImpl routeService;
+    private DeliveryOrder order;
+
+    /**
+     * Cities on a line: 1 --60-- 2 --60-- 3 (1 hour per road).
+     */
+    @Before
+    public void setupMocks() throws DaoException {
+        deliveryOrderDaoMock = mock(DeliveryOrderDao.class);
+        roadDaoMock = mock(RoadDao.class);
+        CityDao cityDaoMock = mock(CityDao.class);
+
+        when(roadDaoMock.findAllRows()).thenReturn(Arrays.asList(
+                new RoadRow(1, 2, 60), new RoadRow(2, 3, 60)));
+        when(cityDaoMock.findAll()).thenReturn(
+                new HashSet<City>(Arrays.asList(new City(1), new City(2), new City(3))));
+
+        order = new DeliveryOrder();
+        order.setId(ORDER_ID);
+        when(deliveryOrderDaoMock.find(ORDER_ID,
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK)).thenReturn(order);
+
+        routeService = new RouteServiceImpl(deliveryOrderDaoMock, roadDaoMock,
+                new CityServiceImpl(cityDaoMock), new SyncTaskExecutor(),
+                new SyncTaskExecutor());
+    }
+
+    private Cargo createCargo(int id, int originCityId,
+            int destinationCityId, CargoStatus status) {
+        Cargo cargo = new Cargo();
+        cargo.setId(id);
+        cargo.setWeight(1f);
+        cargo.setStatus(status);
+        cargo.setOriginCity(new City(originCityId));
+        cargo.setDestinationCity(new City(destinationCityId));
+        return cargo;
+    }
+
+    private void placeTruckIn(int cityId) {
+        Truck truck = new Truck();
+        truck.setCurrentCity(new City(cityId));
+        order.setAssignedTruck(truck);
+    }
+
+    /**
+     * Test: getRouteInformationForOrder
+     * Case: nearest stop is taken first, but delivery never before pickup
+     */
+    @Test
+    public void testRouteVisitsNearestFeasibleStop() throws LogiwebServiceException {
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(
+                createCargo(1, 3, 1, CargoStatus.WAITING_FOR_PICKUP),
+                createCargo(2, 1, 2, CargoStatus.WAITING_FOR_PICKUP))));
+        placeTruckIn(1);
+
+        RouteInformation route = routeService.getRouteInformationForOrder(ORDER_ID);
+
+        List<Waypoint> waypoints = route.getBestOrderOfDelivery();
+        assertWaypoint(waypoints.get(0), OperationWithCargo.PICKUP, 2, 1);
+        assertWaypoint(waypoints.get(1), OperationWithCargo.DELIVER, 2, 2);
+        assertWaypoint(waypoints.get(2), OperationWithCargo.PICKUP, 1, 3);
+        assertWaypoint(waypoints.get(3), OperationWithCargo.DELIVER, 1, 1);
+
+        // 1 -> 2 -> 3 -> 1 is 4 hours of driving, plus 4 operations
+        Assert.assertEquals(4 + 4 * RouteServiceImpl.HOURS_PER_CARGO_OPERATION,
+                route.getEstimatedTime(), 0.001f);
+        // second cargo is delivered before first one is picked up
+        Assert.assertEquals(1f, route.getMaxWeightOnCourse(), 0.001f);
+    }
+
+    /**
+     * Test: getRouteInformationForOrder
+     * Case: load is counted after every waypoint, cargo in truck is loaded
+     * from the beginning
+     */
+    @Test
+    public void testLoadProfileAlongRoute() throws LogiwebServiceException {
+        Cargo delivered = createCargo(1, 1, 2, CargoStatus.DELIVERED);
+        delivered.setWeight(5f);
+        Cargo inTruck = createCargo(2, 1, 3, CargoStatus.PICKED_UP);
+        inTruck.setWeight(2f);
+        Cargo waiting = createCargo(3, 2, 3, CargoStatus.WAITING_FOR_PICKUP);
+        waiting.setWeight(3f);
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(
+                delivered, inTruck, waiting)));
+        placeTruckIn(2);
+
+        RouteInformation route = routeService.getRouteInformationForOrder(ORDER_ID);
+
+        List<Waypoint> waypoints = route.getBestOrderOfDelivery();
+        Assert.assertEquals(6, waypoints.size());
+        // both remaining deliveries are in city 3, their order is not fixed
+        float[] expectedLoads = { 5, 0, 2, 5 };
+        for (int i = 0; i < expectedLoads.length; i++) {
+            Assert.assertEquals(expectedLoads[i],
+                    waypoints.get(i).getLoadAfterOperation(), 0.001f);
+        }
+        assertWaypoint(waypoints.get(3), OperationWithCargo.PICKUP, 3, 2);
+        Assert.assertEquals(0f, waypoints.get(5).getLoadAfterOperation(), 0.001f);
+        Assert.assertEquals(5f, route.getMaxWeightOnCourse(), 0.001f);
+    }
+
+    /**
+     * Test: getRouteInformationForOrder
+     * Case: cargoes that don't fit into truck together are carried one by one
+     */
+    @Test
+    public void testRouteKeepsTruckCapacity() throws LogiwebServiceException {
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(
+                createCargo(1, 1, 3, CargoStatus.WAITING_FOR_PICKUP),
+                createCargo(2, 1, 2, CargoStatus.WAITING_FOR_PICKUP))));
+        placeTruckIn(1);
+        order.getAssignedTruck().setCargoCapacity(1f);
+
+        RouteInformation route = routeService.getRouteInformationForOrder(ORDER_ID);
+
+        List<Waypoint> waypoints = route.getBestOrderOfDelivery();
+        assertWaypoint(waypoints.get(0), OperationWithCargo.PICKUP, 2, 1);
+        assertWaypoint(waypoints.get(1), OperationWithCargo.DELIVER, 2, 2);
+        assertWaypoint(waypoints.get(2), OperationWithCargo.PICKUP, 1, 1);
+        assertWaypoint(waypoints.get(3), OperationWithCargo.DELIVER, 1, 3);
+        // 1 -> 2 -> 1 -> 3 is 4 hours of driving
+        Assert.assertEquals(4 + 4 * RouteServiceImpl.HOURS_PER_CARGO_OPERATION,
+                route.getEstimatedTime(), 0.001f);
+        Assert.assertEquals(1f, route.getMaxWeightOnCourse(), 0.001f);
+        Assert.assertFalse(route.isOverloaded());
+    }
+
+    /**
+     * Test: getRouteInformationForOrder
+     * Case: cargo alone is heavier than truck capacity, route is still built
+     * but marked as overloaded
+     */
+    @Test
+    public void testRouteOverCapacityIsOverloaded() throws LogiwebServiceException {
+        Cargo heavy = createCargo(1, 1, 2, CargoStatus.WAITING_FOR_PICKUP);
+        heavy.setWeight(3f);
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(heavy)));
+        placeTruckIn(1);
+        order.getAssignedTruck().setCargoCapacity(2f);
+
+        RouteInformation route = routeService.getRouteInformationForOrder(ORDER_ID);
+
+        Assert.assertEquals(2, route.getBestOrderOfDelivery().size());
+        Assert.assertEquals(3f, route.getMaxWeightOnCourse(), 0.001f);
+        Assert.assertTrue(route.isOverloaded());
+    }
+
+    /**
+     * Test: getRouteInformationForOrder
+     * Case: order without truck is never overloaded
+     */
+    @Test
+    public void testRouteWithoutTruckIsNotOverloaded() throws LogiwebServiceException {
+        Cargo heavy = createCargo(1, 1, 2, CargoStatus.WAITING_FOR_PICKUP);
+        heavy.setWeight(100f);
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(heavy)));
+
+        RouteInformation route = routeService.getRouteInformationForOrder(ORDER_ID);
+
+        Assert.assertFalse(route.isOverloaded());
+    }
+
+    /**
+     * Test: getRouteInformationForOrder
+     * Case: finished operations are listed first and don't add time
+     */
+    @Test
+    public void testFinishedOperationsDoNotAddTime() throws LogiwebServiceException {
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(
+                createCargo(1, 1, 2, CargoStatus.DELIVERED),
+                createCargo(2, 1, 3, CargoStatus.PICKED_UP))));
+        placeTruckIn(2);
+
+        RouteInformation route = routeService.getRouteInformationForOrder(ORDER_ID);
+
+        List<Waypoint> waypoints = route.getBestOrderOfDelivery();
+        Assert.assertEquals(4, waypoints.size());
+        assertWaypoint(waypoints.get(3), OperationWithCargo.DELIVER, 2, 3);
+        Assert.assertEquals(1 + RouteServiceImpl.HOURS_PER_CARGO_OPERATION,
+                route.getEstimatedTime(), 0.001f);
+    }
+
+    /**
+     * Test: getRouteInformationForOrder
+     * Case: destination has no roads, time is infinite
+     */
+    @Test
+    public void testUnreachableCityGivesInfiniteTime() throws LogiwebServiceException {
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(
+                createCargo(1, 1, 42, CargoStatus.WAITING_FOR_PICKUP))));
+
+        RouteInformation route = routeService.getRouteInformationForOrder(ORDER_ID);
+
+        Assert.assertTrue(Float.isInfinite(route.getEstimatedTime()));
+        Assert.assertEquals(2, route.getBestOrderOfDelivery().size());
+    }
+
+    /**
+     * Test: getRouteInformationForOrder
+     * Case: order not found
+     */
+    @Test
+    public void testRouteForMissingOrderIsNull() throws LogiwebServiceException {
+        Assert.assertNull(routeService.getRouteInformationForOrder(ORDER_ID + 1));
+    }
+
+    /**
+     * Test: getRouteInformationForOrder, evictRouteInformation
+     * Case: route is read from DB once until order is evicted
+     */
+    @Test
+    public void testRouteIsCachedUntilEvicted() throws LogiwebServiceException,
+            DaoException {
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(
+                createCargo(1, 1, 2, CargoStatus.WAITING_FOR_PICKUP))));
+
+        RouteInformation first = routeService.getRouteInformationForOrder(ORDER_ID);
+        Assert.assertSame(first, routeService.getRouteInformationForOrder(ORDER_ID));
+        verify(deliveryOrderDaoMock, times(1)).find(ORDER_ID,
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK);
+
+        routeService.evictRouteInformation(ORDER_ID);
+        RouteInformation second = routeService.getRouteInformationForOrder(ORDER_ID);
+        Assert.assertNotSame(first, second);
+        verify(deliveryOrderDaoMock, times(2)).find(ORDER_ID,
+                DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK);
+
+        CacheRegionRow stats = routeService.getRouteCacheStatistics();
+        Assert.assertEquals(1, stats.getHitCount());
+        Assert.assertEquals(2, stats.getMissCount());
+        Assert.assertEquals(1, stats.getElementCountInMemory());
+    }
+
+    /**
+     * Test: getRouteInformationForOrder
+     * Case: new road graph makes cached route outdated
+     */
+    @Test
+    public void testCachedRouteIsNotUsedWithNewGraph() throws LogiwebServiceException {
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(
+                createCargo(1, 1, 3, CargoStatus.WAITING_FOR_PICKUP))));
+        placeTruckIn(1);
+        RouteInformation first = routeService.getRouteInformationForOrder(ORDER_ID);
+
+        routeService.saveRoad(1, 3, 60);
+
+        RouteInformation second = routeService.getRouteInformationForOrder(ORDER_ID);
+        Assert.assertNotSame(first, second);
+    }
+
+    /**
+     * Test: getRouteInformationForOrders
+     * Case: uncached orders are loaded by one query and calculated in pool,
+     * cached order is not loaded again
+     */
+    @Test
+    public void testBulkRoutesAreCalculatedInParallel() throws LogiwebServiceException,
+            DaoException, InterruptedException {
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(
+                createCargo(1, 1, 2, CargoStatus.WAITING_FOR_PICKUP))));
+        RouteInformation cached = routeService.getRouteInformationForOrder(ORDER_ID);
+
+        DeliveryOrder other = new DeliveryOrder();
+        other.setId(ORDER_ID + 1);
+        other.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(
+                createCargo(2, 1, 3, CargoStatus.WAITING_FOR_PICKUP))));
+        when(deliveryOrderDaoMock.findByIds(anyCollectionOf(Integer.class),
+                eq(DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK))).thenReturn(
+                new HashSet<DeliveryOrder>(Arrays.asList(other)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            ReflectionTestUtils.setField(routeService, "routePlanningExecutor", pool);
+            Map<Integer, RouteInformation> routes = routeService
+                    .getRouteInformationForOrders(Arrays.asList(ORDER_ID, ORDER_ID + 1));
+
+            Assert.assertEquals(2, routes.size());
+            Assert.assertSame(cached, routes.get(ORDER_ID));
+            Assert.assertEquals(2 + 2 * RouteServiceImpl.HOURS_PER_CARGO_OPERATION,
+                    routes.get(ORDER_ID + 1).getEstimatedTime(), 0.001f);
+            Assert.assertSame(routes.get(ORDER_ID + 1),
+                    routeService.getRouteInformationForOrder(ORDER_ID + 1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test: getRouteInformationForOrders
+     * Case: routes that are not ready by deadline are left out
+     */
+    @Test
+    public void testBulkRoutesMissingDeadlineAreLeftOut() throws LogiwebServiceException,
+            DaoException {
+        order.setAssignedCargoes(new HashSet<Cargo>(Arrays.asList(
+                createCargo(1, 1, 2, CargoStatus.WAITING_FOR_PICKUP))));
+        when(deliveryOrderDaoMock.findByIds(anyCollectionOf(Integer.class),
+                eq(DeliveryOrder.GRAPH_WITH_CARGOES_AND_TRUCK))).thenReturn(
+                new HashSet<DeliveryOrder>(Arrays.asList(order)));
+
+        ReflectionTestUtils.setField(routeService, "bulkRouteDeadlineMillis", 50L);
+        ReflectionTestUtils.setField(routeService, "routePlanningExecutor",
+                new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        // never runs
+                    }
+                });
+
+        Assert.assertTrue(routeService.getRouteInformationForOrders(
+                Arrays.asList(ORDER_ID)).isEmpty());
+    }
+
+    /**
+     * Test: reloadRoadGraph
+     * Case: DAO fails, current graph is kept
+     */
+    @Test
+    public void testFailedReloadKeepsCurrentGraph() throws DaoException,
+            LogiwebServiceException {
+        routeService.loadRoadGraphOnStartup();
+        when(roadDaoMock.findAllRows()).thenThrow(new DaoException());
+
+        try {
+            routeService.reloadRoadGraph();
+            Assert.fail("Exception expected");
+        } catch (LogiwebServiceException e) {
+            Assert.assertEquals(2, routeService.getRoadGraph().roadCount());
+        }
+    }
+
+    /**
+     * Test: reloadRoadGraph, getDistance
+     * Case: matrix is built for loaded graph and used for lookups
+     */
+    @Test
+    public void testDistancesAreServedFromMatrix() throws LogiwebServiceException {
+        routeService.reloadRoadGraph();
+
+        DistanceMatrix matrix = routeService.getDistanceMatrix();
+        Assert.assertNotNull(matrix);
+        Assert.assertSame(routeService.getRoadGraph(), matrix.getGraph());
+        Assert.assertEquals(120f, routeService.getDistance(1, 3), 0.001f);
+        Assert.assertEquals(2f, routeService.getTravelHours(3, 1), 0.001f);
+    }
+
+    /**
+     * Test: saveRoad
+     * Case: new shortcut updates graph and matrix without full rebuild
+     */
+    @Test
+    public void testNewRoadUpdatesMatrix() throws LogiwebServiceException,
+            DaoException {
+        routeService.reloadRoadGraph();
+        DistanceMatrix before = routeService.getDistanceMatrix();
+
+        when(roadDaoMock.findAllRows()).thenReturn(Arrays.asList(
+                new RoadRow(1, 2, 60), new RoadRow(2, 3, 60),
+                new RoadRow(1, 3, 90)));
+        routeService.saveRoad(1, 3, 90);
+
+        verify(roadDaoMock).create(any(Road.class));
+        DistanceMatrix after = routeService.getDistanceMatrix();
+        Assert.assertNotSame(before, after);
+        Assert.assertEquals(3, routeService.getRoadGraph().roadCount());
+        Assert.assertEquals(90f, routeService.getDistance(3, 1), 0.001f);
+        Assert.assertEquals(120f, before.getDistance(3, 1), 0.001f);
+    }
+
+    /**
+     * Test: saveRoad
+     * Case: road that becomes longer makes routes through it longer too
+     */
+    @Test
+    public void testLongerRoadRebuildsMatrix() throws LogiwebServiceException,
+            DaoException {
+        routeService.reloadRoadGraph();
+        Road road = new Road();
+        road.setDistance(60);
+        when(roadDaoMock.findByCities(2, 3)).thenReturn(road);
+
+        when(roadDaoMock.findAllRows()).thenReturn(Arrays.asList(
+                new RoadRow(1, 2, 60), new RoadRow(2, 3, 120)));
+        routeService.saveRoad(2, 3, 120);
+
+        verify(roadDaoMock).update(road);
+        Assert.assertEquals(180f, routeService.getDistance(1, 3), 0.001f);
+        Assert.assertSame(routeService.getRoadGraph(),
+                routeService.getDistanceMatrix().getGraph());
+    }
+
+    /**
+     * Test: saveRoad
+     * Case: loops, unknown cities and roads without length are rejected
+     */
+    @Test
+    public void testInvalidRoadIsRejected() throws LogiwebServiceException,
+            DaoException {
+        try {
+            routeService.saveRoad(1, 1, 10);
+            Assert.fail("Exception expected");
+        } catch (ServiceValidationException e) {
+            // expected
+        }
+        try {
+            routeService.saveRoad(1, 42, 10);
+            Assert.fail("Exception expected");
+        } catch (ServiceValidationException e) {
+            // expected
+        }
+        try {
+            routeService.saveRoad(1, 3, 0);
+            Assert.fail("Exception expected");
+        } catch (ServiceValidationException e) {
+            // expected
+        }
+        verify(roadDaoMock, never()).create(any(Road.class));
+    }
+
+    private static void assertWaypoint(Waypoint waypoint,
+            OperationWithCargo operation, int cargoId, int cityId) {
+        Assert.assertEquals(operation, waypoint.getOperation());
+        Assert.assertEquals(cargoId, waypoint.getCargo().getId());
+        Assert.assertEquals(cityId, waypoint.getCity().getId());
+    }
+}
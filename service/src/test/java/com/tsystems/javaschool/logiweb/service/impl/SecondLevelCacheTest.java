@@ -0,0 +1,219 @@
+package com.tsystems.javaschool.logiweb.service.impl;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tsystems.javaschool.logiweb.dao.CacheStatisticsDao;
+import com.tsystems.javaschool.logiweb.dao.DriverDao;
+import com.tsystems.javaschool.logiweb.dao.TruckDao;
+import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CacheRegionRow;
+import com.tsystems.javaschool.logiweb.entities.City;
+import com.tsystems.javaschool.logiweb.entities.Driver;
+import com.tsystems.javaschool.logiweb.entities.Truck;
+import com.tsystems.javaschool.logiweb.entities.status.DriverStatus;
+import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
+import com.tsystems.javaschool.logiweb.model.TruckModel;
+import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
+import com.tsystems.javaschool.logiweb.service.validators.LicensePlateValidatorImpl;
+
+/**
+ * Second level and query cache against embedded H2 database: repeated lookups
+ * are served without SQL and changes made through service layer are never
+ * hidden by cached data.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:test-context-h2.xml")
+public class SecondLevelCacheTest {
+
+    private static final String PLATE = "AB12345";
+    private static final String NEW_PLATE = "CD54321";
+    private static final int EMPLOYEE_ID = 777;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TruckDao truckDao;
+
+    @Autowired
+    private DriverDao driverDao;
+
+    @Autowired
+    private CacheStatisticsDao cacheStatisticsDao;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private int truckId;
+    private int cityId;
+
+    @Before
+    public void populateDatabase() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics();
+        entityManagerFactory.getCache().evictAll();
+
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                City city = new City();
+                city.setName("City");
+                entityManager.persist(city);
+                cityId = city.getId();
+
+                Truck truck = new Truck();
+                truck.setLicencePlate(PLATE);
+                truck.setCrewSize(2);
+                truck.setCargoCapacity(1000f);
+                truck.setStatus(TruckStatus.OK);
+                truck.setCurrentCity(city);
+                entityManager.persist(truck);
+                truckId = truck.getId();
+
+                Driver driver = new Driver();
+                driver.setEmployeeId(EMPLOYEE_ID);
+                driver.setName("Name");
+                driver.setSurname("Surname");
+                driver.setStatus(DriverStatus.FREE);
+                driver.setCurrentCity(city);
+                entityManager.persist(driver);
+            }
+        });
+    }
+
+    @After
+    public void cleanDatabase() {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                entityManager.createQuery("DELETE FROM Driver").executeUpdate();
+                entityManager.createQuery("DELETE FROM Truck").executeUpdate();
+                entityManager.createQuery("DELETE FROM City").executeUpdate();
+            }
+        });
+    }
+
+    @Test
+    public void testRepeatedLicensePlateLookupIssuesNoStatements() throws DaoException {
+        findTruckByPlate(PLATE);
+
+        statistics.clear();
+        Truck truck = findTruckByPlate(PLATE);
+
+        Assert.assertEquals(PLATE, truck.getLicencePlate());
+        Assert.assertEquals(0, statistics.getPrepareStatementCount());
+        Assert.assertTrue(findRegion("logiweb.query.truckByLicensePlate").getHitCount() > 0);
+        Assert.assertTrue(findRegion(Truck.CACHE_REGION).getHitCount() > 0);
+    }
+
+    @Test
+    public void testEditedLicensePlateIsNotHiddenByCachedLookup() {
+        findTruckByPlate(PLATE);
+
+        final TrucksSeviceImpl truckService = new TrucksSeviceImpl(truckDao,
+                driverDao, new LicensePlateValidatorImpl(), null);
+        final TruckModel edited = new TruckModel();
+        edited.setId(truckId);
+        edited.setLicencePlate(NEW_PLATE);
+        edited.setCrewSize(2);
+        edited.setCargoCapacity(1000f);
+        edited.setStatus(TruckStatus.FAULTY);
+        edited.setCurrentCityId(cityId);
+
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                try {
+                    truckService.editTruck(edited);
+                } catch (LogiwebServiceException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        Assert.assertNull(findTruckByPlate(PLATE));
+        Truck truck = findTruckByPlate(NEW_PLATE);
+        Assert.assertEquals(truckId, truck.getId());
+        Assert.assertEquals(TruckStatus.FAULTY, truck.getStatus());
+    }
+
+    @Test
+    public void testDriverChangeIsVisibleThroughCachedEmployeeIdLookup() {
+        findDriverByEmployeeId();
+
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                try {
+                    Driver driver = driverDao.findByEmployeeId(EMPLOYEE_ID);
+                    driver.setStatus(DriverStatus.RESTING_EN_ROUT);
+                    driverDao.update(driver);
+                } catch (DaoException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        Assert.assertEquals(DriverStatus.RESTING_EN_ROUT,
+                findDriverByEmployeeId().getStatus());
+    }
+
+    private Truck findTruckByPlate(final String plate) {
+        return transactionTemplate.execute(new TransactionCallback<Truck>() {
+            @Override
+            public Truck doInTransaction(TransactionStatus status) {
+                try {
+                    return truckDao.findByLicensePlate(plate);
+                } catch (DaoException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    private Driver findDriverByEmployeeId() {
+        return transactionTemplate.execute(new TransactionCallback<Driver>() {
+            @Override
+            public Driver doInTransaction(TransactionStatus status) {
+                try {
+                    return driverDao.findByEmployeeId(EMPLOYEE_ID);
+                } catch (DaoException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+    }
+
+    private CacheRegionRow findRegion(String regionName) throws DaoException {
+        for (CacheRegionRow row : cacheStatisticsDao.findRegionStatistics()) {
+            if (row.getRegionName().equals(regionName)) {
+                return row;
+            }
+        }
+        throw new AssertionError("Region " + regionName + " not found");
+    }
+}
@@ -7,30 +7,46 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.tsystems.javaschool.logiweb.dao.DriverDao;
 import com.tsystems.javaschool.logiweb.dao.TruckDao;
 import com.tsystems.javaschool.logiweb.dao.exceptions.DaoException;
+import com.tsystems.javaschool.logiweb.dao.projections.CrewMemberRow;
+import com.tsystems.javaschool.logiweb.dao.projections.TruckRow;
+import com.tsystems.javaschool.logiweb.entities.City;
 import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
 import com.tsystems.javaschool.logiweb.entities.Driver;
 import com.tsystems.javaschool.logiweb.entities.Truck;
 import com.tsystems.javaschool.logiweb.entities.status.OrderStatus;
+import com.tsystems.javaschool.logiweb.entities.status.TruckStatus;
 import com.tsystems.javaschool.logiweb.model.TruckModel;
+import com.tsystems.javaschool.logiweb.service.RouteService;
 import com.tsystems.javaschool.logiweb.service.TrucksService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
+import com.tsystems.javaschool.logiweb.service.ext.PageRequest;
+import com.tsystems.javaschool.logiweb.service.ext.ResultPage;
 import com.tsystems.javaschool.logiweb.service.validators.LicensePlateValidator;
 
 public class TrucksSeviceimplTest {
     
     private TruckDao truckDaoMock;
+    private DriverDao driverDaoMock;
     private LicensePlateValidator plateValidator;
+    private RouteService routeServiceMock;
     
     private void mockSetup() {
         truckDaoMock = mock(TruckDao.class);
+        driverDaoMock = mock(DriverDao.class);
+        routeServiceMock = mock(RouteService.class);
         plateValidator = mock(LicensePlateValidator.class);
         when(plateValidator.validateLicensePlate(any(String.class)))
                 .thenReturn(true);
@@ -44,7 +60,8 @@ public class TrucksSeviceimplTest {
     public void testEditTruckWhenIdNotSet() throws ServiceValidationException,
             LogiwebServiceException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         TruckModel tm = new TruckModel();
         tm.setId(null);
@@ -60,7 +77,8 @@ public class TrucksSeviceimplTest {
             throws ServiceValidationException, LogiwebServiceException,
             DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         //needed to not fail other checks and validations
         TruckModel tm = new TruckModel();
@@ -91,7 +109,8 @@ public class TrucksSeviceimplTest {
             throws ServiceValidationException, LogiwebServiceException,
             DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         //needed to not fail other checks and validations
         TruckModel tm = new TruckModel();
@@ -124,7 +143,8 @@ public class TrucksSeviceimplTest {
             throws ServiceValidationException, LogiwebServiceException,
             DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         TruckModel tm = new TruckModel();
         tm.setId(1);
@@ -150,7 +170,8 @@ public class TrucksSeviceimplTest {
             throws ServiceValidationException, LogiwebServiceException,
             DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         TruckModel tm = new TruckModel();
         tm.setId(1);
@@ -177,7 +198,8 @@ public class TrucksSeviceimplTest {
             throws ServiceValidationException, LogiwebServiceException,
             DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         TruckModel tm = new TruckModel();
         tm.setId(1);
@@ -206,7 +228,8 @@ public class TrucksSeviceimplTest {
             throws ServiceValidationException, LogiwebServiceException,
             DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         TruckModel tm = new TruckModel();
         tm.setId(1);
@@ -233,7 +256,8 @@ public class TrucksSeviceimplTest {
             throws ServiceValidationException, LogiwebServiceException,
             DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         TruckModel tm = new TruckModel();
         tm.setLicencePlate("test");
@@ -256,7 +280,8 @@ public class TrucksSeviceimplTest {
             throws ServiceValidationException, LogiwebServiceException,
             DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         //needed to not fail other checks and validations
         TruckModel tm = new TruckModel();
@@ -280,7 +305,8 @@ public class TrucksSeviceimplTest {
             throws ServiceValidationException, LogiwebServiceException,
             DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         TruckModel tm = new TruckModel();
         tm.setId(1);
@@ -305,7 +331,8 @@ public class TrucksSeviceimplTest {
     public void testRemoveTruckWhenTruckNotExist() throws ServiceValidationException,
             LogiwebServiceException, DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         when(truckDaoMock.find(1))
         .thenReturn(null);
@@ -321,7 +348,8 @@ public class TrucksSeviceimplTest {
     public void testRemoveTruckWhenTruckHaveAssignedOrder() throws ServiceValidationException,
             LogiwebServiceException, DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         Truck t = new Truck();
         t.setAssignedDeliveryOrder(new DeliveryOrder());
@@ -340,7 +368,8 @@ public class TrucksSeviceimplTest {
     public void testRemoveTruckWhenTruckHaveAssignedDrivers() throws ServiceValidationException,
             LogiwebServiceException, DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         Truck t = new Truck();
         t.setAssignedDeliveryOrder(null);
@@ -360,7 +389,8 @@ public class TrucksSeviceimplTest {
     public void testRemoveTruckWhenEverythinOk() throws ServiceValidationException,
             LogiwebServiceException, DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         Truck t = new Truck();
         t.setAssignedDeliveryOrder(null);
@@ -381,9 +411,10 @@ public class TrucksSeviceimplTest {
     public void testRemoveAssignedOrderWhenTruckNotExist() throws ServiceValidationException,
             LogiwebServiceException, DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
-        when(truckDaoMock.find(1))
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
         .thenReturn(null);
 
         truckService.removeAssignedOrderAndDriversFromTruck(1);
@@ -397,12 +428,13 @@ public class TrucksSeviceimplTest {
     public void testRemoveAssignedOrderAndDriversFromTruckWhenNoOrder() throws ServiceValidationException,
             LogiwebServiceException, DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         Truck t = new Truck();
         t.setAssignedDeliveryOrder(null);
         
-        when(truckDaoMock.find(1))
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
         .thenReturn(t);
 
         truckService.removeAssignedOrderAndDriversFromTruck(1);
@@ -416,14 +448,15 @@ public class TrucksSeviceimplTest {
     public void testRemoveAssignedOrderWhenOrderStatusWrong() throws ServiceValidationException,
             LogiwebServiceException, DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         Truck t = new Truck();
         DeliveryOrder o = new DeliveryOrder();
         o.setStatus(OrderStatus.READY_TO_GO);
         t.setAssignedDeliveryOrder(o);
         
-        when(truckDaoMock.find(1))
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
         .thenReturn(t);
 
         truckService.removeAssignedOrderAndDriversFromTruck(1);
@@ -437,18 +470,121 @@ public class TrucksSeviceimplTest {
     public void testRemoveAssignedOrderWhenEvyrithingOk() throws ServiceValidationException,
             LogiwebServiceException, DaoException {
         mockSetup();
-        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, plateValidator);
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
         
         Truck t = new Truck();
         t.setAssignedDeliveryOrder(new DeliveryOrder());
         t.setDrivers(new HashSet<Driver>());
         
-        when(truckDaoMock.find(1))
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW))
         .thenReturn(t);
 
         truckService.removeAssignedOrderAndDriversFromTruck(1);
         Mockito.verify(truckDaoMock, times(1)).update(t);
     }
     
+    /**
+     * Test: findTrucksPage
+     * Case: sort key is not allowed, default sort is used; crew is attached
+     * to its truck
+     */
+    @Test
+    public void testFindTrucksPageWhenSortNotAllowed() throws LogiwebServiceException, DaoException {
+        mockSetup();
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
+        
+        TruckRow row = new TruckRow(1, "AB12345", 2, 10f, TruckStatus.OK, 3, null);
+        Map<String, Object> noFilters = new HashMap<String, Object>();
+        
+        when(truckDaoMock.findRowsFiltered(noFilters, "licencePlate", true, 0, 25))
+        .thenReturn(Arrays.asList(row));
+        when(truckDaoMock.countFiltered(noFilters))
+        .thenReturn(1L);
+        when(driverDaoMock.findCrewMembersOfTrucks(Arrays.asList(1)))
+        .thenReturn(Arrays.asList(new CrewMemberRow(1, 7, "Ivanov"),
+                new CrewMemberRow(2, 8, "Petrov")));
+        
+        ResultPage<TruckModel> page = truckService.findTrucksPage(null, null,
+                new PageRequest(1, 25, "deletedRecord"));
+        
+        Assert.assertEquals(1, page.getItems().size());
+        Assert.assertEquals(1, page.getTotalPages());
+        Assert.assertFalse(page.isHasNext());
+        Assert.assertEquals(1, page.getItems().get(0).getDriversIdsAndSurnames().size());
+        Assert.assertEquals("Ivanov", page.getItems().get(0).getDriversIdsAndSurnames().get(7));
+    }
+    
+    /**
+     * Test: findBestFreeTrucks
+     * Case: trucks in city of first pickup go first, tightest fit first in
+     * each group, too small trucks are skipped, result is limited
+     */
+    @Test
+    public void testFindBestFreeTrucksRanking() throws LogiwebServiceException, DaoException {
+        mockSetup();
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
+        
+        when(truckDaoMock.findByMinCapacityWhereStatusOkAndNotAssignedToOrder(0))
+        .thenReturn(new HashSet<Truck>(Arrays.asList(createFreeTruck(1, 20f, 1),
+                createFreeTruck(2, 8f, 2), createFreeTruck(3, 12f, 1),
+                createFreeTruck(4, 4f, 1), createFreeTruck(5, 9f, 2))));
+        
+        List<TruckModel> trucks = truckService.findBestFreeTrucks(5f, 1, 4);
+        
+        Assert.assertEquals(4, trucks.size());
+        Assert.assertEquals(Integer.valueOf(3), trucks.get(0).getId());
+        Assert.assertEquals(Integer.valueOf(1), trucks.get(1).getId());
+        Assert.assertEquals(Integer.valueOf(2), trucks.get(2).getId());
+        Assert.assertEquals(Integer.valueOf(5), trucks.get(3).getId());
+    }
+    
+    /**
+     * Test: findBestFreeTrucks
+     * Case: index follows assignment, edit and release of truck without
+     * reading trucks from DB again
+     */
+    @Test
+    public void testFreeTruckIndexFollowsTruckChanges() throws ServiceValidationException,
+            LogiwebServiceException, DaoException {
+        mockSetup();
+        TrucksService truckService = new TrucksSeviceImpl(truckDaoMock, driverDaoMock, plateValidator,
+                routeServiceMock);
+        Truck truck = createFreeTruck(1, 10f, 1);
+        when(truckDaoMock.findByMinCapacityWhereStatusOkAndNotAssignedToOrder(0))
+        .thenReturn(new HashSet<Truck>(Arrays.asList(truck)));
+        Assert.assertEquals(1, truckService.findBestFreeTrucks(5f, 1, 10).size());
+        
+        when(truckDaoMock.find(1)).thenReturn(truck);
+        truck.setAssignedDeliveryOrder(new DeliveryOrder());
+        truckService.updateFreeTruckIndex(1);
+        Assert.assertTrue(truckService.findBestFreeTrucks(5f, 1, 10).isEmpty());
+        
+        truck.setDrivers(new HashSet<Driver>());
+        when(truckDaoMock.find(1, Truck.GRAPH_WITH_CREW)).thenReturn(truck);
+        truckService.removeAssignedOrderAndDriversFromTruck(1);
+        Assert.assertEquals(1, truckService.findBestFreeTrucks(5f, 1, 10).size());
+        
+        truck.setStatus(TruckStatus.FAULTY);
+        truckService.updateFreeTruckIndex(1);
+        Assert.assertTrue(truckService.findBestFreeTrucks(5f, 1, 10).isEmpty());
+        
+        Mockito.verify(truckDaoMock, times(1))
+        .findByMinCapacityWhereStatusOkAndNotAssignedToOrder(0);
+    }
     
+    private static Truck createFreeTruck(int id, float capacity, int cityId) {
+        City city = new City();
+        city.setId(cityId);
+        Truck truck = new Truck();
+        truck.setId(id);
+        truck.setLicencePlate("AB" + (12340 + id));
+        truck.setCrewSize(2);
+        truck.setCargoCapacity(capacity);
+        truck.setStatus(TruckStatus.OK);
+        truck.setCurrentCity(city);
+        return truck;
+    }
 }
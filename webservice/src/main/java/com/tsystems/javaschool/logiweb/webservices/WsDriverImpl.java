@@ -7,14 +7,11 @@ import org.jboss.logging.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.tsystems.javaschool.logiweb.entities.DeliveryOrder;
-import com.tsystems.javaschool.logiweb.entities.Driver;
-import com.tsystems.javaschool.logiweb.entities.Truck;
+import com.tsystems.javaschool.logiweb.model.DriverModel;
 import com.tsystems.javaschool.logiweb.service.CargoService;
 import com.tsystems.javaschool.logiweb.service.DriverService;
 import com.tsystems.javaschool.logiweb.service.OrderService;
 import com.tsystems.javaschool.logiweb.service.RouteService;
-import com.tsystems.javaschool.logiweb.service.TrucksService;
 import com.tsystems.javaschool.logiweb.service.exceptions.LogiwebServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.RecordNotFoundServiceException;
 import com.tsystems.javaschool.logiweb.service.exceptions.ServiceValidationException;
@@ -36,8 +33,6 @@ public class WsDriverImpl implements WsDriver {
     private CargoService cargoService;
     @Autowired
     private OrderService ordersAndCargoService;
-    @Autowired
-    private TrucksService truckService;
 
     /**
      * {@inheritDoc}
@@ -117,18 +112,7 @@ public class WsDriverImpl implements WsDriver {
     public void setStatusDeliveredForCargoAndFinilizeOrderIfPossible(int cargoId)
             throws NotFoundException, IllegalStateException {
         try {
-            cargoService.setDeliveredStatus(cargoId);
-
-            DeliveryOrder order = cargoService.findById(cargoId)
-                    .getOrderForThisCargo();
-            Truck assignedToTruck = order.getAssignedTruck();
-            int orderId = order.getId();
-            if (ordersAndCargoService.isAllCargoesInOrderDelivered(orderId)) {
-                ordersAndCargoService.setStatusDeliveredForOrder(orderId);
-                truckService
-                        .removeAssignedOrderAndDriversFromTruck(assignedToTruck
-                                .getId());
-            }
+            ordersAndCargoService.deliverCargo(cargoId);
         } catch (RecordNotFoundServiceException e) {
             throw new NotFoundException();
         } catch (LogiwebServiceException e) {
@@ -141,7 +125,7 @@ public class WsDriverImpl implements WsDriver {
     public DriverInfo getDriverInfo(int driverEmployeeId)
             throws NotFoundException {
         try {
-            Driver driver = driverService
+            DriverModel driver = driverService
                     .findDriverByEmployeeId(driverEmployeeId);
 
             if (driver == null) {
@@ -158,15 +142,12 @@ public class WsDriverImpl implements WsDriver {
             info.setWorkingHoursInThisMonth(driverService
                     .calculateWorkingHoursForDriver(driver.getId()));
             
-            if (driver.getCurrentTruck() != null
-                    && driver.getCurrentTruck().getAssignedDeliveryOrder() != null) {
+            if (driver.getOrderId() != null) {
                 RouteInformation routeInfo = routeService
-                        .getRouteInformationForOrder(driver.getCurrentTruck()
-                                .getAssignedDeliveryOrder().getId());
+                        .getRouteInformationForOrder(driver.getOrderId());
                 info.setRouteInformation(routeInfo);
 
-                info.setAssignedOrderStatus(driver.getCurrentTruck()
-                        .getAssignedDeliveryOrder().getStatus());
+                info.setAssignedOrderStatus(driver.getOrderStatus());
             }
             
             return info;